@@ -1,9 +1,11 @@
 package com.github.pulsebeat02.minecraftmedialibrary;
 
+import com.github.pulsebeat02.minecraftmedialibrary.cache.MediaCache;
 import org.bukkit.plugin.Plugin;
 
 import java.nio.file.Path;
 
+import com.github.pulsebeat02.minecraftmedialibrary.image.MapImageStore;
 import com.github.pulsebeat02.minecraftmedialibrary.listener.PlayerJoinLeaveRegistration;
 import com.github.pulsebeat02.minecraftmedialibrary.nms.PacketHandler;
 import com.github.pulsebeat02.minecraftmedialibrary.vlc.os.SilentOSDependentSolution;
@@ -47,6 +49,20 @@ public interface MediaLibrary {
    */
   PlayerJoinLeaveRegistration getRegistrationHandler();
 
+  /**
+   * Gets the store of dithered map images.
+   *
+   * @return the image store
+   */
+  MapImageStore getImageStore();
+
+  /**
+   * Gets the disk cache of downloaded and converted media.
+   *
+   * @return the media cache
+   */
+  MediaCache getCache();
+
   /**
    * Gets the path of the parent library folder.
    *
@@ -0,0 +1,646 @@
+/*............................................................................................
+. Copyright © 2021 Brandon Li                                                               .
+.                                                                                           .
+. Permission is hereby granted, free of charge, to any person obtaining a copy of this      .
+. software and associated documentation files (the “Software”), to deal in the Software     .
+. without restriction, including without limitation the rights to use, copy, modify, merge, .
+. publish, distribute, sublicense, and/or sell copies of the Software, and to permit        .
+. persons to whom the Software is furnished to do so, subject to the following conditions:  .
+.                                                                                           .
+. The above copyright notice and this permission notice shall be included in all copies     .
+. or substantial portions of the Software.                                                  .
+.                                                                                           .
+. THE SOFTWARE IS PROVIDED “AS IS”, WITHOUT WARRANTY OF ANY KIND,                           .
+.  EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF                       .
+.   MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND                                   .
+.   NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS                     .
+.   BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN                      .
+.   ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN                       .
+.   CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE                        .
+.   SOFTWARE.                                                                               .
+............................................................................................*/
+
+package com.github.pulsebeat02.minecraftmedialibrary.cache;
+
+import com.github.pulsebeat02.minecraftmedialibrary.json.GsonHandler;
+import com.github.pulsebeat02.minecraftmedialibrary.logger.Logger;
+import com.google.common.base.Preconditions;
+import com.google.common.io.BaseEncoding;
+import com.google.gson.JsonParseException;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.regex.Pattern;
+
+/**
+ * A cache of media files on disk, bounded by a disk quota. Entries are addressed by a key, which is
+ * usually the hash of the source URL or of the contents of the source file, and every entry holds
+ * variants of the media, such as the raw video, its audio or a transcoded video. Every variant is
+ * a file named after the variant in the folder of its key.
+ *
+ * <p>When the cache grows beyond its quota, the variants which were used least recently are
+ * removed. An index of the variants and their last use is kept in the cache folder, so the cache
+ * and the order of eviction survive restarts, and files the index doesn't know of are removed.
+ *
+ * <p>Variants are filled outside of the lock of the cache, so readers of other variants are never
+ * blocked by a download or a transcode. Callers asking for a variant which is being filled wait
+ * for it instead of filling it again. Variants which are read through a {@link Lease} are not
+ * evicted until the lease is closed.
+ *
+ * <p>The cache is loaded lazily on first use.
+ */
+public final class MediaCache {
+
+  /** The default quota of the cache in bytes. */
+  public static final long DEFAULT_QUOTA = 4L * 1024 * 1024 * 1024;
+
+  private static final int VERSION = 1;
+  private static final String INDEX = "index.json";
+  private static final String PART = ".part";
+  private static final Pattern NAME = Pattern.compile("[A-Za-z0-9_-][A-Za-z0-9._-]*");
+
+  private final Path folder;
+  private final Map<String, Entry> entries;
+  private final Map<String, CompletableFuture<Path>> filling;
+  private volatile long quota;
+  private volatile boolean loaded;
+  private long size;
+
+  /**
+   * Instantiates a new MediaCache with the default quota.
+   *
+   * @param folder the folder of the cache
+   */
+  public MediaCache(@NotNull final Path folder) {
+    this(folder, DEFAULT_QUOTA);
+  }
+
+  /**
+   * Instantiates a new MediaCache.
+   *
+   * @param folder the folder of the cache
+   * @param quota the quota in bytes
+   */
+  public MediaCache(@NotNull final Path folder, final long quota) {
+    Preconditions.checkArgument(quota > 0, String.format("Invalid Quota! (%d)", quota));
+    this.folder = folder;
+    this.quota = quota;
+    entries = new LinkedHashMap<>(16, 0.75F, true);
+    filling = new HashMap<>();
+  }
+
+  /**
+   * Gets the key of a source, such as a URL.
+   *
+   * @param source the source
+   * @return the key, which is the SHA-1 hash of the source
+   */
+  @NotNull
+  public static String getKey(@NotNull final String source) {
+    final MessageDigest digest = createDigest();
+    digest.update(source.getBytes(StandardCharsets.UTF_8));
+    return BaseEncoding.base16().lowerCase().encode(digest.digest());
+  }
+
+  /**
+   * Gets the key of a file by its contents, so copies of the same file share their entry.
+   *
+   * @param file the file
+   * @return the key, which is the SHA-1 hash of the contents of the file
+   * @throws IOException if the file couldn't be read
+   */
+  @NotNull
+  public static String getKey(@NotNull final Path file) throws IOException {
+    final MessageDigest digest = createDigest();
+    try (final InputStream stream = Files.newInputStream(file)) {
+      final byte[] buffer = new byte[64 * 1024];
+      for (int read; (read = stream.read(buffer)) > -1; ) {
+        digest.update(buffer, 0, read);
+      }
+    }
+    return BaseEncoding.base16().lowerCase().encode(digest.digest());
+  }
+
+  /**
+   * Gets a variant if it is cached, marking it as used.
+   *
+   * @param key the key
+   * @param variant the variant, such as "audio.ogg"
+   * @return a lease of the variant, or null if it isn't cached
+   */
+  @Nullable
+  public synchronized Lease get(@NotNull final String key, @NotNull final String variant) {
+    load();
+    final Entry entry = entries.get(getId(key, variant));
+    if (entry == null) {
+      return null;
+    }
+    final Path file = resolve(key, variant);
+    if (!Files.exists(file)) {
+      remove(entry);
+      return null;
+    }
+    entry.accessed = System.currentTimeMillis();
+    return new Lease(entry, file);
+  }
+
+  /**
+   * Gets a variant, filling it first if it isn't cached. If another thread is already filling the
+   * variant, this waits for it to finish instead.
+   *
+   * @param key the key
+   * @param variant the variant, such as "audio.ogg"
+   * @param source the source of the media, which is kept in the index for reference
+   * @param filler the filler which writes the variant
+   * @return a lease of the variant
+   * @throws IOException if the variant couldn't be filled
+   */
+  @NotNull
+  public Lease get(
+      @NotNull final String key,
+      @NotNull final String variant,
+      @NotNull final String source,
+      @NotNull final Filler filler)
+      throws IOException {
+    final CompletableFuture<Path> future = new CompletableFuture<>();
+    final CompletableFuture<Path> pending;
+    synchronized (this) {
+      final Lease lease = get(key, variant);
+      if (lease != null) {
+        return lease;
+      }
+      pending = filling.putIfAbsent(getId(key, variant), future);
+    }
+    if (pending != null) {
+      return await(key, variant, source, filler, pending);
+    }
+    return fill(key, variant, source, filler, future);
+  }
+
+  /**
+   * Waits for another thread to fill a variant.
+   *
+   * @param key the key
+   * @param variant the variant
+   * @param source the source
+   * @param filler the filler to use if the variant was evicted in the meantime
+   * @param future the future of the other thread
+   * @return a lease of the variant
+   * @throws IOException if the other thread couldn't fill the variant
+   */
+  @NotNull
+  private Lease await(
+      @NotNull final String key,
+      @NotNull final String variant,
+      @NotNull final String source,
+      @NotNull final Filler filler,
+      @NotNull final CompletableFuture<Path> future)
+      throws IOException {
+    try {
+      future.join();
+    } catch (final CompletionException e) {
+      throw new IOException(
+          String.format("Couldn't Fill Cached Media! (%s)", getId(key, variant)), e.getCause());
+    }
+    final Lease lease = get(key, variant);
+    return lease != null ? lease : get(key, variant, source, filler);
+  }
+
+  /**
+   * Fills a variant into a temporary file and moves it into the cache once it is complete.
+   *
+   * @param key the key
+   * @param variant the variant
+   * @param source the source
+   * @param filler the filler
+   * @param future the future other threads asking for the variant wait for
+   * @return a lease of the variant
+   * @throws IOException if the variant couldn't be filled
+   */
+  @NotNull
+  private Lease fill(
+      @NotNull final String key,
+      @NotNull final String variant,
+      @NotNull final String source,
+      @NotNull final Filler filler,
+      @NotNull final CompletableFuture<Path> future)
+      throws IOException {
+    final Path target = resolve(key, variant);
+    final Path part = target.resolveSibling(variant + PART);
+    try {
+      Files.createDirectories(target.getParent());
+      Files.deleteIfExists(part);
+      filler.fill(part);
+      final Lease lease = put(key, variant, source, part);
+      future.complete(lease.getPath());
+      return lease;
+    } catch (final IOException | RuntimeException e) {
+      synchronized (this) {
+        filling.remove(getId(key, variant));
+        delete(part);
+      }
+      future.completeExceptionally(e);
+      throw e;
+    } finally {
+      synchronized (this) {
+        filling.remove(getId(key, variant));
+      }
+    }
+  }
+
+  /**
+   * Moves a finished file into the cache as a variant, replacing the variant if it was cached.
+   *
+   * @param key the key
+   * @param variant the variant, such as "audio.ogg"
+   * @param source the source of the media, which is kept in the index for reference
+   * @param file the file, which is moved into the cache
+   * @return a lease of the variant
+   * @throws IOException if the file couldn't be moved
+   */
+  @NotNull
+  public synchronized Lease put(
+      @NotNull final String key,
+      @NotNull final String variant,
+      @NotNull final String source,
+      @NotNull final Path file)
+      throws IOException {
+    load();
+    final Path target = resolve(key, variant);
+    Files.createDirectories(target.getParent());
+    if (!file.toAbsolutePath().equals(target.toAbsolutePath())) {
+      try {
+        Files.move(
+            file, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+      } catch (final AtomicMoveNotSupportedException e) {
+        Files.move(file, target, StandardCopyOption.REPLACE_EXISTING);
+      }
+    }
+    final Entry entry = new Entry(key, variant, source, Files.size(target));
+    final Entry previous = entries.put(getId(key, variant), entry);
+    if (previous != null) {
+      size -= previous.size;
+    }
+    size += entry.size;
+    final Lease lease = new Lease(entry, target);
+    evict();
+    save();
+    return lease;
+  }
+
+  /**
+   * Gets the variants of a key which are cached.
+   *
+   * @param key the key
+   * @return the variants
+   */
+  @NotNull
+  public synchronized List<String> getVariants(@NotNull final String key) {
+    load();
+    final List<String> variants = new ArrayList<>();
+    for (final Entry entry : entries.values()) {
+      if (entry.key.equals(key)) {
+        variants.add(entry.variant);
+      }
+    }
+    return variants;
+  }
+
+  /**
+   * Removes a variant from the cache.
+   *
+   * @param key the key
+   * @param variant the variant
+   * @throws IOException if the index couldn't be written
+   */
+  public synchronized void remove(@NotNull final String key, @NotNull final String variant)
+      throws IOException {
+    load();
+    final Entry entry = entries.get(getId(key, variant));
+    if (entry != null) {
+      remove(entry);
+      save();
+    }
+  }
+
+  /**
+   * Removes an entry and deletes its file.
+   *
+   * @param entry the entry
+   */
+  private void remove(@NotNull final Entry entry) {
+    entries.remove(getId(entry.key, entry.variant));
+    size -= entry.size;
+    delete(resolve(entry.key, entry.variant));
+  }
+
+  /** Removes the least recently used variants which aren't being read until the quota is met. */
+  private void evict() {
+    final Iterator<Entry> iterator = entries.values().iterator();
+    while (size > quota && iterator.hasNext()) {
+      final Entry entry = iterator.next();
+      if (entry.readers > 0) {
+        continue;
+      }
+      iterator.remove();
+      size -= entry.size;
+      delete(resolve(entry.key, entry.variant));
+      Logger.info(
+          String.format(
+              "Evicted Cached Media %s (%d Bytes)", getId(entry.key, entry.variant), entry.size));
+    }
+  }
+
+  /**
+   * Deletes the file of a variant, and the folder of its key if it is empty afterwards and no
+   * variant of the key is being filled.
+   *
+   * @param file the file
+   */
+  private void delete(@NotNull final Path file) {
+    try {
+      Files.deleteIfExists(file);
+      final Path parent = file.getParent();
+      final String prefix = String.format("%s/", parent.getFileName());
+      if (filling.keySet().stream().anyMatch(id -> id.startsWith(prefix))) {
+        return;
+      }
+      try (final DirectoryStream<Path> stream = Files.newDirectoryStream(parent)) {
+        if (!stream.iterator().hasNext()) {
+          Files.delete(parent);
+        }
+      }
+    } catch (final IOException e) {
+      Logger.warn(String.format("Couldn't Delete Cached Media %s", file));
+    }
+  }
+
+  /** Loads the index and removes files it doesn't know of if it wasn't loaded yet. */
+  private void load() {
+    if (loaded) {
+      return;
+    }
+    loaded = true;
+    final List<Entry> indexed = new ArrayList<>();
+    final Path file = folder.resolve(INDEX);
+    if (Files.exists(file)) {
+      try (final Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+        final Index index = GsonHandler.getGson().fromJson(reader, Index.class);
+        if (index != null && index.version == VERSION && index.entries != null) {
+          indexed.addAll(index.entries);
+        }
+      } catch (final IOException | JsonParseException e) {
+        Logger.warn("Couldn't Read the Media Cache Index, Starting Empty");
+      }
+    }
+    indexed.sort(Comparator.comparingLong(entry -> entry.accessed));
+    for (final Entry entry : indexed) {
+      final Path variant = resolve(entry.key, entry.variant);
+      try {
+        if (Files.size(variant) == entry.size) {
+          entries.put(getId(entry.key, entry.variant), entry);
+          size += entry.size;
+        }
+      } catch (final IOException ignored) {
+      }
+    }
+    removeUnknown();
+    Logger.info(String.format("Loaded %d Cached Media Files (%d Bytes)", entries.size(), size));
+    evict();
+  }
+
+  /** Removes files in the cache folder which are not in the index, such as unfinished variants. */
+  private void removeUnknown() {
+    if (!Files.isDirectory(folder)) {
+      return;
+    }
+    try (final DirectoryStream<Path> keys = Files.newDirectoryStream(folder, Files::isDirectory)) {
+      for (final Path key : keys) {
+        try (final DirectoryStream<Path> variants = Files.newDirectoryStream(key)) {
+          for (final Path variant : variants) {
+            final String id =
+                String.format("%s/%s", key.getFileName(), variant.getFileName());
+            if (!entries.containsKey(id)) {
+              delete(variant);
+            }
+          }
+        }
+      }
+    } catch (final IOException e) {
+      Logger.warn("Couldn't Clean Up the Media Cache");
+    }
+  }
+
+  /**
+   * Writes the index, which includes when every variant was last used.
+   *
+   * @throws IOException if the index couldn't be written
+   */
+  public synchronized void save() throws IOException {
+    if (!loaded) {
+      return;
+    }
+    Files.createDirectories(folder);
+    final Path file = folder.resolve(INDEX);
+    final Path part = folder.resolve(INDEX + PART);
+    try (final Writer writer = Files.newBufferedWriter(part, StandardCharsets.UTF_8)) {
+      GsonHandler.getGson().toJson(new Index(new ArrayList<>(entries.values())), writer);
+    }
+    try {
+      Files.move(part, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    } catch (final AtomicMoveNotSupportedException e) {
+      Files.move(part, file, StandardCopyOption.REPLACE_EXISTING);
+    }
+  }
+
+  /**
+   * Gets the file of a variant.
+   *
+   * @param key the key
+   * @param variant the variant
+   * @return the file
+   */
+  @NotNull
+  private Path resolve(@NotNull final String key, @NotNull final String variant) {
+    return folder.resolve(key).resolve(variant);
+  }
+
+  /**
+   * Gets the id of a variant, checking that the key and variant are valid file names.
+   *
+   * @param key the key
+   * @param variant the variant
+   * @return the id
+   */
+  @NotNull
+  private static String getId(@NotNull final String key, @NotNull final String variant) {
+    Preconditions.checkArgument(NAME.matcher(key).matches(), "Invalid Cache Key! (%s)", key);
+    Preconditions.checkArgument(
+        NAME.matcher(variant).matches() && !variant.endsWith(PART),
+        "Invalid Cache Variant! (%s)",
+        variant);
+    return String.format("%s/%s", key, variant);
+  }
+
+  /**
+   * Creates a SHA-1 digest.
+   *
+   * @return the digest
+   */
+  @NotNull
+  private static MessageDigest createDigest() {
+    try {
+      return MessageDigest.getInstance("SHA-1");
+    } catch (final NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  /**
+   * Gets the quota of the cache.
+   *
+   * @return the quota in bytes
+   */
+  public long getQuota() {
+    return quota;
+  }
+
+  /**
+   * Sets the quota of the cache, evicting variants if the cache is larger.
+   *
+   * @param quota the quota in bytes
+   */
+  public synchronized void setQuota(final long quota) {
+    Preconditions.checkArgument(quota > 0, String.format("Invalid Quota! (%d)", quota));
+    this.quota = quota;
+    if (loaded) {
+      evict();
+    }
+  }
+
+  /**
+   * Gets the size of the cached variants.
+   *
+   * @return the size in bytes
+   */
+  public synchronized long getSize() {
+    load();
+    return size;
+  }
+
+  /**
+   * Gets the folder of the cache.
+   *
+   * @return the folder
+   */
+  public Path getFolder() {
+    return folder;
+  }
+
+  /** Writes a variant of a cached media. */
+  @FunctionalInterface
+  public interface Filler {
+
+    /**
+     * Writes the variant into a file, which is moved into the cache once this returns.
+     *
+     * @param target the file to write to
+     * @throws IOException if the variant couldn't be written
+     */
+    void fill(@NotNull Path target) throws IOException;
+  }
+
+  /**
+   * A variant being read. The variant is not evicted until the lease is closed, so leases should
+   * be closed once the file was opened or copied.
+   */
+  public final class Lease implements AutoCloseable {
+
+    private final Entry entry;
+    private final Path path;
+    private boolean closed;
+
+    private Lease(@NotNull final Entry entry, @NotNull final Path path) {
+      this.entry = entry;
+      this.path = path;
+      entry.readers++;
+    }
+
+    /**
+     * Gets the file of the variant.
+     *
+     * @return the file
+     */
+    public Path getPath() {
+      return path;
+    }
+
+    /** Releases the variant, so it can be evicted again. */
+    @Override
+    public void close() {
+      synchronized (MediaCache.this) {
+        if (!closed) {
+          closed = true;
+          entry.readers--;
+          evict();
+        }
+      }
+    }
+  }
+
+  /** The index of the cache. */
+  private static final class Index {
+
+    private final int version;
+    private final List<Entry> entries;
+
+    private Index(@NotNull final List<Entry> entries) {
+      version = VERSION;
+      this.entries = entries;
+    }
+  }
+
+  /** A cached variant. */
+  private static final class Entry {
+
+    private final String key;
+    private final String variant;
+    private final String source;
+    private final long size;
+    private long accessed;
+    private transient int readers;
+
+    private Entry(
+        @NotNull final String key,
+        @NotNull final String variant,
+        @NotNull final String source,
+        final long size) {
+      this.key = key;
+      this.variant = variant;
+      this.source = source;
+      this.size = size;
+      accessed = System.currentTimeMillis();
+    }
+  }
+}
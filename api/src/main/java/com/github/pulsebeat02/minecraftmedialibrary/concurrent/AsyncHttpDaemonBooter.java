@@ -42,12 +42,19 @@ public class AsyncHttpDaemonBooter {
   }
 
   /**
-   * Start the server in a CompletableFuture
+   * Start the server in a CompletableFuture. The server blocks its thread while running, so it
+   * gets a dedicated thread instead of one of the library pools.
    *
    * @return the CompletableFuture
    */
   @NotNull
   public CompletableFuture<Void> startServer() {
-    return CompletableFuture.runAsync(daemon::startServer);
+    return CompletableFuture.runAsync(
+        daemon::startServer,
+        r -> {
+          final Thread thread = new Thread(r, "MML HTTP Daemon");
+          thread.setDaemon(true);
+          thread.start();
+        });
   }
 }
@@ -48,6 +48,17 @@ public class AsyncImageMapDrawer {
    */
   @NotNull
   public CompletableFuture<Void> drawImage() {
-    return CompletableFuture.runAsync(imageMapHolder::drawImage);
+    return drawImage(TaskPriority.NORMAL);
+  }
+
+  /**
+   * Draw an image with CompletableFuture on the render pool.
+   *
+   * @param priority the priority of the task
+   * @return the CompletableFuture
+   */
+  @NotNull
+  public CompletableFuture<Void> drawImage(@NotNull final TaskPriority priority) {
+    return LibraryExecutors.render().run(imageMapHolder::drawImage, priority);
   }
 }
@@ -48,6 +48,6 @@ public class AsyncRequestHandler {
    */
   @NotNull
   public CompletableFuture<Void> handleRequest() {
-    return CompletableFuture.runAsync(request::handleRequest);
+    return LibraryExecutors.network().run(request::handleRequest, TaskPriority.NORMAL);
   }
 }
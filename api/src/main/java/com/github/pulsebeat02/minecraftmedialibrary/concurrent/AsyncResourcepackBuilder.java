@@ -48,6 +48,6 @@ public class AsyncResourcepackBuilder {
    */
   @NotNull
   public CompletableFuture<Void> buildResourcePack() {
-    return CompletableFuture.runAsync(packHolder::buildResourcePack);
+    return LibraryExecutors.io().run(packHolder::buildResourcePack, TaskPriority.NORMAL);
   }
 }
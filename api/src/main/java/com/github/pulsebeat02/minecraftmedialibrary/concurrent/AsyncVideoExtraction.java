@@ -49,7 +49,7 @@ public class AsyncVideoExtraction {
    */
   @NotNull
   public CompletableFuture<Path> downloadVideo() {
-    return CompletableFuture.supplyAsync(extractor::downloadVideo);
+    return LibraryExecutors.network().supply(extractor::downloadVideo, TaskPriority.NORMAL);
   }
 
   /**
@@ -59,6 +59,6 @@ public class AsyncVideoExtraction {
    */
   @NotNull
   public CompletableFuture<Path> extractAudio() {
-    return CompletableFuture.supplyAsync(extractor::extractAudio);
+    return LibraryExecutors.io().supply(extractor::extractAudio, TaskPriority.NORMAL);
   }
 }
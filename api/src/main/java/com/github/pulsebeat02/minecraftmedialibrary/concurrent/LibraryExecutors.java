@@ -0,0 +1,127 @@
+/*............................................................................................
+. Copyright © 2021 Brandon Li                                                               .
+.                                                                                           .
+. Permission is hereby granted, free of charge, to any person obtaining a copy of this      .
+. software and associated documentation files (the “Software”), to deal in the Software     .
+. without restriction, including without limitation the rights to use, copy, modify, merge, .
+. publish, distribute, sublicense, and/or sell copies of the Software, and to permit        .
+. persons to whom the Software is furnished to do so, subject to the following conditions:  .
+.                                                                                           .
+. The above copyright notice and this permission notice shall be included in all copies     .
+. or substantial portions of the Software.                                                  .
+.                                                                                           .
+. THE SOFTWARE IS PROVIDED “AS IS”, WITHOUT WARRANTY OF ANY KIND,                           .
+.  EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF                       .
+.   MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND                                   .
+.   NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS                     .
+.   BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN                      .
+.   ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN                       .
+.   CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE                        .
+.   SOFTWARE.                                                                               .
+............................................................................................*/
+
+package com.github.pulsebeat02.minecraftmedialibrary.concurrent;
+
+import com.github.pulsebeat02.minecraftmedialibrary.logger.Logger;
+import com.github.pulsebeat02.minecraftmedialibrary.metrics.PerformanceMetrics;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The thread pools owned by the library, so heavy work never runs on the common ForkJoinPool that
+ * dithering and parallel streams rely on. There are separate pools for CPU bound rendering,
+ * blocking disk I/O and network transfers. The queue depth and active threads of every pool are
+ * registered as gauges in {@link PerformanceMetrics}.
+ *
+ * <p>The pools are created lazily and shut down with the library.
+ */
+public final class LibraryExecutors {
+
+  /** The maximum number of queued tasks of every pool. */
+  public static final int CAPACITY = 256;
+
+  private static PriorityExecutor render;
+  private static PriorityExecutor io;
+  private static PriorityExecutor network;
+
+  private LibraryExecutors() {}
+
+  /**
+   * Gets the pool for CPU bound work such as decoding and dithering images.
+   *
+   * @return the render pool
+   */
+  @NotNull
+  public static synchronized PriorityExecutor render() {
+    if (render == null || render.isShutdown()) {
+      render = create("Render", Math.max(1, Runtime.getRuntime().availableProcessors() - 1));
+    }
+    return render;
+  }
+
+  /**
+   * Gets the pool for blocking disk I/O such as zipping resourcepacks.
+   *
+   * @return the I/O pool
+   */
+  @NotNull
+  public static synchronized PriorityExecutor io() {
+    if (io == null || io.isShutdown()) {
+      io = create("IO", 4);
+    }
+    return io;
+  }
+
+  /**
+   * Gets the pool for network transfers such as downloads and requests.
+   *
+   * @return the network pool
+   */
+  @NotNull
+  public static synchronized PriorityExecutor network() {
+    if (network == null || network.isShutdown()) {
+      network = create("Network", 8);
+    }
+    return network;
+  }
+
+  @NotNull
+  private static PriorityExecutor create(@NotNull final String name, final int threads) {
+    final PriorityExecutor executor = new PriorityExecutor(name, threads, CAPACITY);
+    final String key = name.toLowerCase();
+    PerformanceMetrics.registerGauge("queue." + key, () -> executor.getQueue().size());
+    PerformanceMetrics.registerGauge("active." + key, executor::getActiveCount);
+    return executor;
+  }
+
+  /** Shuts down every pool, waiting a few seconds for running tasks. Queued tasks are dropped. */
+  public static synchronized void shutdown() {
+    shutdown(render);
+    shutdown(io);
+    shutdown(network);
+    render = null;
+    io = null;
+    network = null;
+  }
+
+  private static void shutdown(final PriorityExecutor executor) {
+    if (executor == null) {
+      return;
+    }
+    final String key = executor.getName().toLowerCase();
+    PerformanceMetrics.unregisterGauge("queue." + key);
+    PerformanceMetrics.unregisterGauge("active." + key);
+    final int dropped = executor.shutdownNow().size();
+    try {
+      if (!executor.awaitTermination(5, TimeUnit.SECONDS)) {
+        Logger.warn(String.format("Pool %s did not terminate in time!", executor.getName()));
+      }
+    } catch (final InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    if (dropped > 0) {
+      Logger.info(String.format("Dropped %d Queued Tasks of Pool %s", dropped, executor.getName()));
+    }
+  }
+}
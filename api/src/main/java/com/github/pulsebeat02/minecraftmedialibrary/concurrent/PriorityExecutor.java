@@ -0,0 +1,167 @@
+/*............................................................................................
+. Copyright © 2021 Brandon Li                                                               .
+.                                                                                           .
+. Permission is hereby granted, free of charge, to any person obtaining a copy of this      .
+. software and associated documentation files (the “Software”), to deal in the Software     .
+. without restriction, including without limitation the rights to use, copy, modify, merge, .
+. publish, distribute, sublicense, and/or sell copies of the Software, and to permit        .
+. persons to whom the Software is furnished to do so, subject to the following conditions:  .
+.                                                                                           .
+. The above copyright notice and this permission notice shall be included in all copies     .
+. or substantial portions of the Software.                                                  .
+.                                                                                           .
+. THE SOFTWARE IS PROVIDED “AS IS”, WITHOUT WARRANTY OF ANY KIND,                           .
+.  EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF                       .
+.   MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND                                   .
+.   NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS                     .
+.   BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN                      .
+.   ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN                       .
+.   CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE                        .
+.   SOFTWARE.                                                                               .
+............................................................................................*/
+
+package com.github.pulsebeat02.minecraftmedialibrary.concurrent;
+
+import com.github.pulsebeat02.minecraftmedialibrary.metrics.PerformanceMetrics;
+import org.bukkit.Bukkit;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * A bounded thread pool which runs queued tasks by {@link TaskPriority}, and tasks of the same
+ * priority in submission order.
+ *
+ * <p>Once {@link #getCapacity()} tasks are queued, new tasks run on the submitting thread instead,
+ * unless it is the server thread, which is never blocked.
+ */
+public final class PriorityExecutor extends ThreadPoolExecutor {
+
+  private final String name;
+  private final int capacity;
+  private final AtomicLong sequence;
+
+  /**
+   * Instantiates a new PriorityExecutor.
+   *
+   * @param name the name of the pool
+   * @param threads the maximum number of threads
+   * @param capacity the maximum number of queued tasks
+   */
+  public PriorityExecutor(@NotNull final String name, final int threads, final int capacity) {
+    super(threads, threads, 30L, TimeUnit.SECONDS, new PriorityBlockingQueue<>());
+    this.name = name;
+    this.capacity = capacity;
+    sequence = new AtomicLong();
+    final AtomicInteger count = new AtomicInteger();
+    setThreadFactory(
+        r -> {
+          final Thread thread =
+              new Thread(r, String.format("MML %s #%d", name, count.incrementAndGet()));
+          thread.setDaemon(true);
+          return thread;
+        });
+    allowCoreThreadTimeOut(true);
+  }
+
+  @Override
+  public void execute(@NotNull final Runnable command) {
+    execute(command, TaskPriority.NORMAL);
+  }
+
+  /**
+   * Executes a task with a priority.
+   *
+   * @param command the task
+   * @param priority the priority
+   */
+  public void execute(@NotNull final Runnable command, @NotNull final TaskPriority priority) {
+    if (getQueue().size() >= capacity && !isShutdown() && !isServerThread()) {
+      PerformanceMetrics.increment("executor.overflow." + name.toLowerCase());
+      command.run();
+      return;
+    }
+    super.execute(new PrioritizedTask(command, priority, sequence.getAndIncrement()));
+  }
+
+  private boolean isServerThread() {
+    return Bukkit.getServer() != null && Bukkit.isPrimaryThread();
+  }
+
+  /**
+   * Runs a task with a priority.
+   *
+   * @param task the task
+   * @param priority the priority
+   * @return the CompletableFuture
+   */
+  @NotNull
+  public CompletableFuture<Void> run(
+      @NotNull final Runnable task, @NotNull final TaskPriority priority) {
+    return CompletableFuture.runAsync(task, r -> execute(r, priority));
+  }
+
+  /**
+   * Supplies a value with a priority.
+   *
+   * @param task the task
+   * @param priority the priority
+   * @param <T> the type of the value
+   * @return the CompletableFuture
+   */
+  @NotNull
+  public <T> CompletableFuture<T> supply(
+      @NotNull final Supplier<T> task, @NotNull final TaskPriority priority) {
+    return CompletableFuture.supplyAsync(task, r -> execute(r, priority));
+  }
+
+  /**
+   * Gets the name of the pool.
+   *
+   * @return the name
+   */
+  public String getName() {
+    return name;
+  }
+
+  /**
+   * Gets the maximum number of queued tasks.
+   *
+   * @return the capacity
+   */
+  public int getCapacity() {
+    return capacity;
+  }
+
+  /** A task ordered by priority, then by submission order. */
+  private static final class PrioritizedTask implements Runnable, Comparable<PrioritizedTask> {
+
+    private final Runnable task;
+    private final TaskPriority priority;
+    private final long sequence;
+
+    private PrioritizedTask(
+        @NotNull final Runnable task, @NotNull final TaskPriority priority, final long sequence) {
+      this.task = task;
+      this.priority = priority;
+      this.sequence = sequence;
+    }
+
+    @Override
+    public void run() {
+      task.run();
+    }
+
+    @Override
+    public int compareTo(@NotNull final PrioritizedTask o) {
+      final int compare = priority.compareTo(o.priority);
+      return compare != 0 ? compare : Long.compare(sequence, o.sequence);
+    }
+  }
+}
@@ -81,23 +81,27 @@ public class DependencyManagement {
     if (!dir.exists()) {
       if (dir.mkdir()) {
         Logger.info(
-            String.format(
-                "Dependency Directory (%s) does not exist... Creating a folder",
-                dir.getAbsolutePath()));
+            () ->
+                String.format(
+                    "Dependency Directory (%s) does not exist... Creating a folder",
+                    dir.getAbsolutePath()));
       } else {
-        Logger.info(String.format("Dependency Directory (%s) exists!", dir.getAbsolutePath()));
+        Logger.info(
+            () -> String.format("Dependency Directory (%s) exists!", dir.getAbsolutePath()));
       }
     }
     relocatedDir = new File(dir, "relocated");
     if (!relocatedDir.exists()) {
       if (relocatedDir.mkdir()) {
         Logger.info(
-            String.format(
-                "Relocated Directory (%s) does not exist... Creating a folder",
-                relocatedDir.getAbsolutePath()));
+            () ->
+                String.format(
+                    "Relocated Directory (%s) does not exist... Creating a folder",
+                    relocatedDir.getAbsolutePath()));
       } else {
         Logger.info(
-            String.format("Relocated Directory (%s) exists!", relocatedDir.getAbsolutePath()));
+            () ->
+                String.format("Relocated Directory (%s) exists!", relocatedDir.getAbsolutePath()));
       }
     }
   }
@@ -126,19 +130,21 @@ public class DependencyManagement {
     final String artifact = dependency.getArtifact();
     File file = null;
     if (dependency.getResolution() == DependencyResolution.MAVEN_DEPENDENCY) {
-      Logger.info(String.format("Checking Maven Central Repository for %s", artifact));
+      Logger.info(() -> String.format("Checking Maven Central Repository for %s", artifact));
       try {
         file = DependencyUtilities.downloadMavenDependency(dependency, dir.getAbsolutePath());
       } catch (final IOException e) {
-        Logger.info(String.format("Could NOT find %s in Maven Central Repository!", artifact));
+        Logger.info(
+            () -> String.format("Could NOT find %s in Maven Central Repository!", artifact));
         e.printStackTrace();
       }
     } else if (dependency.getResolution() == DependencyResolution.JITPACK_DEPENDENCY) {
-      Logger.info(String.format("Checking Jitpack Central Repository for %s", artifact));
+      Logger.info(() -> String.format("Checking Jitpack Central Repository for %s", artifact));
       try {
         file = DependencyUtilities.downloadJitpackDependency(dependency, dir.getAbsolutePath());
       } catch (final IOException e) {
-        Logger.info(String.format("Could NOT find %s in Jitpack Central Repository!", artifact));
+        Logger.info(
+            () -> String.format("Could NOT find %s in Jitpack Central Repository!", artifact));
         e.printStackTrace();
       }
     }
@@ -22,6 +22,7 @@
 
 package com.github.pulsebeat02.minecraftmedialibrary.dependency.task;
 
+import com.github.pulsebeat02.minecraftmedialibrary.concurrent.LibraryExecutors;
 import com.github.pulsebeat02.minecraftmedialibrary.json.GsonHandler;
 import com.github.pulsebeat02.minecraftmedialibrary.logger.Logger;
 import org.jetbrains.annotations.NotNull;
@@ -29,7 +30,6 @@ import org.jetbrains.annotations.NotNull;
 import java.io.IOException;
 import java.util.LinkedHashMap;
 import java.util.Map;
-import java.util.concurrent.CompletableFuture;
 
 /** Constructs a chain of commands to be executed accordingly. */
 public class CommandTaskChain {
@@ -87,18 +87,19 @@ public class CommandTaskChain {
     for (final Map.Entry<CommandTask, Boolean> entry : chain.entrySet()) {
       final CommandTask task = entry.getKey();
       if (entry.getValue()) {
-        CompletableFuture.runAsync(
-            () -> {
-              try {
-                task.run();
-                Logger.info(
-                    String.format(
-                        "Task Command: %s Result: %s",
-                        String.join(" ", task.getCommand()), task.getResult()));
-              } catch (final IOException e) {
-                e.printStackTrace();
-              }
-            });
+        LibraryExecutors.io()
+            .execute(
+                () -> {
+                  try {
+                    task.run();
+                    Logger.info(
+                        String.format(
+                            "Task Command: %s Result: %s",
+                            String.join(" ", task.getCommand()), task.getResult()));
+                  } catch (final IOException e) {
+                    e.printStackTrace();
+                  }
+                });
       } else {
         task.run();
         try {
@@ -0,0 +1,348 @@
+/*............................................................................................
+. Copyright © 2021 Brandon Li                                                               .
+.                                                                                           .
+. Permission is hereby granted, free of charge, to any person obtaining a copy of this      .
+. software and associated documentation files (the “Software”), to deal in the Software     .
+. without restriction, including without limitation the rights to use, copy, modify, merge, .
+. publish, distribute, sublicense, and/or sell copies of the Software, and to permit        .
+. persons to whom the Software is furnished to do so, subject to the following conditions:  .
+.                                                                                           .
+. The above copyright notice and this permission notice shall be included in all copies     .
+. or substantial portions of the Software.                                                  .
+.                                                                                           .
+. THE SOFTWARE IS PROVIDED “AS IS”, WITHOUT WARRANTY OF ANY KIND,                           .
+.  EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF                       .
+.   MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND                                   .
+.   NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS                     .
+.   BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN                      .
+.   ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN                       .
+.   CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE                        .
+.   SOFTWARE.                                                                               .
+............................................................................................*/
+
+package com.github.pulsebeat02.minecraftmedialibrary.extractor;
+
+import com.github.pulsebeat02.minecraftmedialibrary.logger.Logger;
+import com.google.common.base.Preconditions;
+import org.jetbrains.annotations.NotNull;
+import ws.schild.jave.EncoderException;
+import ws.schild.jave.MultimediaObject;
+import ws.schild.jave.process.ProcessLocator;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Transcodes long media with several FFmpeg processes at once. The input is split by time into
+ * segments of equal length, every segment is transcoded by its own FFmpeg process, and the outputs
+ * are joined by the concat demuxer of FFmpeg without encoding them again. A single FFmpeg process
+ * mostly uses one core for audio, so an hour long video takes minutes to transcode serially.
+ *
+ * <p>By default, the number of segments is tuned to the number of cores, leaving one for the
+ * server, and media shorter than {@link #MINIMUM_SEGMENT_LENGTH} per segment isn't split, as
+ * starting the processes would take longer than it saves. Encoders which prime their output, such
+ * as Vorbis, may leave a few milliseconds of silence where the segments meet.
+ */
+public final class SegmentedTranscoder {
+
+  /** The minimum length of a segment in milliseconds. */
+  public static final long MINIMUM_SEGMENT_LENGTH = 30_000L;
+
+  private static final long POLL_INTERVAL = 20L;
+
+  private final ProcessLocator locator;
+  private final int segments;
+
+  /**
+   * Instantiates a new SegmentedTranscoder which tunes the number of segments to the number of
+   * cores.
+   *
+   * @param locator the locator of the FFmpeg executable
+   */
+  public SegmentedTranscoder(@NotNull final ProcessLocator locator) {
+    this(locator, 0);
+  }
+
+  /**
+   * Instantiates a new SegmentedTranscoder.
+   *
+   * @param locator the locator of the FFmpeg executable
+   * @param segments the maximum number of segments, or 0 to tune it to the number of cores
+   */
+  public SegmentedTranscoder(@NotNull final ProcessLocator locator, final int segments) {
+    Preconditions.checkArgument(segments >= 0, String.format("Invalid Segments! (%d)", segments));
+    this.locator = locator;
+    this.segments = segments;
+  }
+
+  /**
+   * Gets the number of segments media of the specified length is split into.
+   *
+   * @param duration the duration in milliseconds, or a negative number if it is unknown
+   * @return the number of segments
+   */
+  public int getSegments(final long duration) {
+    final int maximum =
+        segments > 0 ? segments : Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+    return (int) Math.max(1, Math.min(maximum, duration / MINIMUM_SEGMENT_LENGTH));
+  }
+
+  /**
+   * Transcodes media in segments. The options are passed to every FFmpeg process between the input
+   * and the output, and must not change the length of the media.
+   *
+   * @param source the source media
+   * @param target the file to write to
+   * @param format the output format, such as "ogg"
+   * @param options the options of the output, such as the codec
+   * @return an estimate of the speedup over transcoding serially, which is the sum of the time
+   *     every segment took from the start of its own process divided by the time all of them took.
+   *     It overestimates the speedup when the segments compete for cores, as every segment then
+   *     takes longer than it would alone
+   * @throws IOException if FFmpeg couldn't transcode the media
+   */
+  public double transcode(
+      @NotNull final Path source,
+      @NotNull final Path target,
+      @NotNull final String format,
+      @NotNull final List<String> options)
+      throws IOException {
+    final long duration = getDuration(source);
+    final int count = getSegments(duration);
+    final long start = System.nanoTime();
+    if (count == 1) {
+      final Process process = start(source, target, format, options, -1L, -1L);
+      await(new Process[] {process}, new long[] {start});
+      return 1.0;
+    }
+    Logger.info(
+        String.format(
+            "Transcoding %s in %d Segments (Duration: %d ms)",
+            source.getFileName(), count, duration));
+    final long length = (duration + count - 1) / count;
+    final Path folder = target.resolveSibling(String.format("%s.segments", target.getFileName()));
+    Files.createDirectories(folder);
+    try {
+      final List<Path> outputs = new ArrayList<>();
+      final Process[] processes = new Process[count];
+      final long[] starts = new long[count];
+      for (int i = 0; i < count; i++) {
+        final Path output = folder.resolve(String.format("segment_%04d.%s", i, format));
+        outputs.add(output);
+        starts[i] = System.nanoTime();
+        processes[i] =
+            start(source, output, format, options, i * length, i == count - 1 ? -1L : length);
+      }
+      final long total = Arrays.stream(await(processes, starts)).sum();
+      concat(outputs, target, format, folder);
+      final long elapsed = System.nanoTime() - start;
+      final double speedup = (double) total / elapsed;
+      Logger.info(
+          String.format(
+              "Transcoded %s in %d Segments in %d ms (About %.2fx Speedup)",
+              source.getFileName(), count, TimeUnit.NANOSECONDS.toMillis(elapsed), speedup));
+      return speedup;
+    } finally {
+      try (final Stream<Path> files = Files.list(folder)) {
+        for (final Path file : files.collect(Collectors.toList())) {
+          Files.deleteIfExists(file);
+        }
+      }
+      Files.deleteIfExists(folder);
+    }
+  }
+
+  /**
+   * Gets the duration of media.
+   *
+   * @param source the media
+   * @return the duration in milliseconds, or -1 if it couldn't be read
+   */
+  private long getDuration(@NotNull final Path source) {
+    try {
+      return new MultimediaObject(source.toFile(), locator).getInfo().getDuration();
+    } catch (final EncoderException e) {
+      Logger.error(String.format("Couldn't Read the Duration of Media! (%s)", source));
+    }
+    return -1L;
+  }
+
+  /**
+   * Starts an FFmpeg process transcoding a part of the media.
+   *
+   * @param source the source media
+   * @param output the file to write to
+   * @param format the output format
+   * @param options the options of the output
+   * @param offset the start of the part in milliseconds, or -1 to start at the beginning
+   * @param length the length of the part in milliseconds, or -1 to transcode until the end
+   * @return the process
+   * @throws IOException if the process couldn't be started
+   */
+  @NotNull
+  private Process start(
+      @NotNull final Path source,
+      @NotNull final Path output,
+      @NotNull final String format,
+      @NotNull final List<String> options,
+      final long offset,
+      final long length)
+      throws IOException {
+    final List<String> command = new ArrayList<>();
+    command.add(locator.getExecutablePath());
+    command.add("-y");
+    if (offset > 0) {
+      command.add("-ss");
+      command.add(getTimestamp(offset));
+    }
+    if (length > 0) {
+      command.add("-t");
+      command.add(getTimestamp(length));
+    }
+    command.add("-i");
+    command.add(source.toAbsolutePath().toString());
+    command.addAll(options);
+    command.add("-f");
+    command.add(format);
+    command.add(output.toAbsolutePath().toString());
+    return startProcess(command);
+  }
+
+  /**
+   * Joins the transcoded segments without encoding them again.
+   *
+   * @param outputs the segments in order
+   * @param target the file to write to
+   * @param format the output format
+   * @param folder the folder of the segments
+   * @throws IOException if FFmpeg couldn't join the segments
+   */
+  private void concat(
+      @NotNull final List<Path> outputs,
+      @NotNull final Path target,
+      @NotNull final String format,
+      @NotNull final Path folder)
+      throws IOException {
+    final Path list = folder.resolve("segments.txt");
+    final List<String> lines = new ArrayList<>();
+    for (final Path output : outputs) {
+      lines.add(
+          String.format("file '%s'", output.toAbsolutePath().toString().replace("'", "'\\''")));
+    }
+    Files.write(list, lines, StandardCharsets.UTF_8);
+    final List<String> command = new ArrayList<>();
+    command.add(locator.getExecutablePath());
+    command.add("-y");
+    command.add("-f");
+    command.add("concat");
+    command.add("-safe");
+    command.add("0");
+    command.add("-i");
+    command.add(list.toAbsolutePath().toString());
+    command.add("-c");
+    command.add("copy");
+    command.add("-f");
+    command.add(format);
+    command.add(target.toAbsolutePath().toString());
+    final long start = System.nanoTime();
+    await(new Process[] {startProcess(command)}, new long[] {start});
+  }
+
+  /**
+   * Starts an FFmpeg process, writing its output to the log file.
+   *
+   * @param command the command
+   * @return the process
+   * @throws IOException if the process couldn't be started
+   */
+  @NotNull
+  private static Process startProcess(@NotNull final List<String> command) throws IOException {
+    final ProcessBuilder pb = new ProcessBuilder(command);
+    final ProcessBuilder.Redirect redirect =
+        ProcessBuilder.Redirect.appendTo(Logger.getLogFile());
+    pb.redirectOutput(redirect);
+    pb.redirectError(redirect);
+    return pb.start();
+  }
+
+  /**
+   * Waits for FFmpeg processes to exit, destroying the others if one of them failed.
+   *
+   * @param processes the processes
+   * @param starts the time every process was started at in nanoseconds
+   * @return the time every process took from its own start in nanoseconds
+   * @throws IOException if a process failed or the thread was interrupted
+   */
+  @NotNull
+  private static long[] await(@NotNull final Process[] processes, final long @NotNull [] starts)
+      throws IOException {
+    final long[] elapsed = new long[processes.length];
+    Arrays.fill(elapsed, -1L);
+    int running = processes.length;
+    try {
+      while (running > 0) {
+        for (int i = 0; i < processes.length; i++) {
+          if (elapsed[i] < 0 && !processes[i].isAlive()) {
+            elapsed[i] = System.nanoTime() - starts[i];
+            running--;
+            if (processes[i].exitValue() != 0) {
+              throw new IOException(
+                  String.format(
+                      "FFmpeg couldn't transcode the media! (Exit Code: %d)",
+                      processes[i].exitValue()));
+            }
+          }
+        }
+        if (running > 0) {
+          Thread.sleep(POLL_INTERVAL);
+        }
+      }
+    } catch (final InterruptedException e) {
+      Thread.currentThread().interrupt();
+      destroy(processes);
+      throw new IOException("Interrupted while transcoding media!", e);
+    } catch (final IOException e) {
+      destroy(processes);
+      throw e;
+    }
+    return elapsed;
+  }
+
+  /**
+   * Destroys processes and waits for them to exit, so their files can be deleted.
+   *
+   * @param processes the processes
+   */
+  private static void destroy(@NotNull final Process[] processes) {
+    for (final Process process : processes) {
+      process.destroy();
+    }
+    for (final Process process : processes) {
+      try {
+        process.waitFor(5, TimeUnit.SECONDS);
+      } catch (final InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return;
+      }
+    }
+  }
+
+  /**
+   * Formats a time for FFmpeg.
+   *
+   * @param millis the time in milliseconds
+   * @return the time in seconds, such as "90.500"
+   */
+  @NotNull
+  private static String getTimestamp(final long millis) {
+    return String.format("%d.%03d", millis / 1000, millis % 1000);
+  }
+}
@@ -22,6 +22,8 @@
 
 package com.github.pulsebeat02.minecraftmedialibrary.frame;
 
+import org.jetbrains.annotations.Nullable;
+
 /**
  * A callback interface for map data. Useful for creating custom callbacks. MinecraftMediaLibrary
  * uses this for itemframe callbacks to achieve quick changes.
@@ -35,4 +37,15 @@ public interface FrameCallback {
    * @param data to send
    */
   void send(final int[] data);
+
+  /**
+   * Gets the pacer deciding which frames are presented. The {@link VideoPlayer} anchors its cadence
+   * to the instant the audio starts.
+   *
+   * @return the pacer, or null if every frame is presented
+   */
+  @Nullable
+  default FramePacer getPacer() {
+    return null;
+  }
 }
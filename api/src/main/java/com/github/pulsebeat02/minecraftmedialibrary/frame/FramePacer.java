@@ -0,0 +1,125 @@
+/*............................................................................................
+. Copyright © 2021 Brandon Li                                                               .
+.                                                                                           .
+. Permission is hereby granted, free of charge, to any person obtaining a copy of this      .
+. software and associated documentation files (the “Software”), to deal in the Software     .
+. without restriction, including without limitation the rights to use, copy, modify, merge, .
+. publish, distribute, sublicense, and/or sell copies of the Software, and to permit        .
+. persons to whom the Software is furnished to do so, subject to the following conditions:  .
+.                                                                                           .
+. The above copyright notice and this permission notice shall be included in all copies     .
+. or substantial portions of the Software.                                                  .
+.                                                                                           .
+. THE SOFTWARE IS PROVIDED “AS IS”, WITHOUT WARRANTY OF ANY KIND,                           .
+.  EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF                       .
+.   MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND                                   .
+.   NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS                     .
+.   BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN                      .
+.   ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN                       .
+.   CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE                        .
+.   SOFTWARE.                                                                               .
+............................................................................................*/
+
+package com.github.pulsebeat02.minecraftmedialibrary.frame;
+
+import com.github.pulsebeat02.minecraftmedialibrary.metrics.PerformanceMetrics;
+import com.google.common.base.Preconditions;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decides which decoded frames are presented to the players, based on a fixed cadence.
+ *
+ * <p>Gating every frame with {@code currentTimeMillis() - lastUpdated >= delay} restarts the
+ * interval at the arrival time of each frame, so the decoder jitter and the millisecond resolution
+ * add up to an aliased cadence (for example 16/17 ms alternation at 60 fps) which slowly drifts.
+ * The pacer instead divides a monotonic {@link System#nanoTime()} timeline into fixed slots
+ * starting at the instant the {@link VideoPlayer} started the audio, or at the first frame if it
+ * wasn't anchored, and presents the first frame arriving in each slot. Late frames never shift the
+ * following slots.
+ */
+public final class FramePacer {
+
+  private final long interval;
+  private long origin;
+  private long nextSlot;
+  private long skipped;
+  private boolean anchored;
+  private boolean presented;
+
+  /**
+   * Instantiates a new FramePacer.
+   *
+   * @param delay the delay between each frame in milliseconds, or 0 to present every frame
+   */
+  public FramePacer(final int delay) {
+    Preconditions.checkArgument(delay >= 0, String.format("Invalid Delay! (%d)", delay));
+    interval = TimeUnit.MILLISECONDS.toNanos(delay);
+  }
+
+  /**
+   * Anchors the cadence to the specified instant, for example the instant the audio started. The
+   * slots which pass before the next frame arrives aren't counted as skipped.
+   *
+   * @param nanos the instant in {@link System#nanoTime()} units
+   */
+  public synchronized void anchor(final long nanos) {
+    origin = nanos;
+    nextSlot = 0;
+    anchored = true;
+    presented = false;
+  }
+
+  /**
+   * Returns whether a frame arriving now should be presented.
+   *
+   * @return whether the frame should be presented
+   */
+  public boolean shouldPresent() {
+    return shouldPresent(System.nanoTime());
+  }
+
+  /**
+   * Returns whether a frame arriving at the specified instant should be presented.
+   *
+   * @param now the instant in {@link System#nanoTime()} units
+   * @return whether the frame should be presented
+   */
+  public synchronized boolean shouldPresent(final long now) {
+    if (interval == 0) {
+      return true;
+    }
+    if (!anchored) {
+      anchor(now);
+    }
+    final long slot = (now - origin) / interval;
+    if (slot < nextSlot) {
+      PerformanceMetrics.increment(PerformanceMetrics.DROPPED_PACER);
+      return false;
+    }
+    if (presented) {
+      skipped += slot - nextSlot;
+    }
+    presented = true;
+    nextSlot = slot + 1;
+    return true;
+  }
+
+  /**
+   * Gets the interval between each presented frame in nanoseconds.
+   *
+   * @return the interval
+   */
+  public long getInterval() {
+    return interval;
+  }
+
+  /**
+   * Gets the amount of slots which passed without a frame to present.
+   *
+   * @return the skipped slots
+   */
+  public synchronized long getSkippedSlots() {
+    return skipped;
+  }
+}
@@ -0,0 +1,193 @@
+/*............................................................................................
+. Copyright © 2021 Brandon Li                                                               .
+.                                                                                           .
+. Permission is hereby granted, free of charge, to any person obtaining a copy of this      .
+. software and associated documentation files (the “Software”), to deal in the Software     .
+. without restriction, including without limitation the rights to use, copy, modify, merge, .
+. publish, distribute, sublicense, and/or sell copies of the Software, and to permit        .
+. persons to whom the Software is furnished to do so, subject to the following conditions:  .
+.                                                                                           .
+. The above copyright notice and this permission notice shall be included in all copies     .
+. or substantial portions of the Software.                                                  .
+.                                                                                           .
+. THE SOFTWARE IS PROVIDED “AS IS”, WITHOUT WARRANTY OF ANY KIND,                           .
+.  EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF                       .
+.   MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND                                   .
+.   NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS                     .
+.   BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN                      .
+.   ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN                       .
+.   CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE                        .
+.   SOFTWARE.                                                                               .
+............................................................................................*/
+
+package com.github.pulsebeat02.minecraftmedialibrary.frame;
+
+import com.github.pulsebeat02.minecraftmedialibrary.frame.decoder.FrameDecoder;
+import com.github.pulsebeat02.minecraftmedialibrary.logger.Logger;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps the media time of the decoder in line with the resourcepack audio, which the clients start
+ * playing at the instant {@link VideoPlayer#start} is called and which can't be controlled
+ * afterwards.
+ *
+ * <p>Every check compares the media time reported by the decoder with the time elapsed since the
+ * audio started. Small offsets are corrected by slightly changing the playback rate, so the video
+ * catches up or slows down without visible jumps, while large offsets (for example after a stall)
+ * are corrected by seeking. The last measured offset is kept as a metric.
+ */
+public final class MediaClockSynchronizer {
+
+  private static final ScheduledExecutorService SCHEDULER;
+
+  static {
+    SCHEDULER =
+        Executors.newSingleThreadScheduledExecutor(
+            r -> {
+              final Thread thread = new Thread(r, "MML Media Clock");
+              thread.setDaemon(true);
+              return thread;
+            });
+  }
+
+  private final VideoPlayer player;
+  private final long period;
+  private final long tolerance;
+  private final long seekThreshold;
+  private final float maxRateCorrection;
+  private ScheduledFuture<?> task;
+  private volatile long audioStart;
+  private volatile long offset;
+  private volatile float rate;
+
+  /**
+   * Instantiates a new MediaClockSynchronizer with the default thresholds.
+   *
+   * @param player the player
+   */
+  public MediaClockSynchronizer(@NotNull final VideoPlayer player) {
+    this(player, 500L, 40L, 1000L, 0.05F);
+  }
+
+  /**
+   * Instantiates a new MediaClockSynchronizer.
+   *
+   * @param player the player
+   * @param period the time between each check in milliseconds
+   * @param tolerance the offset in milliseconds which is tolerated without correction
+   * @param seekThreshold the offset in milliseconds above which the player seeks
+   * @param maxRateCorrection the maximum deviation of the playback rate from 1.0
+   */
+  public MediaClockSynchronizer(
+      @NotNull final VideoPlayer player,
+      final long period,
+      final long tolerance,
+      final long seekThreshold,
+      final float maxRateCorrection) {
+    this.player = player;
+    this.period = period;
+    this.tolerance = tolerance;
+    this.seekThreshold = seekThreshold;
+    this.maxRateCorrection = maxRateCorrection;
+    rate = 1.0F;
+  }
+
+  /**
+   * Starts the synchronization, using the specified instant as the start of the audio.
+   *
+   * @param audioStart the instant the audio started in {@link System#nanoTime()} units
+   */
+  public synchronized void start(final long audioStart) {
+    stop();
+    this.audioStart = audioStart;
+    offset = 0L;
+    rate = 1.0F;
+    task = SCHEDULER.scheduleAtFixedRate(this::synchronize, period, period, TimeUnit.MILLISECONDS);
+  }
+
+  /** Stops the synchronization. */
+  public synchronized void stop() {
+    if (task != null) {
+      task.cancel(false);
+      task = null;
+    }
+  }
+
+  /** Measures the offset between audio and video and corrects it if necessary. */
+  private void synchronize() {
+    final FrameDecoder decoder = player.getDecoder();
+    if (decoder == null || !decoder.isPlaying()) {
+      return;
+    }
+    final long time = decoder.getTime();
+    final long length = decoder.getLength();
+    final long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - audioStart);
+    if (time < 0 || (length > 0 && elapsed >= length)) {
+      // The audio has finished, so there is nothing left to synchronize against
+      return;
+    }
+    offset = time - elapsed;
+    final long distance = Math.abs(offset);
+    if (distance >= seekThreshold) {
+      decoder.setTime(elapsed);
+      setRate(decoder, 1.0F);
+      Logger.info(
+          String.format(
+              "Seeked Video to %d ms to Correct A/V Offset of %d ms (%s)",
+              elapsed, offset, player.getUrl()));
+    } else if (distance > tolerance) {
+      // Video ahead of the audio -> slow down, video behind -> speed up
+      final float correction =
+          Math.max(-maxRateCorrection, Math.min(maxRateCorrection, -offset / 1000.0F));
+      setRate(decoder, 1.0F + correction);
+    } else {
+      setRate(decoder, 1.0F);
+    }
+  }
+
+  /**
+   * Sets the playback rate if it changed.
+   *
+   * @param decoder the decoder
+   * @param value the new rate
+   */
+  private void setRate(@NotNull final FrameDecoder decoder, final float value) {
+    if (Float.compare(rate, value) != 0) {
+      rate = value;
+      decoder.setRate(value);
+    }
+  }
+
+  /**
+   * Gets the last measured offset between video and audio in milliseconds. A positive value means
+   * that the video is ahead of the audio.
+   *
+   * @return the audio/video offset
+   */
+  public long getAudioVideoOffset() {
+    return offset;
+  }
+
+  /**
+   * Gets the instant the audio started in {@link System#nanoTime()} units.
+   *
+   * @return the audio start
+   */
+  public long getAudioStart() {
+    return audioStart;
+  }
+
+  /**
+   * Gets the current playback rate.
+   *
+   * @return the rate
+   */
+  public float getRate() {
+    return rate;
+  }
+}
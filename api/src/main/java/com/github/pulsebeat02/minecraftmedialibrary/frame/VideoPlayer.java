@@ -23,29 +23,24 @@
 package com.github.pulsebeat02.minecraftmedialibrary.frame;
 
 import com.github.pulsebeat02.minecraftmedialibrary.MediaLibrary;
+import com.github.pulsebeat02.minecraftmedialibrary.frame.decoder.FrameDecoder;
+import com.github.pulsebeat02.minecraftmedialibrary.frame.decoder.FrameDecoderFactory;
+import com.github.pulsebeat02.minecraftmedialibrary.frame.decoder.FrameDecoders;
+import com.github.pulsebeat02.minecraftmedialibrary.frame.decoder.VLCFrameDecoder;
 import com.github.pulsebeat02.minecraftmedialibrary.logger.Logger;
-import com.github.pulsebeat02.minecraftmedialibrary.utility.RuntimeUtilities;
+import com.github.pulsebeat02.minecraftmedialibrary.metrics.PerformanceMetrics;
+import com.github.pulsebeat02.minecraftmedialibrary.resourcepack.TrackPackManager;
+import com.github.pulsebeat02.minecraftmedialibrary.resourcepack.TrackPlayer;
 import com.google.common.base.Preconditions;
 import com.google.common.base.Strings;
 import org.bukkit.entity.Player;
 import org.jetbrains.annotations.NotNull;
-import uk.co.caprica.vlcj.factory.MediaPlayerFactory;
-import uk.co.caprica.vlcj.player.base.MediaPlayer;
+import org.jetbrains.annotations.Nullable;
 import uk.co.caprica.vlcj.player.embedded.EmbeddedMediaPlayer;
-import uk.co.caprica.vlcj.player.embedded.videosurface.CallbackVideoSurface;
-import uk.co.caprica.vlcj.player.embedded.videosurface.LinuxVideoSurfaceAdapter;
-import uk.co.caprica.vlcj.player.embedded.videosurface.OsxVideoSurfaceAdapter;
-import uk.co.caprica.vlcj.player.embedded.videosurface.VideoSurfaceAdapter;
-import uk.co.caprica.vlcj.player.embedded.videosurface.WindowsVideoSurfaceAdapter;
-import uk.co.caprica.vlcj.player.embedded.videosurface.callback.BufferFormat;
-import uk.co.caprica.vlcj.player.embedded.videosurface.callback.BufferFormatCallback;
-import uk.co.caprica.vlcj.player.embedded.videosurface.callback.RenderCallbackAdapter;
-import uk.co.caprica.vlcj.player.embedded.videosurface.callback.format.RV32BufferFormat;
-
-import java.nio.ByteBuffer;
+
 import java.nio.file.Path;
 import java.util.Collection;
-import java.util.function.Consumer;
+import java.util.concurrent.TimeUnit;
 
 /**
  * The main abstract class for VideoPlayer classes to extend. Frame Callbacks and Video Players MUST
@@ -62,21 +57,28 @@ import java.util.function.Consumer;
  *
  * <p>MapDataCallback - MapIntegratedPlayer
  *
- * <p>ParallelVideoPlayer - [In Development]
+ * <p>MapDataCallback - ParallelVideoPlayer
+ *
+ * <p>VideoPrerenderer - PrerenderedVideoPlayer
  *
  * <p>ScoreboardCallback - ScoreboardIntegratedPlayer
+ *
+ * <p>The frames are decoded by a {@link FrameDecoder}. By default VLC is used if it is available,
+ * otherwise FFmpeg is used, but any {@link FrameDecoderFactory} can be passed instead.
  */
 public abstract class VideoPlayer {
 
   private final MediaLibrary library;
-  private final VideoSurfaceAdapter adapter;
-  private final MinecraftVideoRenderCallback renderCallback;
+  private FrameDecoderFactory factory;
+  private final MediaClockSynchronizer synchronizer;
   private final String url;
   private final FrameCallback callback;
-  private final String sound;
+  private volatile String sound;
+  private volatile TrackPlayer track;
 
-  private EmbeddedMediaPlayer mediaPlayerComponent;
+  private FrameDecoder decoder;
   private boolean playing;
+  private volatile long started;
   private int width;
   private int height;
 
@@ -95,21 +97,36 @@ public abstract class VideoPlayer {
       final int width,
       final int height,
       @NotNull final FrameCallback callback) {
+    this(library, FrameDecoders.getDefault(library), url, width, height, callback);
+  }
+
+  /**
+   * Instantiates a new Abstract video player with a specific decoder.
+   *
+   * @param library the library
+   * @param factory the decoder factory
+   * @param url the url
+   * @param width the width
+   * @param height the height
+   * @param callback the callback
+   */
+  public VideoPlayer(
+      @NotNull final MediaLibrary library,
+      @NotNull final FrameDecoderFactory factory,
+      @NotNull final String url,
+      final int width,
+      final int height,
+      @NotNull final FrameCallback callback) {
     Preconditions.checkArgument(!Strings.isNullOrEmpty(url), "URL cannot be empty or null!");
     Preconditions.checkArgument(width > 0, String.format("Width is not valid! (%d)", width));
     Preconditions.checkArgument(height > 0, String.format("Height is not valid! (%d)", height));
     this.library = library;
+    this.factory = factory;
     this.url = url;
     this.width = width;
     this.height = height;
     this.callback = callback;
-    renderCallback = new MinecraftVideoRenderCallback(this);
-    adapter =
-        RuntimeUtilities.isWindows()
-            ? new WindowsVideoSurfaceAdapter()
-            : RuntimeUtilities.isMac()
-                ? new OsxVideoSurfaceAdapter()
-                : new LinuxVideoSurfaceAdapter();
+    synchronizer = new MediaClockSynchronizer(this);
     sound = getLibrary().getPlugin().getName().toLowerCase();
     initializePlayer();
   }
@@ -133,25 +150,21 @@ public abstract class VideoPlayer {
   }
 
   private void initializePlayer() {
-    mediaPlayerComponent = new MediaPlayerFactory().mediaPlayers().newEmbeddedMediaPlayer();
-    mediaPlayerComponent
-        .videoSurface()
-        .set(
-            new CallbackVideoSurface(
-                new BufferFormatCallback() {
-                  @Override
-                  public BufferFormat getBufferFormat(
-                      final int sourceWidth, final int sourceHeight) {
-                    return new RV32BufferFormat(width, height);
-                  }
-
-                  @Override
-                  public void allocatedBuffers(final ByteBuffer[] buffers) {}
-                },
-                renderCallback,
-                false,
-                adapter));
-    mediaPlayerComponent.audio().mute();
+    decoder = factory.create(library, url, width, height, this::present);
+  }
+
+  /**
+   * Passes a frame to the callback, recording the time to the first frame after a start.
+   *
+   * @param data the frame
+   */
+  private void present(final int[] data) {
+    final long start = started;
+    if (start != 0L) {
+      started = 0L;
+      PerformanceMetrics.recordSince(PerformanceMetrics.FIRST_FRAME, start);
+    }
+    callback.send(data);
   }
 
   /**
@@ -218,30 +231,55 @@ public abstract class VideoPlayer {
   }
 
   /**
-   * Gets the MediaPlayerComponent.
+   * Gets the decoder.
    *
-   * @return the MediaPlayerComponent
+   * @return the decoder
    */
-  public EmbeddedMediaPlayer getMediaPlayerComponent() {
-    return mediaPlayerComponent;
+  public FrameDecoder getDecoder() {
+    return decoder;
+  }
+
+  /**
+   * Gets the decoder factory.
+   *
+   * @return the decoder factory
+   */
+  public FrameDecoderFactory getDecoderFactory() {
+    return factory;
+  }
+
+  /**
+   * Replaces the decoder by one created by the specified factory, such as a decoder which plays the
+   * video while it is being downloaded. The player must not be playing.
+   *
+   * @param factory the decoder factory
+   */
+  public void setDecoderFactory(@NotNull final FrameDecoderFactory factory) {
+    Preconditions.checkState(!playing, "The decoder can't be replaced while playing!");
+    if (decoder != null) {
+      decoder.release();
+    }
+    this.factory = factory;
+    initializePlayer();
   }
 
   /**
-   * Gets the adapter.
+   * Gets the MediaPlayerComponent if the video is decoded by VLC.
    *
-   * @return the video surface adapter
+   * @return the MediaPlayerComponent, or null if another decoder is used
    */
-  public VideoSurfaceAdapter getAdapter() {
-    return adapter;
+  @Nullable
+  public EmbeddedMediaPlayer getMediaPlayerComponent() {
+    return decoder instanceof VLCFrameDecoder ? ((VLCFrameDecoder) decoder).getMediaPlayer() : null;
   }
 
   /**
-   * Gets the MinecraftVideoRenderCallback.
+   * Gets the synchronizer which keeps the video in line with the audio.
    *
-   * @return the Minecraft render callback
+   * @return the synchronizer
    */
-  public MinecraftVideoRenderCallback getRenderCallback() {
-    return renderCallback;
+  public MediaClockSynchronizer getSynchronizer() {
+    return synchronizer;
   }
 
   /**
@@ -253,6 +291,28 @@ public abstract class VideoPlayer {
     return sound;
   }
 
+  /**
+   * Sets the sound which is played along with the video, such as a track of a {@link
+   * TrackPackManager}.
+   *
+   * @param sound the sound name
+   */
+  public void setSound(@NotNull final String sound) {
+    this.sound = sound;
+    track = null;
+  }
+
+  /**
+   * Sets the track which is played along with the video. Segmented tracks are played segment by
+   * segment by a {@link TrackPlayer}, while other tracks are played like any other sound.
+   *
+   * @param track the track
+   */
+  public void setTrack(@NotNull final TrackPackManager.Track track) {
+    sound = track.getSound();
+    this.track = track.isSegmented() ? new TrackPlayer(library.getPlugin(), track) : null;
+  }
+
   /**
    * Starts the player.
    *
@@ -260,16 +320,73 @@ public abstract class VideoPlayer {
    */
   public void start(@NotNull final Collection<? extends Player> players) {
     playing = true;
-    if (mediaPlayerComponent == null) {
+    if (decoder == null) {
       initializePlayer();
     }
-    mediaPlayerComponent.media().play(url);
-    for (final Player p : players) {
-      p.playSound(p.getLocation(), sound, 1.0F, 1.0F);
+    started = System.nanoTime();
+    decoder.start();
+    final long audioStart = System.nanoTime();
+    anchor(audioStart);
+    final TrackPlayer segments = track;
+    if (segments != null) {
+      segments.start(players);
+    } else {
+      for (final Player p : players) {
+        p.playSound(p.getLocation(), sound, 1.0F, 1.0F);
+      }
+    }
+    if (!players.isEmpty()) {
+      synchronizer.start(audioStart);
     }
     Logger.info(String.format("Started Playing the Video! (%s)", url));
   }
 
+  /**
+   * Starts a track along with the video while it is already playing, such as a video which started
+   * playing while it was downloading. Segmented tracks start at the segment which contains the
+   * current position of the video, other tracks start from the beginning, and the video is kept in
+   * line with the track from then on.
+   *
+   * @param track the track
+   * @param players which players to play the audio for
+   */
+  public void startTrack(
+      @NotNull final TrackPackManager.Track track,
+      @NotNull final Collection<? extends Player> players) {
+    setTrack(track);
+    if (!playing || decoder == null) {
+      return;
+    }
+    final TrackPlayer segments = this.track;
+    long offset = 0L;
+    if (segments != null) {
+      offset = segments.start(players, Math.max(0L, decoder.getTime()));
+    } else {
+      for (final Player p : players) {
+        p.playSound(p.getLocation(), sound, 1.0F, 1.0F);
+      }
+    }
+    final long audioStart = System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(offset);
+    anchor(audioStart);
+    if (!players.isEmpty()) {
+      synchronizer.start(audioStart);
+    }
+    Logger.info(String.format("Started the Track at %d ms! (%s)", offset, url));
+  }
+
+  /**
+   * Anchors the cadence of the frames presented by the callback to the instant the audio started,
+   * so the frames are presented in step with the audio rather than the first decoded frame.
+   *
+   * @param audioStart the instant the audio started in {@link System#nanoTime()} units
+   */
+  private void anchor(final long audioStart) {
+    final FramePacer pacer = callback.getPacer();
+    if (pacer != null) {
+      pacer.anchor(audioStart);
+    }
+  }
+
   /**
    * Stops the player.
    *
@@ -277,9 +394,15 @@ public abstract class VideoPlayer {
    */
   public void stop(@NotNull final Collection<? extends Player> players) {
     playing = false;
-    mediaPlayerComponent.controls().stop();
-    for (final Player p : players) {
-      p.stopSound(sound);
+    synchronizer.stop();
+    decoder.stop();
+    final TrackPlayer segments = track;
+    if (segments != null) {
+      segments.stop();
+    } else {
+      for (final Player p : players) {
+        p.stopSound(sound);
+      }
     }
     Logger.info(String.format("Stopped Playing the Video! (%s)", url));
   }
@@ -287,8 +410,9 @@ public abstract class VideoPlayer {
   /** Releases the player. */
   public void release() {
     playing = false;
-    mediaPlayerComponent.release();
-    mediaPlayerComponent = null;
+    synchronizer.stop();
+    decoder.release();
+    decoder = null;
     Logger.info(String.format("Released the Video! (%s)", url));
   }
 
@@ -298,7 +422,7 @@ public abstract class VideoPlayer {
    * @param setting the setting
    */
   public void setRepeat(final boolean setting) {
-    mediaPlayerComponent.controls().setRepeat(setting);
+    decoder.setRepeat(setting);
     Logger.info(String.format("Set Setting Loop to (%s)! (%s)", setting, url));
   }
 
@@ -310,39 +434,4 @@ public abstract class VideoPlayer {
   public boolean isPlaying() {
     return playing;
   }
-
-  private static class MinecraftVideoRenderCallback extends RenderCallbackAdapter {
-
-    private final Consumer<int[]> callback;
-
-    /**
-     * Instantiates a new MinecraftVideoRenderCallback.
-     *
-     * @param player the VideoPlayer
-     */
-    public MinecraftVideoRenderCallback(@NotNull final VideoPlayer player) {
-      super(new int[player.getWidth() * player.getHeight()]);
-      callback = player.getCallback()::send;
-    }
-
-    /**
-     * Displays the image data.
-     *
-     * @param mediaPlayer the media player
-     * @param buffer the buffer
-     */
-    @Override
-    protected void onDisplay(final MediaPlayer mediaPlayer, final int[] buffer) {
-      callback.accept(buffer);
-    }
-
-    /**
-     * Gets the callback for this render.
-     *
-     * @return the callback for the image data.
-     */
-    public Consumer<int[]> getCallback() {
-      return callback;
-    }
-  }
 }
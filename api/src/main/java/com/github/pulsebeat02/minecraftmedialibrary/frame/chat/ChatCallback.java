@@ -24,6 +24,7 @@ package com.github.pulsebeat02.minecraftmedialibrary.frame.chat;
 
 import com.github.pulsebeat02.minecraftmedialibrary.MediaLibrary;
 import com.github.pulsebeat02.minecraftmedialibrary.frame.FrameCallback;
+import com.github.pulsebeat02.minecraftmedialibrary.frame.FramePacer;
 import net.md_5.bungee.api.ChatColor;
 import org.bukkit.Bukkit;
 import org.bukkit.entity.Player;
@@ -48,6 +49,7 @@ public final class ChatCallback implements FrameCallback {
   private final int width;
   private final int height;
   private final int delay;
+  private final FramePacer pacer;
   private long lastUpdated;
 
   /**
@@ -71,6 +73,7 @@ public final class ChatCallback implements FrameCallback {
     width = chatWidth;
     height = chatHeight;
     this.delay = delay;
+    pacer = new FramePacer(delay);
   }
 
   /**
@@ -89,9 +92,8 @@ public final class ChatCallback implements FrameCallback {
    */
   @Override
   public void send(final int[] data) {
-    final long time = System.currentTimeMillis();
-    if (time - lastUpdated >= delay) {
-      lastUpdated = time;
+    if (pacer.shouldPresent()) {
+      lastUpdated = System.currentTimeMillis();
       for (int y = 0; y < height; ++y) {
         int before = -1;
         final StringBuilder msg = new StringBuilder();
@@ -128,6 +130,16 @@ public final class ChatCallback implements FrameCallback {
     return delay;
   }
 
+  /**
+   * Gets the pacer deciding which frames are presented.
+   *
+   * @return the pacer
+   */
+  @Override
+  public FramePacer getPacer() {
+    return pacer;
+  }
+
   /**
    * Gets library.
    *
@@ -24,6 +24,8 @@ package com.github.pulsebeat02.minecraftmedialibrary.frame.chat;
 
 import com.github.pulsebeat02.minecraftmedialibrary.MediaLibrary;
 import com.github.pulsebeat02.minecraftmedialibrary.frame.VideoPlayer;
+import com.github.pulsebeat02.minecraftmedialibrary.frame.decoder.FrameDecoderFactory;
+import com.github.pulsebeat02.minecraftmedialibrary.frame.decoder.FrameDecoders;
 import com.github.pulsebeat02.minecraftmedialibrary.frame.entity.EntityCallback;
 import com.github.pulsebeat02.minecraftmedialibrary.logger.Logger;
 import org.bukkit.entity.Player;
@@ -57,6 +59,27 @@ public class ChatIntegratedPlayer extends VideoPlayer {
     Logger.info(String.format("Created a Chat Integrated Video Player (%s)", url));
   }
 
+  /**
+   * Instantiates a new ChatIntegratedPlayer with a specific decoder.
+   *
+   * @param library the library
+   * @param factory the decoder factory
+   * @param url the url
+   * @param width the width
+   * @param height the height
+   * @param callback the callback
+   */
+  public ChatIntegratedPlayer(
+      @NotNull final MediaLibrary library,
+      @NotNull final FrameDecoderFactory factory,
+      @NotNull final String url,
+      @NotNull final ChatCallback callback,
+      final int width,
+      final int height) {
+    super(library, factory, url, width, height, callback);
+    Logger.info(String.format("Created a Chat Integrated Video Player (%s)", url));
+  }
+
   /**
    * Instantiates a new ChatIntegratedPlayer.
    *
@@ -109,6 +132,7 @@ public class ChatIntegratedPlayer extends VideoPlayer {
     private int width = 15;
     private int height = 15;
     private ChatCallback callback;
+    private FrameDecoderFactory factory;
 
     private Builder() {}
 
@@ -132,8 +156,19 @@ public class ChatIntegratedPlayer extends VideoPlayer {
       return this;
     }
 
+    public Builder setDecoderFactory(final FrameDecoderFactory factory) {
+      this.factory = factory;
+      return this;
+    }
+
     public ChatIntegratedPlayer build(@NotNull final MediaLibrary library) {
-      return new ChatIntegratedPlayer(library, url, callback, width, height);
+      return new ChatIntegratedPlayer(
+          library,
+          factory != null ? factory : FrameDecoders.getDefault(library),
+          url,
+          callback,
+          width,
+          height);
     }
   }
 }
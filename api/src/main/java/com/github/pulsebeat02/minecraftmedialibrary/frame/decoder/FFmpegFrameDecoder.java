@@ -0,0 +1,537 @@
+/*............................................................................................
+. Copyright © 2021 Brandon Li                                                               .
+.                                                                                           .
+. Permission is hereby granted, free of charge, to any person obtaining a copy of this      .
+. software and associated documentation files (the “Software”), to deal in the Software     .
+. without restriction, including without limitation the rights to use, copy, modify, merge, .
+. publish, distribute, sublicense, and/or sell copies of the Software, and to permit        .
+. persons to whom the Software is furnished to do so, subject to the following conditions:  .
+.                                                                                           .
+. The above copyright notice and this permission notice shall be included in all copies     .
+. or substantial portions of the Software.                                                  .
+.                                                                                           .
+. THE SOFTWARE IS PROVIDED “AS IS”, WITHOUT WARRANTY OF ANY KIND,                           .
+.  EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF                       .
+.   MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND                                   .
+.   NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS                     .
+.   BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN                      .
+.   ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN                       .
+.   CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE                        .
+.   SOFTWARE.                                                                               .
+............................................................................................*/
+
+package com.github.pulsebeat02.minecraftmedialibrary.frame.decoder;
+
+import com.github.pulsebeat02.minecraftmedialibrary.frame.FrameCallback;
+import com.github.pulsebeat02.minecraftmedialibrary.logger.Logger;
+import com.github.pulsebeat02.minecraftmedialibrary.metrics.PerformanceMetrics;
+import com.google.common.base.Preconditions;
+import org.bytedeco.ffmpeg.global.avutil;
+import org.bytedeco.javacv.FFmpegFrameGrabber;
+import org.bytedeco.javacv.Frame;
+import org.bytedeco.javacv.FrameGrabber;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A decoder which uses the FFmpeg frame grabber of JavaCV. It doesn't need any native VLC
+ * installation, so videos can also be played (and benchmarked) on headless machines.
+ *
+ * <p>Frames are decoded on a dedicated thread, scaled by FFmpeg to the requested size and copied
+ * into a single reused int[] in the same 0xAARRGGBB layout VLC produces. The decoder presents the
+ * frames on their timestamps, dropping frames which exceed the requested frame rate or which are
+ * too late.
+ *
+ * <p>A video which is still being downloaded can be played through a {@link ProgressiveSource}.
+ * The decoder then waits until the configured amount of video is buffered before it starts, and
+ * pauses to rebuffer whenever playback catches up with the download. If it reads past the end of
+ * the downloaded part anyway, the file is opened again at the last frame once more is buffered.
+ */
+public final class FFmpegFrameDecoder implements FrameDecoder {
+
+  private static final long MAX_LATENESS = TimeUnit.MILLISECONDS.toMicros(100);
+  private static final long MAX_STALL = TimeUnit.SECONDS.toMicros(1);
+  private static final long POLL_INTERVAL = 250L;
+  private static final long LOW_WATERMARK = 500L;
+
+  private final String url;
+  private final ProgressiveSource source;
+  private final long buffering;
+  private final int width;
+  private final int height;
+  private final int fps;
+  private final FrameCallback callback;
+  private final int[] buffer;
+  private final List<FrameDecoderListener> listeners;
+  private final Object clock;
+
+  private volatile Thread thread;
+  private volatile boolean running;
+  private volatile boolean repeat;
+  private volatile long time;
+  private volatile long length;
+  private volatile long seek;
+  private float rate;
+  private long baseMedia;
+  private long baseWall;
+
+  /**
+   * Instantiates a new FFmpegFrameDecoder.
+   *
+   * @param url the url or path of the video
+   * @param width the width of the frames
+   * @param height the height of the frames
+   * @param fps the frame rate, or 0 to use the frame rate of the source
+   * @param callback the callback receiving the frames
+   */
+  public FFmpegFrameDecoder(
+      @NotNull final String url,
+      final int width,
+      final int height,
+      final int fps,
+      @NotNull final FrameCallback callback) {
+    this(url, null, width, height, fps, 0L, callback);
+  }
+
+  /**
+   * Instantiates a new FFmpegFrameDecoder which plays a video while it is being downloaded.
+   *
+   * @param source the video being downloaded
+   * @param width the width of the frames
+   * @param height the height of the frames
+   * @param fps the frame rate, or 0 to use the frame rate of the source
+   * @param buffer the amount of video in milliseconds which is buffered before playing
+   * @param callback the callback receiving the frames
+   */
+  public FFmpegFrameDecoder(
+      @NotNull final ProgressiveSource source,
+      final int width,
+      final int height,
+      final int fps,
+      final long buffer,
+      @NotNull final FrameCallback callback) {
+    this(
+        source.getFile().toAbsolutePath().toString(),
+        source,
+        width,
+        height,
+        fps,
+        buffer,
+        callback);
+  }
+
+  private FFmpegFrameDecoder(
+      @NotNull final String url,
+      @Nullable final ProgressiveSource source,
+      final int width,
+      final int height,
+      final int fps,
+      final long buffering,
+      @NotNull final FrameCallback callback) {
+    Preconditions.checkArgument(fps >= 0, String.format("FPS is not valid! (%d)", fps));
+    Preconditions.checkArgument(
+        buffering >= 0, String.format("Buffer is not valid! (%d)", buffering));
+    this.url = url;
+    this.source = source;
+    this.buffering = buffering;
+    this.width = width;
+    this.height = height;
+    this.fps = fps;
+    this.callback = callback;
+    buffer = new int[width * height];
+    listeners = new CopyOnWriteArrayList<>();
+    clock = new Object();
+    time = -1L;
+    length = -1L;
+    seek = -1L;
+    rate = 1.0F;
+  }
+
+  @Override
+  public synchronized void start() {
+    stop();
+    running = true;
+    time = -1L;
+    thread = new Thread(this::decode, String.format("MML FFmpeg Decoder (%s)", url));
+    thread.setDaemon(true);
+    thread.start();
+  }
+
+  @Override
+  public synchronized void stop() {
+    running = false;
+    if (thread != null) {
+      LockSupport.unpark(thread);
+      thread = null;
+    }
+  }
+
+  @Override
+  public void release() {
+    stop();
+    listeners.clear();
+  }
+
+  /** Decodes the video until it finishes or the decoder is stopped. */
+  private void decode() {
+    FFmpegFrameGrabber grabber = null;
+    try {
+      grabber = open(0L);
+      if (grabber == null) {
+        return;
+      }
+      final long interval = fps > 0 ? TimeUnit.SECONDS.toMicros(1) / fps : 0L;
+      do {
+        resetClock(0L);
+        long next = 0L;
+        Frame frame;
+        long start = System.nanoTime();
+        while (isActive()) {
+          frame = grab(grabber);
+          if (frame == null) {
+            if (!isGrowing()) {
+              break;
+            }
+
+            // Everything downloaded was decoded, so open the file again once more is buffered
+            final long position = Math.max(0L, time);
+            grabber.release();
+            if (!rebuffer(position)) {
+              return;
+            }
+            grabber = open(position);
+            if (grabber == null) {
+              return;
+            }
+            resetClock(TimeUnit.MILLISECONDS.toMicros(position));
+            next = 0L;
+            start = System.nanoTime();
+            continue;
+          }
+          final long target = seek;
+          if (target >= 0) {
+            seek = -1L;
+            grabber.setTimestamp(TimeUnit.MILLISECONDS.toMicros(target));
+            resetClock(TimeUnit.MILLISECONDS.toMicros(target));
+            next = 0L;
+            continue;
+          }
+          final long timestamp = frame.timestamp;
+          if (timestamp < next) {
+            start = System.nanoTime();
+            continue;
+          }
+          next = interval > 0 ? (timestamp / interval + 1) * interval : timestamp;
+          if (isGrowing()
+              && source.getAvailableTime(length)
+                  < TimeUnit.MICROSECONDS.toMillis(timestamp) + LOW_WATERMARK) {
+
+            // Playback caught up with the download, so wait until enough is buffered again
+            if (!rebuffer(TimeUnit.MICROSECONDS.toMillis(timestamp))) {
+              return;
+            }
+            resetClock(timestamp);
+          }
+          final long wait = timestamp - getMediaClock();
+          if (wait > 0) {
+            LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(wait));
+          } else if (-wait > MAX_STALL) {
+            // The decoder stalled (slow source or overloaded machine), continue from here
+            resetClock(timestamp);
+          } else if (-wait > MAX_LATENESS) {
+            PerformanceMetrics.increment(PerformanceMetrics.DROPPED_DECODER);
+            start = System.nanoTime();
+            continue;
+          }
+          if (!isActive()) {
+            break;
+          }
+          copy(frame);
+          PerformanceMetrics.recordSince(PerformanceMetrics.DECODE, start);
+          time = TimeUnit.MICROSECONDS.toMillis(timestamp);
+          final long callbackStart = System.nanoTime();
+          callback.send(buffer);
+          PerformanceMetrics.recordSince(PerformanceMetrics.CALLBACK, callbackStart);
+          start = System.nanoTime();
+        }
+        if (isActive() && repeat) {
+          grabber.setTimestamp(0L);
+        }
+      } while (isActive() && repeat);
+      if (isActive()) {
+        running = false;
+        listeners.forEach(FrameDecoderListener::finished);
+      }
+    } catch (final FrameGrabber.Exception e) {
+      Logger.error(String.format("Could not decode the video! (%s)", url));
+      e.printStackTrace();
+      if (isActive()) {
+        running = false;
+        listeners.forEach(FrameDecoderListener::error);
+      }
+    } finally {
+      try {
+        if (grabber != null) {
+          grabber.release();
+        }
+      } catch (final FrameGrabber.Exception e) {
+        e.printStackTrace();
+      }
+    }
+  }
+
+  /**
+   * Opens the video at the specified media time. A video which is still being downloaded is only
+   * opened once its index and the configured amount of video after the media time are buffered.
+   *
+   * @param position the media time in milliseconds
+   * @return the started grabber, or null if the decoder was stopped while waiting
+   * @throws FrameGrabber.Exception if the video couldn't be opened or the download failed
+   */
+  @Nullable
+  private FFmpegFrameGrabber open(final long position) throws FrameGrabber.Exception {
+    long bytes = ProgressiveSource.MINIMUM_BYTES;
+    while (true) {
+      final long required = bytes;
+      final boolean complete = source == null || source.isComplete();
+      if (!complete && !awaitSource(timeout -> source.awaitBytes(required, timeout))) {
+        return null;
+      }
+      final FFmpegFrameGrabber grabber =
+          new FFmpegFrameGrabber(
+              source == null ? url : source.getFile().toAbsolutePath().toString());
+      grabber.setImageWidth(width);
+      grabber.setImageHeight(height);
+      grabber.setPixelFormat(avutil.AV_PIX_FMT_BGRA);
+      try {
+        grabber.start();
+      } catch (final FrameGrabber.Exception e) {
+        grabber.release();
+        if (complete) {
+          throw e;
+        }
+
+        // The index of the video isn't downloaded yet, so wait for more of the file
+        bytes = Math.max(bytes, source.getWritten()) * 2;
+        continue;
+      }
+      length = TimeUnit.MICROSECONDS.toMillis(grabber.getLengthInTime());
+      if (isGrowing()
+          && !awaitSource(timeout -> source.awaitTime(position + buffering, length, timeout))) {
+        grabber.release();
+        return null;
+      }
+      if (position > 0) {
+        grabber.setTimestamp(TimeUnit.MILLISECONDS.toMicros(position));
+      }
+      return grabber;
+    }
+  }
+
+  /**
+   * Grabs the next frame. Frames which fail to decode while the video is still being downloaded
+   * are treated as the end of the downloaded part.
+   *
+   * @param grabber the grabber
+   * @return the frame, or null if there are no more frames
+   * @throws FrameGrabber.Exception if the frame couldn't be decoded
+   */
+  @Nullable
+  private Frame grab(@NotNull final FFmpegFrameGrabber grabber) throws FrameGrabber.Exception {
+    try {
+      return grabber.grabImage();
+    } catch (final FrameGrabber.Exception e) {
+      if (isGrowing()) {
+        return null;
+      }
+      throw e;
+    }
+  }
+
+  /**
+   * Waits until the configured amount of video after the media time is downloaded.
+   *
+   * @param position the media time in milliseconds
+   * @return whether the video was buffered, or false if the decoder was stopped while waiting
+   * @throws FrameGrabber.Exception if the download failed
+   */
+  private boolean rebuffer(final long position) throws FrameGrabber.Exception {
+    PerformanceMetrics.increment(PerformanceMetrics.STALLS);
+    Logger.info(String.format("Rebuffering the Video at %d ms! (%s)", position, url));
+    final long start = System.nanoTime();
+    final boolean buffered =
+        awaitSource(timeout -> source.awaitTime(position + buffering, length, timeout));
+    PerformanceMetrics.recordSince(PerformanceMetrics.REBUFFER, start);
+    return buffered;
+  }
+
+  /**
+   * Waits for the download in short intervals, so the decoder can be stopped while waiting.
+   *
+   * @param condition the condition to wait for
+   * @return whether the condition was met, or false if the decoder was stopped
+   * @throws FrameGrabber.Exception if the download failed
+   */
+  private boolean awaitSource(@NotNull final Condition condition) throws FrameGrabber.Exception {
+    try {
+      while (isActive()) {
+        final boolean met = condition.await(POLL_INTERVAL);
+        if (source.isFailed()) {
+          throw new FrameGrabber.Exception(
+              String.format("The download of the video failed! (%s)", url));
+        }
+        if (met) {
+          return true;
+        }
+      }
+    } catch (final InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    return false;
+  }
+
+  /**
+   * Checks if the video is still being downloaded.
+   *
+   * @return whether the video is growing
+   */
+  private boolean isGrowing() {
+    return source != null && !source.isComplete();
+  }
+
+  /**
+   * Checks if the calling thread is the current decoding thread and the decoder wasn't stopped.
+   *
+   * @return whether the thread should keep decoding
+   */
+  private boolean isActive() {
+    return running && thread == Thread.currentThread();
+  }
+
+  /**
+   * Copies the pixels of the frame into the reused buffer.
+   *
+   * @param frame the frame
+   */
+  private void copy(@NotNull final Frame frame) {
+    final IntBuffer pixels =
+        ((ByteBuffer) frame.image[0]).duplicate().order(ByteOrder.LITTLE_ENDIAN).asIntBuffer();
+    final int stride = frame.imageStride >> 2;
+    final int columns = Math.min(width, frame.imageWidth);
+    final int rows = Math.min(height, frame.imageHeight);
+    if (stride == width && columns == width) {
+      pixels.get(buffer, 0, columns * rows);
+      return;
+    }
+    for (int y = 0; y < rows; y++) {
+      pixels.position(y * stride);
+      pixels.get(buffer, y * width, columns);
+    }
+  }
+
+  /**
+   * Restarts the media clock at the specified media time.
+   *
+   * @param media the media time in microseconds
+   */
+  private void resetClock(final long media) {
+    synchronized (clock) {
+      baseMedia = media;
+      baseWall = System.nanoTime();
+    }
+  }
+
+  /**
+   * Gets the media time the clock is currently at.
+   *
+   * @return the media time in microseconds
+   */
+  private long getMediaClock() {
+    synchronized (clock) {
+      final long elapsed = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - baseWall);
+      return baseMedia + (long) (elapsed * rate);
+    }
+  }
+
+  @Override
+  public void setRepeat(final boolean setting) {
+    repeat = setting;
+  }
+
+  @Override
+  public boolean isPlaying() {
+    return running;
+  }
+
+  @Override
+  public long getTime() {
+    return time;
+  }
+
+  @Override
+  public void setTime(final long time) {
+    seek = Math.max(0L, time);
+  }
+
+  @Override
+  public long getLength() {
+    return length;
+  }
+
+  @Override
+  public void setRate(final float rate) {
+    Preconditions.checkArgument(rate > 0, String.format("Rate is not valid! (%f)", rate));
+    synchronized (clock) {
+      final long media = getMediaClock();
+      baseMedia = media;
+      baseWall = System.nanoTime();
+      this.rate = rate;
+    }
+  }
+
+  @Override
+  public void addListener(@NotNull final FrameDecoderListener listener) {
+    listeners.add(listener);
+  }
+
+  /**
+   * Gets the video being downloaded which is played.
+   *
+   * @return the source, or null if the video isn't being downloaded
+   */
+  @Nullable
+  public ProgressiveSource getSource() {
+    return source;
+  }
+
+  /**
+   * Gets the frame rate, or 0 if the frame rate of the source is used.
+   *
+   * @return the fps
+   */
+  public int getFps() {
+    return fps;
+  }
+
+  /** A condition of the download which can be waited for. */
+  @FunctionalInterface
+  private interface Condition {
+
+    /**
+     * Waits for the condition.
+     *
+     * @param timeout the maximum time to wait in milliseconds
+     * @return whether the condition was met
+     * @throws InterruptedException if the thread was interrupted
+     */
+    boolean await(final long timeout) throws InterruptedException;
+  }
+}
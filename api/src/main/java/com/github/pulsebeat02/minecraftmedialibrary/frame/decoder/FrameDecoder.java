@@ -0,0 +1,92 @@
+/*............................................................................................
+. Copyright © 2021 Brandon Li                                                               .
+.                                                                                           .
+. Permission is hereby granted, free of charge, to any person obtaining a copy of this      .
+. software and associated documentation files (the “Software”), to deal in the Software     .
+. without restriction, including without limitation the rights to use, copy, modify, merge, .
+. publish, distribute, sublicense, and/or sell copies of the Software, and to permit        .
+. persons to whom the Software is furnished to do so, subject to the following conditions:  .
+.                                                                                           .
+. The above copyright notice and this permission notice shall be included in all copies     .
+. or substantial portions of the Software.                                                  .
+.                                                                                           .
+. THE SOFTWARE IS PROVIDED “AS IS”, WITHOUT WARRANTY OF ANY KIND,                           .
+.  EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF                       .
+.   MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND                                   .
+.   NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS                     .
+.   BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN                      .
+.   ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN                       .
+.   CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE                        .
+.   SOFTWARE.                                                                               .
+............................................................................................*/
+
+package com.github.pulsebeat02.minecraftmedialibrary.frame.decoder;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * A decoder which turns a video into frames of RGB pixels and passes them to a {@link
+ * com.github.pulsebeat02.minecraftmedialibrary.frame.FrameCallback}. Video players don't depend on
+ * a specific decoder, so the backend (VLC, FFmpeg, ...) can be swapped with a {@link
+ * FrameDecoderFactory}.
+ */
+public interface FrameDecoder {
+
+  /** Starts decoding the video from the beginning. */
+  void start();
+
+  /** Stops decoding the video. */
+  void stop();
+
+  /** Releases all resources held by the decoder. The decoder can't be started afterwards. */
+  void release();
+
+  /**
+   * Sets whether the video should loop.
+   *
+   * @param setting the setting
+   */
+  void setRepeat(final boolean setting);
+
+  /**
+   * Returns whether the decoder is currently playing.
+   *
+   * @return whether the decoder is playing
+   */
+  boolean isPlaying();
+
+  /**
+   * Gets the current media time in milliseconds, or -1 if unknown.
+   *
+   * @return the media time
+   */
+  long getTime();
+
+  /**
+   * Seeks to the specified media time.
+   *
+   * @param time the media time in milliseconds
+   */
+  void setTime(final long time);
+
+  /**
+   * Gets the length of the video in milliseconds, or -1 if unknown.
+   *
+   * @return the length
+   */
+  long getLength();
+
+  /**
+   * Sets the playback rate, where 1.0 is real time.
+   *
+   * @param rate the rate
+   */
+  void setRate(final float rate);
+
+  /**
+   * Adds a listener which is notified when the video finishes or fails.
+   *
+   * @param listener the listener
+   */
+  void addListener(@NotNull final FrameDecoderListener listener);
+}
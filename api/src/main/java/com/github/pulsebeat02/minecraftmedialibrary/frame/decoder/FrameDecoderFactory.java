@@ -0,0 +1,50 @@
+/*............................................................................................
+. Copyright © 2021 Brandon Li                                                               .
+.                                                                                           .
+. Permission is hereby granted, free of charge, to any person obtaining a copy of this      .
+. software and associated documentation files (the “Software”), to deal in the Software     .
+. without restriction, including without limitation the rights to use, copy, modify, merge, .
+. publish, distribute, sublicense, and/or sell copies of the Software, and to permit        .
+. persons to whom the Software is furnished to do so, subject to the following conditions:  .
+.                                                                                           .
+. The above copyright notice and this permission notice shall be included in all copies     .
+. or substantial portions of the Software.                                                  .
+.                                                                                           .
+. THE SOFTWARE IS PROVIDED “AS IS”, WITHOUT WARRANTY OF ANY KIND,                           .
+.  EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF                       .
+.   MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND                                   .
+.   NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS                     .
+.   BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN                      .
+.   ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN                       .
+.   CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE                        .
+.   SOFTWARE.                                                                               .
+............................................................................................*/
+
+package com.github.pulsebeat02.minecraftmedialibrary.frame.decoder;
+
+import com.github.pulsebeat02.minecraftmedialibrary.MediaLibrary;
+import com.github.pulsebeat02.minecraftmedialibrary.frame.FrameCallback;
+import org.jetbrains.annotations.NotNull;
+
+/** Creates decoders for video players. Implement this to plug in a custom decoding backend. */
+@FunctionalInterface
+public interface FrameDecoderFactory {
+
+  /**
+   * Creates a new decoder.
+   *
+   * @param library the library
+   * @param url the url or path of the video
+   * @param width the width of the frames
+   * @param height the height of the frames
+   * @param callback the callback receiving the frames
+   * @return the decoder
+   */
+  @NotNull
+  FrameDecoder create(
+      @NotNull final MediaLibrary library,
+      @NotNull final String url,
+      final int width,
+      final int height,
+      @NotNull final FrameCallback callback);
+}
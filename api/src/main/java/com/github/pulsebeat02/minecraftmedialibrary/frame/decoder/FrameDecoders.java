@@ -0,0 +1,80 @@
+/*............................................................................................
+. Copyright © 2021 Brandon Li                                                               .
+.                                                                                           .
+. Permission is hereby granted, free of charge, to any person obtaining a copy of this      .
+. software and associated documentation files (the “Software”), to deal in the Software     .
+. without restriction, including without limitation the rights to use, copy, modify, merge, .
+. publish, distribute, sublicense, and/or sell copies of the Software, and to permit        .
+. persons to whom the Software is furnished to do so, subject to the following conditions:  .
+.                                                                                           .
+. The above copyright notice and this permission notice shall be included in all copies     .
+. or substantial portions of the Software.                                                  .
+.                                                                                           .
+. THE SOFTWARE IS PROVIDED “AS IS”, WITHOUT WARRANTY OF ANY KIND,                           .
+.  EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF                       .
+.   MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND                                   .
+.   NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS                     .
+.   BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN                      .
+.   ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN                       .
+.   CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE                        .
+.   SOFTWARE.                                                                               .
+............................................................................................*/
+
+package com.github.pulsebeat02.minecraftmedialibrary.frame.decoder;
+
+import com.github.pulsebeat02.minecraftmedialibrary.MediaLibrary;
+import org.jetbrains.annotations.NotNull;
+
+/** Contains the built-in decoder factories. */
+public final class FrameDecoders {
+
+  /** Decodes using VLC. Requires the VLC natives to be installed. */
+  public static final FrameDecoderFactory VLC =
+      (library, url, width, height, callback) -> new VLCFrameDecoder(url, width, height, callback);
+
+  /** Decodes using FFmpeg through JavaCV at the frame rate of the source. */
+  public static final FrameDecoderFactory FFMPEG = ffmpeg(0);
+
+  private FrameDecoders() {}
+
+  /**
+   * Gets a factory for FFmpeg decoders which output the specified frame rate. Frames are dropped
+   * if the source has a higher frame rate.
+   *
+   * @param fps the frame rate, or 0 to use the frame rate of the source
+   * @return the factory
+   */
+  @NotNull
+  public static FrameDecoderFactory ffmpeg(final int fps) {
+    return (library, url, width, height, callback) ->
+        new FFmpegFrameDecoder(url, width, height, fps, callback);
+  }
+
+  /**
+   * Gets a factory for FFmpeg decoders which play a video while it is being downloaded. The url
+   * passed to the factory is ignored, as the file of the source is played.
+   *
+   * @param source the video being downloaded
+   * @param fps the frame rate, or 0 to use the frame rate of the source
+   * @param buffer the amount of video in milliseconds which is buffered before playing
+   * @return the factory
+   */
+  @NotNull
+  public static FrameDecoderFactory progressive(
+      @NotNull final ProgressiveSource source, final int fps, final long buffer) {
+    return (library, url, width, height, callback) ->
+        new FFmpegFrameDecoder(source, width, height, fps, buffer, callback);
+  }
+
+  /**
+   * Gets the default factory for the library, which is VLC if it is available or FFmpeg
+   * otherwise.
+   *
+   * @param library the library
+   * @return the factory
+   */
+  @NotNull
+  public static FrameDecoderFactory getDefault(@NotNull final MediaLibrary library) {
+    return library.isVlcj() ? VLC : FFMPEG;
+  }
+}
@@ -0,0 +1,219 @@
+/*............................................................................................
+. Copyright © 2021 Brandon Li                                                               .
+.                                                                                           .
+. Permission is hereby granted, free of charge, to any person obtaining a copy of this      .
+. software and associated documentation files (the “Software”), to deal in the Software     .
+. without restriction, including without limitation the rights to use, copy, modify, merge, .
+. publish, distribute, sublicense, and/or sell copies of the Software, and to permit        .
+. persons to whom the Software is furnished to do so, subject to the following conditions:  .
+.                                                                                           .
+. The above copyright notice and this permission notice shall be included in all copies     .
+. or substantial portions of the Software.                                                  .
+.                                                                                           .
+. THE SOFTWARE IS PROVIDED “AS IS”, WITHOUT WARRANTY OF ANY KIND,                           .
+.  EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF                       .
+.   MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND                                   .
+.   NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS                     .
+.   BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN                      .
+.   ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN                       .
+.   CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE                        .
+.   SOFTWARE.                                                                               .
+............................................................................................*/
+
+package com.github.pulsebeat02.minecraftmedialibrary.frame.decoder;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A video file which is still being downloaded, so it can be played before the download finished.
+ * The downloader reports how much of the file was written, and decoders created by {@link
+ * FrameDecoders#progressive(ProgressiveSource, int, long)} wait until enough of the video is
+ * buffered before they start, and wait again (rebuffer) whenever playback catches up with the
+ * download.
+ *
+ * <p>The part of the video which is available is estimated from the share of the file that was
+ * written, which assumes a roughly constant bitrate. The video must have its index at the start of
+ * the file, otherwise it can only be played once it is complete.
+ */
+public final class ProgressiveSource {
+
+  /** The default amount of video in milliseconds which is buffered before playback starts. */
+  public static final long DEFAULT_BUFFER = 5_000L;
+
+  /** The minimum number of bytes which are buffered before the file is opened. */
+  public static final long MINIMUM_BYTES = 512L * 1024L;
+
+  private final Object lock;
+  private volatile Path file;
+  private volatile long length;
+  private volatile long written;
+  private volatile boolean complete;
+  private volatile boolean failed;
+
+  /**
+   * Instantiates a new ProgressiveSource.
+   *
+   * @param file the file being downloaded
+   * @param length the size of the file once it is complete in bytes, or -1 if it is unknown
+   */
+  public ProgressiveSource(@NotNull final Path file, final long length) {
+    lock = new Object();
+    this.file = file;
+    this.length = length;
+  }
+
+  /**
+   * Reports the number of bytes which were written to the file.
+   *
+   * @param written the number of bytes
+   */
+  public void update(final long written) {
+    synchronized (lock) {
+      this.written = written;
+      lock.notifyAll();
+    }
+  }
+
+  /**
+   * Marks the download as complete.
+   *
+   * @param file the file, which may have been moved once it was complete
+   */
+  public void complete(@NotNull final Path file) {
+    synchronized (lock) {
+      this.file = file;
+      complete = true;
+      lock.notifyAll();
+    }
+  }
+
+  /** Marks the download as failed, which stops decoders waiting for it. */
+  public void fail() {
+    synchronized (lock) {
+      failed = true;
+      lock.notifyAll();
+    }
+  }
+
+  /**
+   * Waits until the specified number of bytes were written, or the download finished.
+   *
+   * @param bytes the number of bytes
+   * @param timeout the maximum time to wait in milliseconds
+   * @return whether the bytes are available
+   * @throws InterruptedException if the thread was interrupted
+   */
+  public boolean awaitBytes(final long bytes, final long timeout) throws InterruptedException {
+    final long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeout);
+    synchronized (lock) {
+      while (!complete && !failed && written < bytes) {
+        final long remaining = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+        if (remaining <= 0) {
+          return false;
+        }
+        lock.wait(remaining);
+      }
+      return !failed && (complete || written >= bytes);
+    }
+  }
+
+  /**
+   * Waits until the video is available up to the specified media time, or the download finished.
+   *
+   * @param time the media time in milliseconds
+   * @param duration the duration of the video in milliseconds
+   * @param timeout the maximum time to wait in milliseconds
+   * @return whether the video is available up to the media time
+   * @throws InterruptedException if the thread was interrupted
+   */
+  public boolean awaitTime(final long time, final long duration, final long timeout)
+      throws InterruptedException {
+    final long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeout);
+    synchronized (lock) {
+      while (!complete && !failed && getAvailableTime(duration) < time) {
+        final long remaining = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+        if (remaining <= 0) {
+          return false;
+        }
+        lock.wait(remaining);
+      }
+      return !failed && (complete || getAvailableTime(duration) >= time);
+    }
+  }
+
+  /**
+   * Estimates the media time up to which the video was downloaded.
+   *
+   * @param duration the duration of the video in milliseconds
+   * @return the media time in milliseconds, {@link Long#MAX_VALUE} if the download is complete, or
+   *     0 if the size of the file or the duration is unknown
+   */
+  public long getAvailableTime(final long duration) {
+    if (complete) {
+      return Long.MAX_VALUE;
+    }
+    final long size = length;
+    if (size <= 0 || duration <= 0) {
+      return 0L;
+    }
+    return (long) ((double) written / size * duration);
+  }
+
+  /**
+   * Sets the file after it was moved, such as into a media cache.
+   *
+   * @param file the file
+   */
+  public void setFile(@NotNull final Path file) {
+    this.file = file;
+  }
+
+  /**
+   * Gets the file being downloaded.
+   *
+   * @return the file
+   */
+  @NotNull
+  public Path getFile() {
+    return file;
+  }
+
+  /**
+   * Gets the size of the file once it is complete.
+   *
+   * @return the size in bytes, or -1 if it is unknown
+   */
+  public long getLength() {
+    return length;
+  }
+
+  /**
+   * Gets the number of bytes which were written.
+   *
+   * @return the number of bytes
+   */
+  public long getWritten() {
+    return written;
+  }
+
+  /**
+   * Gets whether the download is complete.
+   *
+   * @return whether the download is complete
+   */
+  public boolean isComplete() {
+    return complete;
+  }
+
+  /**
+   * Gets whether the download failed.
+   *
+   * @return whether the download failed
+   */
+  public boolean isFailed() {
+    return failed;
+  }
+}
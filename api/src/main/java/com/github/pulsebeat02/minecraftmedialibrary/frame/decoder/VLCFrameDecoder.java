@@ -0,0 +1,211 @@
+/*............................................................................................
+. Copyright © 2021 Brandon Li                                                               .
+.                                                                                           .
+. Permission is hereby granted, free of charge, to any person obtaining a copy of this      .
+. software and associated documentation files (the “Software”), to deal in the Software     .
+. without restriction, including without limitation the rights to use, copy, modify, merge, .
+. publish, distribute, sublicense, and/or sell copies of the Software, and to permit        .
+. persons to whom the Software is furnished to do so, subject to the following conditions:  .
+.                                                                                           .
+. The above copyright notice and this permission notice shall be included in all copies     .
+. or substantial portions of the Software.                                                  .
+.                                                                                           .
+. THE SOFTWARE IS PROVIDED “AS IS”, WITHOUT WARRANTY OF ANY KIND,                           .
+.  EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF                       .
+.   MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND                                   .
+.   NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS                     .
+.   BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN                      .
+.   ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN                       .
+.   CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE                        .
+.   SOFTWARE.                                                                               .
+............................................................................................*/
+
+package com.github.pulsebeat02.minecraftmedialibrary.frame.decoder;
+
+import com.github.pulsebeat02.minecraftmedialibrary.frame.FrameCallback;
+import com.github.pulsebeat02.minecraftmedialibrary.metrics.PerformanceMetrics;
+import com.github.pulsebeat02.minecraftmedialibrary.utility.RuntimeUtilities;
+import org.jetbrains.annotations.NotNull;
+import uk.co.caprica.vlcj.factory.MediaPlayerFactory;
+import uk.co.caprica.vlcj.player.base.MediaPlayer;
+import uk.co.caprica.vlcj.player.base.MediaPlayerEventAdapter;
+import uk.co.caprica.vlcj.player.embedded.EmbeddedMediaPlayer;
+import uk.co.caprica.vlcj.player.embedded.videosurface.CallbackVideoSurface;
+import uk.co.caprica.vlcj.player.embedded.videosurface.LinuxVideoSurfaceAdapter;
+import uk.co.caprica.vlcj.player.embedded.videosurface.OsxVideoSurfaceAdapter;
+import uk.co.caprica.vlcj.player.embedded.videosurface.VideoSurfaceAdapter;
+import uk.co.caprica.vlcj.player.embedded.videosurface.WindowsVideoSurfaceAdapter;
+import uk.co.caprica.vlcj.player.embedded.videosurface.callback.BufferFormat;
+import uk.co.caprica.vlcj.player.embedded.videosurface.callback.BufferFormatCallback;
+import uk.co.caprica.vlcj.player.embedded.videosurface.callback.RenderCallbackAdapter;
+import uk.co.caprica.vlcj.player.embedded.videosurface.callback.format.RV32BufferFormat;
+
+import java.nio.ByteBuffer;
+
+/** A decoder which uses an embedded VLC media player with a callback video surface. */
+public final class VLCFrameDecoder implements FrameDecoder {
+
+  private final String url;
+  private final VideoSurfaceAdapter adapter;
+  private final MinecraftVideoRenderCallback renderCallback;
+  private final EmbeddedMediaPlayer mediaPlayer;
+
+  /**
+   * Instantiates a new VLCFrameDecoder.
+   *
+   * @param url the url or path of the video
+   * @param width the width of the frames
+   * @param height the height of the frames
+   * @param callback the callback receiving the frames
+   */
+  public VLCFrameDecoder(
+      @NotNull final String url,
+      final int width,
+      final int height,
+      @NotNull final FrameCallback callback) {
+    this.url = url;
+    renderCallback = new MinecraftVideoRenderCallback(width, height, callback);
+    adapter =
+        RuntimeUtilities.isWindows()
+            ? new WindowsVideoSurfaceAdapter()
+            : RuntimeUtilities.isMac()
+                ? new OsxVideoSurfaceAdapter()
+                : new LinuxVideoSurfaceAdapter();
+    mediaPlayer = new MediaPlayerFactory().mediaPlayers().newEmbeddedMediaPlayer();
+    mediaPlayer
+        .videoSurface()
+        .set(
+            new CallbackVideoSurface(
+                new BufferFormatCallback() {
+                  @Override
+                  public BufferFormat getBufferFormat(
+                      final int sourceWidth, final int sourceHeight) {
+                    return new RV32BufferFormat(width, height);
+                  }
+
+                  @Override
+                  public void allocatedBuffers(final ByteBuffer[] buffers) {}
+                },
+                renderCallback,
+                false,
+                adapter));
+    mediaPlayer.audio().mute();
+  }
+
+  @Override
+  public void start() {
+    mediaPlayer.media().play(url);
+  }
+
+  @Override
+  public void stop() {
+    mediaPlayer.controls().stop();
+  }
+
+  @Override
+  public void release() {
+    mediaPlayer.release();
+  }
+
+  @Override
+  public void setRepeat(final boolean setting) {
+    mediaPlayer.controls().setRepeat(setting);
+  }
+
+  @Override
+  public boolean isPlaying() {
+    return mediaPlayer.status().isPlaying();
+  }
+
+  @Override
+  public long getTime() {
+    return mediaPlayer.status().time();
+  }
+
+  @Override
+  public void setTime(final long time) {
+    mediaPlayer.controls().setTime(time);
+  }
+
+  @Override
+  public long getLength() {
+    return mediaPlayer.status().length();
+  }
+
+  @Override
+  public void setRate(final float rate) {
+    mediaPlayer.controls().setRate(rate);
+  }
+
+  @Override
+  public void addListener(@NotNull final FrameDecoderListener listener) {
+    mediaPlayer
+        .events()
+        .addMediaPlayerEventListener(
+            new MediaPlayerEventAdapter() {
+              @Override
+              public void finished(final MediaPlayer mediaPlayer) {
+                listener.finished();
+              }
+
+              @Override
+              public void error(final MediaPlayer mediaPlayer) {
+                listener.error();
+              }
+            });
+  }
+
+  /**
+   * Gets the embedded media player.
+   *
+   * @return the media player
+   */
+  public EmbeddedMediaPlayer getMediaPlayer() {
+    return mediaPlayer;
+  }
+
+  /**
+   * Gets the adapter.
+   *
+   * @return the video surface adapter
+   */
+  public VideoSurfaceAdapter getAdapter() {
+    return adapter;
+  }
+
+  private static class MinecraftVideoRenderCallback extends RenderCallbackAdapter {
+
+    private final FrameCallback callback;
+    private long lastDisplay;
+
+    /**
+     * Instantiates a new MinecraftVideoRenderCallback.
+     *
+     * @param width the width
+     * @param height the height
+     * @param callback the callback
+     */
+    public MinecraftVideoRenderCallback(
+        final int width, final int height, @NotNull final FrameCallback callback) {
+      super(new int[width * height]);
+      this.callback = callback;
+    }
+
+    /**
+     * Displays the image data.
+     *
+     * @param mediaPlayer the media player
+     * @param buffer the buffer
+     */
+    @Override
+    protected void onDisplay(final MediaPlayer mediaPlayer, final int[] buffer) {
+      final long start = System.nanoTime();
+      if (lastDisplay != 0) {
+        PerformanceMetrics.recordSince(PerformanceMetrics.DECODE_INTERVAL, lastDisplay);
+      }
+      lastDisplay = start;
+      callback.send(buffer);
+      PerformanceMetrics.recordSince(PerformanceMetrics.CALLBACK, start);
+    }
+  }
+}
@@ -24,6 +24,7 @@ package com.github.pulsebeat02.minecraftmedialibrary.frame.entity;
 
 import com.github.pulsebeat02.minecraftmedialibrary.MediaLibrary;
 import com.github.pulsebeat02.minecraftmedialibrary.frame.FrameCallback;
+import com.github.pulsebeat02.minecraftmedialibrary.frame.FramePacer;
 import com.github.pulsebeat02.minecraftmedialibrary.nms.PacketHandler;
 import org.bukkit.Location;
 import org.bukkit.World;
@@ -70,6 +71,7 @@ public final class EntityCallback implements FrameCallback {
   private final Entity[] entities;
   private final int videoWidth;
   private final int delay;
+  private final FramePacer pacer;
   private final int width;
   private final int height;
   private long lastUpdated;
@@ -104,6 +106,7 @@ public final class EntityCallback implements FrameCallback {
     this.height = height;
     this.videoWidth = videoWidth;
     this.delay = delay;
+    pacer = new FramePacer(delay);
     entities = getCloudEntities();
   }
 
@@ -139,6 +142,7 @@ public final class EntityCallback implements FrameCallback {
     this.height = height;
     this.videoWidth = videoWidth;
     this.delay = delay;
+    pacer = new FramePacer(delay);
     entities = getCloudEntities();
   }
 
@@ -207,9 +211,8 @@ public final class EntityCallback implements FrameCallback {
    */
   @Override
   public void send(final int[] data) {
-    final long time = System.currentTimeMillis();
-    if (time - lastUpdated >= delay) {
-      lastUpdated = time;
+    if (pacer.shouldPresent()) {
+      lastUpdated = System.currentTimeMillis();
       handler.displayEntities(viewers, entities, data, width);
     }
   }
@@ -250,6 +253,16 @@ public final class EntityCallback implements FrameCallback {
     return delay;
   }
 
+  /**
+   * Gets the pacer deciding which frames are presented.
+   *
+   * @return the pacer
+   */
+  @Override
+  public FramePacer getPacer() {
+    return pacer;
+  }
+
   /**
    * Gets the PacketHandler.
    *
@@ -24,6 +24,8 @@ package com.github.pulsebeat02.minecraftmedialibrary.frame.entity;
 
 import com.github.pulsebeat02.minecraftmedialibrary.MediaLibrary;
 import com.github.pulsebeat02.minecraftmedialibrary.frame.VideoPlayer;
+import com.github.pulsebeat02.minecraftmedialibrary.frame.decoder.FrameDecoderFactory;
+import com.github.pulsebeat02.minecraftmedialibrary.frame.decoder.FrameDecoders;
 import com.github.pulsebeat02.minecraftmedialibrary.logger.Logger;
 import org.bukkit.Location;
 import org.bukkit.entity.Entity;
@@ -65,6 +67,31 @@ public class EntityIntegratedPlayer extends VideoPlayer {
     Logger.info(String.format("Created a VLCJ Integrated Entity Cloud Video Player (%s)", url));
   }
 
+  /**
+   * Instantiates a new EntityCloudIntegratedPlayer with a specific decoder.
+   *
+   * @param library the library
+   * @param factory the decoder factory
+   * @param url the url
+   * @param width the width
+   * @param height the height
+   * @param callback the callback
+   * @param location the location
+   */
+  public EntityIntegratedPlayer(
+      @NotNull final MediaLibrary library,
+      @NotNull final FrameDecoderFactory factory,
+      @NotNull final String url,
+      @NotNull final EntityCallback callback,
+      @NotNull final Location location,
+      final int width,
+      final int height) {
+    super(library, factory, url, width, height, callback);
+    this.location = location;
+    entities = callback.getEntities();
+    Logger.info(String.format("Created a VLCJ Integrated Entity Cloud Video Player (%s)", url));
+  }
+
   /**
    * Instantiates a new EntityCloudIntegratedPlayer.
    *
@@ -151,6 +178,7 @@ public class EntityIntegratedPlayer extends VideoPlayer {
     private int height = 5;
     private EntityCallback callback;
     private Location location;
+    private FrameDecoderFactory factory;
 
     private Builder() {}
 
@@ -179,8 +207,20 @@ public class EntityIntegratedPlayer extends VideoPlayer {
       return this;
     }
 
+    public Builder setDecoderFactory(final FrameDecoderFactory factory) {
+      this.factory = factory;
+      return this;
+    }
+
     public EntityIntegratedPlayer build(@NotNull final MediaLibrary library) {
-      return new EntityIntegratedPlayer(library, url, callback, location, width, height);
+      return new EntityIntegratedPlayer(
+          library,
+          factory != null ? factory : FrameDecoders.getDefault(library),
+          url,
+          callback,
+          location,
+          width,
+          height);
     }
   }
 }
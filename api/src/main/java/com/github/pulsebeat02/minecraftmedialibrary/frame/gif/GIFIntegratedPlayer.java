@@ -25,33 +25,27 @@ package com.github.pulsebeat02.minecraftmedialibrary.frame.gif;
 import com.github.pulsebeat02.minecraftmedialibrary.MediaLibrary;
 import com.github.pulsebeat02.minecraftmedialibrary.frame.FrameCallback;
 import com.github.pulsebeat02.minecraftmedialibrary.frame.VideoPlayer;
-import com.github.pulsebeat02.minecraftmedialibrary.utility.ImageUtilities;
+import com.github.pulsebeat02.minecraftmedialibrary.frame.decoder.FrameDecoder;
+import com.github.pulsebeat02.minecraftmedialibrary.logger.Logger;
 import com.github.pulsebeat02.minecraftmedialibrary.utility.PathUtilities;
-import com.github.pulsebeat02.minecraftmedialibrary.utility.VideoUtilities;
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.FilenameUtils;
 import org.bukkit.entity.Player;
 import org.jetbrains.annotations.NotNull;
 
-import java.awt.image.BufferedImage;
 import java.io.File;
 import java.io.IOException;
 import java.net.URL;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.Collection;
-import java.util.List;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.TimeUnit;
 
+/**
+ * A player for GIFs. Frames are streamed by a {@link GifFrameDecoder}, which honors the delay of
+ * every frame and caches the dithered frames when playing on maps.
+ */
 public class GIFIntegratedPlayer extends VideoPlayer {
 
-  private final List<BufferedImage> images;
-  private final float frameDuration;
-  private ScheduledExecutorService scheduler;
-  private int index;
-
   /**
    * Instantiates a new GIF video player.
    *
@@ -80,19 +74,20 @@ public class GIFIntegratedPlayer extends VideoPlayer {
    * @param width the width
    * @param height the height
    * @param callback the callback
-   * @deprecated uses File
    */
-  @Deprecated
   public GIFIntegratedPlayer(
       final @NotNull MediaLibrary library,
       final @NotNull Path file,
       final int width,
       final int height,
       final FrameCallback callback) {
-    super(library, file, width, height, callback);
-    images = ImageUtilities.getFrames(file);
-    frameDuration = ImageUtilities.getGifFrameDelay(file);
-    scheduler = Executors.newScheduledThreadPool(1);
+    super(
+        library,
+        (lib, url, w, h, cb) -> new GifFrameDecoder(Paths.get(url), w, h, cb),
+        file.toAbsolutePath().toString(),
+        width,
+        height,
+        callback);
   }
 
   /**
@@ -105,38 +100,34 @@ public class GIFIntegratedPlayer extends VideoPlayer {
   }
 
   /**
-   * Starts the Gif player.
+   * Starts the Gif player. GIFs have no audio, so nothing is played for the players.
    *
    * @param players which players to play the audio for
    */
   @Override
   public void start(final @NotNull Collection<? extends Player> players) {
-    final FrameCallback callback = getCallback();
-    final int size = images.size();
-    final int delay = (int) (frameDuration * 1000);
-    scheduler.scheduleAtFixedRate(
-        () -> {
-          if (index >= size) {
-            scheduler.shutdown();
-          }
-          callback.send(VideoUtilities.getBuffer(images.get(index)));
-          index++;
-        },
-        0,
-        delay,
-        TimeUnit.MILLISECONDS);
+    final FrameDecoder decoder = getDecoder();
+    if (decoder == null) {
+      Logger.warn(String.format("Cannot start a released GIF! (%s)", getUrl()));
+      return;
+    }
+    decoder.start();
+    Logger.info(String.format("Started Playing the GIF! (%s)", getUrl()));
   }
 
   /** Stops the Gif player. */
   @Override
   public void stop(@NotNull final Collection<? extends Player> players) {
-    scheduler.shutdown();
+    final FrameDecoder decoder = getDecoder();
+    if (decoder != null) {
+      decoder.stop();
+    }
   }
 
-  /** Releases the Gif player. */
   @Override
-  public void release() {
-    scheduler = null;
+  public boolean isPlaying() {
+    final FrameDecoder decoder = getDecoder();
+    return decoder != null && decoder.isPlaying();
   }
 
   /** The type Builder. */
@@ -0,0 +1,339 @@
+/*............................................................................................
+. Copyright © 2021 Brandon Li                                                               .
+.                                                                                           .
+. Permission is hereby granted, free of charge, to any person obtaining a copy of this      .
+. software and associated documentation files (the “Software”), to deal in the Software     .
+. without restriction, including without limitation the rights to use, copy, modify, merge, .
+. publish, distribute, sublicense, and/or sell copies of the Software, and to permit        .
+. persons to whom the Software is furnished to do so, subject to the following conditions:  .
+.                                                                                           .
+. The above copyright notice and this permission notice shall be included in all copies     .
+. or substantial portions of the Software.                                                  .
+.                                                                                           .
+. THE SOFTWARE IS PROVIDED “AS IS”, WITHOUT WARRANTY OF ANY KIND,                           .
+.  EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF                       .
+.   MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND                                   .
+.   NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS                     .
+.   BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN                      .
+.   ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN                       .
+.   CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE                        .
+.   SOFTWARE.                                                                               .
+............................................................................................*/
+
+package com.github.pulsebeat02.minecraftmedialibrary.frame.gif;
+
+import org.jetbrains.annotations.NotNull;
+import org.w3c.dom.NamedNodeMap;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.metadata.IIOMetadata;
+import javax.imageio.metadata.IIOMetadataNode;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferByte;
+import java.awt.image.IndexColorModel;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Iterator;
+
+/**
+ * Decodes a GIF one frame at a time instead of loading every frame into memory. Frames are
+ * composited onto a canvas as described by their metadata (position, transparency and disposal
+ * method), and the canvas is scaled into a single reused buffer of the requested size.
+ */
+public final class GifDecoder implements Closeable {
+
+  private static final String IMAGE_FORMAT = "javax_imageio_gif_image_1.0";
+  private static final String STREAM_FORMAT = "javax_imageio_gif_stream_1.0";
+  private static final int MINIMUM_DELAY = 20;
+  private static final int DEFAULT_DELAY = 100;
+
+  private final ImageInputStream stream;
+  private final ImageReader reader;
+  private final int frames;
+  private final int canvasWidth;
+  private final int canvasHeight;
+  private final int width;
+  private final int height;
+  private final int[] canvas;
+  private final int[] previous;
+  private final int[] output;
+  private final int[] columns;
+  private final int[] rows;
+  private int index;
+  private int delay;
+  private String disposal;
+  private int disposalX;
+  private int disposalY;
+  private int disposalWidth;
+  private int disposalHeight;
+
+  /**
+   * Instantiates a new GifDecoder.
+   *
+   * @param file the gif file
+   * @param width the width of the output frames
+   * @param height the height of the output frames
+   * @throws IOException if the file isn't a readable gif
+   */
+  public GifDecoder(@NotNull final Path file, final int width, final int height)
+      throws IOException {
+    final Iterator<ImageReader> readers = ImageIO.getImageReadersByFormatName("gif");
+    if (!readers.hasNext()) {
+      throw new IOException("No GIF reader is available!");
+    }
+    stream = ImageIO.createImageInputStream(file.toFile());
+    if (stream == null) {
+      throw new IOException(String.format("Could not open GIF %s", file));
+    }
+    reader = readers.next();
+    reader.setInput(stream, false, true);
+    frames = reader.getNumImages(true);
+    if (frames <= 0) {
+      close();
+      throw new IOException(String.format("GIF has no frames! (%s)", file));
+    }
+    final Node screen =
+        getNode(reader.getStreamMetadata(), STREAM_FORMAT, "LogicalScreenDescriptor");
+    final int logicalWidth = getInt(screen, "logicalScreenWidth", 0);
+    final int logicalHeight = getInt(screen, "logicalScreenHeight", 0);
+    canvasWidth = logicalWidth > 0 ? logicalWidth : reader.getWidth(0);
+    canvasHeight = logicalHeight > 0 ? logicalHeight : reader.getHeight(0);
+    this.width = width;
+    this.height = height;
+    canvas = new int[canvasWidth * canvasHeight];
+    previous = new int[canvas.length];
+    output = new int[width * height];
+    columns = new int[width];
+    rows = new int[height];
+    for (int x = 0; x < width; x++) {
+      columns[x] = x * canvasWidth / width;
+    }
+    for (int y = 0; y < height; y++) {
+      rows[y] = y * canvasHeight / height * canvasWidth;
+    }
+  }
+
+  /**
+   * Gets a child node of the metadata tree.
+   *
+   * @param metadata the metadata
+   * @param format the metadata format
+   * @param name the node name
+   * @return the node, or null
+   */
+  private static Node getNode(final IIOMetadata metadata, final String format, final String name) {
+    if (metadata == null) {
+      return null;
+    }
+    final IIOMetadataNode root = (IIOMetadataNode) metadata.getAsTree(format);
+    final NodeList nodes = root.getElementsByTagName(name);
+    return nodes.getLength() > 0 ? nodes.item(0) : null;
+  }
+
+  /**
+   * Gets an attribute of a node.
+   *
+   * @param node the node
+   * @param name the attribute name
+   * @return the value, or null
+   */
+  private static String getAttribute(final Node node, final String name) {
+    if (node == null) {
+      return null;
+    }
+    final NamedNodeMap attributes = node.getAttributes();
+    final Node attribute = attributes.getNamedItem(name);
+    return attribute == null ? null : attribute.getNodeValue();
+  }
+
+  /**
+   * Gets an integer attribute of a node.
+   *
+   * @param node the node
+   * @param name the attribute name
+   * @param def the default value
+   * @return the value
+   */
+  private static int getInt(final Node node, final String name, final int def) {
+    final String value = getAttribute(node, name);
+    return value == null ? def : Integer.parseInt(value);
+  }
+
+  /**
+   * Decodes the next frame.
+   *
+   * @return false if there are no more frames
+   * @throws IOException if the frame couldn't be decoded
+   */
+  public boolean next() throws IOException {
+    if (index >= frames) {
+      return false;
+    }
+    dispose();
+    final BufferedImage image = reader.read(index);
+    final IIOMetadata metadata = reader.getImageMetadata(index);
+    final Node descriptor = getNode(metadata, IMAGE_FORMAT, "ImageDescriptor");
+    final Node control = getNode(metadata, IMAGE_FORMAT, "GraphicControlExtension");
+    final int left = getInt(descriptor, "imageLeftPosition", 0);
+    final int top = getInt(descriptor, "imageTopPosition", 0);
+    // The delay is stored in hundredths of a second, and like browsers, too short delays are raised
+    final int millis = getInt(control, "delayTime", 0) * 10;
+    delay = millis < MINIMUM_DELAY ? DEFAULT_DELAY : millis;
+    disposal = getAttribute(control, "disposalMethod");
+    disposalX = left;
+    disposalY = top;
+    disposalWidth = image.getWidth();
+    disposalHeight = image.getHeight();
+    if ("restoreToPrevious".equals(disposal)) {
+      System.arraycopy(canvas, 0, previous, 0, canvas.length);
+    }
+    draw(image, left, top);
+    scale();
+    index++;
+    return true;
+  }
+
+  /** Applies the disposal method of the previous frame. */
+  private void dispose() {
+    if (index == 0) {
+      Arrays.fill(canvas, 0);
+      disposal = null;
+      return;
+    }
+    if ("restoreToBackgroundColor".equals(disposal)) {
+      final int maxX = Math.min(canvasWidth, disposalX + disposalWidth);
+      final int maxY = Math.min(canvasHeight, disposalY + disposalHeight);
+      for (int y = Math.max(0, disposalY); y < maxY; y++) {
+        Arrays.fill(canvas, y * canvasWidth + Math.max(0, disposalX), y * canvasWidth + maxX, 0);
+      }
+    } else if ("restoreToPrevious".equals(disposal)) {
+      System.arraycopy(previous, 0, canvas, 0, canvas.length);
+    }
+  }
+
+  /**
+   * Draws the frame onto the canvas, skipping transparent pixels.
+   *
+   * @param image the frame
+   * @param left the x position on the canvas
+   * @param top the y position on the canvas
+   */
+  private void draw(@NotNull final BufferedImage image, final int left, final int top) {
+    final int frameWidth = image.getWidth();
+    final int frameHeight = image.getHeight();
+    final int maxX = Math.min(frameWidth, canvasWidth - left);
+    final int maxY = Math.min(frameHeight, canvasHeight - top);
+    if (image.getColorModel() instanceof IndexColorModel
+        && image.getRaster().getDataBuffer() instanceof DataBufferByte
+        && image.getRaster().getNumDataElements() == 1
+        && image.getSampleModel().getSampleSize(0) == 8) {
+      final IndexColorModel model = (IndexColorModel) image.getColorModel();
+      final int[] palette = new int[model.getMapSize()];
+      model.getRGBs(palette);
+      final byte[] pixels = ((DataBufferByte) image.getRaster().getDataBuffer()).getData();
+      for (int y = Math.max(0, -top); y < maxY; y++) {
+        final int source = y * frameWidth;
+        final int target = (top + y) * canvasWidth + left;
+        for (int x = Math.max(0, -left); x < maxX; x++) {
+          final int argb = palette[pixels[source + x] & 0xFF];
+          if ((argb >>> 24) != 0) {
+            canvas[target + x] = argb;
+          }
+        }
+      }
+      return;
+    }
+    final int[] row = new int[frameWidth];
+    for (int y = Math.max(0, -top); y < maxY; y++) {
+      image.getRGB(0, y, frameWidth, 1, row, 0, frameWidth);
+      final int target = (top + y) * canvasWidth + left;
+      for (int x = Math.max(0, -left); x < maxX; x++) {
+        if ((row[x] >>> 24) != 0) {
+          canvas[target + x] = row[x];
+        }
+      }
+    }
+  }
+
+  /** Scales the canvas into the output buffer. */
+  private void scale() {
+    int position = 0;
+    for (int y = 0; y < height; y++) {
+      final int row = rows[y];
+      for (int x = 0; x < width; x++) {
+        output[position++] = canvas[row + columns[x]];
+      }
+    }
+  }
+
+  /** Restarts decoding from the first frame. */
+  public void reset() {
+    index = 0;
+  }
+
+  /**
+   * Gets the last decoded frame. The buffer is reused for every frame.
+   *
+   * @return the frame
+   */
+  public int[] getFrame() {
+    return output;
+  }
+
+  /**
+   * Gets the delay of the last decoded frame in milliseconds.
+   *
+   * @return the delay
+   */
+  public int getDelay() {
+    return delay;
+  }
+
+  /**
+   * Gets the amount of frames in the gif.
+   *
+   * @return the frames
+   */
+  public int getFrames() {
+    return frames;
+  }
+
+  /**
+   * Gets the index of the next frame.
+   *
+   * @return the index
+   */
+  public int getIndex() {
+    return index;
+  }
+
+  /**
+   * Gets the width of the output frames.
+   *
+   * @return the width
+   */
+  public int getWidth() {
+    return width;
+  }
+
+  /**
+   * Gets the height of the output frames.
+   *
+   * @return the height
+   */
+  public int getHeight() {
+    return height;
+  }
+
+  @Override
+  public void close() throws IOException {
+    reader.dispose();
+    stream.close();
+  }
+}
@@ -0,0 +1,336 @@
+/*............................................................................................
+. Copyright © 2021 Brandon Li                                                               .
+.                                                                                           .
+. Permission is hereby granted, free of charge, to any person obtaining a copy of this      .
+. software and associated documentation files (the “Software”), to deal in the Software     .
+. without restriction, including without limitation the rights to use, copy, modify, merge, .
+. publish, distribute, sublicense, and/or sell copies of the Software, and to permit        .
+. persons to whom the Software is furnished to do so, subject to the following conditions:  .
+.                                                                                           .
+. The above copyright notice and this permission notice shall be included in all copies     .
+. or substantial portions of the Software.                                                  .
+.                                                                                           .
+. THE SOFTWARE IS PROVIDED “AS IS”, WITHOUT WARRANTY OF ANY KIND,                           .
+.  EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF                       .
+.   MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND                                   .
+.   NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS                     .
+.   BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN                      .
+.   ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN                       .
+.   CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE                        .
+.   SOFTWARE.                                                                               .
+............................................................................................*/
+
+package com.github.pulsebeat02.minecraftmedialibrary.frame.gif;
+
+import com.github.pulsebeat02.minecraftmedialibrary.frame.FrameCallback;
+import com.github.pulsebeat02.minecraftmedialibrary.frame.decoder.FrameDecoder;
+import com.github.pulsebeat02.minecraftmedialibrary.frame.decoder.FrameDecoderListener;
+import com.github.pulsebeat02.minecraftmedialibrary.frame.map.MapDataCallback;
+import com.github.pulsebeat02.minecraftmedialibrary.logger.Logger;
+import com.github.pulsebeat02.minecraftmedialibrary.metrics.PerformanceMetrics;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A decoder which plays a GIF with the delay of every frame. The GIF is streamed through a {@link
+ * GifDecoder}, so only one frame is in memory at a time.
+ *
+ * <p>If the frames are sent to a {@link MapDataCallback}, the dithered map colors of every frame
+ * are cached during the first loop, so every following loop only costs the packet sends. GIFs whose
+ * dithered frames would exceed {@link #MAX_CACHE_SIZE} are streamed on every loop instead.
+ */
+public final class GifFrameDecoder implements FrameDecoder {
+
+  /** The maximum size of the dithered frame cache in bytes. */
+  public static final long MAX_CACHE_SIZE = 64L << 20;
+
+  private final Path file;
+  private final int width;
+  private final int height;
+  private final FrameCallback callback;
+  private final MapDataCallback maps;
+  private final List<ByteBuffer> cache;
+  private final List<FrameDecoderListener> listeners;
+  private final ScheduledExecutorService scheduler;
+
+  private GifDecoder decoder;
+  private int[] delays;
+  private boolean cached;
+  private boolean caching;
+  private long cacheSize;
+  private int index;
+  private long deadline;
+  private volatile ScheduledFuture<?> task;
+  private volatile boolean playing;
+  private volatile boolean repeat;
+  private volatile long time;
+  private volatile float rate;
+
+  /**
+   * Instantiates a new GifFrameDecoder.
+   *
+   * @param file the gif file
+   * @param width the width of the frames
+   * @param height the height of the frames
+   * @param callback the callback receiving the frames
+   */
+  public GifFrameDecoder(
+      @NotNull final Path file,
+      final int width,
+      final int height,
+      @NotNull final FrameCallback callback) {
+    this.file = file;
+    this.width = width;
+    this.height = height;
+    this.callback = callback;
+    maps = callback instanceof MapDataCallback ? (MapDataCallback) callback : null;
+    cache = new ArrayList<>();
+    listeners = new CopyOnWriteArrayList<>();
+    scheduler =
+        Executors.newSingleThreadScheduledExecutor(
+            r -> {
+              final Thread thread = new Thread(r, "MML GIF Player");
+              thread.setDaemon(true);
+              return thread;
+            });
+    caching = maps != null;
+    repeat = true;
+    rate = 1.0F;
+  }
+
+  /**
+   * Starts playing the GIF from its first frame. Any tick still scheduled by a previous start is
+   * cancelled first, so there is only ever one chain of ticks. If the previous start was still
+   * caching the first loop, the partial cache is discarded, as the frames are cached again from
+   * the beginning.
+   */
+  @Override
+  public void start() {
+    scheduler.execute(
+        () -> {
+          cancelTask();
+          if (caching) {
+            cache.clear();
+            cacheSize = 0L;
+          }
+          try {
+            if (!cached && decoder == null) {
+              decoder = new GifDecoder(file, width, height);
+              delays = new int[decoder.getFrames()];
+            }
+          } catch (final IOException e) {
+            Logger.error(String.format("Could not read the GIF! (%s)", file));
+            e.printStackTrace();
+            listeners.forEach(FrameDecoderListener::error);
+            return;
+          }
+          if (decoder != null) {
+            decoder.reset();
+          }
+          index = 0;
+          time = 0L;
+          playing = true;
+          deadline = System.nanoTime();
+          tick();
+        });
+  }
+
+  /** Sends the next frame and schedules the one after it. */
+  private void tick() {
+    if (!playing) {
+      return;
+    }
+    final int delay;
+    try {
+      delay = cached ? sendCached() : sendDecoded();
+    } catch (final IOException e) {
+      Logger.error(String.format("Could not decode the GIF! (%s)", file));
+      e.printStackTrace();
+      playing = false;
+      listeners.forEach(FrameDecoderListener::error);
+      return;
+    }
+    time += delay;
+    if (++index >= delays.length) {
+      if (caching) {
+        cached = true;
+        caching = false;
+        closeDecoder();
+        Logger.info(
+            String.format(
+                "Cached %d Dithered GIF Frames (%d Bytes) for %s", cache.size(), cacheSize, file));
+      }
+      if (!repeat) {
+        playing = false;
+        listeners.forEach(FrameDecoderListener::finished);
+        return;
+      }
+      index = 0;
+      time = 0L;
+      if (decoder != null) {
+        decoder.reset();
+      }
+    }
+    deadline += (long) (TimeUnit.MILLISECONDS.toNanos(delay) / rate);
+    task = scheduler.schedule(this::tick, deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+  }
+
+  /** Cancels the next scheduled tick, if there is one. */
+  private void cancelTask() {
+    final ScheduledFuture<?> next = task;
+    if (next != null) {
+      next.cancel(false);
+      task = null;
+    }
+  }
+
+  /**
+   * Sends the cached dithered frame.
+   *
+   * @return the delay of the frame
+   */
+  private int sendCached() {
+    final long start = System.nanoTime();
+    maps.getHandler()
+        .displayMaps(
+            maps.getViewers(),
+            (int) maps.getMap(),
+            maps.getWidth(),
+            maps.getHeight(),
+            cache.get(index),
+            maps.getVideoWidth());
+    maps.recordFrameCost(System.nanoTime() - start);
+    return delays[index];
+  }
+
+  /**
+   * Decodes and sends the next frame, caching its dithered colors if possible.
+   *
+   * @return the delay of the frame
+   * @throws IOException if the frame couldn't be decoded
+   */
+  private int sendDecoded() throws IOException {
+    if (!decoder.next()) {
+      throw new IOException("GIF ended before its last frame!");
+    }
+    final int[] frame = decoder.getFrame();
+    delays[index] = decoder.getDelay();
+    if (!caching) {
+      callback.send(frame);
+      return delays[index];
+    }
+    final long start = System.nanoTime();
+    final ByteBuffer dithered = maps.getType().ditherIntoMinecraft(frame, maps.getVideoWidth());
+    PerformanceMetrics.recordDither(maps.getType().getSetting(), start);
+    cacheSize += dithered.capacity();
+    if (cacheSize > MAX_CACHE_SIZE) {
+      Logger.warn(String.format("GIF is too large to cache, streaming it instead! (%s)", file));
+      caching = false;
+      cache.clear();
+    } else {
+      cache.add(dithered);
+    }
+    maps.getHandler()
+        .displayMaps(
+            maps.getViewers(),
+            (int) maps.getMap(),
+            maps.getWidth(),
+            maps.getHeight(),
+            dithered,
+            maps.getVideoWidth());
+    maps.recordFrameCost(System.nanoTime() - start);
+    return delays[index];
+  }
+
+  /** Closes the streaming decoder once it isn't needed anymore. */
+  private void closeDecoder() {
+    if (decoder == null) {
+      return;
+    }
+    try {
+      decoder.close();
+    } catch (final IOException e) {
+      e.printStackTrace();
+    }
+    decoder = null;
+  }
+
+  @Override
+  public void stop() {
+    playing = false;
+    cancelTask();
+  }
+
+  @Override
+  public void release() {
+    playing = false;
+    scheduler.execute(
+        () -> {
+          closeDecoder();
+          cache.clear();
+          cached = false;
+        });
+    scheduler.shutdown();
+    listeners.clear();
+  }
+
+  @Override
+  public void setRepeat(final boolean setting) {
+    repeat = setting;
+  }
+
+  @Override
+  public boolean isPlaying() {
+    return playing;
+  }
+
+  @Override
+  public long getTime() {
+    return time;
+  }
+
+  /** GIFs are short and looped, so seeking is not supported. */
+  @Override
+  public void setTime(final long time) {}
+
+  @Override
+  public long getLength() {
+    if (!cached) {
+      return -1L;
+    }
+    long length = 0L;
+    for (final int delay : delays) {
+      length += delay;
+    }
+    return length;
+  }
+
+  @Override
+  public void setRate(final float rate) {
+    this.rate = rate;
+  }
+
+  @Override
+  public void addListener(@NotNull final FrameDecoderListener listener) {
+    listeners.add(listener);
+  }
+
+  /**
+   * Gets whether the dithered frames are cached.
+   *
+   * @return whether the frames are cached
+   */
+  public boolean isCached() {
+    return cached;
+  }
+}
@@ -24,6 +24,7 @@ package com.github.pulsebeat02.minecraftmedialibrary.frame.highlight;
 
 import com.github.pulsebeat02.minecraftmedialibrary.MediaLibrary;
 import com.github.pulsebeat02.minecraftmedialibrary.frame.FrameCallback;
+import com.github.pulsebeat02.minecraftmedialibrary.frame.FramePacer;
 import com.github.pulsebeat02.minecraftmedialibrary.nms.PacketHandler;
 import org.bukkit.Location;
 import org.jetbrains.annotations.NotNull;
@@ -43,6 +44,7 @@ public final class BlockHighlightCallback implements FrameCallback {
   private final Location location;
   private final int videoWidth;
   private final int delay;
+  private final FramePacer pacer;
   private final int width;
   private final int height;
   private long lastUpdated;
@@ -73,6 +75,7 @@ public final class BlockHighlightCallback implements FrameCallback {
     this.height = height;
     this.videoWidth = videoWidth;
     this.delay = delay;
+    pacer = new FramePacer(delay);
   }
 
   /**
@@ -91,9 +94,8 @@ public final class BlockHighlightCallback implements FrameCallback {
    */
   @Override
   public void send(final int[] data) {
-    final long time = System.currentTimeMillis();
-    if (time - lastUpdated >= delay) {
-      lastUpdated = time;
+    if (pacer.shouldPresent()) {
+      lastUpdated = System.currentTimeMillis();
       for (int y = 0; y < height; y++) {
         for (int x = 0; x < width; x++) {
           handler.displayDebugMarker(
@@ -144,6 +146,16 @@ public final class BlockHighlightCallback implements FrameCallback {
     return delay;
   }
 
+  /**
+   * Gets the pacer deciding which frames are presented.
+   *
+   * @return the pacer
+   */
+  @Override
+  public FramePacer getPacer() {
+    return pacer;
+  }
+
   /**
    * Gets the PacketHandler.
    *
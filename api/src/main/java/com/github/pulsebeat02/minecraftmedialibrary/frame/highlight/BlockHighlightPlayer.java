@@ -2,6 +2,8 @@ package com.github.pulsebeat02.minecraftmedialibrary.frame.highlight;
 
 import com.github.pulsebeat02.minecraftmedialibrary.MediaLibrary;
 import com.github.pulsebeat02.minecraftmedialibrary.frame.VideoPlayer;
+import com.github.pulsebeat02.minecraftmedialibrary.frame.decoder.FrameDecoderFactory;
+import com.github.pulsebeat02.minecraftmedialibrary.frame.decoder.FrameDecoders;
 import com.github.pulsebeat02.minecraftmedialibrary.logger.Logger;
 import org.bukkit.entity.Player;
 import org.jetbrains.annotations.NotNull;
@@ -34,6 +36,27 @@ public class BlockHighlightPlayer extends VideoPlayer {
     Logger.info(String.format("Created a Debug Highlight Integrated Video Player (%s)", url));
   }
 
+  /**
+   * Instantiates a new BlockHighlightPlayer with a specific decoder.
+   *
+   * @param library the library
+   * @param factory the decoder factory
+   * @param url the url
+   * @param width the width
+   * @param height the height
+   * @param callback the callback
+   */
+  public BlockHighlightPlayer(
+      @NotNull final MediaLibrary library,
+      @NotNull final FrameDecoderFactory factory,
+      @NotNull final String url,
+      @NotNull final BlockHighlightCallback callback,
+      final int width,
+      final int height) {
+    super(library, factory, url, width, height, callback);
+    Logger.info(String.format("Created a Debug Highlight Integrated Video Player (%s)", url));
+  }
+
   /**
    * Instantiates a new BlockHighlightPlayer.
    *
@@ -87,6 +110,7 @@ public class BlockHighlightPlayer extends VideoPlayer {
     private int width = 15;
     private int height = 15;
     private BlockHighlightCallback callback;
+    private FrameDecoderFactory factory;
 
     private Builder() {}
 
@@ -110,8 +134,19 @@ public class BlockHighlightPlayer extends VideoPlayer {
       return this;
     }
 
+    public Builder setDecoderFactory(final FrameDecoderFactory factory) {
+      this.factory = factory;
+      return this;
+    }
+
     public BlockHighlightPlayer build(@NotNull final MediaLibrary library) {
-      return new BlockHighlightPlayer(library, url, callback, width, height);
+      return new BlockHighlightPlayer(
+          library,
+          factory != null ? factory : FrameDecoders.getDefault(library),
+          url,
+          callback,
+          width,
+          height);
     }
   }
 }
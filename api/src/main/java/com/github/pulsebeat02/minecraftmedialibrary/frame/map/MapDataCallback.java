@@ -24,10 +24,13 @@ package com.github.pulsebeat02.minecraftmedialibrary.frame.map;
 
 import com.github.pulsebeat02.minecraftmedialibrary.MediaLibrary;
 import com.github.pulsebeat02.minecraftmedialibrary.frame.FrameCallback;
+import com.github.pulsebeat02.minecraftmedialibrary.frame.FramePacer;
 import com.github.pulsebeat02.minecraftmedialibrary.frame.dither.DitherHolder;
+import com.github.pulsebeat02.minecraftmedialibrary.metrics.PerformanceMetrics;
 import com.github.pulsebeat02.minecraftmedialibrary.nms.PacketHandler;
 import org.jetbrains.annotations.NotNull;
 
+import java.nio.ByteBuffer;
 import java.util.UUID;
 
 /**
@@ -44,13 +47,15 @@ public final class MapDataCallback implements FrameCallback {
 
   private final PacketHandler handler;
   private final UUID[] viewers;
-  private final DitherHolder type;
+  private volatile DitherHolder type;
   private final int map;
   private final int videoWidth;
-  private final int delay;
+  private volatile int delay;
+  private volatile FramePacer pacer;
   private final int width;
   private final int height;
   private long lastUpdated;
+  private volatile long frameCost;
 
   /**
    * Instantiates a new Item frame callback.
@@ -81,6 +86,7 @@ public final class MapDataCallback implements FrameCallback {
     this.height = height;
     this.videoWidth = videoWidth;
     this.delay = delay;
+    pacer = new FramePacer(delay);
   }
 
   /**
@@ -99,11 +105,14 @@ public final class MapDataCallback implements FrameCallback {
    */
   @Override
   public void send(final int[] data) {
-    final long time = System.currentTimeMillis();
-    if (time - lastUpdated >= delay) {
-      lastUpdated = time;
-      handler.displayMaps(
-          viewers, map, width, height, type.ditherIntoMinecraft(data, videoWidth), videoWidth);
+    if (pacer.shouldPresent()) {
+      lastUpdated = System.currentTimeMillis();
+      final DitherHolder holder = type;
+      final long start = System.nanoTime();
+      final ByteBuffer dithered = holder.ditherIntoMinecraft(data, videoWidth);
+      PerformanceMetrics.recordDither(holder.getSetting(), start);
+      handler.displayMaps(viewers, map, width, height, dithered, videoWidth);
+      recordFrameCost(System.nanoTime() - start);
     }
   }
 
@@ -152,6 +161,26 @@ public final class MapDataCallback implements FrameCallback {
     return delay;
   }
 
+  /**
+   * Sets the delay between frames. Takes effect from the next frame.
+   *
+   * @param delay the delay in milliseconds
+   */
+  public void setDelay(final int delay) {
+    this.delay = delay;
+    pacer = new FramePacer(delay);
+  }
+
+  /**
+   * Gets the pacer deciding which frames are presented.
+   *
+   * @return the pacer
+   */
+  @Override
+  public FramePacer getPacer() {
+    return pacer;
+  }
+
   /**
    * Gets the PacketHandler.
    *
@@ -188,6 +217,34 @@ public final class MapDataCallback implements FrameCallback {
     return type;
   }
 
+  /**
+   * Sets the dithering type. Takes effect from the next frame.
+   *
+   * @param type the dithering type
+   */
+  public void setType(@NotNull final DitherHolder type) {
+    this.type = type;
+  }
+
+  /**
+   * Records the time it took to dither and send a frame into the moving average.
+   *
+   * @param nanos the time in nanoseconds
+   */
+  public void recordFrameCost(final long nanos) {
+    final long cost = frameCost;
+    frameCost = cost == 0 ? nanos : cost + ((nanos - cost) >> 3);
+  }
+
+  /**
+   * Gets the moving average of the time it takes to dither and send a frame.
+   *
+   * @return the frame cost in nanoseconds
+   */
+  public long getFrameCost() {
+    return frameCost;
+  }
+
   /** The type Builder. */
   public static class Builder {
 
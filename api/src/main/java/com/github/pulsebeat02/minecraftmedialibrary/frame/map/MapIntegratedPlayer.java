@@ -24,6 +24,8 @@ package com.github.pulsebeat02.minecraftmedialibrary.frame.map;
 
 import com.github.pulsebeat02.minecraftmedialibrary.MediaLibrary;
 import com.github.pulsebeat02.minecraftmedialibrary.frame.VideoPlayer;
+import com.github.pulsebeat02.minecraftmedialibrary.frame.decoder.FrameDecoderFactory;
+import com.github.pulsebeat02.minecraftmedialibrary.frame.decoder.FrameDecoders;
 import com.github.pulsebeat02.minecraftmedialibrary.logger.Logger;
 import org.jetbrains.annotations.NotNull;
 
@@ -54,6 +56,27 @@ public class MapIntegratedPlayer extends VideoPlayer {
     Logger.info(String.format("Created a VLCJ Integrated Itemframe Video Player (%s)", url));
   }
 
+  /**
+   * Instantiates a new MapIntegratedPlayer with a specific decoder.
+   *
+   * @param library the library
+   * @param factory the decoder factory
+   * @param url the url
+   * @param width the width
+   * @param height the height
+   * @param callback the callback
+   */
+  public MapIntegratedPlayer(
+      @NotNull final MediaLibrary library,
+      @NotNull final FrameDecoderFactory factory,
+      @NotNull final String url,
+      @NotNull final MapDataCallback callback,
+      final int width,
+      final int height) {
+    super(library, factory, url, width, height, callback);
+    Logger.info(String.format("Created a VLCJ Integrated Itemframe Video Player (%s)", url));
+  }
+
   /**
    * Instantiates a new MapIntegratedPlayer.
    *
@@ -90,6 +113,7 @@ public class MapIntegratedPlayer extends VideoPlayer {
     private int width = 5;
     private int height = 5;
     private MapDataCallback callback;
+    private FrameDecoderFactory factory;
 
     private Builder() {}
 
@@ -113,8 +137,19 @@ public class MapIntegratedPlayer extends VideoPlayer {
       return this;
     }
 
+    public Builder setDecoderFactory(final FrameDecoderFactory factory) {
+      this.factory = factory;
+      return this;
+    }
+
     public MapIntegratedPlayer build(@NotNull final MediaLibrary library) {
-      return new MapIntegratedPlayer(library, url, callback, width, height);
+      return new MapIntegratedPlayer(
+          library,
+          factory != null ? factory : FrameDecoders.getDefault(library),
+          url,
+          callback,
+          width,
+          height);
     }
   }
 }
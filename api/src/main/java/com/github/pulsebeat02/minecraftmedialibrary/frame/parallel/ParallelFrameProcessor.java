@@ -0,0 +1,353 @@
+/*............................................................................................
+. Copyright © 2021 Brandon Li                                                               .
+.                                                                                           .
+. Permission is hereby granted, free of charge, to any person obtaining a copy of this      .
+. software and associated documentation files (the “Software”), to deal in the Software     .
+. without restriction, including without limitation the rights to use, copy, modify, merge, .
+. publish, distribute, sublicense, and/or sell copies of the Software, and to permit        .
+. persons to whom the Software is furnished to do so, subject to the following conditions:  .
+.                                                                                           .
+. The above copyright notice and this permission notice shall be included in all copies     .
+. or substantial portions of the Software.                                                  .
+.                                                                                           .
+. THE SOFTWARE IS PROVIDED “AS IS”, WITHOUT WARRANTY OF ANY KIND,                           .
+.  EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF                       .
+.   MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND                                   .
+.   NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS                     .
+.   BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN                      .
+.   ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN                       .
+.   CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE                        .
+.   SOFTWARE.                                                                               .
+............................................................................................*/
+
+package com.github.pulsebeat02.minecraftmedialibrary.frame.parallel;
+
+import com.github.pulsebeat02.minecraftmedialibrary.frame.FrameCallback;
+import com.github.pulsebeat02.minecraftmedialibrary.frame.FramePacer;
+import com.github.pulsebeat02.minecraftmedialibrary.frame.dither.DitherHolder;
+import com.github.pulsebeat02.minecraftmedialibrary.frame.map.MapDataCallback;
+import com.github.pulsebeat02.minecraftmedialibrary.logger.Logger;
+import com.github.pulsebeat02.minecraftmedialibrary.metrics.PerformanceMetrics;
+import com.github.pulsebeat02.minecraftmedialibrary.nms.PacketHandler;
+import com.google.common.base.Preconditions;
+import org.jetbrains.annotations.NotNull;
+
+import java.nio.ByteBuffer;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A FrameCallback which dithers consecutive frames on several worker threads at once and hands the
+ * results to a single sender thread in presentation order.
+ *
+ * <p>Each incoming frame is copied into a pooled buffer and submitted to the worker pool. The
+ * Future of the dithered frame is put into a bounded reorder queue before the work starts, so the
+ * sender always receives frames in the order they came in from the decoder, no matter which worker
+ * finishes first. Latency is bounded in two ways: a frame is dropped when the reorder queue is
+ * already full, and the sender gives up on a frame which isn't sent within the maximum latency of
+ * being submitted, no matter how long it waited in the queue.
+ */
+public final class ParallelFrameProcessor implements FrameCallback {
+
+  private static final AtomicInteger PROCESSOR_COUNT = new AtomicInteger();
+
+  private final MapDataCallback callback;
+  private final PacketHandler handler;
+  private final UUID[] viewers;
+  private final int map;
+  private final int width;
+  private final int height;
+  private final int videoWidth;
+  private final int threads;
+  private final long maxLatency;
+  private final int id;
+  private final BlockingQueue<PendingFrame> pending;
+  private final Queue<int[]> buffers;
+  private final AtomicLong dropped;
+  private final AtomicLong late;
+  private ExecutorService workers;
+  private Thread sender;
+  private volatile boolean running;
+
+  /**
+   * Instantiates a new ParallelFrameProcessor.
+   *
+   * @param callback the map callback providing the screen and dithering properties
+   * @param threads the amount of worker threads used for dithering
+   * @param maxLatency the maximum latency of a frame in milliseconds
+   */
+  public ParallelFrameProcessor(
+      @NotNull final MapDataCallback callback, final int threads, final long maxLatency) {
+    Preconditions.checkArgument(threads > 0, String.format("Invalid Thread Count! (%d)", threads));
+    Preconditions.checkArgument(
+        maxLatency > 0, String.format("Invalid Maximum Latency! (%d)", maxLatency));
+    this.callback = callback;
+    this.threads = threads;
+    this.maxLatency = maxLatency;
+    handler = callback.getHandler();
+    viewers = callback.getViewers();
+    map = (int) callback.getMap();
+    width = callback.getWidth();
+    height = callback.getHeight();
+    videoWidth = callback.getVideoWidth();
+    id = PROCESSOR_COUNT.incrementAndGet();
+    pending = new ArrayBlockingQueue<>(threads << 1);
+    buffers = new ConcurrentLinkedQueue<>();
+    dropped = new AtomicLong();
+    late = new AtomicLong();
+  }
+
+  /**
+   * Gets the default amount of worker threads, which leaves one core for the server and the
+   * decoder.
+   *
+   * @return the default thread count
+   */
+  public static int getDefaultThreads() {
+    return Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+  }
+
+  /** Starts the worker pool and the sender thread. */
+  public synchronized void start() {
+    if (running) {
+      return;
+    }
+    running = true;
+    final AtomicInteger count = new AtomicInteger();
+    workers =
+        Executors.newFixedThreadPool(
+            threads,
+            r -> {
+              final Thread thread =
+                  new Thread(
+                      r, String.format("MML Dither Worker #%d-%d", id, count.incrementAndGet()));
+              thread.setDaemon(true);
+              return thread;
+            });
+    sender = new Thread(this::sendFrames, String.format("MML Frame Sender #%d", id));
+    sender.setDaemon(true);
+    sender.start();
+    PerformanceMetrics.registerGauge(getQueueGauge(), pending::size);
+    Logger.info(
+        String.format("Started Parallel Frame Processor #%d with %d Dither Threads", id, threads));
+  }
+
+  /** Stops the worker pool and the sender thread, discarding any frames not yet sent. */
+  public synchronized void stop() {
+    if (!running) {
+      return;
+    }
+    running = false;
+    PerformanceMetrics.unregisterGauge(getQueueGauge());
+    sender.interrupt();
+    workers.shutdownNow();
+    PendingFrame frame;
+    while ((frame = pending.poll()) != null) {
+      frame.future.cancel(true);
+    }
+    Logger.info(
+        String.format(
+            "Stopped Parallel Frame Processor #%d (Dropped: %d, Late: %d)",
+            id, dropped.get(), late.get()));
+  }
+
+  /**
+   * Submits the frame to the worker pool. The data is copied, as the decoder reuses its buffer for
+   * the next frame.
+   *
+   * @param data to send
+   */
+  @Override
+  public void send(final int[] data) {
+    if (!running) {
+      return;
+    }
+    if (!callback.getPacer().shouldPresent()) {
+      return;
+    }
+    if (pending.remainingCapacity() == 0) {
+      dropped.incrementAndGet();
+      PerformanceMetrics.increment(PerformanceMetrics.DROPPED_QUEUE);
+      return;
+    }
+    final long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(maxLatency);
+    final DitherHolder holder = callback.getType();
+    final int[] frame = borrowBuffer(data.length);
+    System.arraycopy(data, 0, frame, 0, data.length);
+    final Future<ByteBuffer> future;
+    try {
+      future =
+          workers.submit(
+              () -> {
+                final long start = System.nanoTime();
+                try {
+                  return holder.ditherIntoMinecraft(frame, videoWidth);
+                } finally {
+                  PerformanceMetrics.recordDither(holder.getSetting(), start);
+                  callback.recordFrameCost(System.nanoTime() - start);
+                  buffers.offer(frame);
+                }
+              });
+    } catch (final RejectedExecutionException e) {
+      return;
+    }
+    if (!pending.offer(new PendingFrame(future, deadline))) {
+      future.cancel(false);
+      dropped.incrementAndGet();
+      PerformanceMetrics.increment(PerformanceMetrics.DROPPED_QUEUE);
+    }
+  }
+
+  /**
+   * Takes the dithered frames out of the reorder queue in order and sends them to the viewers. A
+   * frame is only waited on until the deadline set when it was submitted, and dropped once it has
+   * passed.
+   */
+  private void sendFrames() {
+    while (running) {
+      final PendingFrame frame;
+      try {
+        frame = pending.take();
+      } catch (final InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return;
+      }
+      final Future<ByteBuffer> future = frame.future;
+      try {
+        final long remaining = frame.deadline - System.nanoTime();
+        if (remaining <= 0) {
+          throw new TimeoutException();
+        }
+        handler.displayMaps(
+            viewers, map, width, height, future.get(remaining, TimeUnit.NANOSECONDS), videoWidth);
+      } catch (final TimeoutException | CancellationException e) {
+        future.cancel(true);
+        late.incrementAndGet();
+        PerformanceMetrics.increment(PerformanceMetrics.DROPPED_LATE);
+      } catch (final InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return;
+      } catch (final ExecutionException e) {
+        Logger.error(String.format("Failed to Dither Frame! (%s)", e.getCause()));
+      }
+    }
+  }
+
+  /**
+   * Gets the name of the queue depth gauge of this processor.
+   *
+   * @return the gauge name
+   */
+  private String getQueueGauge() {
+    return String.format("queue.parallel#%d", id);
+  }
+
+  /**
+   * Gets a buffer of the specified size from the pool, or allocates a new one.
+   *
+   * @param length the length of the buffer
+   * @return the buffer
+   */
+  private int @NotNull [] borrowBuffer(final int length) {
+    final int[] buffer = buffers.poll();
+    return buffer != null && buffer.length == length ? buffer : new int[length];
+  }
+
+  /**
+   * Gets the map callback.
+   *
+   * @return the callback
+   */
+  public MapDataCallback getCallback() {
+    return callback;
+  }
+
+  /**
+   * Gets the pacer of the map callback, which decides which frames are submitted.
+   *
+   * @return the pacer
+   */
+  @Override
+  public FramePacer getPacer() {
+    return callback.getPacer();
+  }
+
+  /**
+   * Gets the amount of worker threads.
+   *
+   * @return the thread count
+   */
+  public int getThreads() {
+    return threads;
+  }
+
+  /**
+   * Gets the maximum latency of a frame in milliseconds.
+   *
+   * @return the maximum latency
+   */
+  public long getMaxLatency() {
+    return maxLatency;
+  }
+
+  /**
+   * Gets the amount of frames waiting in the reorder queue.
+   *
+   * @return the queue depth
+   */
+  public int getQueueDepth() {
+    return pending.size();
+  }
+
+  /**
+   * Gets the amount of frames dropped because the reorder queue was full.
+   *
+   * @return the dropped frames
+   */
+  public long getDroppedFrames() {
+    return dropped.get();
+  }
+
+  /**
+   * Gets the amount of frames dropped because they exceeded the maximum latency.
+   *
+   * @return the late frames
+   */
+  public long getLateFrames() {
+    return late.get();
+  }
+
+  /**
+   * Returns whether the processor is running.
+   *
+   * @return whether the processor is running
+   */
+  public boolean isRunning() {
+    return running;
+  }
+
+  /** A dithered frame in the reorder queue along with the time it has to be sent by. */
+  private static final class PendingFrame {
+
+    private final Future<ByteBuffer> future;
+    private final long deadline;
+
+    private PendingFrame(@NotNull final Future<ByteBuffer> future, final long deadline) {
+      this.future = future;
+      this.deadline = deadline;
+    }
+  }
+}
@@ -23,20 +23,17 @@
 package com.github.pulsebeat02.minecraftmedialibrary.frame.parallel;
 
 import com.github.pulsebeat02.minecraftmedialibrary.MediaLibrary;
-import com.github.pulsebeat02.minecraftmedialibrary.frame.FrameCallback;
 import com.github.pulsebeat02.minecraftmedialibrary.frame.VideoPlayer;
-import com.github.pulsebeat02.minecraftmedialibrary.frame.dither.DitherHolder;
-import com.github.pulsebeat02.minecraftmedialibrary.frame.dither.FilterLiteDither;
-import com.github.pulsebeat02.minecraftmedialibrary.nms.PacketHandler;
+import com.github.pulsebeat02.minecraftmedialibrary.frame.map.MapDataCallback;
+import com.github.pulsebeat02.minecraftmedialibrary.logger.Logger;
 import org.bukkit.entity.Player;
 import org.jetbrains.annotations.NotNull;
 
-import java.nio.ByteBuffer;
 import java.nio.file.Path;
 import java.util.Collection;
-import java.util.concurrent.CompletableFuture;
+
 /**
- *
+ * A VLCJ integrated player which renders videos on maps while dithering several frames at once.
  *
  * <pre>
  *
@@ -60,84 +57,183 @@ import java.util.concurrent.CompletableFuture;
  * the frames being sent per second.
  * -------------------------------------------------------------------------------------
  *
- * We could split this into more threads based on the user's environment. For example:
- *
- * Thread #1 ... #2: Dithers a specific frame. (We can dither 2 frames at once since
- * we have 2 threads now instead of just 1)
- * Thread #3: Sends the dithered frame data to the clients.
+ * We split the dithering into N worker threads based on the user's environment, while
+ * a single sender thread sends the results:
  *
  * Frame # | What to do:
  * --------|-------------------------------------
- * 1       | Thread #1 and #2 dithers this frame at the same time.
- * 2       | Thread #3 sends the dithered frame provided from thread #1/#2.
- * | Thread #1/#2 now dithers frame 2.
- *
- *
- * And so on, (chaining domino pattern) The advantage of having two threads dither is
- * that the result may be faster toreceive due to the parallel computations made on
- * the frame dithering. This will mean that the chance of blocking will likely less
- * occur due to how in an ideal environment (where it can support multiple threads
- * running at once at a good pace), it can provide the results faster.
- *
- * Since the actual dithering process will be made async/in parallel, encapsulate
- * the result in a Future&lt;int[]&gt;
+ * 1       | Worker #1 dithers frame 1.
+ * 2       | Worker #2 dithers frame 2, Worker #1 is still busy with frame 1.
+ * 3       | Worker #3 dithers frame 3, the sender sends frame 1 once it is done.
  *
- * Have a FrameSender class (or whatever you wanna call it) with a Queue&lt;Future&lt;int[]&gt;&gt;,
- * I believe a LinkedList is the best option here
+ * Error diffusion algorithms such as Floyd Steinberg can't be split up within a frame,
+ * but consecutive frames are independent, so the throughput scales with the cores.
  *
- * Add the future data to the FrameSender queue orderly before/when the dithering starts
- * (not after it finishes, kinda defeats the purpose of using Futures here), then start
- * the process in parallel. That way, no matter when the frame is processed, since you
- * put them in order as they come in, they will be in order when you retrieve them
- *
- * In the sender, so long so it isn't empty, remove() the frame and Futures.getUnchecked(frame)
- * the data and send it, that way it will be sent as soon as it's done (basically blocking
- * the sender thread before sending it until the frame is processed; hopefully, them being
- * processed in parallel will keep them up and overcome any waiting overhead) (the class is
- * from Guava, it just wraps the checked Future#get() exceptions in an unchecked exception/error)
+ * The Future of each frame is put into a bounded queue before the dithering starts, so
+ * no matter when a frame is processed, the sender retrieves them in order. If the queue
+ * is full, or a frame isn't ready within the maximum latency, the frame is dropped so
+ * the video never falls behind.
  *
  * </pre>
- *
- * This is currently a VideoPlayer in progress. It will not function at all. Please wait as I try to
- * develop it.
  */
 public class ParallelVideoPlayer extends VideoPlayer {
 
-  private final PacketHandler handler;
-  private final DitherHolder holder;
-  private final FilterLiteDither dither;
-  private ByteBuffer frame;
-  private int map;
-  private int width, height;
-  private int videoWidth;
-  private int delay;
-  private long lastUpdated;
+  private final ParallelFrameProcessor processor;
+
+  /**
+   * Instantiates a new ParallelVideoPlayer.
+   *
+   * @param library the library
+   * @param url the url
+   * @param callback the callback
+   * @param width the width
+   * @param height the height
+   * @param threads the amount of dithering threads
+   * @param maxLatency the maximum latency of a frame in milliseconds
+   */
+  public ParallelVideoPlayer(
+      @NotNull final MediaLibrary library,
+      @NotNull final String url,
+      @NotNull final MapDataCallback callback,
+      final int width,
+      final int height,
+      final int threads,
+      final long maxLatency) {
+    this(library, url, new ParallelFrameProcessor(callback, threads, maxLatency), width, height);
+  }
 
+  /**
+   * Instantiates a new ParallelVideoPlayer.
+   *
+   * @param library the library
+   * @param file the file
+   * @param callback the callback
+   * @param width the width
+   * @param height the height
+   * @param threads the amount of dithering threads
+   * @param maxLatency the maximum latency of a frame in milliseconds
+   */
   public ParallelVideoPlayer(
       @NotNull final MediaLibrary library,
       @NotNull final Path file,
+      @NotNull final MapDataCallback callback,
       final int width,
       final int height,
-      @NotNull final FrameCallback callback) {
-    super(library, file.toAbsolutePath().toString(), width, height, callback);
-    handler = library.getHandler();
-    holder = null;
-    dither = new FilterLiteDither();
+      final int threads,
+      final long maxLatency) {
+    this(
+        library,
+        file.toAbsolutePath().toString(),
+        new ParallelFrameProcessor(callback, threads, maxLatency),
+        width,
+        height);
   }
 
+  private ParallelVideoPlayer(
+      @NotNull final MediaLibrary library,
+      @NotNull final String url,
+      @NotNull final ParallelFrameProcessor processor,
+      final int width,
+      final int height) {
+    super(library, url, width, height, processor);
+    this.processor = processor;
+    Logger.info(
+        String.format(
+            "Created a Parallel Itemframe Video Player with %d Threads (%s)",
+            processor.getThreads(), url));
+  }
+
+  /**
+   * Returns a new builder class to use.
+   *
+   * @return the builder
+   */
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  /**
+   * Starts the dithering threads and the player.
+   *
+   * @param players which players to play the audio for
+   */
   @Override
-  public void start(final @NotNull Collection<? extends Player> players) {}
+  public void start(@NotNull final Collection<? extends Player> players) {
+    processor.start();
+    super.start(players);
+  }
 
-  public void handleFrame(final int[] data) {
-    final long time = System.currentTimeMillis();
-    if (time - lastUpdated >= delay) {
-      lastUpdated = time;
-      process(data);
-    }
+  /**
+   * Stops the player and the dithering threads.
+   *
+   * @param players the players
+   */
+  @Override
+  public void stop(@NotNull final Collection<? extends Player> players) {
+    super.stop(players);
+    processor.stop();
+  }
+
+  /** Releases the player and the dithering threads. */
+  @Override
+  public void release() {
+    processor.stop();
+    super.release();
+  }
+
+  /**
+   * Gets the frame processor.
+   *
+   * @return the processor
+   */
+  public ParallelFrameProcessor getProcessor() {
+    return processor;
   }
 
-  public CompletableFuture<?> process(final int[] data) {
-    return CompletableFuture.supplyAsync(
-        () -> frame = dither.ditherIntoMinecraft(data, videoWidth));
+  /** The type Builder. */
+  public static class Builder {
+
+    private String url;
+    private int width = 5;
+    private int height = 5;
+    private int threads = ParallelFrameProcessor.getDefaultThreads();
+    private long maxLatency = 250L;
+    private MapDataCallback callback;
+
+    private Builder() {}
+
+    public Builder setUrl(final String url) {
+      this.url = url;
+      return this;
+    }
+
+    public Builder setWidth(final int width) {
+      this.width = width;
+      return this;
+    }
+
+    public Builder setHeight(final int height) {
+      this.height = height;
+      return this;
+    }
+
+    public Builder setThreads(final int threads) {
+      this.threads = threads;
+      return this;
+    }
+
+    public Builder setMaxLatency(final long maxLatency) {
+      this.maxLatency = maxLatency;
+      return this;
+    }
+
+    public Builder setCallback(final MapDataCallback callback) {
+      this.callback = callback;
+      return this;
+    }
+
+    public ParallelVideoPlayer build(@NotNull final MediaLibrary library) {
+      return new ParallelVideoPlayer(library, url, callback, width, height, threads, maxLatency);
+    }
   }
 }
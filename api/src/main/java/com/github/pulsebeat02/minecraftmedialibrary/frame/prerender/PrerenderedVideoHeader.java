@@ -0,0 +1,322 @@
+/*............................................................................................
+. Copyright © 2021 Brandon Li                                                               .
+.                                                                                           .
+. Permission is hereby granted, free of charge, to any person obtaining a copy of this      .
+. software and associated documentation files (the “Software”), to deal in the Software     .
+. without restriction, including without limitation the rights to use, copy, modify, merge, .
+. publish, distribute, sublicense, and/or sell copies of the Software, and to permit        .
+. persons to whom the Software is furnished to do so, subject to the following conditions:  .
+.                                                                                           .
+. The above copyright notice and this permission notice shall be included in all copies     .
+. or substantial portions of the Software.                                                  .
+.                                                                                           .
+. THE SOFTWARE IS PROVIDED “AS IS”, WITHOUT WARRANTY OF ANY KIND,                           .
+.  EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF                       .
+.   MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND                                   .
+.   NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS                     .
+.   BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN                      .
+.   ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN                       .
+.   CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE                        .
+.   SOFTWARE.                                                                               .
+............................................................................................*/
+
+package com.github.pulsebeat02.minecraftmedialibrary.frame.prerender;
+
+import com.google.common.base.Preconditions;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * The header of a pre-rendered video file, which also describes how the frames are split into map
+ * tiles. The file layout is as follows (big endian):
+ *
+ * <pre>
+ *
+ * HEADER (40 bytes)
+ *   int   magic ("MMLV")
+ *   short version
+ *   short tile size (128, one map)
+ *   int   video width
+ *   int   video height
+ *   int   delay between frames in milliseconds
+ *   int   keyframe interval
+ *   int   frame count
+ *   long  offset of the seek index
+ *   int   audio length in bytes (0 if there is no audio, always 0 in version 1)
+ *
+ * FRAME (repeated frame count times)
+ *   byte  type (0 = keyframe, 1 = delta frame)
+ *   keyframe:    every tile in row major order
+ *   delta frame: a bitmask of the changed tiles, followed by every changed tile
+ *
+ * SEEK INDEX
+ *   int   keyframe count
+ *   int   frame number, long offset (repeated keyframe count times)
+ *
+ * AUDIO (version 2)
+ *   the audio played along with the video (audio length bytes)
+ *
+ * </pre>
+ *
+ * Each tile contains the Minecraft map palette colors of its pixels in row major order. Tiles on
+ * the right and bottom edge are smaller if the video dimensions are not a multiple of the tile
+ * size.
+ */
+public final class PrerenderedVideoHeader {
+
+  /** The magic number at the start of each file ("MMLV"). */
+  public static final int MAGIC = 0x4D4D4C56;
+
+  /** The current version of the format, which can also read files of every earlier version. */
+  public static final short VERSION = 2;
+
+  /** The size of the header in bytes. */
+  public static final int HEADER_SIZE = 40;
+
+  /** The width and height of each tile in pixels. */
+  public static final int TILE_SIZE = 128;
+
+  /** Frame type of keyframes. */
+  public static final byte KEYFRAME = 0;
+
+  /** Frame type of delta frames. */
+  public static final byte DELTA_FRAME = 1;
+
+  private final int width;
+  private final int height;
+  private final int delay;
+  private final int keyframeInterval;
+  private final int tilesX;
+  private final int tilesY;
+  private int frameCount;
+  private long indexOffset;
+  private int audioLength;
+
+  /**
+   * Instantiates a new PrerenderedVideoHeader.
+   *
+   * @param width the video width
+   * @param height the video height
+   * @param delay the delay between frames in milliseconds
+   * @param keyframeInterval the amount of frames between each keyframe
+   */
+  public PrerenderedVideoHeader(
+      final int width, final int height, final int delay, final int keyframeInterval) {
+    Preconditions.checkArgument(width > 0, String.format("Width is not valid! (%d)", width));
+    Preconditions.checkArgument(height > 0, String.format("Height is not valid! (%d)", height));
+    Preconditions.checkArgument(delay > 0, String.format("Delay is not valid! (%d)", delay));
+    Preconditions.checkArgument(
+        keyframeInterval > 0,
+        String.format("Keyframe interval is not valid! (%d)", keyframeInterval));
+    this.width = width;
+    this.height = height;
+    this.delay = delay;
+    this.keyframeInterval = keyframeInterval;
+    tilesX = (width + TILE_SIZE - 1) / TILE_SIZE;
+    tilesY = (height + TILE_SIZE - 1) / TILE_SIZE;
+  }
+
+  /**
+   * Reads a header from the buffer.
+   *
+   * @param buffer the buffer, positioned at the start of the header
+   * @return the header
+   * @throws IOException if the buffer doesn't contain a valid header
+   */
+  @NotNull
+  public static PrerenderedVideoHeader read(@NotNull final ByteBuffer buffer) throws IOException {
+    if (buffer.getInt() != MAGIC) {
+      throw new IOException("Not a pre-rendered video file!");
+    }
+    final short version = buffer.getShort();
+    if (version < 1 || version > VERSION) {
+      throw new IOException(String.format("Unsupported pre-rendered video version! (%d)", version));
+    }
+    if (buffer.getShort() != TILE_SIZE) {
+      throw new IOException("Unsupported tile size in pre-rendered video!");
+    }
+    final PrerenderedVideoHeader header =
+        new PrerenderedVideoHeader(
+            buffer.getInt(), buffer.getInt(), buffer.getInt(), buffer.getInt());
+    header.frameCount = buffer.getInt();
+    header.indexOffset = buffer.getLong();
+    header.audioLength = buffer.getInt();
+    return header;
+  }
+
+  /**
+   * Writes the header into the buffer.
+   *
+   * @param buffer the buffer
+   */
+  public void write(@NotNull final ByteBuffer buffer) {
+    buffer.putInt(MAGIC);
+    buffer.putShort(VERSION);
+    buffer.putShort((short) TILE_SIZE);
+    buffer.putInt(width);
+    buffer.putInt(height);
+    buffer.putInt(delay);
+    buffer.putInt(keyframeInterval);
+    buffer.putInt(frameCount);
+    buffer.putLong(indexOffset);
+    buffer.putInt(audioLength);
+  }
+
+  /**
+   * Gets the width of the tile at the tile column.
+   *
+   * @param tileX the tile column
+   * @return the tile width
+   */
+  public int getTileWidth(final int tileX) {
+    return Math.min(TILE_SIZE, width - tileX * TILE_SIZE);
+  }
+
+  /**
+   * Gets the height of the tile at the tile row.
+   *
+   * @param tileY the tile row
+   * @return the tile height
+   */
+  public int getTileHeight(final int tileY) {
+    return Math.min(TILE_SIZE, height - tileY * TILE_SIZE);
+  }
+
+  /**
+   * Gets the length in bytes of the tile.
+   *
+   * @param tile the tile index (row major)
+   * @return the tile length
+   */
+  public int getTileLength(final int tile) {
+    return getTileWidth(tile % tilesX) * getTileHeight(tile / tilesX);
+  }
+
+  /**
+   * Gets the length in bytes of the bitmask of delta frames.
+   *
+   * @return the bitmask length
+   */
+  public int getMaskLength() {
+    return (getTiles() + 7) >> 3;
+  }
+
+  /**
+   * Gets the total amount of tiles.
+   *
+   * @return the tile count
+   */
+  public int getTiles() {
+    return tilesX * tilesY;
+  }
+
+  /**
+   * Gets the amount of tile columns.
+   *
+   * @return the tile columns
+   */
+  public int getTilesX() {
+    return tilesX;
+  }
+
+  /**
+   * Gets the amount of tile rows.
+   *
+   * @return the tile rows
+   */
+  public int getTilesY() {
+    return tilesY;
+  }
+
+  /**
+   * Gets the video width.
+   *
+   * @return the width
+   */
+  public int getWidth() {
+    return width;
+  }
+
+  /**
+   * Gets the video height.
+   *
+   * @return the height
+   */
+  public int getHeight() {
+    return height;
+  }
+
+  /**
+   * Gets the delay between frames in milliseconds.
+   *
+   * @return the delay
+   */
+  public int getDelay() {
+    return delay;
+  }
+
+  /**
+   * Gets the amount of frames between each keyframe.
+   *
+   * @return the keyframe interval
+   */
+  public int getKeyframeInterval() {
+    return keyframeInterval;
+  }
+
+  /**
+   * Gets the frame count.
+   *
+   * @return the frame count
+   */
+  public int getFrameCount() {
+    return frameCount;
+  }
+
+  /**
+   * Sets the frame count.
+   *
+   * @param frameCount the frame count
+   */
+  public void setFrameCount(final int frameCount) {
+    this.frameCount = frameCount;
+  }
+
+  /**
+   * Gets the offset of the seek index.
+   *
+   * @return the index offset
+   */
+  public long getIndexOffset() {
+    return indexOffset;
+  }
+
+  /**
+   * Sets the offset of the seek index.
+   *
+   * @param indexOffset the index offset
+   */
+  public void setIndexOffset(final long indexOffset) {
+    this.indexOffset = indexOffset;
+  }
+
+  /**
+   * Gets the length of the audio stored after the seek index in bytes.
+   *
+   * @return the audio length, or 0 if the file has no audio
+   */
+  public int getAudioLength() {
+    return audioLength;
+  }
+
+  /**
+   * Sets the length of the audio stored after the seek index in bytes.
+   *
+   * @param audioLength the audio length
+   */
+  public void setAudioLength(final int audioLength) {
+    this.audioLength = audioLength;
+  }
+}
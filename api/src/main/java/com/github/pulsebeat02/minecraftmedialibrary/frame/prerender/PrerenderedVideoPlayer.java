@@ -0,0 +1,429 @@
+/*............................................................................................
+. Copyright © 2021 Brandon Li                                                               .
+.                                                                                           .
+. Permission is hereby granted, free of charge, to any person obtaining a copy of this      .
+. software and associated documentation files (the “Software”), to deal in the Software     .
+. without restriction, including without limitation the rights to use, copy, modify, merge, .
+. publish, distribute, sublicense, and/or sell copies of the Software, and to permit        .
+. persons to whom the Software is furnished to do so, subject to the following conditions:  .
+.                                                                                           .
+. The above copyright notice and this permission notice shall be included in all copies     .
+. or substantial portions of the Software.                                                  .
+.                                                                                           .
+. THE SOFTWARE IS PROVIDED “AS IS”, WITHOUT WARRANTY OF ANY KIND,                           .
+.  EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF                       .
+.   MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND                                   .
+.   NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS                     .
+.   BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN                      .
+.   ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN                       .
+.   CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE                        .
+.   SOFTWARE.                                                                               .
+............................................................................................*/
+
+package com.github.pulsebeat02.minecraftmedialibrary.frame.prerender;
+
+import com.github.pulsebeat02.minecraftmedialibrary.MediaLibrary;
+import com.github.pulsebeat02.minecraftmedialibrary.logger.Logger;
+import com.github.pulsebeat02.minecraftmedialibrary.nms.MapTile;
+import com.github.pulsebeat02.minecraftmedialibrary.nms.PacketHandler;
+import com.github.pulsebeat02.minecraftmedialibrary.resourcepack.TrackPackManager;
+import com.github.pulsebeat02.minecraftmedialibrary.resourcepack.TrackPlayer;
+import com.google.common.base.Preconditions;
+import org.bukkit.entity.Player;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A lightweight player for pre-rendered videos. Instead of decoding and dithering every frame while
+ * playing, it streams the already dithered tiles out of the memory mapped file and only sends the
+ * maps which changed since the previous frame. The audio packaged with the video can be copied out
+ * of the file with {@link PrerenderedVideoReader#extractAudio(Path)}, added to a resourcepack and
+ * played along with the video as a track.
+ */
+public final class PrerenderedVideoPlayer {
+
+  private final MediaLibrary library;
+  private final PacketHandler handler;
+  private final PrerenderedVideoReader reader;
+  private final Path file;
+  private final UUID[] viewers;
+  private final int map;
+  private final int width;
+  private final int height;
+  private final int xOffset;
+  private final int yOffset;
+  private final ScheduledExecutorService scheduler;
+  private volatile String sound;
+  private volatile TrackPlayer track;
+
+  private volatile ScheduledFuture<?> task;
+  private volatile boolean repeat;
+  private volatile boolean playing;
+
+  /**
+   * Instantiates a new PrerenderedVideoPlayer.
+   *
+   * @param library the library
+   * @param file the pre-rendered video file
+   * @param viewers the viewers
+   * @param map the starting map id
+   * @param width the width in itemframes
+   * @param height the height in itemframes
+   * @throws IOException if the file couldn't be read
+   */
+  public PrerenderedVideoPlayer(
+      @NotNull final MediaLibrary library,
+      @NotNull final Path file,
+      final UUID[] viewers,
+      final int map,
+      final int width,
+      final int height)
+      throws IOException {
+    Preconditions.checkArgument(width > 0, String.format("Width is not valid! (%d)", width));
+    Preconditions.checkArgument(height > 0, String.format("Height is not valid! (%d)", height));
+    this.library = library;
+    this.file = file;
+    this.viewers = viewers;
+    this.map = map;
+    this.width = width;
+    this.height = height;
+    handler = library.getHandler();
+    reader = new PrerenderedVideoReader(file);
+    final PrerenderedVideoHeader header = reader.getHeader();
+    xOffset = ((width << 7) - header.getWidth()) >> 1;
+    yOffset = ((height << 7) - header.getHeight()) >> 1;
+    sound = library.getPlugin().getName().toLowerCase();
+    scheduler =
+        Executors.newSingleThreadScheduledExecutor(
+            runnable -> {
+              final Thread thread = new Thread(runnable, "MML Prerendered Player");
+              thread.setDaemon(true);
+              return thread;
+            });
+  }
+
+  /**
+   * Returns a new builder class to use.
+   *
+   * @return the builder
+   */
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  /**
+   * Starts the player from the beginning.
+   *
+   * @param players which players to play the audio for
+   */
+  public synchronized void start(@NotNull final Collection<? extends Player> players) {
+    Preconditions.checkState(task == null, "Player is already playing!");
+    reader.seek(0);
+    if (!reader.hasNext()) {
+      Logger.warn(String.format("The Pre-rendered Video has no Frames! (%s)", file));
+      return;
+    }
+    playing = true;
+    final TrackPlayer segments = track;
+    if (segments != null) {
+      segments.start(players);
+    } else {
+      for (final Player p : players) {
+        p.playSound(p.getLocation(), sound, 1.0F, 1.0F);
+      }
+    }
+    task =
+        scheduler.scheduleAtFixedRate(
+            this::tick, 0L, reader.getHeader().getDelay(), TimeUnit.MILLISECONDS);
+    Logger.info(String.format("Started Playing the Pre-rendered Video! (%s)", file));
+  }
+
+  /**
+   * Stops the player.
+   *
+   * @param players the players
+   */
+  public void stop(@NotNull final Collection<? extends Player> players) {
+    cancel();
+    final TrackPlayer segments = track;
+    if (segments != null) {
+      segments.stop();
+    } else {
+      for (final Player p : players) {
+        p.stopSound(sound);
+      }
+    }
+    Logger.info(String.format("Stopped Playing the Pre-rendered Video! (%s)", file));
+  }
+
+  /** Releases the player. */
+  public void release() {
+    playing = false;
+    scheduler.shutdownNow();
+    try {
+      reader.close();
+    } catch (final IOException e) {
+      Logger.error(String.format("Could not close the Pre-rendered Video! (%s)", file));
+      e.printStackTrace();
+    }
+    Logger.info(String.format("Released the Pre-rendered Video! (%s)", file));
+  }
+
+  /**
+   * Cancels the scheduled ticks. Synchronized with {@link #start(Collection)}, so a tick which runs
+   * before the task is assigned waits for it instead of finding no task to cancel.
+   */
+  private synchronized void cancel() {
+    playing = false;
+    if (task != null) {
+      task.cancel(false);
+      task = null;
+    }
+  }
+
+  /**
+   * Sends the next frame, only updating the tiles which changed. All changed tiles are sent in a
+   * single batch, as the packet handler drops repeated sends to a player within its threshold.
+   */
+  private void tick() {
+    try {
+      if (!reader.hasNext()) {
+        if (!repeat) {
+          cancel();
+          return;
+        }
+        reader.seek(0);
+      }
+      final PrerenderedVideoHeader header = reader.getHeader();
+      final ByteBuffer[] tiles = reader.next();
+      final int tilesX = header.getTilesX();
+      final List<MapTile> changed = new ArrayList<>(tiles.length);
+      for (int i = 0; i < tiles.length; i++) {
+        final ByteBuffer tile = tiles[i];
+        if (tile == null) {
+          continue;
+        }
+        final int tileX = i % tilesX;
+        final int tileY = i / tilesX;
+        changed.add(
+            new MapTile(
+                map,
+                width,
+                height,
+                tile,
+                header.getTileWidth(tileX),
+                xOffset + tileX * PrerenderedVideoHeader.TILE_SIZE,
+                yOffset + tileY * PrerenderedVideoHeader.TILE_SIZE));
+      }
+      if (!changed.isEmpty()) {
+        handler.displayMaps(viewers, changed);
+      }
+    } catch (final IOException e) {
+      Logger.error(String.format("Could not read the Pre-rendered Video! (%s)", file));
+      e.printStackTrace();
+      cancel();
+    }
+  }
+
+  /**
+   * Repeats the player.
+   *
+   * @param setting the setting
+   */
+  public void setRepeat(final boolean setting) {
+    repeat = setting;
+    Logger.info(String.format("Set Setting Loop to (%s)! (%s)", setting, file));
+  }
+
+  /**
+   * Returns whether the video is playing.
+   *
+   * @return whether the video is playing or not
+   */
+  public boolean isPlaying() {
+    return playing;
+  }
+
+  /**
+   * Gets library.
+   *
+   * @return the library
+   */
+  public MediaLibrary getLibrary() {
+    return library;
+  }
+
+  /**
+   * Gets the pre-rendered video file.
+   *
+   * @return the file
+   */
+  public Path getFile() {
+    return file;
+  }
+
+  /**
+   * Gets the reader.
+   *
+   * @return the reader
+   */
+  public PrerenderedVideoReader getReader() {
+    return reader;
+  }
+
+  /**
+   * Get viewers uuid [ ].
+   *
+   * @return the uuid [ ]
+   */
+  public UUID[] getViewers() {
+    return viewers;
+  }
+
+  /**
+   * Gets map.
+   *
+   * @return the map
+   */
+  public int getMap() {
+    return map;
+  }
+
+  /**
+   * Gets width.
+   *
+   * @return the width
+   */
+  public int getWidth() {
+    return width;
+  }
+
+  /**
+   * Gets height.
+   *
+   * @return the height
+   */
+  public int getHeight() {
+    return height;
+  }
+
+  /**
+   * Gets the sound name for the resourcepack.
+   *
+   * @return the sound name
+   */
+  public String getSound() {
+    return sound;
+  }
+
+  /**
+   * Sets the sound which is played along with the video.
+   *
+   * @param sound the sound name
+   */
+  public void setSound(@NotNull final String sound) {
+    this.sound = sound;
+    track = null;
+  }
+
+  /**
+   * Sets the track which is played along with the video, such as the packaged audio once it was
+   * added to a {@link TrackPackManager}. Segmented tracks are played segment by segment by a {@link
+   * TrackPlayer}, while other tracks are played like any other sound.
+   *
+   * @param track the track
+   */
+  public void setTrack(@NotNull final TrackPackManager.Track track) {
+    sound = track.getSound();
+    this.track = track.isSegmented() ? new TrackPlayer(library.getPlugin(), track) : null;
+  }
+
+  /** The type Builder. */
+  public static class Builder {
+
+    private Path file;
+    private UUID[] viewers;
+    private int map;
+    private int width = 5;
+    private int height = 5;
+
+    private Builder() {}
+
+    /**
+     * File builder.
+     *
+     * @param file the pre-rendered video file
+     * @return the builder
+     */
+    public Builder setFile(@NotNull final Path file) {
+      this.file = file;
+      return this;
+    }
+
+    /**
+     * Viewers builder.
+     *
+     * @param viewers the viewers
+     * @return the builder
+     */
+    public Builder setViewers(final UUID[] viewers) {
+      this.viewers = viewers;
+      return this;
+    }
+
+    /**
+     * Map builder.
+     *
+     * @param map the map
+     * @return the builder
+     */
+    public Builder setMap(final int map) {
+      this.map = map;
+      return this;
+    }
+
+    /**
+     * Width builder.
+     *
+     * @param width the width
+     * @return the builder
+     */
+    public Builder setItemframeWidth(final int width) {
+      this.width = width;
+      return this;
+    }
+
+    /**
+     * Height builder.
+     *
+     * @param height the height
+     * @return the builder
+     */
+    public Builder setItemframeHeight(final int height) {
+      this.height = height;
+      return this;
+    }
+
+    /**
+     * Create pre-rendered video player.
+     *
+     * @param library the library
+     * @return the pre-rendered video player
+     * @throws IOException if the file couldn't be read
+     */
+    public PrerenderedVideoPlayer build(@NotNull final MediaLibrary library) throws IOException {
+      return new PrerenderedVideoPlayer(library, file, viewers, map, width, height);
+    }
+  }
+}
@@ -0,0 +1,254 @@
+/*............................................................................................
+. Copyright © 2021 Brandon Li                                                               .
+.                                                                                           .
+. Permission is hereby granted, free of charge, to any person obtaining a copy of this      .
+. software and associated documentation files (the “Software”), to deal in the Software     .
+. without restriction, including without limitation the rights to use, copy, modify, merge, .
+. publish, distribute, sublicense, and/or sell copies of the Software, and to permit        .
+. persons to whom the Software is furnished to do so, subject to the following conditions:  .
+.                                                                                           .
+. The above copyright notice and this permission notice shall be included in all copies     .
+. or substantial portions of the Software.                                                  .
+.                                                                                           .
+. THE SOFTWARE IS PROVIDED “AS IS”, WITHOUT WARRANTY OF ANY KIND,                           .
+.  EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF                       .
+.   MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND                                   .
+.   NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS                     .
+.   BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN                      .
+.   ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN                       .
+.   CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE                        .
+.   SOFTWARE.                                                                               .
+............................................................................................*/
+
+package com.github.pulsebeat02.minecraftmedialibrary.frame.prerender;
+
+import com.google.common.base.Preconditions;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reads a pre-rendered video file through a memory mapped window. Frames are returned as tile
+ * slices of the mapped file, so no pixel data is copied onto the heap while playing. The packaged
+ * audio can be copied out of the file, so it can be added to a resourcepack.
+ */
+public final class PrerenderedVideoReader implements Closeable {
+
+  private static final long WINDOW_SIZE = 256L << 20;
+
+  private final FileChannel channel;
+  private final PrerenderedVideoHeader header;
+  private final int[] keyframes;
+  private final long[] offsets;
+  private final ByteBuffer[] tiles;
+  private final byte[] mask;
+  private final long maxFrameLength;
+  private final long audioOffset;
+  private MappedByteBuffer window;
+  private long windowStart;
+  private long windowEnd;
+  private long position;
+  private int frame;
+
+  /**
+   * Instantiates a new PrerenderedVideoReader.
+   *
+   * @param file the pre-rendered video file
+   * @throws IOException if the file couldn't be opened or isn't valid
+   */
+  public PrerenderedVideoReader(@NotNull final Path file) throws IOException {
+    channel = FileChannel.open(file, StandardOpenOption.READ);
+    final ByteBuffer head = ByteBuffer.allocate(PrerenderedVideoHeader.HEADER_SIZE);
+    while (head.hasRemaining()) {
+      if (channel.read(head, head.position()) < 0) {
+        channel.close();
+        throw new IOException("Pre-rendered video file is truncated!");
+      }
+    }
+    head.flip();
+    header = PrerenderedVideoHeader.read(head);
+    final long indexOffset = header.getIndexOffset();
+    final ByteBuffer index =
+        channel.map(FileChannel.MapMode.READ_ONLY, indexOffset, channel.size() - indexOffset);
+    final int count = index.getInt();
+    keyframes = new int[count];
+    offsets = new long[count];
+    for (int i = 0; i < count; i++) {
+      keyframes[i] = index.getInt();
+      offsets[i] = index.getLong();
+    }
+    audioOffset = indexOffset + index.position();
+    if (audioOffset + header.getAudioLength() > channel.size()) {
+      channel.close();
+      throw new IOException("Pre-rendered video file is truncated!");
+    }
+    tiles = new ByteBuffer[header.getTiles()];
+    mask = new byte[header.getMaskLength()];
+    maxFrameLength = 1L + mask.length + (long) header.getWidth() * header.getHeight();
+    position = PrerenderedVideoHeader.HEADER_SIZE;
+  }
+
+  /**
+   * Checks if there is another frame to read.
+   *
+   * @return whether there is another frame
+   */
+  public boolean hasNext() {
+    return frame < header.getFrameCount();
+  }
+
+  /**
+   * Reads the next frame. The returned array is reused between calls, and contains a slice of the
+   * mapped file for every tile which changed, or null for every tile which didn't. The slices are
+   * only valid until the next call.
+   *
+   * @return the tiles of the frame
+   * @throws IOException if the frame couldn't be read
+   */
+  @NotNull
+  public ByteBuffer[] next() throws IOException {
+    Preconditions.checkState(hasNext(), "There are no more frames!");
+    map(position);
+    final ByteBuffer buffer = window;
+    buffer.position((int) (position - windowStart));
+    final byte type = buffer.get();
+    if (type == PrerenderedVideoHeader.KEYFRAME) {
+      for (int i = 0; i < tiles.length; i++) {
+        tiles[i] = slice(buffer, header.getTileLength(i));
+      }
+    } else if (type == PrerenderedVideoHeader.DELTA_FRAME) {
+      buffer.get(mask);
+      for (int i = 0; i < tiles.length; i++) {
+        tiles[i] =
+            (mask[i >> 3] & (1 << (i & 7))) != 0 ? slice(buffer, header.getTileLength(i)) : null;
+      }
+    } else {
+      throw new IOException(String.format("Invalid frame type in pre-rendered video! (%d)", type));
+    }
+    position = windowStart + buffer.position();
+    frame++;
+    return tiles;
+  }
+
+  /**
+   * Seeks to the closest keyframe at or before the specified frame.
+   *
+   * @param target the frame to seek to
+   * @return the frame which will be read next
+   */
+  public int seek(final int target) {
+    int low = 0;
+    int high = keyframes.length - 1;
+    int found = 0;
+    while (low <= high) {
+      final int mid = (low + high) >>> 1;
+      if (keyframes[mid] <= target) {
+        found = mid;
+        low = mid + 1;
+      } else {
+        high = mid - 1;
+      }
+    }
+    if (keyframes.length == 0) {
+      frame = 0;
+      position = PrerenderedVideoHeader.HEADER_SIZE;
+    } else {
+      frame = keyframes[found];
+      position = offsets[found];
+    }
+    return frame;
+  }
+
+  /**
+   * Slices the next tile out of the buffer.
+   *
+   * @param buffer the buffer
+   * @param length the length of the tile
+   * @return the tile
+   */
+  private ByteBuffer slice(@NotNull final ByteBuffer buffer, final int length) {
+    final ByteBuffer tile = buffer.slice();
+    tile.limit(length);
+    buffer.position(buffer.position() + length);
+    return tile.slice();
+  }
+
+  /**
+   * Maps the window so that a whole frame starting at the position is readable.
+   *
+   * @param start the file position
+   * @throws IOException if the file couldn't be mapped
+   */
+  private void map(final long start) throws IOException {
+    final long end = Math.min(start + maxFrameLength, header.getIndexOffset());
+    if (window != null && start >= windowStart && end <= windowEnd) {
+      return;
+    }
+    final long length =
+        Math.min(Math.max(WINDOW_SIZE, maxFrameLength), header.getIndexOffset() - start);
+    window = channel.map(FileChannel.MapMode.READ_ONLY, start, length);
+    windowStart = start;
+    windowEnd = start + length;
+  }
+
+  /**
+   * Checks if the file contains the audio of the video.
+   *
+   * @return whether there is audio
+   */
+  public boolean hasAudio() {
+    return header.getAudioLength() > 0;
+  }
+
+  /**
+   * Copies the packaged audio into a file.
+   *
+   * @param target the file to write the audio to
+   * @throws IOException if the audio couldn't be copied
+   */
+  public void extractAudio(@NotNull final Path target) throws IOException {
+    Preconditions.checkState(hasAudio(), "The pre-rendered video has no audio!");
+    final long length = header.getAudioLength();
+    try (final FileChannel out =
+        FileChannel.open(
+            target,
+            StandardOpenOption.CREATE,
+            StandardOpenOption.WRITE,
+            StandardOpenOption.TRUNCATE_EXISTING)) {
+      long copied = 0L;
+      while (copied < length) {
+        copied += channel.transferTo(audioOffset + copied, length - copied, out);
+      }
+    }
+  }
+
+  /**
+   * Gets the index of the frame which will be read next.
+   *
+   * @return the frame
+   */
+  public int getFrame() {
+    return frame;
+  }
+
+  /**
+   * Gets the header.
+   *
+   * @return the header
+   */
+  public PrerenderedVideoHeader getHeader() {
+    return header;
+  }
+
+  @Override
+  public void close() throws IOException {
+    window = null;
+    channel.close();
+  }
+}
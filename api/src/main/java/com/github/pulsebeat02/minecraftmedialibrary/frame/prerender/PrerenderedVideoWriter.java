@@ -0,0 +1,290 @@
+/*............................................................................................
+. Copyright © 2021 Brandon Li                                                               .
+.                                                                                           .
+. Permission is hereby granted, free of charge, to any person obtaining a copy of this      .
+. software and associated documentation files (the “Software”), to deal in the Software     .
+. without restriction, including without limitation the rights to use, copy, modify, merge, .
+. publish, distribute, sublicense, and/or sell copies of the Software, and to permit        .
+. persons to whom the Software is furnished to do so, subject to the following conditions:  .
+.                                                                                           .
+. The above copyright notice and this permission notice shall be included in all copies     .
+. or substantial portions of the Software.                                                  .
+.                                                                                           .
+. THE SOFTWARE IS PROVIDED “AS IS”, WITHOUT WARRANTY OF ANY KIND,                           .
+.  EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF                       .
+.   MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND                                   .
+.   NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS                     .
+.   BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN                      .
+.   ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN                       .
+.   CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE                        .
+.   SOFTWARE.                                                                               .
+............................................................................................*/
+
+package com.github.pulsebeat02.minecraftmedialibrary.frame.prerender;
+
+import com.google.common.base.Preconditions;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Writes dithered frames into a pre-rendered video file. Every frame is split into map tiles, and
+ * only the tiles which changed since the previous frame are stored, except for keyframes which
+ * store every tile so players can seek or join in. The audio of the video can be packaged into the
+ * file as well, and is appended after the seek index once the writer is closed.
+ */
+public final class PrerenderedVideoWriter implements Closeable {
+
+  private final FileChannel channel;
+  private final PrerenderedVideoHeader header;
+  private final byte[][] previous;
+  private final byte[][] current;
+  private final byte[] mask;
+  private final ByteBuffer output;
+  private final List<long[]> index;
+  private Path audio;
+  private long position;
+  private int frames;
+  private boolean closed;
+
+  /**
+   * Instantiates a new PrerenderedVideoWriter.
+   *
+   * @param file the output file
+   * @param width the video width
+   * @param height the video height
+   * @param delay the delay between frames in milliseconds
+   * @param keyframeInterval the amount of frames between each keyframe
+   * @throws IOException if the file couldn't be created
+   */
+  public PrerenderedVideoWriter(
+      @NotNull final Path file,
+      final int width,
+      final int height,
+      final int delay,
+      final int keyframeInterval)
+      throws IOException {
+    header = new PrerenderedVideoHeader(width, height, delay, keyframeInterval);
+    channel =
+        FileChannel.open(
+            file,
+            StandardOpenOption.CREATE,
+            StandardOpenOption.WRITE,
+            StandardOpenOption.TRUNCATE_EXISTING);
+    final int tiles = header.getTiles();
+    previous = new byte[tiles][];
+    current = new byte[tiles][];
+    for (int i = 0; i < tiles; i++) {
+      previous[i] = new byte[header.getTileLength(i)];
+      current[i] = new byte[header.getTileLength(i)];
+    }
+    mask = new byte[header.getMaskLength()];
+    output = ByteBuffer.allocateDirect(Math.max(1 << 20, width * height + mask.length + 1));
+    index = new ArrayList<>();
+    position = PrerenderedVideoHeader.HEADER_SIZE;
+    channel.position(position);
+  }
+
+  /**
+   * Writes the next frame.
+   *
+   * @param frame the dithered frame (one palette color per pixel, row major)
+   * @throws IOException if the frame couldn't be written
+   */
+  public void writeFrame(@NotNull final ByteBuffer frame) throws IOException {
+    Preconditions.checkState(!closed, "Writer is already closed!");
+    Preconditions.checkArgument(
+        frame.capacity() >= header.getWidth() * header.getHeight(),
+        "Frame is smaller than the video dimensions!");
+    split(frame);
+    output.clear();
+    if (frames % header.getKeyframeInterval() == 0) {
+      index.add(new long[] {frames, position});
+      output.put(PrerenderedVideoHeader.KEYFRAME);
+      for (final byte[] tile : current) {
+        output.put(tile);
+      }
+    } else {
+      Arrays.fill(mask, (byte) 0);
+      for (int i = 0; i < current.length; i++) {
+        if (!Arrays.equals(current[i], previous[i])) {
+          mask[i >> 3] |= (byte) (1 << (i & 7));
+        }
+      }
+      output.put(PrerenderedVideoHeader.DELTA_FRAME);
+      output.put(mask);
+      for (int i = 0; i < current.length; i++) {
+        if ((mask[i >> 3] & (1 << (i & 7))) != 0) {
+          output.put(current[i]);
+        }
+      }
+    }
+    flush();
+    for (int i = 0; i < current.length; i++) {
+      final byte[] swap = previous[i];
+      previous[i] = current[i];
+      current[i] = swap;
+    }
+    frames++;
+  }
+
+  /**
+   * Repeats the previous frame, for example when the decoder skipped a frame. Costs only the size
+   * of an empty delta frame.
+   *
+   * @throws IOException if the frame couldn't be written
+   */
+  public void repeatFrame() throws IOException {
+    Preconditions.checkState(!closed, "Writer is already closed!");
+    Preconditions.checkState(frames > 0, "There is no frame to repeat!");
+    if (frames % header.getKeyframeInterval() == 0) {
+      for (int i = 0; i < current.length; i++) {
+        System.arraycopy(previous[i], 0, current[i], 0, current[i].length);
+      }
+      index.add(new long[] {frames, position});
+      output.clear();
+      output.put(PrerenderedVideoHeader.KEYFRAME);
+      for (final byte[] tile : current) {
+        output.put(tile);
+      }
+    } else {
+      Arrays.fill(mask, (byte) 0);
+      output.clear();
+      output.put(PrerenderedVideoHeader.DELTA_FRAME);
+      output.put(mask);
+    }
+    flush();
+    frames++;
+  }
+
+  /**
+   * Sets the audio which is packaged into the file once it is closed.
+   *
+   * @param audio the audio file, or null to package no audio
+   */
+  public void setAudio(@Nullable final Path audio) {
+    Preconditions.checkState(!closed, "Writer is already closed!");
+    this.audio = audio;
+  }
+
+  /**
+   * Splits the frame into the current tiles.
+   *
+   * @param frame the frame
+   */
+  private void split(@NotNull final ByteBuffer frame) {
+    final ByteBuffer source = frame.duplicate();
+    final int width = header.getWidth();
+    final int tilesX = header.getTilesX();
+    for (int i = 0; i < current.length; i++) {
+      final int tileX = i % tilesX;
+      final int tileY = i / tilesX;
+      final int tileWidth = header.getTileWidth(tileX);
+      final int tileHeight = header.getTileHeight(tileY);
+      final byte[] tile = current[i];
+      for (int y = 0; y < tileHeight; y++) {
+        source.position((tileY * PrerenderedVideoHeader.TILE_SIZE + y) * width
+            + tileX * PrerenderedVideoHeader.TILE_SIZE);
+        source.get(tile, y * tileWidth, tileWidth);
+      }
+    }
+  }
+
+  /**
+   * Writes the output buffer into the file.
+   *
+   * @throws IOException if the buffer couldn't be written
+   */
+  private void flush() throws IOException {
+    output.flip();
+    while (output.hasRemaining()) {
+      position += channel.write(output);
+    }
+  }
+
+  /**
+   * Writes the seek index, the audio and the header, and closes the file.
+   *
+   * @throws IOException if the index, audio or header couldn't be written
+   */
+  @Override
+  public void close() throws IOException {
+    if (closed) {
+      return;
+    }
+    closed = true;
+    try {
+      final ByteBuffer buffer = ByteBuffer.allocate(4 + index.size() * 12);
+      buffer.putInt(index.size());
+      for (final long[] entry : index) {
+        buffer.putInt((int) entry[0]);
+        buffer.putLong(entry[1]);
+      }
+      buffer.flip();
+      header.setIndexOffset(position);
+      header.setFrameCount(frames);
+      while (buffer.hasRemaining()) {
+        position += channel.write(buffer);
+      }
+      if (audio != null) {
+        header.setAudioLength(appendAudio(audio));
+      }
+      final ByteBuffer head = ByteBuffer.allocate(PrerenderedVideoHeader.HEADER_SIZE);
+      header.write(head);
+      head.flip();
+      channel.write(head, 0);
+      channel.force(false);
+    } finally {
+      channel.close();
+    }
+  }
+
+  /**
+   * Appends the audio to the end of the file.
+   *
+   * @param audio the audio file
+   * @return the length of the audio in bytes
+   * @throws IOException if the audio couldn't be read or is too large
+   */
+  private int appendAudio(@NotNull final Path audio) throws IOException {
+    try (final FileChannel in = FileChannel.open(audio, StandardOpenOption.READ)) {
+      final long size = in.size();
+      if (size > Integer.MAX_VALUE) {
+        throw new IOException(String.format("Audio is too large to be packaged! (%s)", audio));
+      }
+      long copied = 0L;
+      while (copied < size) {
+        copied += in.transferTo(copied, size - copied, channel);
+      }
+      position += size;
+      return (int) size;
+    }
+  }
+
+  /**
+   * Gets the amount of frames written.
+   *
+   * @return the frames
+   */
+  public int getFrames() {
+    return frames;
+  }
+
+  /**
+   * Gets the header.
+   *
+   * @return the header
+   */
+  public PrerenderedVideoHeader getHeader() {
+    return header;
+  }
+}
@@ -0,0 +1,433 @@
+/*............................................................................................
+. Copyright © 2021 Brandon Li                                                               .
+.                                                                                           .
+. Permission is hereby granted, free of charge, to any person obtaining a copy of this      .
+. software and associated documentation files (the “Software”), to deal in the Software     .
+. without restriction, including without limitation the rights to use, copy, modify, merge, .
+. publish, distribute, sublicense, and/or sell copies of the Software, and to permit        .
+. persons to whom the Software is furnished to do so, subject to the following conditions:  .
+.                                                                                           .
+. The above copyright notice and this permission notice shall be included in all copies     .
+. or substantial portions of the Software.                                                  .
+.                                                                                           .
+. THE SOFTWARE IS PROVIDED “AS IS”, WITHOUT WARRANTY OF ANY KIND,                           .
+.  EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF                       .
+.   MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND                                   .
+.   NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS                     .
+.   BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN                      .
+.   ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN                       .
+.   CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE                        .
+.   SOFTWARE.                                                                               .
+............................................................................................*/
+
+package com.github.pulsebeat02.minecraftmedialibrary.frame.prerender;
+
+import com.github.pulsebeat02.minecraftmedialibrary.MediaLibrary;
+import com.github.pulsebeat02.minecraftmedialibrary.concurrent.LibraryExecutors;
+import com.github.pulsebeat02.minecraftmedialibrary.concurrent.TaskPriority;
+import com.github.pulsebeat02.minecraftmedialibrary.frame.FrameCallback;
+import com.github.pulsebeat02.minecraftmedialibrary.frame.VideoPlayer;
+import com.github.pulsebeat02.minecraftmedialibrary.frame.decoder.FrameDecoder;
+import com.github.pulsebeat02.minecraftmedialibrary.frame.decoder.FrameDecoderListener;
+import com.github.pulsebeat02.minecraftmedialibrary.frame.dither.DitherHolder;
+import com.github.pulsebeat02.minecraftmedialibrary.logger.Logger;
+import com.github.pulsebeat02.minecraftmedialibrary.metrics.PerformanceMetrics;
+import com.google.common.base.Preconditions;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Runs the regular decoding and dithering pipeline once, ahead of time, and stores the result as a
+ * pre-rendered video file which can be played back with a {@link PrerenderedVideoPlayer} at almost
+ * no cost for the server.
+ *
+ * <p>Frames are sampled by the media time of the decoder, so the output always has one frame per
+ * delay interval even if the decoder skips or duplicates frames. The audio of the video, such as
+ * the audio extracted from a Youtube video, can be packaged into the file, so that the pre-rendered
+ * video can be moved and played on its own.
+ */
+public final class VideoPrerenderer {
+
+  private final MediaLibrary library;
+  private final String url;
+  private final Path output;
+  private final Path audio;
+  private final DitherHolder holder;
+  private final int width;
+  private final int height;
+  private final int delay;
+  private final int keyframeInterval;
+  private final float rate;
+
+  /**
+   * Instantiates a new VideoPrerenderer.
+   *
+   * @param library the library
+   * @param url the url or path of the video
+   * @param output the pre-rendered video file
+   * @param audio the audio to package with the video, or null to package no audio
+   * @param holder the dithering algorithm
+   * @param width the video width
+   * @param height the video height
+   * @param delay the delay between frames in milliseconds
+   * @param keyframeInterval the amount of frames between each keyframe
+   * @param rate the speed at which the video is decoded
+   */
+  public VideoPrerenderer(
+      @NotNull final MediaLibrary library,
+      @NotNull final String url,
+      @NotNull final Path output,
+      @Nullable final Path audio,
+      @NotNull final DitherHolder holder,
+      final int width,
+      final int height,
+      final int delay,
+      final int keyframeInterval,
+      final float rate) {
+    Preconditions.checkArgument(rate > 0, String.format("Rate is not valid! (%f)", rate));
+    this.library = library;
+    this.url = url;
+    this.output = output;
+    this.audio = audio;
+    this.holder = holder;
+    this.width = width;
+    this.height = height;
+    this.delay = delay;
+    this.keyframeInterval = keyframeInterval;
+    this.rate = rate;
+  }
+
+  /**
+   * Returns a new builder class to use.
+   *
+   * @return the builder
+   */
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  /**
+   * Pre-renders the video.
+   *
+   * @return a future which completes with the output file once the video has been pre-rendered
+   * @throws IOException if the output file couldn't be created
+   */
+  @NotNull
+  public CompletableFuture<Path> render() throws IOException {
+    final PrerenderedVideoWriter writer =
+        new PrerenderedVideoWriter(output, width, height, delay, keyframeInterval);
+    writer.setAudio(audio);
+    final PrerenderCallback callback = new PrerenderCallback(writer);
+    final PrerenderPlayer player = new PrerenderPlayer(callback);
+    callback.player = player;
+    final CompletableFuture<Path> future = new CompletableFuture<>();
+    player
+        .getDecoder()
+        .addListener(
+            new FrameDecoderListener() {
+              @Override
+              public void finished() {
+                LibraryExecutors.io()
+                    .execute(() -> complete(player, callback, future), TaskPriority.LOW);
+              }
+
+              @Override
+              public void error() {
+                LibraryExecutors.io()
+                    .execute(
+                        () -> {
+                          player.release();
+                          closeQuietly(callback);
+                          future.completeExceptionally(
+                              new IOException(
+                                  String.format("Could not decode the video! (%s)", url)));
+                        },
+                        TaskPriority.LOW);
+              }
+            });
+    Logger.info(String.format("Pre-rendering Video %s into %s", url, output));
+    player.start(Collections.emptyList());
+    player.getDecoder().setRate(rate);
+    return future;
+  }
+
+  /**
+   * Releases the player and finishes the file once the frame being written is finished.
+   *
+   * @param player the player
+   * @param callback the callback writing the frames
+   * @param future the future to complete
+   */
+  private void complete(
+      @NotNull final VideoPlayer player,
+      @NotNull final PrerenderCallback callback,
+      @NotNull final CompletableFuture<Path> future) {
+    player.release();
+    try {
+      callback.close();
+      Logger.info(
+          String.format(
+              "Finished Pre-rendering Video %s (%d Frames)", url, callback.writer.getFrames()));
+      future.complete(output);
+    } catch (final IOException e) {
+      Logger.error(String.format("Could not finish the Pre-rendered Video! (%s)", output));
+      e.printStackTrace();
+      future.completeExceptionally(e);
+    }
+  }
+
+  /**
+   * Closes the writer of the callback, ignoring any errors.
+   *
+   * @param callback the callback
+   */
+  private void closeQuietly(@NotNull final PrerenderCallback callback) {
+    try {
+      callback.close();
+    } catch (final IOException ignored) {
+    }
+  }
+
+  /**
+   * Gets library.
+   *
+   * @return the library
+   */
+  public MediaLibrary getLibrary() {
+    return library;
+  }
+
+  /**
+   * Gets url.
+   *
+   * @return the url
+   */
+  public String getUrl() {
+    return url;
+  }
+
+  /**
+   * Gets the pre-rendered video file.
+   *
+   * @return the output
+   */
+  public Path getOutput() {
+    return output;
+  }
+
+  /**
+   * Gets the audio packaged with the video.
+   *
+   * @return the audio, or null if no audio is packaged
+   */
+  @Nullable
+  public Path getAudio() {
+    return audio;
+  }
+
+  /**
+   * Gets the dithering algorithm.
+   *
+   * @return the holder
+   */
+  public DitherHolder getHolder() {
+    return holder;
+  }
+
+  /**
+   * Gets width.
+   *
+   * @return the width
+   */
+  public int getWidth() {
+    return width;
+  }
+
+  /**
+   * Gets height.
+   *
+   * @return the height
+   */
+  public int getHeight() {
+    return height;
+  }
+
+  /**
+   * Gets delay.
+   *
+   * @return the delay
+   */
+  public int getDelay() {
+    return delay;
+  }
+
+  /**
+   * Gets the keyframe interval.
+   *
+   * @return the keyframe interval
+   */
+  public int getKeyframeInterval() {
+    return keyframeInterval;
+  }
+
+  /**
+   * Gets the decoding rate.
+   *
+   * @return the rate
+   */
+  public float getRate() {
+    return rate;
+  }
+
+  /** The VideoPlayer which feeds the decoded frames into the writer. */
+  private final class PrerenderPlayer extends VideoPlayer {
+
+    /**
+     * Instantiates a new PrerenderPlayer.
+     *
+     * @param callback the callback
+     */
+    private PrerenderPlayer(@NotNull final FrameCallback callback) {
+      super(library, url, width, height, callback);
+    }
+  }
+
+  /**
+   * Dithers frames by their media time and writes them into the file. Frames are written while
+   * holding the lock of the writer, which is also held to close it, so the writer is only closed
+   * once the frame being written is finished, and frames arriving afterwards are dropped.
+   */
+  private final class PrerenderCallback implements FrameCallback {
+
+    private final PrerenderedVideoWriter writer;
+    private volatile VideoPlayer player;
+    private boolean closed;
+
+    /**
+     * Instantiates a new PrerenderCallback.
+     *
+     * @param writer the writer
+     */
+    private PrerenderCallback(@NotNull final PrerenderedVideoWriter writer) {
+      this.writer = writer;
+    }
+
+    @Override
+    public void send(final int[] data) {
+      final VideoPlayer current = player;
+      final FrameDecoder decoder = current == null ? null : current.getDecoder();
+      if (decoder == null) {
+        return;
+      }
+      final long time = decoder.getTime();
+      final long slot = Math.max(0, time) / delay;
+      synchronized (writer) {
+        if (closed) {
+          return;
+        }
+        try {
+          if (slot < writer.getFrames()) {
+            return;
+          }
+          while (writer.getFrames() > 0 && writer.getFrames() < slot) {
+            writer.repeatFrame();
+          }
+          final long start = System.nanoTime();
+          final ByteBuffer dithered = holder.ditherIntoMinecraft(data, width);
+          PerformanceMetrics.recordDither(holder.getSetting(), start);
+          writer.writeFrame(dithered);
+          while (writer.getFrames() <= slot) {
+            writer.repeatFrame();
+          }
+        } catch (final IOException e) {
+          Logger.error(String.format("Could not write the Pre-rendered Video! (%s)", output));
+          e.printStackTrace();
+        }
+      }
+    }
+
+    /**
+     * Closes the writer once the frame being written is finished.
+     *
+     * @throws IOException if the file couldn't be finished
+     */
+    private void close() throws IOException {
+      synchronized (writer) {
+        closed = true;
+        writer.close();
+      }
+    }
+  }
+
+  /** The type Builder. */
+  public static class Builder {
+
+    private String url;
+    private Path output;
+    private Path audio;
+    private DitherHolder holder;
+    private int width = 640;
+    private int height = 360;
+    private int delay = 50;
+    private int keyframeInterval = 100;
+    private float rate = 1.0F;
+
+    private Builder() {}
+
+    public Builder setUrl(final String url) {
+      this.url = url;
+      return this;
+    }
+
+    public Builder setOutput(final Path output) {
+      this.output = output;
+      return this;
+    }
+
+    public Builder setAudio(final Path audio) {
+      this.audio = audio;
+      return this;
+    }
+
+    public Builder setDitherHolder(final DitherHolder holder) {
+      this.holder = holder;
+      return this;
+    }
+
+    public Builder setWidth(final int width) {
+      this.width = width;
+      return this;
+    }
+
+    public Builder setHeight(final int height) {
+      this.height = height;
+      return this;
+    }
+
+    public Builder setDelay(final int delay) {
+      this.delay = delay;
+      return this;
+    }
+
+    public Builder setKeyframeInterval(final int keyframeInterval) {
+      this.keyframeInterval = keyframeInterval;
+      return this;
+    }
+
+    public Builder setRate(final float rate) {
+      this.rate = rate;
+      return this;
+    }
+
+    public VideoPrerenderer build(@NotNull final MediaLibrary library) {
+      return new VideoPrerenderer(
+          library, url, output, audio, holder, width, height, delay, keyframeInterval, rate);
+    }
+  }
+}
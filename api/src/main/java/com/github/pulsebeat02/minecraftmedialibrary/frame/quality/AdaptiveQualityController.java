@@ -0,0 +1,318 @@
+/*............................................................................................
+. Copyright © 2021 Brandon Li                                                               .
+.                                                                                           .
+. Permission is hereby granted, free of charge, to any person obtaining a copy of this      .
+. software and associated documentation files (the “Software”), to deal in the Software     .
+. without restriction, including without limitation the rights to use, copy, modify, merge, .
+. publish, distribute, sublicense, and/or sell copies of the Software, and to permit        .
+. persons to whom the Software is furnished to do so, subject to the following conditions:  .
+.                                                                                           .
+. The above copyright notice and this permission notice shall be included in all copies     .
+. or substantial portions of the Software.                                                  .
+.                                                                                           .
+. THE SOFTWARE IS PROVIDED “AS IS”, WITHOUT WARRANTY OF ANY KIND,                           .
+.  EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF                       .
+.   MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND                                   .
+.   NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS                     .
+.   BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN                      .
+.   ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN                       .
+.   CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE                        .
+.   SOFTWARE.                                                                               .
+............................................................................................*/
+
+package com.github.pulsebeat02.minecraftmedialibrary.frame.quality;
+
+import com.github.pulsebeat02.minecraftmedialibrary.MediaLibrary;
+import com.github.pulsebeat02.minecraftmedialibrary.frame.dither.DitherSetting;
+import com.github.pulsebeat02.minecraftmedialibrary.frame.map.MapDataCallback;
+import com.github.pulsebeat02.minecraftmedialibrary.logger.Logger;
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Trades the quality of a map screen against the load of the server. The controller periodically
+ * looks at the time it takes the screen to dither and send a frame, and at the recent tick times of
+ * the server. If either is too high, the screen steps down the quality ladder (for example Floyd
+ * Steinberg, then Filter Lite, then ordered dithering, then a lower frame rate). Once there has
+ * been enough headroom for a few checks in a row, it steps back up again.
+ *
+ * <p>The levels are applied through {@link MapDataCallback#setType} and {@link
+ * MapDataCallback#setDelay}, so it works for the map players as well as the parallel player. The
+ * {@link com.github.pulsebeat02.minecraftmedialibrary.frame.gif.GifFrameDecoder} and the {@link
+ * com.github.pulsebeat02.minecraftmedialibrary.frame.prerender.PrerenderedVideoPlayer} ignore the
+ * levels, as they send frames which were already dithered and play them at their own delays.
+ */
+public final class AdaptiveQualityController {
+
+  private static final ScheduledExecutorService SCHEDULER;
+
+  static {
+    SCHEDULER =
+        Executors.newSingleThreadScheduledExecutor(
+            r -> {
+              final Thread thread = new Thread(r, "MML Adaptive Quality");
+              thread.setDaemon(true);
+              return thread;
+            });
+  }
+
+  private final MapDataCallback callback;
+  private final TickMonitor monitor;
+  private final List<QualityLevel> ladder;
+  private final long period;
+  private final double maxTickTime;
+  private final double maxCostRatio;
+  private final int recoveryChecks;
+  private ScheduledFuture<?> task;
+  private int level;
+  private int headroom;
+
+  /**
+   * Instantiates a new AdaptiveQualityController.
+   *
+   * @param library the library
+   * @param callback the callback of the screen
+   * @param ladder the quality levels, from best to worst
+   * @param period the time between each check in milliseconds
+   * @param maxTickTime the tick time in milliseconds above which the quality is lowered
+   * @param maxCostRatio the part of the frame interval a frame may take before the quality is
+   *     lowered
+   * @param recoveryChecks the amount of checks in a row with headroom before stepping up
+   */
+  public AdaptiveQualityController(
+      @NotNull final MediaLibrary library,
+      @NotNull final MapDataCallback callback,
+      @NotNull final List<QualityLevel> ladder,
+      final long period,
+      final double maxTickTime,
+      final double maxCostRatio,
+      final int recoveryChecks) {
+    Preconditions.checkArgument(!ladder.isEmpty(), "Quality ladder cannot be empty!");
+    Preconditions.checkArgument(period > 0, String.format("Period is not valid! (%d)", period));
+    Preconditions.checkArgument(
+        recoveryChecks > 0, String.format("Recovery checks are not valid! (%d)", recoveryChecks));
+    this.callback = callback;
+    this.ladder = ImmutableList.copyOf(ladder);
+    this.period = period;
+    this.maxTickTime = maxTickTime;
+    this.maxCostRatio = maxCostRatio;
+    this.recoveryChecks = recoveryChecks;
+    monitor = new TickMonitor(library.getPlugin());
+    level = Math.max(0, this.ladder.indexOf(getCurrentLevel()));
+  }
+
+  /**
+   * Returns a new builder class to use.
+   *
+   * @return the builder
+   */
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  /**
+   * Creates the default ladder for a screen. The ladder starts at the current dithering algorithm
+   * of the screen, continues with the cheaper algorithms, and ends with ordered dithering at half
+   * and a quarter of the frame rate.
+   *
+   * @param callback the callback of the screen
+   * @return the ladder
+   */
+  @NotNull
+  public static List<QualityLevel> getDefaultLadder(@NotNull final MapDataCallback callback) {
+    final DitherSetting[] order = {
+      DitherSetting.FLOYD_STEINBERG_DITHER,
+      DitherSetting.SIERRA_FILTER_LITE_DITHER,
+      DitherSetting.BAYER_ORDERED_4_DIMENSIONAL
+    };
+    final DitherSetting current = callback.getType().getSetting();
+    final int delay = callback.getDelay();
+    final List<QualityLevel> ladder = new ArrayList<>();
+    int start = order.length - 1;
+    for (int i = 0; i < order.length; i++) {
+      if (order[i] == current) {
+        start = i;
+      }
+    }
+    if (order[start] != current) {
+      ladder.add(new QualityLevel(current, delay));
+    }
+    for (int i = start; i < order.length; i++) {
+      ladder.add(new QualityLevel(order[i], delay));
+    }
+    final int base = Math.max(delay, 50);
+    final DitherSetting cheapest = order[order.length - 1];
+    ladder.add(new QualityLevel(cheapest, base << 1));
+    ladder.add(new QualityLevel(cheapest, base << 2));
+    return ladder;
+  }
+
+  /** Starts controlling the quality of the screen. */
+  public synchronized void start() {
+    if (task != null) {
+      return;
+    }
+    headroom = 0;
+    monitor.start();
+    task = SCHEDULER.scheduleAtFixedRate(this::evaluate, period, period, TimeUnit.MILLISECONDS);
+  }
+
+  /** Stops controlling the quality of the screen, keeping the current level. */
+  public synchronized void stop() {
+    if (task != null) {
+      task.cancel(false);
+      task = null;
+    }
+    monitor.stop();
+  }
+
+  /** Checks the load and steps the quality up or down if necessary. */
+  private synchronized void evaluate() {
+    final double tickTime = monitor.getTickTime();
+    final double cost = callback.getFrameCost() / (double) TimeUnit.MILLISECONDS.toNanos(1);
+    final double interval = Math.max(callback.getDelay(), 50);
+    final boolean exact = monitor.isExact();
+    final boolean lagging = exact ? tickTime > maxTickTime : tickTime > 51.0;
+    final boolean expensive = cost > interval * maxCostRatio;
+    if (lagging || expensive) {
+      headroom = 0;
+      if (level < ladder.size() - 1) {
+        apply(
+            level + 1,
+            lagging
+                ? String.format("Tick Time %.1f ms", tickTime)
+                : String.format("Frame Cost %.1f ms of %.0f ms", cost, interval));
+      }
+      return;
+    }
+    final boolean idle = exact ? tickTime < maxTickTime * 0.7 : tickTime <= 50.5;
+    if (level > 0 && idle && cost < interval * maxCostRatio * 0.5) {
+      if (++headroom >= recoveryChecks) {
+        headroom = 0;
+        apply(
+            level - 1,
+            String.format("Headroom, Tick Time %.1f ms, Frame Cost %.1f ms", tickTime, cost));
+      }
+    } else {
+      headroom = 0;
+    }
+  }
+
+  /**
+   * Applies a level of the ladder to the screen.
+   *
+   * @param index the index of the level
+   * @param reason the reason of the transition
+   */
+  private void apply(final int index, @NotNull final String reason) {
+    final QualityLevel previous = ladder.get(level);
+    final QualityLevel next = ladder.get(index);
+    final boolean lowered = index > level;
+    level = index;
+    callback.setType(next.getSetting().getHolder());
+    callback.setDelay(next.getDelay());
+    Logger.info(
+        String.format(
+            "%s Video Quality from %s to %s (Reason: %s)",
+            lowered ? "Lowered" : "Raised", previous, next, reason));
+  }
+
+  /**
+   * Gets the level the screen currently uses.
+   *
+   * @return the current level
+   */
+  @NotNull
+  public QualityLevel getCurrentLevel() {
+    return new QualityLevel(callback.getType().getSetting(), callback.getDelay());
+  }
+
+  /**
+   * Gets the quality ladder.
+   *
+   * @return the ladder
+   */
+  public List<QualityLevel> getLadder() {
+    return ladder;
+  }
+
+  /**
+   * Gets the tick monitor.
+   *
+   * @return the monitor
+   */
+  public TickMonitor getMonitor() {
+    return monitor;
+  }
+
+  /**
+   * Gets the callback of the screen.
+   *
+   * @return the callback
+   */
+  public MapDataCallback getCallback() {
+    return callback;
+  }
+
+  /** The type Builder. */
+  public static class Builder {
+
+    private MapDataCallback callback;
+    private List<QualityLevel> ladder;
+    private long period = 2000L;
+    private double maxTickTime = 45.0;
+    private double maxCostRatio = 0.8;
+    private int recoveryChecks = 5;
+
+    private Builder() {}
+
+    public Builder setCallback(final MapDataCallback callback) {
+      this.callback = callback;
+      return this;
+    }
+
+    public Builder setLadder(final List<QualityLevel> ladder) {
+      this.ladder = ladder;
+      return this;
+    }
+
+    public Builder setPeriod(final long period) {
+      this.period = period;
+      return this;
+    }
+
+    public Builder setMaxTickTime(final double maxTickTime) {
+      this.maxTickTime = maxTickTime;
+      return this;
+    }
+
+    public Builder setMaxCostRatio(final double maxCostRatio) {
+      this.maxCostRatio = maxCostRatio;
+      return this;
+    }
+
+    public Builder setRecoveryChecks(final int recoveryChecks) {
+      this.recoveryChecks = recoveryChecks;
+      return this;
+    }
+
+    public AdaptiveQualityController build(@NotNull final MediaLibrary library) {
+      return new AdaptiveQualityController(
+          library,
+          callback,
+          ladder == null ? getDefaultLadder(callback) : ladder,
+          period,
+          maxTickTime,
+          maxCostRatio,
+          recoveryChecks);
+    }
+  }
+}
@@ -0,0 +1,84 @@
+/*............................................................................................
+. Copyright © 2021 Brandon Li                                                               .
+.                                                                                           .
+. Permission is hereby granted, free of charge, to any person obtaining a copy of this      .
+. software and associated documentation files (the “Software”), to deal in the Software     .
+. without restriction, including without limitation the rights to use, copy, modify, merge, .
+. publish, distribute, sublicense, and/or sell copies of the Software, and to permit        .
+. persons to whom the Software is furnished to do so, subject to the following conditions:  .
+.                                                                                           .
+. The above copyright notice and this permission notice shall be included in all copies     .
+. or substantial portions of the Software.                                                  .
+.                                                                                           .
+. THE SOFTWARE IS PROVIDED “AS IS”, WITHOUT WARRANTY OF ANY KIND,                           .
+.  EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF                       .
+.   MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND                                   .
+.   NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS                     .
+.   BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN                      .
+.   ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN                       .
+.   CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE                        .
+.   SOFTWARE.                                                                               .
+............................................................................................*/
+
+package com.github.pulsebeat02.minecraftmedialibrary.frame.quality;
+
+import com.github.pulsebeat02.minecraftmedialibrary.frame.dither.DitherSetting;
+import org.jetbrains.annotations.NotNull;
+
+/** A step of the quality ladder, consisting of a dithering algorithm and a delay between frames. */
+public final class QualityLevel {
+
+  private final DitherSetting setting;
+  private final int delay;
+
+  /**
+   * Instantiates a new QualityLevel.
+   *
+   * @param setting the dithering algorithm
+   * @param delay the delay between frames in milliseconds
+   */
+  public QualityLevel(@NotNull final DitherSetting setting, final int delay) {
+    this.setting = setting;
+    this.delay = delay;
+  }
+
+  /**
+   * Gets the dithering algorithm.
+   *
+   * @return the setting
+   */
+  public DitherSetting getSetting() {
+    return setting;
+  }
+
+  /**
+   * Gets the delay between frames in milliseconds.
+   *
+   * @return the delay
+   */
+  public int getDelay() {
+    return delay;
+  }
+
+  @Override
+  public boolean equals(final Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (!(o instanceof QualityLevel)) {
+      return false;
+    }
+    final QualityLevel level = (QualityLevel) o;
+    return delay == level.delay && setting == level.setting;
+  }
+
+  @Override
+  public int hashCode() {
+    return 31 * setting.hashCode() + delay;
+  }
+
+  @Override
+  public String toString() {
+    return String.format("%s @ %d ms", setting.name(), delay);
+  }
+}
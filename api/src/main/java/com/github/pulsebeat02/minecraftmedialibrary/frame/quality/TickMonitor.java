@@ -0,0 +1,126 @@
+/*............................................................................................
+. Copyright © 2021 Brandon Li                                                               .
+.                                                                                           .
+. Permission is hereby granted, free of charge, to any person obtaining a copy of this      .
+. software and associated documentation files (the “Software”), to deal in the Software     .
+. without restriction, including without limitation the rights to use, copy, modify, merge, .
+. publish, distribute, sublicense, and/or sell copies of the Software, and to permit        .
+. persons to whom the Software is furnished to do so, subject to the following conditions:  .
+.                                                                                           .
+. The above copyright notice and this permission notice shall be included in all copies     .
+. or substantial portions of the Software.                                                  .
+.                                                                                           .
+. THE SOFTWARE IS PROVIDED “AS IS”, WITHOUT WARRANTY OF ANY KIND,                           .
+.  EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF                       .
+.   MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND                                   .
+.   NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS                     .
+.   BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN                      .
+.   ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN                       .
+.   CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE                        .
+.   SOFTWARE.                                                                               .
+............................................................................................*/
+
+package com.github.pulsebeat02.minecraftmedialibrary.frame.quality;
+
+import com.github.pulsebeat02.minecraftmedialibrary.logger.Logger;
+import org.bukkit.Bukkit;
+import org.bukkit.Server;
+import org.bukkit.plugin.Plugin;
+import org.bukkit.scheduler.BukkitTask;
+import org.jetbrains.annotations.NotNull;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the recent tick times of the server. On servers which expose the average tick time
+ * (Paper and its forks) that value is used directly. Otherwise the time between two ticks is
+ * measured, which only exceeds 50 ms once the server can't keep up anymore.
+ */
+public final class TickMonitor {
+
+  private static final double HEALTHY_TICK = 50.0;
+
+  private final Plugin plugin;
+  private final Method averageTickTime;
+  private BukkitTask task;
+  private long lastTick;
+  private volatile double interval;
+
+  /**
+   * Instantiates a new TickMonitor.
+   *
+   * @param plugin the plugin to schedule the measurement with
+   */
+  public TickMonitor(@NotNull final Plugin plugin) {
+    this.plugin = plugin;
+    averageTickTime = getAverageTickTimeMethod();
+    interval = HEALTHY_TICK;
+  }
+
+  /**
+   * Gets the method exposing the average tick time, if the server has one.
+   *
+   * @return the method, or null
+   */
+  private static Method getAverageTickTimeMethod() {
+    try {
+      return Server.class.getMethod("getAverageTickTime");
+    } catch (final NoSuchMethodException e) {
+      return null;
+    }
+  }
+
+  /** Starts measuring the time between ticks. */
+  public synchronized void start() {
+    if (task != null) {
+      return;
+    }
+    lastTick = 0L;
+    task = Bukkit.getScheduler().runTaskTimer(plugin, this::tick, 1L, 1L);
+  }
+
+  /** Stops measuring the time between ticks. */
+  public synchronized void stop() {
+    if (task != null) {
+      task.cancel();
+      task = null;
+    }
+  }
+
+  /** Records the time since the last tick into the moving average. */
+  private void tick() {
+    final long now = System.nanoTime();
+    if (lastTick != 0L) {
+      final double elapsed = (now - lastTick) / (double) TimeUnit.MILLISECONDS.toNanos(1);
+      interval += (elapsed - interval) / 20.0;
+    }
+    lastTick = now;
+  }
+
+  /**
+   * Gets the recent tick time in milliseconds.
+   *
+   * @return the tick time
+   */
+  public double getTickTime() {
+    if (averageTickTime != null) {
+      try {
+        return ((Number) averageTickTime.invoke(Bukkit.getServer())).doubleValue();
+      } catch (final ReflectiveOperationException e) {
+        Logger.warn("Could not read the average tick time of the server!");
+      }
+    }
+    return interval;
+  }
+
+  /**
+   * Gets whether the tick time is the real time spent per tick. If not, it is the time between
+   * ticks, which never drops below 50 ms.
+   *
+   * @return whether the tick time is exact
+   */
+  public boolean isExact() {
+    return averageTickTime != null;
+  }
+}
@@ -24,6 +24,7 @@ package com.github.pulsebeat02.minecraftmedialibrary.frame.scoreboard;
 
 import com.github.pulsebeat02.minecraftmedialibrary.MediaLibrary;
 import com.github.pulsebeat02.minecraftmedialibrary.frame.FrameCallback;
+import com.github.pulsebeat02.minecraftmedialibrary.frame.FramePacer;
 import net.md_5.bungee.api.ChatColor;
 import org.bukkit.Bukkit;
 import org.bukkit.entity.Player;
@@ -69,6 +70,7 @@ public final class ScoreboardCallback implements FrameCallback {
   private final Set<Player> viewers;
   private final int videoWidth;
   private final int delay;
+  private final FramePacer pacer;
   private final int width;
   private final int height;
   private final String name;
@@ -102,6 +104,7 @@ public final class ScoreboardCallback implements FrameCallback {
     name = library.getPlugin().getName() + " Video Player";
     this.videoWidth = videoWidth;
     this.delay = delay;
+    pacer = new FramePacer(delay);
   }
 
   /**
@@ -120,9 +123,8 @@ public final class ScoreboardCallback implements FrameCallback {
    */
   @Override
   public void send(final int[] data) {
-    final long time = System.currentTimeMillis();
-    if (time - lastUpdated >= delay) {
-      lastUpdated = time;
+    if (pacer.shouldPresent()) {
+      lastUpdated = System.currentTimeMillis();
       if (scoreboard == null) {
         scoreboard = Objects.requireNonNull(Bukkit.getScoreboardManager()).getNewScoreboard();
         final Objective objective = scoreboard.registerNewObjective("rd-" + id++, "dummy", name);
@@ -195,6 +197,16 @@ public final class ScoreboardCallback implements FrameCallback {
     return delay;
   }
 
+  /**
+   * Gets the pacer deciding which frames are presented.
+   *
+   * @return the pacer
+   */
+  @Override
+  public FramePacer getPacer() {
+    return pacer;
+  }
+
   /**
    * Gets library.
    *
@@ -24,6 +24,8 @@ package com.github.pulsebeat02.minecraftmedialibrary.frame.scoreboard;
 
 import com.github.pulsebeat02.minecraftmedialibrary.MediaLibrary;
 import com.github.pulsebeat02.minecraftmedialibrary.frame.VideoPlayer;
+import com.github.pulsebeat02.minecraftmedialibrary.frame.decoder.FrameDecoderFactory;
+import com.github.pulsebeat02.minecraftmedialibrary.frame.decoder.FrameDecoders;
 import com.github.pulsebeat02.minecraftmedialibrary.logger.Logger;
 import org.bukkit.entity.Player;
 import org.jetbrains.annotations.NotNull;
@@ -56,6 +58,27 @@ public class ScoreboardIntegratedPlayer extends VideoPlayer {
     Logger.info(String.format("Created a Scoreboard Integrated Video Player (%s)", url));
   }
 
+  /**
+   * Instantiates a new ScoreboardIntegratedPlayer with a specific decoder.
+   *
+   * @param library the library
+   * @param factory the decoder factory
+   * @param url the url
+   * @param width the width
+   * @param height the height
+   * @param callback the callback
+   */
+  public ScoreboardIntegratedPlayer(
+      @NotNull final MediaLibrary library,
+      @NotNull final FrameDecoderFactory factory,
+      @NotNull final String url,
+      @NotNull final ScoreboardCallback callback,
+      final int width,
+      final int height) {
+    super(library, factory, url, width, height, callback);
+    Logger.info(String.format("Created a Scoreboard Integrated Video Player (%s)", url));
+  }
+
   /**
    * Instantiates a new ScoreboardIntegratedPlayer.
    *
@@ -108,6 +131,7 @@ public class ScoreboardIntegratedPlayer extends VideoPlayer {
     private int width = 10;
     private int height = 10;
     private ScoreboardCallback callback;
+    private FrameDecoderFactory factory;
 
     private Builder() {}
 
@@ -131,8 +155,19 @@ public class ScoreboardIntegratedPlayer extends VideoPlayer {
       return this;
     }
 
+    public Builder setDecoderFactory(final FrameDecoderFactory factory) {
+      this.factory = factory;
+      return this;
+    }
+
     public ScoreboardIntegratedPlayer build(@NotNull final MediaLibrary library) {
-      return new ScoreboardIntegratedPlayer(library, url, callback, width, height);
+      return new ScoreboardIntegratedPlayer(
+          library,
+          factory != null ? factory : FrameDecoders.getDefault(library),
+          url,
+          callback,
+          width,
+          height);
     }
   }
 }
@@ -0,0 +1,269 @@
+/*............................................................................................
+. Copyright © 2021 Brandon Li                                                               .
+.                                                                                           .
+. Permission is hereby granted, free of charge, to any person obtaining a copy of this      .
+. software and associated documentation files (the “Software”), to deal in the Software     .
+. without restriction, including without limitation the rights to use, copy, modify, merge, .
+. publish, distribute, sublicense, and/or sell copies of the Software, and to permit        .
+. persons to whom the Software is furnished to do so, subject to the following conditions:  .
+.                                                                                           .
+. The above copyright notice and this permission notice shall be included in all copies     .
+. or substantial portions of the Software.                                                  .
+.                                                                                           .
+. THE SOFTWARE IS PROVIDED “AS IS”, WITHOUT WARRANTY OF ANY KIND,                           .
+.  EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF                       .
+.   MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND                                   .
+.   NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS                     .
+.   BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN                      .
+.   ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN                       .
+.   CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE                        .
+.   SOFTWARE.                                                                               .
+............................................................................................*/
+
+package com.github.pulsebeat02.minecraftmedialibrary.http;
+
+import com.github.pulsebeat02.minecraftmedialibrary.logger.Logger;
+import org.bukkit.Bukkit;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.net.Socket;
+import java.nio.file.Path;
+import java.util.function.Supplier;
+
+/**
+ * The base of the daemons used for hosting resourcepack files. It holds the port, the directory
+ * being served and the settings shared by every server mode, and runs the server on its own thread.
+ */
+public abstract class AbstractHttpDaemonServer extends Thread implements HttpDaemon {
+
+  private final int port;
+  private final Path directory;
+  private final TransferLimiter limiter;
+  private volatile boolean running;
+  private ZipHeader header;
+  private boolean verbose;
+
+  /**
+   * Instantiates a new AbstractHttpDaemonServer.
+   *
+   * @param port the port
+   * @param directory the directory
+   */
+  public AbstractHttpDaemonServer(final int port, @NotNull final Path directory) {
+    this.port = port;
+    this.directory = directory;
+    limiter = new TransferLimiter();
+    running = true;
+    header = ZipHeader.ZIP;
+    verbose = true;
+  }
+
+  /** Logs the information of the server once it is bound. */
+  protected void logStart() {
+    Logger.info("Started HTTP Server: ");
+    Logger.info("========================================");
+    Logger.info(String.format("IP: %s", Bukkit.getServer() == null ? "*" : Bukkit.getIp()));
+    Logger.info(String.format("PORT: %d", port));
+    Logger.info(String.format("DIRECTORY: %s", directory));
+    Logger.info("========================================");
+  }
+
+  /**
+   * If it is verbose, then it will print the information.
+   *
+   * @param info the info
+   */
+  protected void verbose(@NotNull final String info) {
+    if (verbose) {
+      Logger.info(info);
+    }
+  }
+
+  /**
+   * If it is verbose, then it will print the information, which is only built if it is printed.
+   *
+   * @param info the supplier of the info
+   */
+  protected void verbose(@NotNull final Supplier<String> info) {
+    if (verbose) {
+      Logger.info(info);
+    }
+  }
+
+  /**
+   * Gets the entity tag of a file, which is the quoted SHA-1 hash of its contents. The hash is
+   * kept in the {@link HttpFileCache}, so a resourcepack is only hashed again after it has been
+   * rewritten.
+   *
+   * @param file the file
+   * @return the entity tag
+   * @throws IOException if the file couldn't be read
+   */
+  @NotNull
+  public String getEntityTag(@NotNull final Path file) throws IOException {
+    return HttpFileCache.get(file).getEntityTag();
+  }
+
+  /** Runs the HTTP Server. */
+  @Override
+  public void run() {
+    limiter.registerGauges();
+    try {
+      startServer();
+    } finally {
+      limiter.unregisterGauges();
+    }
+  }
+
+  /** Terminate the Server. */
+  public abstract void terminate();
+
+  /** Called right when the server starts. */
+  @Override
+  public void onServerStart() {}
+
+  /** Called when the server is being terminated. */
+  @Override
+  public void onServerTerminate() {}
+
+  /**
+   * Called if an incoming client is connecting
+   *
+   * @param client for the incoming connection.
+   */
+  @Override
+  public void onClientConnect(final Socket client) {}
+
+  /**
+   * Called if a request failed to download for a user.
+   *
+   * @param client client
+   */
+  @Override
+  public void onRequestFailed(final Socket client) {}
+
+  /**
+   * Sets whether the server is running.
+   *
+   * @param running whether the server is running
+   */
+  protected void setRunning(final boolean running) {
+    this.running = running;
+  }
+
+  /**
+   * Gets the limiter which shapes the traffic of the server.
+   *
+   * @return the transfer limiter
+   */
+  public TransferLimiter getLimiter() {
+    return limiter;
+  }
+
+  /**
+   * Gets zip header.
+   *
+   * @return the zip header
+   */
+  public ZipHeader getZipHeader() {
+    return header;
+  }
+
+  /**
+   * Sets zip header.
+   *
+   * @param header the header
+   */
+  public void setZipHeader(final ZipHeader header) {
+    this.header = header;
+  }
+
+  /**
+   * Is verbose boolean.
+   *
+   * @return the boolean
+   */
+  public boolean isVerbose() {
+    return verbose;
+  }
+
+  /**
+   * Sets verbose.
+   *
+   * @param verbose the verbose
+   */
+  public void setVerbose(final boolean verbose) {
+    this.verbose = verbose;
+  }
+
+  /**
+   * Gets parent directory.
+   *
+   * @return the parent directory
+   */
+  public Path getParentDirectory() {
+    return directory;
+  }
+
+  /**
+   * Gets port.
+   *
+   * @return the port
+   */
+  public int getPort() {
+    return port;
+  }
+
+  /**
+   * Is running boolean.
+   *
+   * @return the boolean
+   */
+  public boolean isRunning() {
+    return running;
+  }
+
+  /**
+   * Gets directory.
+   *
+   * @return the directory
+   */
+  public Path getDirectory() {
+    return directory;
+  }
+
+  /**
+   * Gets header.
+   *
+   * @return the header
+   */
+  public ZipHeader getHeader() {
+    return header;
+  }
+
+  /** The enum Zip header. */
+  public enum ZipHeader {
+
+    /** ZIP Header */
+    ZIP("application/zip"),
+
+    /** Octet Stream Header */
+    OCTET_STREAM("application/octet-stream");
+
+    private final String header;
+
+    ZipHeader(final String header) {
+      this.header = header;
+    }
+
+    /**
+     * Gets header.
+     *
+     * @return the header
+     */
+    public String getHeader() {
+      return header;
+    }
+  }
+}
@@ -26,32 +26,40 @@ import com.github.pulsebeat02.minecraftmedialibrary.logger.Logger;
 import org.jetbrains.annotations.NotNull;
 
 import java.io.BufferedReader;
-import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
 import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.io.PrintWriter;
+import java.net.InetAddress;
 import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
 import java.nio.charset.StandardCharsets;
-import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
-import java.text.SimpleDateFormat;
-import java.util.Calendar;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Supplier;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 /**
  * A class used to handle incoming requests. It checks if the current request being received is a
- * GET request and sends the correct response back to the client.
+ * GET or HEAD request and sends the correct response back to the client, answering conditional
+ * and range requests as described in {@link FileResponse}.
  */
 public class FileRequestHandler implements Runnable, RequestHandler {
 
   private static final Pattern MATCHER;
 
   static {
-    MATCHER = Pattern.compile("GET /?(\\S*).*");
+    MATCHER = Pattern.compile("(GET|HEAD) /?(\\S*).*");
   }
 
   private final HttpFileDaemonServer daemon;
@@ -84,34 +92,46 @@ public class FileRequestHandler implements Runnable, RequestHandler {
   @Override
   public void handleRequest() {
     daemon.onClientConnect(client);
+    final TransferLimiter limiter = daemon.getLimiter();
+    final InetAddress address = client.getInetAddress();
+    if (!limiter.openConnection(address)) {
+      refuse();
+      return;
+    }
     boolean flag = false;
     try {
       final BufferedReader in =
           new BufferedReader(new InputStreamReader(client.getInputStream(), "8859_1"));
       final OutputStream out = client.getOutputStream();
       final PrintWriter pout = new PrintWriter(new OutputStreamWriter(out, "8859_1"), true);
-      String request = in.readLine();
-      verbose(
-          String.format(
-              "Received request '%s' from %s", request, client.getInetAddress().toString()));
-      final Matcher get = requestPattern(request);
+      final String line = in.readLine();
+      verbose(() -> String.format("Received request '%s' from %s", line, address));
+      final Map<String, String> headers = readHeaders(in);
+      final Matcher get = requestPattern(line == null ? "" : line);
       if (get.matches()) {
-        request = get.group(1);
+        final boolean head = get.group(1).equals("HEAD");
+        final String request = get.group(2);
         final Path result = requestFileCallback(request);
-        verbose(
-            String.format("Request '%s' is being served to %s", request, client.getInetAddress()));
+        verbose(() -> String.format("Request '%s' is being served to %s", request, address));
         try {
-          out.write(buildHeader(result).getBytes(StandardCharsets.UTF_8));
-          final FileInputStream fis = new FileInputStream(result.toFile());
-          final byte[] data = new byte[64 * 1024];
-          for (int read; (read = fis.read(data)) > -1; ) {
-            out.write(data, 0, read);
+          final FileResponse response =
+              FileResponse.create(
+                  result,
+                  head,
+                  headers.get("if-none-match"),
+                  headers.get("range"),
+                  headers.get("if-range"));
+          out.write(buildHeader(result, response).getBytes(StandardCharsets.UTF_8));
+          if (response.hasBody()) {
+            sendFile(result, response, out, limiter);
           }
           out.flush();
-          fis.close();
           verbose(
-              String.format("Successfully served '%s' to %s", request, client.getInetAddress()));
-        } catch (final FileNotFoundException e) {
+              () ->
+                  String.format(
+                      "Successfully served '%s' (%s) to %s",
+                      request, response.getStatus(), address));
+        } catch (final NoSuchFileException | FileNotFoundException e) {
           flag = true;
           pout.println("HTTP/1.0 404 Object Not Found");
         }
@@ -122,13 +142,110 @@ public class FileRequestHandler implements Runnable, RequestHandler {
       client.close();
     } catch (final IOException e) {
       flag = true;
-      verbose(String.format("I/O error %s", e));
+      verbose(() -> String.format("I/O error %s", e));
+    } finally {
+      limiter.closeConnection(address);
     }
     if (flag) {
       daemon.onRequestFailed(client);
     }
   }
 
+  /**
+   * Sends the requested part of a file, waiting for a download slot first and keeping to the rates
+   * of the limiter. Files held by the {@link HttpFileCache} are sent from memory.
+   *
+   * @param file the file
+   * @param response the response
+   * @param out the output stream of the client
+   * @param limiter the limiter
+   * @throws IOException if the file couldn't be sent
+   */
+  private void sendFile(
+      @NotNull final Path file,
+      @NotNull final FileResponse response,
+      @NotNull final OutputStream out,
+      @NotNull final TransferLimiter limiter)
+      throws IOException {
+    try {
+      limiter.startDownload();
+    } catch (final InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted while waiting for a download slot");
+    }
+    final WritableByteChannel target = Channels.newChannel(out);
+    final TokenBucket bucket = limiter.createClientBucket();
+    final ByteBuffer data = response.getEntry().getData();
+    long position = response.getOffset();
+    long remaining = response.getLength();
+    try {
+      if (data != null) {
+        data.position((int) position);
+        while (remaining > 0) {
+          data.limit((int) (data.position() + limiter.acquire(bucket, remaining)));
+          final int sent = target.write(data);
+          limiter.recordSent(sent);
+          remaining -= sent;
+        }
+        return;
+      }
+      try (final FileChannel channel = FileChannel.open(file)) {
+        while (remaining > 0) {
+          final long sent =
+              channel.transferTo(position, limiter.acquire(bucket, remaining), target);
+          if (sent <= 0) {
+            break;
+          }
+          limiter.recordSent(sent);
+          position += sent;
+          remaining -= sent;
+        }
+      }
+    } catch (final InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted while sending a file");
+    } finally {
+      limiter.finishDownload();
+    }
+  }
+
+  /** Tells a client which opened too many connections to try again later and closes it. */
+  private void refuse() {
+    try {
+      client
+          .getOutputStream()
+          .write(
+              ("HTTP/1.1 503 Service Unavailable\r\nRetry-After: 5\r\n"
+                      + "Content-Length: 0\r\nConnection: close\r\n\r\n")
+                  .getBytes(StandardCharsets.ISO_8859_1));
+      client.close();
+    } catch (final IOException e) {
+      verbose(() -> String.format("I/O error %s", e));
+    }
+    daemon.onRequestFailed(client);
+  }
+
+  /**
+   * Reads the header lines of the request until the empty line which ends them.
+   *
+   * @param in the reader
+   * @return the headers, keyed by their lowercase names
+   * @throws IOException if the request couldn't be read
+   */
+  @NotNull
+  private Map<String, String> readHeaders(@NotNull final BufferedReader in) throws IOException {
+    final Map<String, String> headers = new HashMap<>();
+    for (String line; (line = in.readLine()) != null && !line.isEmpty(); ) {
+      final int colon = line.indexOf(':');
+      if (colon > 0) {
+        headers.put(
+            line.substring(0, colon).trim().toLowerCase(Locale.ROOT),
+            line.substring(colon + 1).trim());
+      }
+    }
+    return headers;
+  }
+
   /**
    * Checks if the request matches the GET pattern.
    *
@@ -141,11 +258,11 @@ public class FileRequestHandler implements Runnable, RequestHandler {
   }
 
   /**
-   * If it is verbose, then it will print the information.
+   * If it is verbose, then it will print the information, which is only built if it is printed.
    *
    * @param info the info
    */
-  private void verbose(final String info) {
+  private void verbose(@NotNull final Supplier<String> info) {
     if (daemon.isVerbose()) {
       Logger.info(info);
     }
@@ -166,17 +283,40 @@ public class FileRequestHandler implements Runnable, RequestHandler {
   @NotNull
   public String buildHeader(final @NotNull Path f) {
     try {
-      return String.format(
-          "HTTP/1.0 200 OK\r\nContent-Type: %s\r\nContent-Length: %d\r\nDate: %s GMT\r\nServer: HttpDaemon\r\nUser-Agent: HTTPDaemon/1.0.0 (Resourcepack Hosting)\r\n\r\n",
-          header.getHeader(),
-          Files.size(f),
-          new SimpleDateFormat("dd MMM yyyy HH:mm:ss").format(Calendar.getInstance().getTime()));
+      return buildHeader(f, FileResponse.create(f, false, null, null, null));
     } catch (final IOException e) {
       e.printStackTrace();
     }
     return "";
   }
 
+  /**
+   * Creates the header of a response to a request for a file.
+   *
+   * @param f the file
+   * @param response the response
+   * @return the header
+   */
+  @NotNull
+  public String buildHeader(final @NotNull Path f, @NotNull final FileResponse response) {
+    return String.format(
+        "HTTP/1.1 %s\r\n"
+            + "Content-Type: %s\r\n"
+            + "%s%s"
+            + "Date: %s\r\n"
+            + "Server: HttpDaemon\r\n"
+            + "Connection: close\r\n"
+            + "User-Agent: HTTPDaemon/1.0.0 (Resourcepack Hosting)\r\n"
+            + "\r\n",
+        response.getStatus(),
+        header.getHeader(),
+        response.getContentLength() < 0
+            ? ""
+            : String.format("Content-Length: %d\r\n", response.getContentLength()),
+        response.getHeaders(),
+        FileResponse.getDate());
+  }
+
   /**
    * Gets daemon.
    *
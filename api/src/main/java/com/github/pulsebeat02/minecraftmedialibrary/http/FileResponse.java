@@ -0,0 +1,270 @@
+/*............................................................................................
+. Copyright © 2021 Brandon Li                                                               .
+.                                                                                           .
+. Permission is hereby granted, free of charge, to any person obtaining a copy of this      .
+. software and associated documentation files (the “Software”), to deal in the Software     .
+. without restriction, including without limitation the rights to use, copy, modify, merge, .
+. publish, distribute, sublicense, and/or sell copies of the Software, and to permit        .
+. persons to whom the Software is furnished to do so, subject to the following conditions:  .
+.                                                                                           .
+. The above copyright notice and this permission notice shall be included in all copies     .
+. or substantial portions of the Software.                                                  .
+.                                                                                           .
+. THE SOFTWARE IS PROVIDED “AS IS”, WITHOUT WARRANTY OF ANY KIND,                           .
+.  EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF                       .
+.   MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND                                   .
+.   NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS                     .
+.   BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN                      .
+.   ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN                       .
+.   CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE                        .
+.   SOFTWARE.                                                                               .
+............................................................................................*/
+
+package com.github.pulsebeat02.minecraftmedialibrary.http;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * The response to a request for a file. It evaluates the conditional and range headers of the
+ * request, so clients which already have the file get a 304 Not Modified, and interrupted downloads
+ * can resume with a 206 Partial Content instead of starting from the first byte again.
+ *
+ * <p>Only single byte ranges are supported. Requests for multiple ranges receive the full file,
+ * which is allowed by RFC 7233.
+ */
+public final class FileResponse {
+
+  private static volatile String date;
+  private static volatile long dateSecond;
+
+  private final HttpFileCache.Entry entry;
+  private final String status;
+  private final long offset;
+  private final long length;
+  private final long contentLength;
+  private final boolean body;
+  private final String headers;
+
+  private FileResponse(
+      @NotNull final HttpFileCache.Entry entry,
+      @NotNull final String status,
+      final long offset,
+      final long length,
+      final long contentLength,
+      final boolean body,
+      @NotNull final String headers) {
+    this.entry = entry;
+    this.status = status;
+    this.offset = offset;
+    this.length = length;
+    this.contentLength = contentLength;
+    this.body = body;
+    this.headers = headers;
+  }
+
+  /**
+   * Creates the response to a request for a file.
+   *
+   * @param file the file
+   * @param head whether the request is a HEAD request
+   * @param ifNoneMatch the If-None-Match header of the request
+   * @param range the Range header of the request
+   * @param ifRange the If-Range header of the request
+   * @return the response
+   * @throws IOException if the file couldn't be read
+   */
+  @NotNull
+  public static FileResponse create(
+      @NotNull final Path file,
+      final boolean head,
+      @Nullable final String ifNoneMatch,
+      @Nullable final String range,
+      @Nullable final String ifRange)
+      throws IOException {
+    final HttpFileCache.Entry entry = HttpFileCache.get(file);
+    final long size = entry.getSize();
+    final String tag = entry.getEntityTag();
+    final String validators = entry.getHeaders();
+    if (ifNoneMatch != null && matches(ifNoneMatch, tag)) {
+      return new FileResponse(entry, "304 Not Modified", 0L, 0L, -1L, false, validators);
+    }
+    if (range != null && (ifRange == null || matches(ifRange, tag))) {
+      final long[] bounds = parseRange(range, size);
+      if (bounds == null) {
+        return new FileResponse(
+            entry,
+            "416 Range Not Satisfiable",
+            0L,
+            0L,
+            0L,
+            false,
+            String.format("%sContent-Range: bytes */%d\r\n", validators, size));
+      }
+      if (bounds.length == 2) {
+        final long length = bounds[1] - bounds[0] + 1;
+        return new FileResponse(
+            entry,
+            "206 Partial Content",
+            bounds[0],
+            head ? 0L : length,
+            length,
+            !head,
+            String.format(
+                "%sContent-Range: bytes %d-%d/%d\r\n", validators, bounds[0], bounds[1], size));
+      }
+    }
+    return new FileResponse(entry, "200 OK", 0L, head ? 0L : size, size, !head, validators);
+  }
+
+  /**
+   * Gets the current date formatted for the Date header. It is only formatted again once a second.
+   *
+   * @return the date
+   */
+  @NotNull
+  public static String getDate() {
+    final long second = System.currentTimeMillis() / 1000L;
+    String current = date;
+    if (current == null || second != dateSecond) {
+      current =
+          DateTimeFormatter.RFC_1123_DATE_TIME.format(
+              Instant.ofEpochSecond(second).atOffset(ZoneOffset.UTC));
+      date = current;
+      dateSecond = second;
+    }
+    return current;
+  }
+
+  /**
+   * Checks whether a list of entity tags matches an entity tag. Weak tags are compared by their
+   * value.
+   *
+   * @param header the list of entity tags
+   * @param tag the entity tag
+   * @return whether the tag matches
+   */
+  private static boolean matches(@NotNull final String header, @NotNull final String tag) {
+    for (String candidate : header.split(",")) {
+      candidate = candidate.trim();
+      if (candidate.equals("*")) {
+        return true;
+      }
+      if (candidate.startsWith("W/")) {
+        candidate = candidate.substring(2);
+      }
+      if (candidate.equals(tag)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Parses a Range header.
+   *
+   * @param header the header
+   * @param size the size of the file
+   * @return the first and last byte of the range, an empty array if the header should be ignored,
+   *     or null if the range is not satisfiable
+   */
+  private static long @Nullable [] parseRange(@NotNull final String header, final long size) {
+    final String value = header.trim();
+    if (!value.startsWith("bytes=") || value.indexOf(',') >= 0) {
+      return new long[0];
+    }
+    final String spec = value.substring(6).trim();
+    final int dash = spec.indexOf('-');
+    if (dash < 0) {
+      return new long[0];
+    }
+    try {
+      final String first = spec.substring(0, dash).trim();
+      final String last = spec.substring(dash + 1).trim();
+      if (first.isEmpty()) {
+        final long suffix = Long.parseLong(last);
+        if (suffix <= 0 || size == 0) {
+          return null;
+        }
+        return new long[] {Math.max(0L, size - suffix), size - 1};
+      }
+      final long start = Long.parseLong(first);
+      final long end = last.isEmpty() ? size - 1 : Math.min(Long.parseLong(last), size - 1);
+      if (start >= size) {
+        return null;
+      }
+      return start > end ? new long[0] : new long[] {start, end};
+    } catch (final NumberFormatException e) {
+      return new long[0];
+    }
+  }
+
+  /**
+   * Gets the cache entry of the file.
+   *
+   * @return the entry
+   */
+  public HttpFileCache.Entry getEntry() {
+    return entry;
+  }
+
+  /**
+   * Gets the status of the response.
+   *
+   * @return the status
+   */
+  public String getStatus() {
+    return status;
+  }
+
+  /**
+   * Gets the offset of the first byte to send.
+   *
+   * @return the offset
+   */
+  public long getOffset() {
+    return offset;
+  }
+
+  /**
+   * Gets the number of bytes to send.
+   *
+   * @return the number of bytes
+   */
+  public long getLength() {
+    return length;
+  }
+
+  /**
+   * Gets the value of the Content-Length header, or -1 if it should not be sent.
+   *
+   * @return the content length
+   */
+  public long getContentLength() {
+    return contentLength;
+  }
+
+  /**
+   * Gets whether the file is sent in the body.
+   *
+   * @return whether the file is sent
+   */
+  public boolean hasBody() {
+    return body;
+  }
+
+  /**
+   * Gets the validator and range headers of the response, each terminated by CRLF.
+   *
+   * @return the headers
+   */
+  public String getHeaders() {
+    return headers;
+  }
+}
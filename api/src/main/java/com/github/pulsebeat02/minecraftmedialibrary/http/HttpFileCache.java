@@ -0,0 +1,412 @@
+/*............................................................................................
+. Copyright © 2021 Brandon Li                                                               .
+.                                                                                           .
+. Permission is hereby granted, free of charge, to any person obtaining a copy of this      .
+. software and associated documentation files (the “Software”), to deal in the Software     .
+. without restriction, including without limitation the rights to use, copy, modify, merge, .
+. publish, distribute, sublicense, and/or sell copies of the Software, and to permit        .
+. persons to whom the Software is furnished to do so, subject to the following conditions:  .
+.                                                                                           .
+. The above copyright notice and this permission notice shall be included in all copies     .
+. or substantial portions of the Software.                                                  .
+.                                                                                           .
+. THE SOFTWARE IS PROVIDED “AS IS”, WITHOUT WARRANTY OF ANY KIND,                           .
+.  EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF                       .
+.   MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND                                   .
+.   NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS                     .
+.   BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN                      .
+.   ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN                       .
+.   CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE                        .
+.   SOFTWARE.                                                                               .
+............................................................................................*/
+
+package com.github.pulsebeat02.minecraftmedialibrary.http;
+
+import com.github.pulsebeat02.minecraftmedialibrary.resourcepack.ResourcepackWrapper;
+import com.google.common.io.BaseEncoding;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A cache of the files served by the HTTP daemons. Every entry holds the size, modification time
+ * and SHA-1 entity tag of a file along with its pre-rendered validator headers, so that serving a
+ * request does not hash or format anything again. Files up to {@link #getMaxFileSize()} are also
+ * kept in a direct buffer so they are not reopened for every download, and the least recently
+ * served files are evicted once the buffers exceed {@link #getCapacity()}.
+ *
+ * <p>An entry is reloaded once the size or modification time of its file changes. Code which
+ * rewrites a served file, such as {@link ResourcepackWrapper#buildResourcePack()}, should call
+ * {@link #invalidate(Path)} as well, because the modification time of a file may not change when it
+ * is rewritten within the same second. Code which already knows the SHA-1 hash of the file it wrote
+ * should call {@link #seed(Path, byte[])} instead, so that the first request after the rewrite
+ * doesn't hash the file on the thread of the daemon. Files are copied rather than memory mapped, as
+ * a mapped file which is truncated while it is being sent would crash the server.
+ */
+public final class HttpFileCache {
+
+  private static final Map<Path, Entry> ENTRIES;
+  private static long capacity;
+  private static long maxFileSize;
+  private static long memory;
+
+  static {
+    ENTRIES = new LinkedHashMap<>(16, 0.75F, true);
+    capacity = 128L * 1024 * 1024;
+    maxFileSize = 64L * 1024 * 1024;
+  }
+
+  private HttpFileCache() {}
+
+  /**
+   * Gets the entry of a file, loading it if it isn't cached or has changed.
+   *
+   * @param file the file
+   * @return the entry
+   * @throws IOException if the file couldn't be read
+   */
+  @NotNull
+  public static Entry get(@NotNull final Path file) throws IOException {
+    final Path key = file.toAbsolutePath().normalize();
+    final BasicFileAttributes attributes = Files.readAttributes(key, BasicFileAttributes.class);
+    final long size = attributes.size();
+    final long modified = attributes.lastModifiedTime().toMillis();
+    synchronized (ENTRIES) {
+      final Entry entry = ENTRIES.get(key);
+      if (entry != null && entry.size == size && entry.modified == modified) {
+        return entry;
+      }
+    }
+    final Entry entry = load(key, size, modified);
+    final BasicFileAttributes after = Files.readAttributes(key, BasicFileAttributes.class);
+    if (after.size() == size && after.lastModifiedTime().toMillis() == modified) {
+      put(key, entry);
+    }
+    return entry;
+  }
+
+  /**
+   * Stores the entry of a file whose SHA-1 hash is already known, such as a resourcepack which was
+   * hashed while it was written. Small files are still read into memory, but nothing is hashed.
+   * Nothing is done if the file is already cached with the same hash.
+   *
+   * @param file the file
+   * @param hash the SHA-1 hash of the file
+   * @throws IOException if the file couldn't be read
+   */
+  public static void seed(@NotNull final Path file, final byte @NotNull [] hash)
+      throws IOException {
+    final Path key = file.toAbsolutePath().normalize();
+    final BasicFileAttributes attributes = Files.readAttributes(key, BasicFileAttributes.class);
+    final long size = attributes.size();
+    final long modified = attributes.lastModifiedTime().toMillis();
+    final String tag = String.format("\"%s\"", BaseEncoding.base16().lowerCase().encode(hash));
+    synchronized (ENTRIES) {
+      final Entry cached = ENTRIES.get(key);
+      if (cached != null
+          && cached.size == size
+          && cached.modified == modified
+          && cached.tag.equals(tag)) {
+        return;
+      }
+    }
+    final ByteBuffer data = size <= getMaxFileSize() ? read(key, size) : null;
+    final Entry entry =
+        new Entry(
+            key,
+            data == null ? size : data.remaining(),
+            modified,
+            data == null ? null : data.asReadOnlyBuffer(),
+            tag);
+    final BasicFileAttributes after = Files.readAttributes(key, BasicFileAttributes.class);
+    if (after.size() == size && after.lastModifiedTime().toMillis() == modified) {
+      put(key, entry);
+    } else {
+      invalidate(key);
+    }
+  }
+
+  /**
+   * Reads a file into a direct buffer.
+   *
+   * @param file the file
+   * @param size the size of the file
+   * @return the buffer, flipped for reading
+   * @throws IOException if the file couldn't be read
+   */
+  @NotNull
+  private static ByteBuffer read(@NotNull final Path file, final long size) throws IOException {
+    final ByteBuffer data = ByteBuffer.allocateDirect((int) size);
+    try (final FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      while (data.hasRemaining()) {
+        if (channel.read(data) < 0) {
+          break;
+        }
+      }
+    }
+    data.flip();
+    return data;
+  }
+
+  /**
+   * Reads and hashes a file.
+   *
+   * @param file the file
+   * @param size the size of the file
+   * @param modified the modification time of the file
+   * @return the entry
+   * @throws IOException if the file couldn't be read
+   */
+  @NotNull
+  private static Entry load(@NotNull final Path file, final long size, final long modified)
+      throws IOException {
+    final MessageDigest digest;
+    try {
+      digest = MessageDigest.getInstance("SHA-1");
+    } catch (final NoSuchAlgorithmException e) {
+      throw new IOException(e);
+    }
+    ByteBuffer data = null;
+    if (size <= getMaxFileSize()) {
+      data = read(file, size);
+      digest.update(data.duplicate());
+      data = data.asReadOnlyBuffer();
+    } else {
+      try (final InputStream stream = Files.newInputStream(file)) {
+        final byte[] buffer = new byte[64 * 1024];
+        for (int read; (read = stream.read(buffer)) > -1; ) {
+          digest.update(buffer, 0, read);
+        }
+      }
+    }
+    return new Entry(
+        file,
+        data == null ? size : data.remaining(),
+        modified,
+        data,
+        String.format("\"%s\"", BaseEncoding.base16().lowerCase().encode(digest.digest())));
+  }
+
+  /**
+   * Stores an entry and evicts the least recently served files if the cache is full.
+   *
+   * @param key the file
+   * @param entry the entry
+   */
+  private static void put(@NotNull final Path key, @NotNull final Entry entry) {
+    synchronized (ENTRIES) {
+      final Entry previous = ENTRIES.put(key, entry);
+      if (previous != null) {
+        memory -= previous.getMemoryUsage();
+      }
+      memory += entry.getMemoryUsage();
+      final Iterator<Entry> iterator = ENTRIES.values().iterator();
+      while (memory > capacity && iterator.hasNext()) {
+        final Entry eldest = iterator.next();
+        if (eldest != entry) {
+          memory -= eldest.getMemoryUsage();
+          iterator.remove();
+        }
+      }
+    }
+  }
+
+  /**
+   * Removes the entry of a file, which is loaded again the next time the file is requested.
+   *
+   * @param file the file
+   */
+  public static void invalidate(@NotNull final Path file) {
+    synchronized (ENTRIES) {
+      final Entry entry = ENTRIES.remove(file.toAbsolutePath().normalize());
+      if (entry != null) {
+        memory -= entry.getMemoryUsage();
+      }
+    }
+  }
+
+  /** Removes every entry. */
+  public static void clear() {
+    synchronized (ENTRIES) {
+      ENTRIES.clear();
+      memory = 0L;
+    }
+  }
+
+  /**
+   * Gets the number of cached files.
+   *
+   * @return the number of files
+   */
+  public static int size() {
+    synchronized (ENTRIES) {
+      return ENTRIES.size();
+    }
+  }
+
+  /**
+   * Gets the number of bytes held in the buffers of the cache.
+   *
+   * @return the memory usage in bytes
+   */
+  public static long getMemoryUsage() {
+    synchronized (ENTRIES) {
+      return memory;
+    }
+  }
+
+  /**
+   * Gets the maximum number of bytes held in the buffers of the cache.
+   *
+   * @return the capacity in bytes
+   */
+  public static long getCapacity() {
+    synchronized (ENTRIES) {
+      return capacity;
+    }
+  }
+
+  /**
+   * Sets the maximum number of bytes held in the buffers of the cache.
+   *
+   * @param capacity the capacity in bytes
+   */
+  public static void setCapacity(final long capacity) {
+    synchronized (ENTRIES) {
+      HttpFileCache.capacity = capacity;
+    }
+  }
+
+  /**
+   * Gets the size up to which files are kept in memory.
+   *
+   * @return the size in bytes
+   */
+  public static long getMaxFileSize() {
+    synchronized (ENTRIES) {
+      return maxFileSize;
+    }
+  }
+
+  /**
+   * Sets the size up to which files are kept in memory. Larger files are sent from the disk.
+   *
+   * @param maxFileSize the size in bytes, at most {@link Integer#MAX_VALUE}
+   */
+  public static void setMaxFileSize(final long maxFileSize) {
+    synchronized (ENTRIES) {
+      HttpFileCache.maxFileSize = Math.min(maxFileSize, Integer.MAX_VALUE);
+    }
+  }
+
+  /** A cached file. */
+  public static final class Entry {
+
+    private final Path file;
+    private final long size;
+    private final long modified;
+    private final ByteBuffer data;
+    private final String tag;
+    private final String headers;
+
+    private Entry(
+        @NotNull final Path file,
+        final long size,
+        final long modified,
+        @Nullable final ByteBuffer data,
+        @NotNull final String tag) {
+      this.file = file;
+      this.size = size;
+      this.modified = modified;
+      this.data = data;
+      this.tag = tag;
+      headers =
+          String.format(
+              "ETag: %s\r\nLast-Modified: %s\r\nAccept-Ranges: bytes\r\n",
+              tag,
+              DateTimeFormatter.RFC_1123_DATE_TIME.format(
+                  Instant.ofEpochMilli(modified).atOffset(ZoneOffset.UTC)));
+    }
+
+    /**
+     * Gets the number of bytes held in memory.
+     *
+     * @return the memory usage in bytes
+     */
+    private long getMemoryUsage() {
+      return data == null ? 0L : data.capacity();
+    }
+
+    /**
+     * Gets the file.
+     *
+     * @return the file
+     */
+    public Path getFile() {
+      return file;
+    }
+
+    /**
+     * Gets the size of the file.
+     *
+     * @return the size in bytes
+     */
+    public long getSize() {
+      return size;
+    }
+
+    /**
+     * Gets the modification time of the file.
+     *
+     * @return the modification time in milliseconds
+     */
+    public long getModified() {
+      return modified;
+    }
+
+    /**
+     * Gets a buffer with the contents of the file, which has its own position and limit.
+     *
+     * @return the buffer, or null if the file is too large to be kept in memory
+     */
+    @Nullable
+    public ByteBuffer getData() {
+      return data == null ? null : data.duplicate();
+    }
+
+    /**
+     * Gets the entity tag, which is the quoted SHA-1 hash of the file.
+     *
+     * @return the entity tag
+     */
+    public String getEntityTag() {
+      return tag;
+    }
+
+    /**
+     * Gets the pre-rendered ETag, Last-Modified and Accept-Ranges headers, each terminated by
+     * CRLF.
+     *
+     * @return the headers
+     */
+    public String getHeaders() {
+      return headers;
+    }
+  }
+}
@@ -30,7 +30,6 @@ import org.jetbrains.annotations.NotNull;
 import java.io.IOException;
 import java.net.BindException;
 import java.net.ServerSocket;
-import java.net.Socket;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.concurrent.ExecutorService;
@@ -42,7 +41,7 @@ import java.util.concurrent.Executors;
  * must be specified as well as a base directory. It then runs on an async thread while logging out
  * connections (if set to enabled).
  */
-public class HttpFileDaemonServer extends Thread implements HttpDaemon {
+public class HttpFileDaemonServer extends AbstractHttpDaemonServer {
 
   private static final ExecutorService EXECUTOR_SERVICE;
 
@@ -50,12 +49,7 @@ public class HttpFileDaemonServer extends Thread implements HttpDaemon {
     EXECUTOR_SERVICE = Executors.newCachedThreadPool();
   }
 
-  private final int port;
   private ServerSocket socket;
-  private Path directory;
-  private boolean running;
-  private ZipHeader header;
-  private boolean verbose;
 
   /**
    * Instantiates a new Http daemon.
@@ -76,8 +70,7 @@ public class HttpFileDaemonServer extends Thread implements HttpDaemon {
    * @throws IOException the io exception
    */
   public HttpFileDaemonServer(final int port, @NotNull final String path) throws IOException {
-    running = true;
-    this.port = port;
+    super(port, Paths.get(path));
     try {
       socket = new ServerSocket(port);
       socket.setReuseAddress(true);
@@ -87,21 +80,7 @@ public class HttpFileDaemonServer extends Thread implements HttpDaemon {
       Logger.error(e.getMessage());
       return;
     }
-    directory = Paths.get(path);
-    header = ZipHeader.ZIP;
-    verbose = true;
-    Logger.info("Started HTTP Server: ");
-    Logger.info("========================================");
-    Logger.info(String.format("IP: %s", Bukkit.getIp()));
-    Logger.info(String.format("PORT: %d", port));
-    Logger.info(String.format("DIRECTORY: %s", path));
-    Logger.info("========================================");
-  }
-
-  /** Runs the HTTP Server. */
-  @Override
-  public void run() {
-    startServer();
+    logStart();
   }
 
   /** Server start method (called after event is called). */
@@ -109,9 +88,9 @@ public class HttpFileDaemonServer extends Thread implements HttpDaemon {
   public void startServer() {
     Preconditions.checkState(!Bukkit.isPrimaryThread());
     onServerStart();
-    while (running) {
+    while (isRunning()) {
       try {
-        EXECUTOR_SERVICE.submit(new FileRequestHandler(this, header, socket.accept()));
+        EXECUTOR_SERVICE.submit(new FileRequestHandler(this, getHeader(), socket.accept()));
       } catch (final IOException e) {
         e.printStackTrace();
       }
@@ -119,10 +98,11 @@ public class HttpFileDaemonServer extends Thread implements HttpDaemon {
   }
 
   /** Terminate the Server. */
+  @Override
   public void terminate() {
     onServerTerminate();
-    Logger.info(String.format("Terminating HTTP Server at %s:%d", Bukkit.getIp(), port));
-    running = false;
+    Logger.info(String.format("Terminating HTTP Server at %s:%d", Bukkit.getIp(), getPort()));
+    setRunning(false);
     if (!socket.isClosed()) {
       try {
         socket.close();
@@ -132,93 +112,6 @@ public class HttpFileDaemonServer extends Thread implements HttpDaemon {
     }
   }
 
-  /** Called right when the server starts. */
-  @Override
-  public void onServerStart() {}
-
-  /** Called when the server is being terminated. */
-  @Override
-  public void onServerTerminate() {}
-
-  /**
-   * Called if an incoming client is connecting
-   *
-   * @param client for the incoming connection.
-   */
-  @Override
-  public void onClientConnect(final Socket client) {}
-
-  /**
-   * Called if a request failed to download for a user.
-   *
-   * @param client client
-   */
-  @Override
-  public void onRequestFailed(final Socket client) {}
-
-  /**
-   * Gets zip header.
-   *
-   * @return the zip header
-   */
-  public ZipHeader getZipHeader() {
-    return header;
-  }
-
-  /**
-   * Sets zip header.
-   *
-   * @param header the header
-   */
-  public void setZipHeader(final ZipHeader header) {
-    this.header = header;
-  }
-
-  /**
-   * Is verbose boolean.
-   *
-   * @return the boolean
-   */
-  public boolean isVerbose() {
-    return verbose;
-  }
-
-  /**
-   * Sets verbose.
-   *
-   * @param verbose the verbose
-   */
-  public void setVerbose(final boolean verbose) {
-    this.verbose = verbose;
-  }
-
-  /**
-   * Gets parent directory.
-   *
-   * @return the parent directory
-   */
-  public Path getParentDirectory() {
-    return directory;
-  }
-
-  /**
-   * Gets port.
-   *
-   * @return the port
-   */
-  public int getPort() {
-    return port;
-  }
-
-  /**
-   * Is running boolean.
-   *
-   * @return the boolean
-   */
-  public boolean isRunning() {
-    return running;
-  }
-
   /**
    * Gets socket.
    *
@@ -227,47 +120,4 @@ public class HttpFileDaemonServer extends Thread implements HttpDaemon {
   public ServerSocket getSocket() {
     return socket;
   }
-
-  /**
-   * Gets directory.
-   *
-   * @return the directory
-   */
-  public Path getDirectory() {
-    return directory;
-  }
-
-  /**
-   * Gets header.
-   *
-   * @return the header
-   */
-  public ZipHeader getHeader() {
-    return header;
-  }
-
-  /** The enum Zip header. */
-  public enum ZipHeader {
-
-    /** ZIP Header */
-    ZIP("application/zip"),
-
-    /** Octet Stream Header */
-    OCTET_STREAM("application/octet-stream");
-
-    private final String header;
-
-    ZipHeader(final String header) {
-      this.header = header;
-    }
-
-    /**
-     * Gets header.
-     *
-     * @return the header
-     */
-    public String getHeader() {
-      return header;
-    }
-  }
 }
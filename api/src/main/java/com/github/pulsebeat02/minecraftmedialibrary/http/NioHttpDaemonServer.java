@@ -0,0 +1,686 @@
+/*............................................................................................
+. Copyright © 2021 Brandon Li                                                               .
+.                                                                                           .
+. Permission is hereby granted, free of charge, to any person obtaining a copy of this      .
+. software and associated documentation files (the “Software”), to deal in the Software     .
+. without restriction, including without limitation the rights to use, copy, modify, merge, .
+. publish, distribute, sublicense, and/or sell copies of the Software, and to permit        .
+. persons to whom the Software is furnished to do so, subject to the following conditions:  .
+.                                                                                           .
+. The above copyright notice and this permission notice shall be included in all copies     .
+. or substantial portions of the Software.                                                  .
+.                                                                                           .
+. THE SOFTWARE IS PROVIDED “AS IS”, WITHOUT WARRANTY OF ANY KIND,                           .
+.  EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF                       .
+.   MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND                                   .
+.   NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS                     .
+.   BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN                      .
+.   ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN                       .
+.   CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE                        .
+.   SOFTWARE.                                                                               .
+............................................................................................*/
+
+package com.github.pulsebeat02.minecraftmedialibrary.http;
+
+import com.github.pulsebeat02.minecraftmedialibrary.logger.Logger;
+import com.google.common.base.Preconditions;
+import org.bukkit.Bukkit;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.net.BindException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * A non-blocking daemon used for hosting resourcepack files. A single thread serves every
+ * connection through a selector, so sending a pack to many players at once does not spawn a thread
+ * per player. Files are sent with {@link FileChannel#transferTo(long, long,
+ * java.nio.channels.WritableByteChannel)}, which lets the operating system copy them to the socket
+ * without going through the heap, and connections are kept alive between requests as specified by
+ * HTTP/1.1.
+ */
+public class NioHttpDaemonServer extends AbstractHttpDaemonServer {
+
+  /** The time after which idle connections are closed in milliseconds. */
+  public static final long KEEP_ALIVE_TIMEOUT = 15_000L;
+
+  /** The maximum number of requests served over a single connection. */
+  public static final int MAX_REQUESTS = 100;
+
+  /** The maximum size of the request line and headers in bytes. */
+  public static final int MAX_HEADER_SIZE = 8192;
+
+  private final Path root;
+  private final Selector selector;
+  private final ServerSocketChannel server;
+  private final Deque<Connection> waiting;
+  private final List<Connection> throttled;
+
+  /**
+   * Instantiates a new NioHttpDaemonServer.
+   *
+   * @param port the port
+   * @param directory the directory
+   * @throws IOException if the server couldn't be opened
+   */
+  public NioHttpDaemonServer(final int port, @NotNull final Path directory) throws IOException {
+    this(port, directory.toAbsolutePath().toString());
+  }
+
+  /**
+   * Instantiates a new NioHttpDaemonServer.
+   *
+   * @param port the port
+   * @param path the path
+   * @throws IOException if the server couldn't be opened
+   */
+  public NioHttpDaemonServer(final int port, @NotNull final String path) throws IOException {
+    super(port, Paths.get(path));
+    root = Paths.get(path).toAbsolutePath().normalize();
+    waiting = new ArrayDeque<>();
+    throttled = new ArrayList<>();
+    selector = Selector.open();
+    server = ServerSocketChannel.open();
+    server.socket().setReuseAddress(true);
+    try {
+      server.bind(new InetSocketAddress(port));
+    } catch (final BindException e) {
+      Logger.error(
+          "The port specified is being used by another process. Please make sure to "
+              + "port-forward the port first and make sure it is open.");
+      Logger.error(e.getMessage());
+      server.close();
+      selector.close();
+      setRunning(false);
+      return;
+    }
+    server.configureBlocking(false);
+    server.register(selector, SelectionKey.OP_ACCEPT);
+    logStart();
+  }
+
+  /** Server start method (called after event is called). */
+  @Override
+  public void startServer() {
+    Preconditions.checkState(Bukkit.getServer() == null || !Bukkit.isPrimaryThread());
+    if (!selector.isOpen()) {
+      return;
+    }
+    onServerStart();
+    long lastSweep = System.currentTimeMillis();
+    while (isRunning()) {
+      try {
+        selector.select(getSelectTimeout());
+      } catch (final IOException e) {
+        e.printStackTrace();
+        break;
+      }
+      final Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+      while (keys.hasNext()) {
+        final SelectionKey key = keys.next();
+        keys.remove();
+        handle(key);
+      }
+      resumeThrottled();
+      final long now = System.currentTimeMillis();
+      if (now - lastSweep >= 1000L) {
+        closeIdle(now);
+        lastSweep = now;
+      }
+    }
+    closeAll();
+  }
+
+  /**
+   * Gets how long the selector may wait, which is shorter while connections are throttled so that
+   * they resume on time.
+   *
+   * @return the timeout in milliseconds
+   */
+  private long getSelectTimeout() {
+    if (throttled.isEmpty()) {
+      return 1000L;
+    }
+    long earliest = Long.MAX_VALUE;
+    for (final Connection connection : throttled) {
+      earliest = Math.min(earliest, connection.resume);
+    }
+    return Math.max(1L, Math.min(1000L, (earliest - System.nanoTime()) / 1_000_000L));
+  }
+
+  /** Lets every throttled connection whose tokens are available write again. */
+  private void resumeThrottled() {
+    if (throttled.isEmpty()) {
+      return;
+    }
+    final long now = System.nanoTime();
+    final Iterator<Connection> iterator = throttled.iterator();
+    while (iterator.hasNext()) {
+      final Connection connection = iterator.next();
+      if (!connection.key.isValid()) {
+        iterator.remove();
+      } else if (connection.resume <= now) {
+        iterator.remove();
+        connection.key.interestOps(SelectionKey.OP_WRITE);
+      }
+    }
+  }
+
+  /**
+   * Handles a selected key.
+   *
+   * @param key the key
+   */
+  private void handle(@NotNull final SelectionKey key) {
+    if (!key.isValid()) {
+      return;
+    }
+    if (key.isAcceptable()) {
+      accept();
+      return;
+    }
+    final Connection connection = (Connection) key.attachment();
+    try {
+      if (key.isReadable()) {
+        read(connection);
+      }
+      if (key.isValid() && key.isWritable()) {
+        write(connection);
+      }
+    } catch (final IOException e) {
+      verbose(() -> String.format("I/O error %s", e));
+      onRequestFailed(connection.channel.socket());
+      close(connection);
+    }
+  }
+
+  /** Accepts every pending connection. */
+  private void accept() {
+    try {
+      SocketChannel channel;
+      while ((channel = server.accept()) != null) {
+        channel.configureBlocking(false);
+        channel.socket().setTcpNoDelay(true);
+        final InetAddress address = channel.socket().getInetAddress();
+        if (!getLimiter().openConnection(address)) {
+          refuse(channel);
+          continue;
+        }
+        final Connection connection = new Connection(channel);
+        connection.address = address;
+        connection.bucket = getLimiter().createClientBucket();
+        connection.key = channel.register(selector, SelectionKey.OP_READ, connection);
+        onClientConnect(channel.socket());
+      }
+    } catch (final IOException e) {
+      e.printStackTrace();
+    }
+  }
+
+  /**
+   * Reads from a connection and serves the request once it is complete.
+   *
+   * @param connection the connection
+   * @throws IOException if the connection failed
+   */
+  private void read(@NotNull final Connection connection) throws IOException {
+    if (connection.channel.read(connection.request) < 0) {
+      close(connection);
+      return;
+    }
+    connection.lastActive = System.currentTimeMillis();
+    process(connection);
+  }
+
+  /**
+   * Serves the next buffered request of a connection if it was fully received.
+   *
+   * @param connection the connection
+   * @throws IOException if the connection failed
+   */
+  private void process(@NotNull final Connection connection) throws IOException {
+    final ByteBuffer buffer = connection.request;
+    final int end = findHeaderEnd(buffer);
+    if (end < 0) {
+      if (!buffer.hasRemaining()) {
+        connection.keepAlive = false;
+        respond(connection, "431 Request Header Fields Too Large");
+      }
+      return;
+    }
+    final String head = new String(buffer.array(), 0, end, StandardCharsets.ISO_8859_1);
+    buffer.flip();
+    buffer.position(end + 4);
+    buffer.compact();
+
+    final String[] lines = head.split("\r\n");
+    final String[] request = lines[0].split(" ");
+    verbose(
+        () ->
+            String.format(
+                "Received request '%s' from %s",
+                lines[0], connection.channel.socket().getInetAddress()));
+    if (request.length != 3) {
+      connection.keepAlive = false;
+      respond(connection, "400 Bad Request");
+      return;
+    }
+    final Map<String, String> headers = new HashMap<>();
+    for (int i = 1; i < lines.length; i++) {
+      final int colon = lines[i].indexOf(':');
+      if (colon > 0) {
+        headers.put(
+            lines[i].substring(0, colon).trim().toLowerCase(Locale.ROOT),
+            lines[i].substring(colon + 1).trim());
+      }
+    }
+    final String option = headers.get("connection");
+    final boolean http11 = request[2].equals("HTTP/1.1");
+    connection.keepAlive =
+        connection.served + 1 < MAX_REQUESTS
+            && (http11 ? !"close".equalsIgnoreCase(option) : "keep-alive".equalsIgnoreCase(option));
+    final boolean headRequest = request[0].equals("HEAD");
+    if (!headRequest && !request[0].equals("GET")) {
+      respond(connection, "405 Method Not Allowed");
+      return;
+    }
+    final Path file = requestFileCallback(request[1]);
+    if (file == null || !Files.isRegularFile(file)) {
+      respond(connection, "404 Object Not Found");
+      return;
+    }
+    final FileResponse response =
+        FileResponse.create(
+            file,
+            headRequest,
+            headers.get("if-none-match"),
+            headers.get("range"),
+            headers.get("if-range"));
+    connection.position = response.getOffset();
+    connection.remaining = response.getLength();
+    connection.target = request[1];
+    connection.response =
+        buildHeader(
+            response.getStatus(),
+            getHeader().getHeader(),
+            response.getContentLength(),
+            response.getHeaders(),
+            connection);
+    if (response.hasBody()) {
+      connection.pending = file;
+      connection.body = response.getEntry().getData();
+      if (!getLimiter().tryStartDownload()) {
+        connection.key.interestOps(0);
+        waiting.add(connection);
+        getLimiter().setQueued(true);
+        return;
+      }
+      begin(connection);
+    }
+    connection.key.interestOps(SelectionKey.OP_WRITE);
+    write(connection);
+  }
+
+  /**
+   * Prepares the body of a connection which was given a download slot. Files held by the {@link
+   * HttpFileCache} are sent from memory, other files are opened.
+   *
+   * @param connection the connection
+   * @throws IOException if the file couldn't be opened
+   */
+  private void begin(@NotNull final Connection connection) throws IOException {
+    connection.downloading = true;
+    if (connection.body != null) {
+      connection.body.position((int) connection.position);
+    } else {
+      connection.file = FileChannel.open(connection.pending, StandardOpenOption.READ);
+    }
+    connection.pending = null;
+  }
+
+  /** Frees the download slot of a finished transfer and hands it to the next waiting client. */
+  private void release() {
+    getLimiter().finishDownload();
+    Connection next;
+    while ((next = waiting.peek()) != null && getLimiter().tryStartDownload()) {
+      waiting.poll();
+      getLimiter().setQueued(false);
+      try {
+        begin(next);
+        next.lastActive = System.currentTimeMillis();
+        next.key.interestOps(SelectionKey.OP_WRITE);
+      } catch (final IOException e) {
+        verbose(() -> String.format("I/O error %s", e));
+        close(next);
+      }
+    }
+  }
+
+  /**
+   * Tells a client which opened too many connections to try again later and closes it.
+   *
+   * @param channel the channel of the client
+   */
+  private void refuse(@NotNull final SocketChannel channel) {
+    onRequestFailed(channel.socket());
+    try {
+      channel.write(
+          ByteBuffer.wrap(
+              ("HTTP/1.1 503 Service Unavailable\r\nRetry-After: 5\r\n"
+                      + "Content-Length: 0\r\nConnection: close\r\n\r\n")
+                  .getBytes(StandardCharsets.ISO_8859_1)));
+      channel.close();
+    } catch (final IOException e) {
+      verbose(() -> String.format("I/O error %s", e));
+    }
+  }
+
+  /**
+   * Resolves the requested file within the served directory.
+   *
+   * @param request the request target
+   * @return the file, or null if it lies outside the served directory
+   */
+  protected Path requestFileCallback(@NotNull final String request) {
+    String target = request;
+    final int query = target.indexOf('?');
+    if (query >= 0) {
+      target = target.substring(0, query);
+    }
+    while (target.startsWith("/")) {
+      target = target.substring(1);
+    }
+    final Path file = root.resolve(target).normalize();
+    return file.startsWith(root) ? file : null;
+  }
+
+  /**
+   * Writes the pending response of a connection, as far as the socket accepts it.
+   *
+   * @param connection the connection
+   * @throws IOException if the connection failed
+   */
+  private void write(@NotNull final Connection connection) throws IOException {
+    final SocketChannel channel = connection.channel;
+    if (connection.response != null && connection.response.hasRemaining()) {
+      if (channel.write(connection.response) > 0) {
+        connection.lastActive = System.currentTimeMillis();
+      }
+      if (connection.response.hasRemaining()) {
+        return;
+      }
+    }
+    final TransferLimiter limiter = getLimiter();
+    while (connection.remaining > 0) {
+      final long allowed = limiter.tryAcquire(connection.bucket, connection.remaining);
+      if (allowed <= 0) {
+        connection.resume =
+            System.nanoTime() + limiter.getDelay(connection.bucket, connection.remaining);
+        connection.key.interestOps(0);
+        throttled.add(connection);
+        return;
+      }
+      final long written;
+      if (connection.body != null) {
+        connection.body.limit((int) (connection.position + allowed));
+        written = channel.write(connection.body);
+      } else {
+        written = connection.file.transferTo(connection.position, allowed, channel);
+      }
+      if (written < allowed) {
+        limiter.release(connection.bucket, allowed - Math.max(0L, written));
+      }
+      if (written <= 0) {
+        return;
+      }
+      limiter.recordSent(written);
+      connection.position += written;
+      connection.remaining -= written;
+      connection.lastActive = System.currentTimeMillis();
+    }
+    finish(connection);
+  }
+
+  /**
+   * Completes the current response and either waits for the next request or closes the
+   * connection.
+   *
+   * @param connection the connection
+   * @throws IOException if the connection failed
+   */
+  private void finish(@NotNull final Connection connection) throws IOException {
+    if (connection.downloading) {
+      if (connection.file != null) {
+        connection.file.close();
+        connection.file = null;
+      }
+      connection.body = null;
+      connection.downloading = false;
+      release();
+      verbose(
+          () ->
+              String.format(
+                  "Successfully served '%s' to %s",
+                  connection.target, connection.channel.socket().getInetAddress()));
+    }
+    connection.response = null;
+    connection.served++;
+    if (!connection.keepAlive) {
+      close(connection);
+      return;
+    }
+    connection.key.interestOps(SelectionKey.OP_READ);
+    if (connection.request.position() > 0) {
+      process(connection);
+    }
+  }
+
+  /**
+   * Sends a response without a file.
+   *
+   * @param connection the connection
+   * @param status the status
+   * @throws IOException if the connection failed
+   */
+  private void respond(@NotNull final Connection connection, @NotNull final String status)
+      throws IOException {
+    onRequestFailed(connection.channel.socket());
+    final byte[] body = status.getBytes(StandardCharsets.ISO_8859_1);
+    final ByteBuffer header = buildHeader(status, "text/plain", body.length, "", connection);
+    final ByteBuffer response = ByteBuffer.allocate(header.remaining() + body.length);
+    response.put(header).put(body).flip();
+    connection.response = response;
+    connection.remaining = 0L;
+    connection.key.interestOps(SelectionKey.OP_WRITE);
+    write(connection);
+  }
+
+  /**
+   * Builds the header of a response.
+   *
+   * @param status the status
+   * @param type the content type
+   * @param length the content length, or -1 to leave it out
+   * @param headers additional headers, each terminated by CRLF
+   * @param connection the connection
+   * @return the header
+   */
+  @NotNull
+  private ByteBuffer buildHeader(
+      @NotNull final String status,
+      @NotNull final String type,
+      final long length,
+      @NotNull final String headers,
+      @NotNull final Connection connection) {
+    final StringBuilder builder =
+        new StringBuilder(256)
+            .append("HTTP/1.1 ")
+            .append(status)
+            .append("\r\nContent-Type: ")
+            .append(type)
+            .append("\r\n");
+    if (length >= 0) {
+      builder.append("Content-Length: ").append(length).append("\r\n");
+    }
+    builder
+        .append(headers)
+        .append("Date: ")
+        .append(FileResponse.getDate())
+        .append("\r\nServer: HttpDaemon\r\n");
+    if (connection.keepAlive) {
+      builder
+          .append("Connection: keep-alive\r\nKeep-Alive: timeout=")
+          .append(KEEP_ALIVE_TIMEOUT / 1000L)
+          .append(", max=")
+          .append(MAX_REQUESTS - connection.served - 1)
+          .append("\r\n\r\n");
+    } else {
+      builder.append("Connection: close\r\n\r\n");
+    }
+    return ByteBuffer.wrap(builder.toString().getBytes(StandardCharsets.ISO_8859_1));
+  }
+
+  /**
+   * Finds the end of the request headers.
+   *
+   * @param buffer the buffer in write mode
+   * @return the index of the empty line, or -1 if the headers are incomplete
+   */
+  private int findHeaderEnd(@NotNull final ByteBuffer buffer) {
+    final byte[] array = buffer.array();
+    for (int i = 0, limit = buffer.position() - 3; i < limit; i++) {
+      if (array[i] == '\r'
+          && array[i + 1] == '\n'
+          && array[i + 2] == '\r'
+          && array[i + 3] == '\n') {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * Closes every connection which was idle for longer than {@link #KEEP_ALIVE_TIMEOUT}.
+   *
+   * @param now the current time in milliseconds
+   */
+  private void closeIdle(final long now) {
+    for (final SelectionKey key : selector.keys()) {
+      final Object attachment = key.attachment();
+      if (attachment instanceof Connection
+          && !waiting.contains(attachment)
+          && now - ((Connection) attachment).lastActive > KEEP_ALIVE_TIMEOUT) {
+        close((Connection) attachment);
+      }
+    }
+  }
+
+  /**
+   * Closes a connection.
+   *
+   * @param connection the connection
+   */
+  private void close(@NotNull final Connection connection) {
+    connection.key.cancel();
+    if (connection.address != null) {
+      getLimiter().closeConnection(connection.address);
+      connection.address = null;
+    }
+    if (waiting.remove(connection)) {
+      getLimiter().setQueued(false);
+    }
+    if (connection.downloading) {
+      connection.downloading = false;
+      release();
+    }
+    try {
+      if (connection.file != null) {
+        connection.file.close();
+      }
+      connection.channel.close();
+    } catch (final IOException e) {
+      e.printStackTrace();
+    }
+  }
+
+  /** Closes every connection and the server. */
+  private void closeAll() {
+    for (final SelectionKey key : selector.keys()) {
+      if (key.attachment() instanceof Connection) {
+        close((Connection) key.attachment());
+      }
+    }
+    try {
+      server.close();
+      selector.close();
+    } catch (final IOException e) {
+      e.printStackTrace();
+    }
+  }
+
+  /** Terminate the Server. */
+  @Override
+  public void terminate() {
+    onServerTerminate();
+    Logger.info(String.format("Terminating HTTP Server at port %d", getPort()));
+    setRunning(false);
+    selector.wakeup();
+  }
+
+  /**
+   * Gets the server channel.
+   *
+   * @return the server channel
+   */
+  public ServerSocketChannel getServerChannel() {
+    return server;
+  }
+
+  /** The state of a single client connection. */
+  private static final class Connection {
+
+    private final SocketChannel channel;
+    private final ByteBuffer request;
+    private SelectionKey key;
+    private ByteBuffer response;
+    private FileChannel file;
+    private Path pending;
+    private ByteBuffer body;
+    private boolean downloading;
+    private InetAddress address;
+    private TokenBucket bucket;
+    private long resume;
+    private String target;
+    private long position;
+    private long remaining;
+    private boolean keepAlive;
+    private int served;
+    private long lastActive;
+
+    private Connection(@NotNull final SocketChannel channel) {
+      this.channel = channel;
+      request = ByteBuffer.allocate(MAX_HEADER_SIZE);
+      lastActive = System.currentTimeMillis();
+    }
+  }
+}
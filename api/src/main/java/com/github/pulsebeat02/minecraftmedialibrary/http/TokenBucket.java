@@ -0,0 +1,131 @@
+/*............................................................................................
+. Copyright © 2021 Brandon Li                                                               .
+.                                                                                           .
+. Permission is hereby granted, free of charge, to any person obtaining a copy of this      .
+. software and associated documentation files (the “Software”), to deal in the Software     .
+. without restriction, including without limitation the rights to use, copy, modify, merge, .
+. publish, distribute, sublicense, and/or sell copies of the Software, and to permit        .
+. persons to whom the Software is furnished to do so, subject to the following conditions:  .
+.                                                                                           .
+. The above copyright notice and this permission notice shall be included in all copies     .
+. or substantial portions of the Software.                                                  .
+.                                                                                           .
+. THE SOFTWARE IS PROVIDED “AS IS”, WITHOUT WARRANTY OF ANY KIND,                           .
+.  EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF                       .
+.   MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND                                   .
+.   NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS                     .
+.   BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN                      .
+.   ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN                       .
+.   CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE                        .
+.   SOFTWARE.                                                                               .
+............................................................................................*/
+
+package com.github.pulsebeat02.minecraftmedialibrary.http;
+
+import com.google.common.base.Preconditions;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A token bucket which limits the rate at which bytes are sent. Tokens are refilled continuously at
+ * the given rate, and the bucket holds at most a quarter of a second worth of tokens so that idle
+ * connections cannot burst far above the limit once they start sending again.
+ */
+public final class TokenBucket {
+
+  private static final long MIN_CAPACITY = 16 * 1024;
+
+  private final long rate;
+  private final long capacity;
+  private double tokens;
+  private long last;
+
+  /**
+   * Instantiates a new TokenBucket.
+   *
+   * @param rate the rate in bytes per second
+   */
+  public TokenBucket(final long rate) {
+    Preconditions.checkArgument(rate > 0, "Rate must be greater than 0!");
+    this.rate = rate;
+    capacity = Math.max(rate / 4, MIN_CAPACITY);
+    tokens = capacity;
+    last = System.nanoTime();
+  }
+
+  /** Adds the tokens accumulated since the last refill. */
+  private void refill() {
+    final long now = System.nanoTime();
+    tokens = Math.min(capacity, tokens + (now - last) * rate / 1e9);
+    last = now;
+  }
+
+  /**
+   * Takes up to the requested number of tokens without waiting.
+   *
+   * @param requested the number of tokens
+   * @return the number of tokens taken, which may be 0
+   */
+  public synchronized long tryAcquire(final long requested) {
+    refill();
+    final long granted = Math.min(requested, (long) tokens);
+    tokens -= granted;
+    return granted;
+  }
+
+  /**
+   * Takes up to the requested number of tokens, waiting until the requested number or a full
+   * bucket is available.
+   *
+   * @param requested the number of tokens
+   * @return the number of tokens taken, at least 1 if any were requested
+   * @throws InterruptedException if the thread was interrupted while waiting
+   */
+  public long acquire(final long requested) throws InterruptedException {
+    if (requested <= 0) {
+      return 0L;
+    }
+    while (true) {
+      final long delay = getDelay(requested);
+      if (delay > 0) {
+        TimeUnit.NANOSECONDS.sleep(delay);
+        continue;
+      }
+      final long granted = tryAcquire(requested);
+      if (granted > 0) {
+        return granted;
+      }
+    }
+  }
+
+  /**
+   * Returns tokens which were taken but not used.
+   *
+   * @param amount the number of tokens
+   */
+  public synchronized void release(final long amount) {
+    tokens = Math.min(capacity, tokens + amount);
+  }
+
+  /**
+   * Gets the time until the requested number of tokens, or the capacity if it is smaller, is
+   * available.
+   *
+   * @param requested the number of tokens
+   * @return the delay in nanoseconds
+   */
+  public synchronized long getDelay(final long requested) {
+    refill();
+    final double missing = Math.min(requested, capacity) - tokens;
+    return missing <= 0 ? 0L : (long) Math.ceil(missing * 1e9 / rate);
+  }
+
+  /**
+   * Gets the rate.
+   *
+   * @return the rate in bytes per second
+   */
+  public long getRate() {
+    return rate;
+  }
+}
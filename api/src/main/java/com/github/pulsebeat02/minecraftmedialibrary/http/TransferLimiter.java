@@ -0,0 +1,407 @@
+/*............................................................................................
+. Copyright © 2021 Brandon Li                                                               .
+.                                                                                           .
+. Permission is hereby granted, free of charge, to any person obtaining a copy of this      .
+. software and associated documentation files (the “Software”), to deal in the Software     .
+. without restriction, including without limitation the rights to use, copy, modify, merge, .
+. publish, distribute, sublicense, and/or sell copies of the Software, and to permit        .
+. persons to whom the Software is furnished to do so, subject to the following conditions:  .
+.                                                                                           .
+. The above copyright notice and this permission notice shall be included in all copies     .
+. or substantial portions of the Software.                                                  .
+.                                                                                           .
+. THE SOFTWARE IS PROVIDED “AS IS”, WITHOUT WARRANTY OF ANY KIND,                           .
+.  EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF                       .
+.   MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND                                   .
+.   NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS                     .
+.   BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN                      .
+.   ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN                       .
+.   CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE                        .
+.   SOFTWARE.                                                                               .
+............................................................................................*/
+
+package com.github.pulsebeat02.minecraftmedialibrary.http;
+
+import com.github.pulsebeat02.minecraftmedialibrary.metrics.PerformanceMetrics;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.net.InetAddress;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Shapes the traffic of an HTTP daemon so that a whole lobby downloading a resourcepack at once
+ * does not saturate the uplink of the server and starve the game connections. It limits the rate
+ * of every connection and of the daemon as a whole with {@link TokenBucket}s, caps the number of
+ * concurrent downloads (further clients wait in line until a download finishes) and the number of
+ * connections from a single address. Every limit is disabled when set to 0.
+ *
+ * <p>The number of active transfers, queued clients and the current throughput are published as
+ * the gauges {@link #ACTIVE}, {@link #QUEUED} and {@link #THROUGHPUT} of {@link PerformanceMetrics}
+ * while the daemon is running.
+ */
+public final class TransferLimiter {
+
+  /** The gauge of the number of files being sent. */
+  public static final String ACTIVE = "http.active";
+
+  /** The gauge of the number of clients waiting for a download slot. */
+  public static final String QUEUED = "http.queued";
+
+  /** The gauge of the bytes sent in the last second. */
+  public static final String THROUGHPUT = "http.throughput";
+
+  /** The counter of the bytes sent. */
+  public static final String SENT = "http.sent";
+
+  /** The counter of the connections refused because of the per address cap. */
+  public static final String REFUSED = "http.refused";
+
+  private final Map<InetAddress, AtomicInteger> connections;
+  private final AtomicInteger active;
+  private final AtomicInteger queued;
+  private final AtomicLong sent;
+  private volatile TokenBucket global;
+  private volatile long clientRate;
+  private volatile int maxDownloads;
+  private volatile int maxConnectionsPerAddress;
+  private long windowStart;
+  private long windowSent;
+  private long throughput;
+
+  /** Instantiates a new TransferLimiter without any limits. */
+  public TransferLimiter() {
+    connections = new ConcurrentHashMap<>();
+    active = new AtomicInteger();
+    queued = new AtomicInteger();
+    sent = new AtomicLong();
+    windowStart = System.currentTimeMillis();
+  }
+
+  /** Publishes the gauges of the limiter. */
+  public void registerGauges() {
+    PerformanceMetrics.registerGauge(ACTIVE, active::get);
+    PerformanceMetrics.registerGauge(QUEUED, queued::get);
+    PerformanceMetrics.registerGauge(THROUGHPUT, this::getThroughput);
+  }
+
+  /** Removes the gauges of the limiter. */
+  public void unregisterGauges() {
+    PerformanceMetrics.unregisterGauge(ACTIVE);
+    PerformanceMetrics.unregisterGauge(QUEUED);
+    PerformanceMetrics.unregisterGauge(THROUGHPUT);
+  }
+
+  /**
+   * Registers a connection from an address.
+   *
+   * @param address the address
+   * @return whether the connection is allowed, if not it must be closed without calling {@link
+   *     #closeConnection(InetAddress)}
+   */
+  public boolean openConnection(@NotNull final InetAddress address) {
+    final AtomicInteger count = connections.computeIfAbsent(address, key -> new AtomicInteger());
+    final int cap = maxConnectionsPerAddress;
+    if (count.incrementAndGet() > cap && cap > 0) {
+      closeConnection(address);
+      PerformanceMetrics.increment(REFUSED);
+      return false;
+    }
+    return true;
+  }
+
+  /**
+   * Unregisters a connection from an address.
+   *
+   * @param address the address
+   */
+  public void closeConnection(@NotNull final InetAddress address) {
+    connections.computeIfPresent(
+        address, (key, count) -> count.decrementAndGet() <= 0 ? null : count);
+  }
+
+  /**
+   * Starts a download if a slot is free.
+   *
+   * @return whether the download may start, if not the client has to wait in line
+   */
+  public boolean tryStartDownload() {
+    while (true) {
+      final int current = active.get();
+      final int max = maxDownloads;
+      if (max > 0 && current >= max) {
+        return false;
+      }
+      if (active.compareAndSet(current, current + 1)) {
+        return true;
+      }
+    }
+  }
+
+  /**
+   * Starts a download, waiting in line until a slot is free.
+   *
+   * @throws InterruptedException if the thread was interrupted while waiting
+   */
+  public void startDownload() throws InterruptedException {
+    if (tryStartDownload()) {
+      return;
+    }
+    queued.incrementAndGet();
+    try {
+      synchronized (active) {
+        while (!tryStartDownload()) {
+          active.wait(1000L);
+        }
+      }
+    } finally {
+      queued.decrementAndGet();
+    }
+  }
+
+  /** Finishes a download and frees its slot. */
+  public void finishDownload() {
+    active.decrementAndGet();
+    synchronized (active) {
+      active.notify();
+    }
+  }
+
+  /**
+   * Marks a client as waiting in line or as no longer waiting, for daemons which keep their own
+   * queue.
+   *
+   * @param waiting whether the client is waiting
+   */
+  public void setQueued(final boolean waiting) {
+    if (waiting) {
+      queued.incrementAndGet();
+    } else {
+      queued.decrementAndGet();
+    }
+  }
+
+  /**
+   * Creates the bucket of a new connection.
+   *
+   * @return the bucket, or null if connections are not limited
+   */
+  @Nullable
+  public TokenBucket createClientBucket() {
+    final long rate = clientRate;
+    return rate > 0 ? new TokenBucket(rate) : null;
+  }
+
+  /**
+   * Takes the tokens for sending up to the requested number of bytes without waiting. Nothing is
+   * granted until the requested number of bytes, or the capacity of the buckets, is available, so
+   * that files are not sent in tiny chunks.
+   *
+   * @param client the bucket of the connection
+   * @param requested the number of bytes
+   * @return the number of bytes which may be sent, which may be 0
+   */
+  public long tryAcquire(@Nullable final TokenBucket client, final long requested) {
+    final TokenBucket global = this.global;
+    if (client != null && client.getDelay(requested) > 0) {
+      return 0L;
+    }
+    if (global != null && global.getDelay(requested) > 0) {
+      return 0L;
+    }
+    long granted = client == null ? requested : client.tryAcquire(requested);
+    if (global != null) {
+      final long shared = global.tryAcquire(granted);
+      if (client != null && shared < granted) {
+        client.release(granted - shared);
+      }
+      granted = shared;
+    }
+    return granted;
+  }
+
+  /**
+   * Takes the tokens for sending up to the requested number of bytes, waiting until both buckets
+   * allow it.
+   *
+   * @param client the bucket of the connection
+   * @param requested the number of bytes
+   * @return the number of bytes which may be sent
+   * @throws InterruptedException if the thread was interrupted while waiting
+   */
+  public long acquire(@Nullable final TokenBucket client, final long requested)
+      throws InterruptedException {
+    long granted = client == null ? requested : client.acquire(requested);
+    final TokenBucket global = this.global;
+    if (global != null) {
+      final long shared = global.acquire(granted);
+      if (client != null && shared < granted) {
+        client.release(granted - shared);
+      }
+      granted = shared;
+    }
+    return granted;
+  }
+
+  /**
+   * Returns tokens which were taken but not used, for example because the socket did not accept
+   * every byte.
+   *
+   * @param client the bucket of the connection
+   * @param amount the number of bytes
+   */
+  public void release(@Nullable final TokenBucket client, final long amount) {
+    if (client != null) {
+      client.release(amount);
+    }
+    final TokenBucket global = this.global;
+    if (global != null) {
+      global.release(amount);
+    }
+  }
+
+  /**
+   * Gets the time until sending may continue after {@link #tryAcquire(TokenBucket, long)} granted
+   * nothing.
+   *
+   * @param client the bucket of the connection
+   * @param requested the number of bytes
+   * @return the delay in nanoseconds
+   */
+  public long getDelay(@Nullable final TokenBucket client, final long requested) {
+    final TokenBucket global = this.global;
+    return Math.max(
+        client == null ? 0L : client.getDelay(requested),
+        global == null ? 0L : global.getDelay(requested));
+  }
+
+  /**
+   * Records bytes which were sent.
+   *
+   * @param bytes the number of bytes
+   */
+  public void recordSent(final long bytes) {
+    sent.addAndGet(bytes);
+    PerformanceMetrics.add(SENT, bytes);
+  }
+
+  /**
+   * Gets the number of bytes sent per second, measured over the last full second.
+   *
+   * @return the throughput in bytes per second
+   */
+  public synchronized long getThroughput() {
+    final long now = System.currentTimeMillis();
+    final long elapsed = now - windowStart;
+    if (elapsed >= 1000L) {
+      final long total = sent.get();
+      throughput = (total - windowSent) * 1000L / elapsed;
+      windowSent = total;
+      windowStart = now;
+    }
+    return throughput;
+  }
+
+  /**
+   * Gets the number of files being sent.
+   *
+   * @return the number of active transfers
+   */
+  public int getActiveTransfers() {
+    return active.get();
+  }
+
+  /**
+   * Gets the number of clients waiting for a download slot.
+   *
+   * @return the number of queued clients
+   */
+  public int getQueuedClients() {
+    return queued.get();
+  }
+
+  /**
+   * Gets the total number of bytes sent.
+   *
+   * @return the number of bytes
+   */
+  public long getSent() {
+    return sent.get();
+  }
+
+  /**
+   * Gets the rate of the daemon as a whole.
+   *
+   * @return the rate in bytes per second, or 0 if it is not limited
+   */
+  public long getGlobalRate() {
+    final TokenBucket global = this.global;
+    return global == null ? 0L : global.getRate();
+  }
+
+  /**
+   * Sets the rate of the daemon as a whole.
+   *
+   * @param rate the rate in bytes per second, or 0 to disable the limit
+   */
+  public void setGlobalRate(final long rate) {
+    global = rate > 0 ? new TokenBucket(rate) : null;
+  }
+
+  /**
+   * Gets the rate of every connection.
+   *
+   * @return the rate in bytes per second, or 0 if it is not limited
+   */
+  public long getClientRate() {
+    return clientRate;
+  }
+
+  /**
+   * Sets the rate of every connection. It applies to connections opened afterwards.
+   *
+   * @param rate the rate in bytes per second, or 0 to disable the limit
+   */
+  public void setClientRate(final long rate) {
+    clientRate = Math.max(0L, rate);
+  }
+
+  /**
+   * Gets the maximum number of concurrent downloads.
+   *
+   * @return the maximum, or 0 if it is not limited
+   */
+  public int getMaxDownloads() {
+    return maxDownloads;
+  }
+
+  /**
+   * Sets the maximum number of concurrent downloads.
+   *
+   * @param maxDownloads the maximum, or 0 to disable the limit
+   */
+  public void setMaxDownloads(final int maxDownloads) {
+    this.maxDownloads = Math.max(0, maxDownloads);
+  }
+
+  /**
+   * Gets the maximum number of connections from a single address.
+   *
+   * @return the maximum, or 0 if it is not limited
+   */
+  public int getMaxConnectionsPerAddress() {
+    return maxConnectionsPerAddress;
+  }
+
+  /**
+   * Sets the maximum number of connections from a single address.
+   *
+   * @param maxConnectionsPerAddress the maximum, or 0 to disable the limit
+   */
+  public void setMaxConnectionsPerAddress(final int maxConnectionsPerAddress) {
+    this.maxConnectionsPerAddress = Math.max(0, maxConnectionsPerAddress);
+  }
+}
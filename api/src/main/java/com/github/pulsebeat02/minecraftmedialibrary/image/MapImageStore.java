@@ -0,0 +1,364 @@
+/*............................................................................................
+. Copyright © 2021 Brandon Li                                                               .
+.                                                                                           .
+. Permission is hereby granted, free of charge, to any person obtaining a copy of this      .
+. software and associated documentation files (the “Software”), to deal in the Software     .
+. without restriction, including without limitation the rights to use, copy, modify, merge, .
+. publish, distribute, sublicense, and/or sell copies of the Software, and to permit        .
+. persons to whom the Software is furnished to do so, subject to the following conditions:  .
+.                                                                                           .
+. The above copyright notice and this permission notice shall be included in all copies     .
+. or substantial portions of the Software.                                                  .
+.                                                                                           .
+. THE SOFTWARE IS PROVIDED “AS IS”, WITHOUT WARRANTY OF ANY KIND,                           .
+.  EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF                       .
+.   MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND                                   .
+.   NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS                     .
+.   BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN                      .
+.   ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN                       .
+.   CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE                        .
+.   SOFTWARE.                                                                               .
+............................................................................................*/
+
+package com.github.pulsebeat02.minecraftmedialibrary.image;
+
+import com.github.pulsebeat02.minecraftmedialibrary.MediaLibrary;
+import com.github.pulsebeat02.minecraftmedialibrary.logger.Logger;
+import com.google.common.hash.HashCode;
+import org.bukkit.entity.Player;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Stores the dithered map colors of drawn images on disk, so images never have to be decoded or
+ * dithered again once they were drawn. Every map id has its own file holding the hash of the
+ * source image, the itemframe size and the deflated map colors.
+ *
+ * <p>The store is loaded lazily on first use, and stored images are sent from memory to players
+ * when they join.
+ */
+public final class MapImageStore {
+
+  /** The magic number at the start of every stored image. */
+  public static final int MAGIC = 0x4D4D4C49;
+
+  /** The version of the format. */
+  public static final int VERSION = 1;
+
+  /** The delay before stored images are sent to a joining player in milliseconds. */
+  public static final long JOIN_DELAY = 1000L;
+
+  /** The delay between sending two stored images in milliseconds. */
+  public static final long SEND_INTERVAL = 50L;
+
+  private static final String EXTENSION = ".map";
+
+  private final MediaLibrary library;
+  private final Path folder;
+  private final Map<Integer, StoredImage> images;
+  private final ScheduledExecutorService scheduler;
+  private volatile boolean loaded;
+
+  /**
+   * Instantiates a new MapImageStore.
+   *
+   * @param library the library
+   * @param folder the folder of the stored images
+   */
+  public MapImageStore(@NotNull final MediaLibrary library, @NotNull final Path folder) {
+    this.library = library;
+    this.folder = folder;
+    images = new ConcurrentHashMap<>();
+    scheduler =
+        Executors.newSingleThreadScheduledExecutor(
+            r -> {
+              final Thread thread = new Thread(r, "MML Image Store");
+              thread.setDaemon(true);
+              return thread;
+            });
+  }
+
+  /** Loads every stored image if it wasn't loaded yet. */
+  private void load() {
+    if (loaded) {
+      return;
+    }
+    synchronized (this) {
+      if (loaded) {
+        return;
+      }
+      if (Files.isDirectory(folder)) {
+        try (final DirectoryStream<Path> stream =
+            Files.newDirectoryStream(folder, "*" + EXTENSION)) {
+          for (final Path file : stream) {
+            try {
+              final StoredImage image = read(file);
+              images.put(image.map, image);
+            } catch (final IOException e) {
+              Logger.warn(String.format("Skipped Corrupted Map Image %s", file));
+            }
+          }
+        } catch (final IOException e) {
+          e.printStackTrace();
+        }
+      }
+      loaded = true;
+      Logger.info(String.format("Loaded %d Stored Map Images", images.size()));
+    }
+  }
+
+  /**
+   * Gets the stored map colors of a map if they were dithered from the same source and size.
+   *
+   * @param map the map id
+   * @param hash the hash of the source image
+   * @param width the itemframe width
+   * @param height the itemframe height
+   * @return the map colors, or null if the image has to be dithered again
+   */
+  @Nullable
+  public ByteBuffer get(
+      final int map, @NotNull final HashCode hash, final int width, final int height) {
+    load();
+    final StoredImage image = images.get(map);
+    if (image == null
+        || image.width != width
+        || image.height != height
+        || !image.hash.equals(hash)) {
+      return null;
+    }
+    return ByteBuffer.wrap(image.data);
+  }
+
+  /**
+   * Gets the width in pixels of the stored map colors of a map.
+   *
+   * @param map the map id
+   * @return the width in pixels, or -1 if nothing is stored
+   */
+  public int getVideoWidth(final int map) {
+    load();
+    final StoredImage image = images.get(map);
+    return image == null ? -1 : image.videoWidth;
+  }
+
+  /**
+   * Stores the map colors of a map. The file is written in the background.
+   *
+   * @param map the map id
+   * @param hash the hash of the source image
+   * @param width the itemframe width
+   * @param height the itemframe height
+   * @param data the map colors
+   * @param videoWidth the width of the map colors in pixels
+   */
+  public void put(
+      final int map,
+      @NotNull final HashCode hash,
+      final int width,
+      final int height,
+      @NotNull final ByteBuffer data,
+      final int videoWidth) {
+    load();
+    final byte[] bytes = new byte[data.capacity()];
+    for (int i = 0; i < bytes.length; i++) {
+      bytes[i] = data.get(i);
+    }
+    final StoredImage image = new StoredImage(map, hash, width, height, videoWidth, bytes);
+    images.put(map, image);
+    scheduler.execute(
+        () -> {
+          try {
+            write(image);
+          } catch (final IOException e) {
+            Logger.error(String.format("Could not store the image of Map ID %d", map));
+            e.printStackTrace();
+          }
+        });
+  }
+
+  /**
+   * Removes the stored image of a map.
+   *
+   * @param map the map id
+   */
+  public void remove(final int map) {
+    load();
+    if (images.remove(map) != null) {
+      scheduler.execute(
+          () -> {
+            try {
+              Files.deleteIfExists(getFile(map));
+            } catch (final IOException e) {
+              e.printStackTrace();
+            }
+          });
+    }
+  }
+
+  /**
+   * Sends every stored image to a player. The images are sent one after another after {@link
+   * #JOIN_DELAY}, so the client has loaded the world and the packets are not rate limited.
+   *
+   * @param player the player
+   */
+  public void replay(@NotNull final Player player) {
+    final UUID[] viewers = {player.getUniqueId()};
+    scheduler.execute(
+        () -> {
+          load();
+          final List<StoredImage> stored = new ArrayList<>(images.values());
+          long delay = JOIN_DELAY;
+          for (final StoredImage image : stored) {
+            scheduler.schedule(() -> send(viewers, image), delay, TimeUnit.MILLISECONDS);
+            delay += SEND_INTERVAL;
+          }
+        });
+  }
+
+  /**
+   * Sends a stored image to players if it is still stored.
+   *
+   * @param viewers the players
+   * @param image the stored image
+   */
+  private void send(@NotNull final UUID[] viewers, @NotNull final StoredImage image) {
+    if (images.get(image.map) != image) {
+      return;
+    }
+    library
+        .getHandler()
+        .displayMaps(
+            viewers,
+            image.map,
+            image.width,
+            image.height,
+            ByteBuffer.wrap(image.data),
+            image.videoWidth);
+  }
+
+  /**
+   * Gets the number of stored images.
+   *
+   * @return the number of images
+   */
+  public int size() {
+    load();
+    return images.size();
+  }
+
+  /**
+   * Gets the folder of the stored images.
+   *
+   * @return the folder
+   */
+  public Path getFolder() {
+    return folder;
+  }
+
+  private Path getFile(final int map) {
+    return folder.resolve(map + EXTENSION);
+  }
+
+  /**
+   * Writes a stored image to a temporary file and moves it in place.
+   *
+   * @param image the image
+   * @throws IOException if the image couldn't be written
+   */
+  private void write(@NotNull final StoredImage image) throws IOException {
+    Files.createDirectories(folder);
+    final Path temp = folder.resolve(image.map + EXTENSION + ".tmp");
+    try (final DataOutputStream out =
+        new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+      out.writeInt(MAGIC);
+      out.writeByte(VERSION);
+      out.writeInt(image.map);
+      final byte[] hash = image.hash.asBytes();
+      out.writeByte(hash.length);
+      out.write(hash);
+      out.writeShort(image.width);
+      out.writeShort(image.height);
+      out.writeInt(image.videoWidth);
+      out.writeInt(image.data.length);
+      out.flush();
+      final DeflaterOutputStream deflater = new DeflaterOutputStream(out);
+      deflater.write(image.data);
+      deflater.finish();
+    }
+    Files.move(temp, getFile(image.map), StandardCopyOption.REPLACE_EXISTING);
+  }
+
+  /**
+   * Reads a stored image.
+   *
+   * @param file the file
+   * @return the image
+   * @throws IOException if the file is not a valid stored image
+   */
+  @NotNull
+  private StoredImage read(@NotNull final Path file) throws IOException {
+    try (final DataInputStream in =
+        new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+      if (in.readInt() != MAGIC || in.readByte() != VERSION) {
+        throw new IOException(String.format("Invalid Map Image %s", file));
+      }
+      final int map = in.readInt();
+      final byte[] hash = new byte[in.readUnsignedByte()];
+      in.readFully(hash);
+      final int width = in.readUnsignedShort();
+      final int height = in.readUnsignedShort();
+      final int videoWidth = in.readInt();
+      final byte[] data = new byte[in.readInt()];
+      new DataInputStream(new InflaterInputStream(in)).readFully(data);
+      return new StoredImage(map, HashCode.fromBytes(hash), width, height, videoWidth, data);
+    }
+  }
+
+  /** The dithered map colors of an image. */
+  private static final class StoredImage {
+
+    private final int map;
+    private final HashCode hash;
+    private final int width;
+    private final int height;
+    private final int videoWidth;
+    private final byte[] data;
+
+    private StoredImage(
+        final int map,
+        @NotNull final HashCode hash,
+        final int width,
+        final int height,
+        final int videoWidth,
+        final byte[] data) {
+      this.map = map;
+      this.hash = hash;
+      this.width = width;
+      this.height = height;
+      this.videoWidth = videoWidth;
+      this.data = data;
+    }
+  }
+}
@@ -25,19 +25,24 @@ package com.github.pulsebeat02.minecraftmedialibrary.image.basic;
 import com.github.pulsebeat02.minecraftmedialibrary.MediaLibrary;
 import com.github.pulsebeat02.minecraftmedialibrary.frame.dither.FloydImageDither;
 import com.github.pulsebeat02.minecraftmedialibrary.image.MapImageHolder;
+import com.github.pulsebeat02.minecraftmedialibrary.image.MapImageStore;
 import com.github.pulsebeat02.minecraftmedialibrary.logger.Logger;
 import com.github.pulsebeat02.minecraftmedialibrary.utility.FileUtilities;
 import com.github.pulsebeat02.minecraftmedialibrary.utility.VideoUtilities;
 import com.google.common.base.Preconditions;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hashing;
+import com.google.common.io.Files;
 import org.bukkit.configuration.serialization.ConfigurationSerializable;
 import org.bukkit.util.NumberConversions;
 import org.jetbrains.annotations.NotNull;
 
+import java.awt.Dimension;
 import java.io.File;
+import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.util.Map;
-import java.util.Objects;
 
 /**
  * A class used to draw and display an image onto maps. It uses the draw method provided in the API
@@ -94,7 +99,7 @@ public final class MinecraftStaticImage implements MapImageHolder, Configuration
       final int height) {
     this.library = library;
     this.map = map;
-    image = FileUtilities.downloadImageFile(url, library.getImageFolder());
+    image = FileUtilities.downloadImageFile(url, library.getCache(), library.getImageFolder());
     this.width = width;
     this.height = height;
     Logger.info(
@@ -130,23 +135,53 @@ public final class MinecraftStaticImage implements MapImageHolder, Configuration
   }
 
   /**
-   * Resets a specific map id.
+   * Resets a specific map id and removes its stored image.
    *
    * @param library the library
    * @param id the id
    */
   public static void resetMap(@NotNull final MediaLibrary library, final int id) {
+    library.getImageStore().remove(id);
     library.getHandler().unregisterMap(id);
   }
 
-  /** Draws the specific image on the map id. */
+  /**
+   * Draws the specific image on the map id. The dithered map colors are kept in the {@link
+   * MapImageStore}, so the image is only decoded and dithered again if the source changed.
+   */
   @Override
   public void drawImage() {
     onDrawImage();
-    final ByteBuffer buffer =
-        new FloydImageDither()
-            .ditherIntoMinecraft(Objects.requireNonNull(VideoUtilities.getBuffer(image)), width);
-    library.getHandler().displayMaps(null, map, width, height, buffer, width);
+    final MapImageStore store = library.getImageStore();
+    final HashCode hash;
+    try {
+      hash = Files.asByteSource(image).hash(Hashing.sha256());
+    } catch (final IOException e) {
+      Logger.error(String.format("Could not read the Image! (%s)", image.getAbsolutePath()));
+      e.printStackTrace();
+      return;
+    }
+    ByteBuffer buffer = store.get(map, hash, width, height);
+    final int videoWidth;
+    if (buffer != null) {
+      videoWidth = store.getVideoWidth(map);
+    } else {
+      final int[] rgb;
+      try {
+        final Dimension dims =
+            VideoUtilities.getScaledDimension(
+                VideoUtilities.getDimensions(image), new Dimension(width << 7, height << 7));
+        videoWidth = dims.width;
+        rgb = VideoUtilities.getBuffer(image, dims.width, dims.height);
+      } catch (final IOException e) {
+        Logger.error(String.format("Could not read the Image! (%s)", image.getAbsolutePath()));
+        e.printStackTrace();
+        return;
+      }
+      buffer = new FloydImageDither().ditherIntoMinecraft(rgb, videoWidth);
+      store.put(map, hash, width, height, buffer, videoWidth);
+    }
+    library.getHandler().displayMaps(null, map, width, height, buffer, videoWidth);
     Logger.info(
         String.format("Drew Image at Map ID %d (Source: %s)", map, image.getAbsolutePath()));
   }
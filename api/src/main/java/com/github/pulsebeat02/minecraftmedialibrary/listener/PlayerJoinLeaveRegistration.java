@@ -49,7 +49,7 @@ public final class PlayerJoinLeaveRegistration implements Listener {
   }
 
   /**
-   * Registers the player on join.
+   * Registers the player on join and sends the stored map images.
    *
    * @param event PlayerJoinEvent event
    */
@@ -57,7 +57,8 @@ public final class PlayerJoinLeaveRegistration implements Listener {
   protected void onPlayerJoin(final PlayerJoinEvent event) {
     final Player p = event.getPlayer();
     library.getHandler().registerPlayer(p);
-    Logger.info(String.format("Registered Player %s", p.getUniqueId()));
+    library.getImageStore().replay(p);
+    Logger.info(() -> String.format("Registered Player %s", p.getUniqueId()));
   }
 
   /**
@@ -69,6 +70,6 @@ public final class PlayerJoinLeaveRegistration implements Listener {
   protected void onPlayerLeave(final PlayerQuitEvent event) {
     final Player p = event.getPlayer();
     library.getHandler().unregisterPlayer(p);
-    Logger.info(String.format("Unregistered Player %s", p.getUniqueId()));
+    Logger.info(() -> String.format("Unregistered Player %s", p.getUniqueId()));
   }
 }
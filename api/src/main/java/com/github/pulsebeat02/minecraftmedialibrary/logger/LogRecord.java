@@ -0,0 +1,69 @@
+/*............................................................................................
+. Copyright © 2021 Brandon Li                                                               .
+.                                                                                           .
+. Permission is hereby granted, free of charge, to any person obtaining a copy of this      .
+. software and associated documentation files (the “Software”), to deal in the Software     .
+. without restriction, including without limitation the rights to use, copy, modify, merge, .
+. publish, distribute, sublicense, and/or sell copies of the Software, and to permit        .
+. persons to whom the Software is furnished to do so, subject to the following conditions:  .
+.                                                                                           .
+. The above copyright notice and this permission notice shall be included in all copies     .
+. or substantial portions of the Software.                                                  .
+.                                                                                           .
+. THE SOFTWARE IS PROVIDED “AS IS”, WITHOUT WARRANTY OF ANY KIND,                           .
+.  EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF                       .
+.   MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND                                   .
+.   NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS                     .
+.   BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN                      .
+.   ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN                       .
+.   CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE                        .
+.   SOFTWARE.                                                                               .
+............................................................................................*/
+
+package com.github.pulsebeat02.minecraftmedialibrary.logger;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * A message waiting to be written by the {@link LogWriter}. The message is already text, only the
+ * line holding it is formatted on the thread of the writer.
+ */
+final class LogRecord {
+
+  private final Level level;
+  private final long time;
+  private final String message;
+
+  /**
+   * Instantiates a new LogRecord.
+   *
+   * @param level the level
+   * @param time the time the message was logged at
+   * @param message the message
+   */
+  LogRecord(@NotNull final Level level, final long time, @NotNull final String message) {
+    this.level = level;
+    this.time = time;
+    this.message = message;
+  }
+
+  /**
+   * Formats the record into a line of the log file.
+   *
+   * @return the line
+   */
+  @NotNull
+  String format() {
+    return String.format("%d: [%s] %s\n", time, level, message);
+  }
+
+  /**
+   * Gets the level.
+   *
+   * @return the level
+   */
+  @NotNull
+  Level getLevel() {
+    return level;
+  }
+}
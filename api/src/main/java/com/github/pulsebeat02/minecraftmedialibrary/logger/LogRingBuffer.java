@@ -0,0 +1,116 @@
+/*............................................................................................
+. Copyright © 2021 Brandon Li                                                               .
+.                                                                                           .
+. Permission is hereby granted, free of charge, to any person obtaining a copy of this      .
+. software and associated documentation files (the “Software”), to deal in the Software     .
+. without restriction, including without limitation the rights to use, copy, modify, merge, .
+. publish, distribute, sublicense, and/or sell copies of the Software, and to permit        .
+. persons to whom the Software is furnished to do so, subject to the following conditions:  .
+.                                                                                           .
+. The above copyright notice and this permission notice shall be included in all copies     .
+. or substantial portions of the Software.                                                  .
+.                                                                                           .
+. THE SOFTWARE IS PROVIDED “AS IS”, WITHOUT WARRANTY OF ANY KIND,                           .
+.  EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF                       .
+.   MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND                                   .
+.   NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS                     .
+.   BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN                      .
+.   ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN                       .
+.   CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE                        .
+.   SOFTWARE.                                                                               .
+............................................................................................*/
+
+package com.github.pulsebeat02.minecraftmedialibrary.logger;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A bounded, lock-free ring buffer of log records with many producers and a single consumer.
+ * Producers claim a slot by advancing the tail and never wait: once the buffer is full, the record
+ * is dropped and counted instead. Only the thread of the {@link LogWriter} may poll it.
+ */
+final class LogRingBuffer {
+
+  private final AtomicReferenceArray<LogRecord> slots;
+  private final AtomicLong tail;
+  private final AtomicLong dropped;
+  private final int mask;
+  private volatile long head;
+
+  /**
+   * Instantiates a new LogRingBuffer.
+   *
+   * @param capacity the capacity, which is rounded up to a power of two
+   */
+  LogRingBuffer(final int capacity) {
+    final int size = Integer.highestOneBit(Math.max(capacity, 2) - 1) << 1;
+    slots = new AtomicReferenceArray<>(size);
+    tail = new AtomicLong();
+    dropped = new AtomicLong();
+    mask = size - 1;
+  }
+
+  /**
+   * Offers a record to the buffer without blocking.
+   *
+   * @param record the record
+   * @return whether the record was added, or false if the buffer was full
+   */
+  boolean offer(@NotNull final LogRecord record) {
+    while (true) {
+      final long index = tail.get();
+      if (index - head > mask) {
+        dropped.incrementAndGet();
+        return false;
+      }
+      if (tail.compareAndSet(index, index + 1)) {
+        slots.lazySet((int) (index & mask), record);
+        return true;
+      }
+    }
+  }
+
+  /**
+   * Polls the oldest record of the buffer. If its producer has claimed the slot but not filled it
+   * yet, the consumer yields until it has, which only takes the producer a few instructions.
+   *
+   * @return the record, or null if there is none
+   */
+  @Nullable
+  LogRecord poll() {
+    final long index = head;
+    if (index == tail.get()) {
+      return null;
+    }
+    final int slot = (int) (index & mask);
+    LogRecord record;
+    while ((record = slots.get(slot)) == null) {
+      Thread.yield();
+    }
+    slots.lazySet(slot, null);
+    head = index + 1;
+    return record;
+  }
+
+  /**
+   * Checks whether the buffer holds no records.
+   *
+   * @return whether the buffer is empty
+   */
+  boolean isEmpty() {
+    return head == tail.get();
+  }
+
+  /**
+   * Resets the number of dropped records.
+   *
+   * @return the number of records dropped since the last call
+   */
+  long drainDropped() {
+    return dropped.getAndSet(0);
+  }
+}
@@ -0,0 +1,242 @@
+/*............................................................................................
+. Copyright © 2021 Brandon Li                                                               .
+.                                                                                           .
+. Permission is hereby granted, free of charge, to any person obtaining a copy of this      .
+. software and associated documentation files (the “Software”), to deal in the Software     .
+. without restriction, including without limitation the rights to use, copy, modify, merge, .
+. publish, distribute, sublicense, and/or sell copies of the Software, and to permit        .
+. persons to whom the Software is furnished to do so, subject to the following conditions:  .
+.                                                                                           .
+. The above copyright notice and this permission notice shall be included in all copies     .
+. or substantial portions of the Software.                                                  .
+.                                                                                           .
+. THE SOFTWARE IS PROVIDED “AS IS”, WITHOUT WARRANTY OF ANY KIND,                           .
+.  EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF                       .
+.   MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND                                   .
+.   NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS                     .
+.   BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN                      .
+.   ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN                       .
+.   CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE                        .
+.   SOFTWARE.                                                                               .
+............................................................................................*/
+
+package com.github.pulsebeat02.minecraftmedialibrary.logger;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystemException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * The background thread which drains the {@link LogRingBuffer} into the log file. Records are
+ * formatted and written in batches with a single flush each, so the threads logging a message
+ * never touch the disk. Once the file grows past its size limit, it is rotated into numbered
+ * backups ("mml.1.log" being the most recent one) and a new file is started. If the file can't be
+ * moved because another process still has it open, it is copied and truncated instead, and if that
+ * fails too, the next rotation is put off until the file grew by another limit.
+ */
+final class LogWriter extends Thread {
+
+  private static final int BATCH_SIZE = 512;
+  private static final long INTERVAL = TimeUnit.MILLISECONDS.toNanos(100);
+
+  private final LogRingBuffer buffer;
+  private final File file;
+  private final long limit;
+  private final int backups;
+  private long threshold;
+  private volatile BufferedWriter writer;
+  private volatile boolean running;
+
+  /**
+   * Instantiates a new LogWriter. The log file is truncated, but opened for appending, as
+   * processes started by the library append their output to the same file.
+   *
+   * @param buffer the buffer to drain
+   * @param file the log file
+   * @param limit the size in bytes after which the file is rotated
+   * @param backups the number of rotated files to keep
+   * @throws IOException if the log file couldn't be opened
+   */
+  LogWriter(
+      @NotNull final LogRingBuffer buffer,
+      @NotNull final File file,
+      final long limit,
+      final int backups)
+      throws IOException {
+    super("MML Logger");
+    this.buffer = buffer;
+    this.file = file;
+    this.limit = limit;
+    this.backups = backups;
+    threshold = limit;
+    new FileOutputStream(file, false).close();
+    writer = open();
+    running = true;
+    setDaemon(true);
+  }
+
+  /** Writes the records in batches until the writer is closed and the buffer is drained. */
+  @Override
+  public void run() {
+    while (running || !buffer.isEmpty()) {
+      if (drain() == 0) {
+        LockSupport.parkNanos(this, INTERVAL);
+      }
+    }
+    try {
+      writer.close();
+    } catch (final IOException e) {
+      e.printStackTrace();
+    }
+  }
+
+  /**
+   * Writes the next batch of records, flushes it and rotates the file if needed.
+   *
+   * @return the number of records written
+   */
+  private int drain() {
+    int count = 0;
+    try {
+      final long dropped = buffer.drainDropped();
+      if (dropped > 0) {
+        final String message =
+            String.format("Dropped %d Log Messages as the Buffer was Full!", dropped);
+        writer.write(new LogRecord(Level.WARN, System.currentTimeMillis(), message).format());
+      }
+      LogRecord record;
+      while (count < BATCH_SIZE && (record = buffer.poll()) != null) {
+        writer.write(record.format());
+        count++;
+      }
+      if (count > 0 || dropped > 0) {
+        writer.flush();
+        if (file.length() >= threshold) {
+          rotate();
+        }
+      }
+    } catch (final IOException e) {
+      e.printStackTrace();
+    }
+    return count;
+  }
+
+  /**
+   * Rotates the log file and starts a new file. If the file couldn't be rotated, the next rotation
+   * is put off until the file grew by another limit, so a file which can't be rotated isn't tried
+   * again after every batch.
+   *
+   * @throws IOException if the new file couldn't be opened
+   */
+  private void rotate() throws IOException {
+    writer.close();
+    try {
+      shift();
+      threshold = limit;
+    } catch (final IOException e) {
+      threshold = file.length() + limit;
+      System.err.println(
+          String.format(
+              "Couldn't Rotate the Log File, Retrying at %d Bytes! (%s)", threshold, e));
+    } finally {
+      writer = open();
+    }
+  }
+
+  /**
+   * Shifts the log file and its backups by one, dropping the oldest backup. The log file is copied
+   * and truncated instead of moved if it can't be moved, such as on Windows while FFmpeg appends
+   * its output to it.
+   *
+   * @throws IOException if the files couldn't be moved
+   */
+  private void shift() throws IOException {
+    if (backups == 0) {
+      new FileOutputStream(file, false).close();
+      return;
+    }
+    Files.deleteIfExists(getBackup(backups).toPath());
+    for (int i = backups - 1; i > 0; i--) {
+      final File backup = getBackup(i);
+      if (backup.exists()) {
+        Files.move(
+            backup.toPath(), getBackup(i + 1).toPath(), StandardCopyOption.REPLACE_EXISTING);
+      }
+    }
+    try {
+      Files.move(file.toPath(), getBackup(1).toPath(), StandardCopyOption.REPLACE_EXISTING);
+    } catch (final FileSystemException e) {
+      Files.copy(file.toPath(), getBackup(1).toPath(), StandardCopyOption.REPLACE_EXISTING);
+      new FileOutputStream(file, false).close();
+    }
+  }
+
+  /**
+   * Opens the log file for appending.
+   *
+   * @return the writer
+   * @throws IOException if the file couldn't be opened
+   */
+  @NotNull
+  private BufferedWriter open() throws IOException {
+    return new BufferedWriter(
+        new OutputStreamWriter(new FileOutputStream(file, true), StandardCharsets.UTF_8));
+  }
+
+  /**
+   * Gets the file of a backup, such as "mml.1.log" for the first backup of "mml.log".
+   *
+   * @param index the index of the backup
+   * @return the file
+   */
+  @NotNull
+  private File getBackup(final int index) {
+    final String name = file.getName();
+    final int dot = name.lastIndexOf('.');
+    return new File(
+        file.getParentFile(),
+        dot == -1
+            ? String.format("%s.%d", name, index)
+            : String.format("%s.%d%s", name.substring(0, dot), index, name.substring(dot)));
+  }
+
+  /** Wakes the writer up, so that the buffered records are written right away. */
+  void wake() {
+    LockSupport.unpark(this);
+  }
+
+  /**
+   * Stops the writer once every buffered record is written and waits for it to finish.
+   *
+   * @param timeout the maximum time to wait in milliseconds
+   */
+  void close(final long timeout) {
+    running = false;
+    wake();
+    try {
+      join(timeout);
+    } catch (final InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /**
+   * Gets the writer of the current log file.
+   *
+   * @return the writer
+   */
+  @NotNull
+  BufferedWriter getWriter() {
+    return writer;
+  }
+}
@@ -27,23 +27,41 @@ import org.jetbrains.annotations.NotNull;
 
 import java.io.BufferedWriter;
 import java.io.File;
-import java.io.FileWriter;
 import java.io.IOException;
+import java.util.function.Supplier;
 
 /**
  * The custom logger implementation that is used throughout the library. The log file can be found
  * in the base server folder called "mml.log", and contains very useful information about the
  * execution of the library.
+ *
+ * <p>Messages are filtered by their {@link Level} before anything is formatted, and are then put
+ * into a lock-free ring buffer which a background thread writes to the file in batches. Logging a
+ * message therefore never waits on the disk, and the overloads taking a {@link Supplier} only build
+ * the message if it is going to be written. Once the file reaches {@link #MAX_FILE_SIZE}, it is
+ * rotated into "mml.1.log" up to "mml.3.log".
  */
 public final class Logger {
 
+  /** The size in bytes after which the log file is rotated. */
+  public static final long MAX_FILE_SIZE = 16L * 1024 * 1024;
+
+  /** The number of rotated log files which are kept. */
+  public static final int MAX_BACKUPS = 3;
+
+  private static final int CAPACITY = 8192;
+  private static final long CLOSE_TIMEOUT = 5000L;
+  private static final LogRingBuffer BUFFER = new LogRingBuffer(CAPACITY);
+
   /** Tracks whether log should be verbose */
   public static boolean VERBOSE;
 
-  protected static volatile BufferedWriter WRITER;
+  protected static volatile LogWriter WRITER;
   protected static File LOGGER;
+  private static volatile Level LEVEL = Level.INFO;
 
-  public static void initializeLogger(@NotNull final MediaLibrary library) {
+  public static synchronized void initializeLogger(@NotNull final MediaLibrary library) {
+    close();
     try {
       final File folder = new File(library.getPlugin().getDataFolder(), "mml");
       if (folder.mkdirs()) {
@@ -55,19 +73,59 @@ public final class Logger {
       } else {
         System.out.println("Log File Exists Already");
       }
-      WRITER = new BufferedWriter(new FileWriter(LOGGER, false));
+      WRITER = new LogWriter(BUFFER, LOGGER, MAX_FILE_SIZE, MAX_BACKUPS);
+      WRITER.start();
     } catch (final IOException exception) {
       exception.printStackTrace();
     }
   }
 
+  /**
+   * Writes every buffered message and stops the background writer. Messages logged afterwards are
+   * buffered until the logger is initialized again.
+   */
+  public static synchronized void close() {
+    final LogWriter writer = WRITER;
+    if (writer != null) {
+      writer.close(CLOSE_TIMEOUT);
+      WRITER = null;
+    }
+  }
+
+  /**
+   * Prints the text as a [DEBUG]
+   *
+   * @param debug the debug message
+   */
+  public static void debug(@NotNull final Object debug) {
+    log(Level.DEBUG, debug);
+  }
+
+  /**
+   * Prints the text as a [DEBUG], only building it if debug messages are written.
+   *
+   * @param debug the supplier of the debug message
+   */
+  public static void debug(@NotNull final Supplier<?> debug) {
+    log(Level.DEBUG, debug);
+  }
+
   /**
    * Prints the text as an [INFO]
    *
    * @param info the info
    */
   public static void info(@NotNull final Object info) {
-    directPrint(String.format("%d: [INFO] %s\n", System.currentTimeMillis(), info));
+    log(Level.INFO, info);
+  }
+
+  /**
+   * Prints the text as an [INFO], only building it if info messages are written.
+   *
+   * @param info the supplier of the info
+   */
+  public static void info(@NotNull final Supplier<?> info) {
+    log(Level.INFO, info);
   }
 
   /**
@@ -76,7 +134,16 @@ public final class Logger {
    * @param warning the warning
    */
   public static void warn(@NotNull final Object warning) {
-    directPrint(String.format("%d: [WARN] %s\n", System.currentTimeMillis(), warning));
+    log(Level.WARN, warning);
+  }
+
+  /**
+   * Prints the text as a [WARN], only building it if warnings are written.
+   *
+   * @param warning the supplier of the warning
+   */
+  public static void warn(@NotNull final Supplier<?> warning) {
+    log(Level.WARN, warning);
   }
 
   /**
@@ -85,23 +152,72 @@ public final class Logger {
    * @param error the error
    */
   public static void error(@NotNull final Object error) {
-    directPrint(String.format("%d: [ERROR] %s\n", System.currentTimeMillis(), error));
+    log(Level.ERROR, error);
   }
 
   /**
-   * Directly prints the following line.
+   * Prints the text as a [ERROR], only building it if errors are written.
    *
-   * @param line to print
+   * @param error the supplier of the error
    */
-  private static void directPrint(@NotNull final String line) {
-    if (VERBOSE) {
-      try {
-        WRITER.write(line);
-        WRITER.flush();
-      } catch (final IOException exception) {
-        exception.printStackTrace();
-      }
+  public static void error(@NotNull final Supplier<?> error) {
+    log(Level.ERROR, error);
+  }
+
+  /**
+   * Buffers the message to be written by the background writer. The message, including the result
+   * of a supplier, is turned into text on the calling thread once the level is known to be
+   * written, as the state it reads might change before the writer gets to it. Only the line itself
+   * is formatted by the writer. If the buffer is full, the message is dropped and counted rather
+   * than blocking the caller. Errors wake the writer up so they are written at once.
+   *
+   * @param level the level
+   * @param message the message, or a supplier of it
+   */
+  private static void log(@NotNull final Level level, @NotNull final Object message) {
+    if (!isEnabled(level)) {
+      return;
+    }
+    String text;
+    try {
+      text = String.valueOf(message instanceof Supplier ? ((Supplier<?>) message).get() : message);
+    } catch (final RuntimeException e) {
+      text = String.format("Couldn't Format Message (%s)", e);
     }
+    BUFFER.offer(new LogRecord(level, System.currentTimeMillis(), text));
+    final LogWriter writer = WRITER;
+    if (level == Level.ERROR && writer != null) {
+      writer.wake();
+    }
+  }
+
+  /**
+   * Checks whether messages of the specified level are written.
+   *
+   * @param level the level
+   * @return whether the messages are written
+   */
+  public static boolean isEnabled(@NotNull final Level level) {
+    return VERBOSE && LEVEL.allows(level);
+  }
+
+  /**
+   * Gets the lowest level of the messages which are written.
+   *
+   * @return the level
+   */
+  @NotNull
+  public static Level getLevel() {
+    return LEVEL;
+  }
+
+  /**
+   * Sets the lowest level of the messages which are written.
+   *
+   * @param level the level
+   */
+  public static void setLevel(@NotNull final Level level) {
+    LEVEL = level;
   }
 
   /**
@@ -123,12 +239,14 @@ public final class Logger {
   }
 
   /**
-   * Gets the BufferedWriter associated with the Logger.
+   * Gets the BufferedWriter of the current log file. It is owned by the background writer, which
+   * replaces it whenever the file is rotated.
    *
-   * @return the BufferedWriter
+   * @return the BufferedWriter, or null if the logger isn't initialized
    */
   public static BufferedWriter getWriter() {
-    return WRITER;
+    final LogWriter writer = WRITER;
+    return writer == null ? null : writer.getWriter();
   }
 
   /**
@@ -0,0 +1,204 @@
+/*............................................................................................
+. Copyright © 2021 Brandon Li                                                               .
+.                                                                                           .
+. Permission is hereby granted, free of charge, to any person obtaining a copy of this      .
+. software and associated documentation files (the “Software”), to deal in the Software     .
+. without restriction, including without limitation the rights to use, copy, modify, merge, .
+. publish, distribute, sublicense, and/or sell copies of the Software, and to permit        .
+. persons to whom the Software is furnished to do so, subject to the following conditions:  .
+.                                                                                           .
+. The above copyright notice and this permission notice shall be included in all copies     .
+. or substantial portions of the Software.                                                  .
+.                                                                                           .
+. THE SOFTWARE IS PROVIDED “AS IS”, WITHOUT WARRANTY OF ANY KIND,                           .
+.  EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF                       .
+.   MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND                                   .
+.   NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS                     .
+.   BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN                      .
+.   ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN                       .
+.   CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE                        .
+.   SOFTWARE.                                                                               .
+............................................................................................*/
+
+package com.github.pulsebeat02.minecraftmedialibrary.metrics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A lock free latency histogram with logarithmic buckets, similar to an HdrHistogram. Every power
+ * of two is split into linear sub-buckets, so percentiles stay within about 3% of the real value
+ * from nanoseconds up to minutes, while recording is only a few atomic increments.
+ */
+public final class LatencyHistogram {
+
+  private static final int SUB_BUCKET_BITS = 6;
+  private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+  private static final long MAX_VALUE = TimeUnit.MINUTES.toNanos(10);
+
+  private final String name;
+  private final AtomicLongArray buckets;
+  private final LongAdder count;
+  private final LongAdder sum;
+  private final AtomicLong max;
+
+  /**
+   * Instantiates a new LatencyHistogram.
+   *
+   * @param name the name
+   */
+  public LatencyHistogram(final String name) {
+    this.name = name;
+    buckets = new AtomicLongArray(getIndex(MAX_VALUE) + 1);
+    count = new LongAdder();
+    sum = new LongAdder();
+    max = new AtomicLong();
+  }
+
+  /**
+   * Gets the bucket of a value.
+   *
+   * @param value the value
+   * @return the bucket index
+   */
+  private static int getIndex(final long value) {
+    if (value < SUB_BUCKET_COUNT) {
+      return (int) value;
+    }
+    final int shift = 63 - Long.numberOfLeadingZeros(value) - (SUB_BUCKET_BITS - 1);
+    return (shift << (SUB_BUCKET_BITS - 1)) + (int) (value >>> shift);
+  }
+
+  /**
+   * Gets the lowest value of a bucket.
+   *
+   * @param index the bucket index
+   * @return the lowest value
+   */
+  private static long getLowestValue(final int index) {
+    if (index < SUB_BUCKET_COUNT) {
+      return index;
+    }
+    final int shift = (index >> (SUB_BUCKET_BITS - 1)) - 1;
+    return (long) (index - (shift << (SUB_BUCKET_BITS - 1))) << shift;
+  }
+
+  /**
+   * Gets the width of a bucket.
+   *
+   * @param index the bucket index
+   * @return the width
+   */
+  private static long getWidth(final int index) {
+    if (index < SUB_BUCKET_COUNT) {
+      return 1L;
+    }
+    return 1L << ((index >> (SUB_BUCKET_BITS - 1)) - 1);
+  }
+
+  /**
+   * Records a latency.
+   *
+   * @param nanos the latency in nanoseconds
+   */
+  public void record(final long nanos) {
+    final long value = Math.max(0L, Math.min(MAX_VALUE, nanos));
+    buckets.incrementAndGet(getIndex(value));
+    count.increment();
+    sum.add(value);
+    max.accumulateAndGet(value, Math::max);
+  }
+
+  /**
+   * Records the time elapsed since the specified instant.
+   *
+   * @param start the instant in {@link System#nanoTime()} units
+   */
+  public void recordSince(final long start) {
+    record(System.nanoTime() - start);
+  }
+
+  /**
+   * Gets the value at the specified percentile.
+   *
+   * @param percentile the percentile, between 0 and 100
+   * @return the value in nanoseconds
+   */
+  public long getPercentile(final double percentile) {
+    final long total = count.sum();
+    if (total == 0) {
+      return 0L;
+    }
+    final long target = Math.max(1L, (long) Math.ceil(percentile / 100.0 * total));
+    long seen = 0L;
+    for (int i = 0; i < buckets.length(); i++) {
+      seen += buckets.get(i);
+      if (seen >= target) {
+        return Math.min(max.get(), getLowestValue(i) + getWidth(i) - 1);
+      }
+    }
+    return max.get();
+  }
+
+  /**
+   * Gets the amount of recorded values.
+   *
+   * @return the count
+   */
+  public long getCount() {
+    return count.sum();
+  }
+
+  /**
+   * Gets the mean of the recorded values.
+   *
+   * @return the mean in nanoseconds
+   */
+  public double getMean() {
+    final long total = count.sum();
+    return total == 0 ? 0.0 : (double) sum.sum() / total;
+  }
+
+  /**
+   * Gets the highest recorded value.
+   *
+   * @return the maximum in nanoseconds
+   */
+  public long getMax() {
+    return max.get();
+  }
+
+  /** Resets the histogram. */
+  public void reset() {
+    for (int i = 0; i < buckets.length(); i++) {
+      buckets.set(i, 0L);
+    }
+    count.reset();
+    sum.reset();
+    max.set(0L);
+  }
+
+  /**
+   * Gets the name.
+   *
+   * @return the name
+   */
+  public String getName() {
+    return name;
+  }
+
+  @Override
+  public String toString() {
+    return String.format(
+        "%s: count=%d mean=%.2fms p50=%.2fms p90=%.2fms p99=%.2fms max=%.2fms",
+        name,
+        getCount(),
+        getMean() / 1_000_000.0,
+        getPercentile(50) / 1_000_000.0,
+        getPercentile(90) / 1_000_000.0,
+        getPercentile(99) / 1_000_000.0,
+        getMax() / 1_000_000.0);
+  }
+}
@@ -0,0 +1,230 @@
+/*............................................................................................
+. Copyright © 2021 Brandon Li                                                               .
+.                                                                                           .
+. Permission is hereby granted, free of charge, to any person obtaining a copy of this      .
+. software and associated documentation files (the “Software”), to deal in the Software     .
+. without restriction, including without limitation the rights to use, copy, modify, merge, .
+. publish, distribute, sublicense, and/or sell copies of the Software, and to permit        .
+. persons to whom the Software is furnished to do so, subject to the following conditions:  .
+.                                                                                           .
+. The above copyright notice and this permission notice shall be included in all copies     .
+. or substantial portions of the Software.                                                  .
+.                                                                                           .
+. THE SOFTWARE IS PROVIDED “AS IS”, WITHOUT WARRANTY OF ANY KIND,                           .
+.  EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF                       .
+.   MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND                                   .
+.   NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS                     .
+.   BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN                      .
+.   ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN                       .
+.   CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE                        .
+.   SOFTWARE.                                                                               .
+............................................................................................*/
+
+package com.github.pulsebeat02.minecraftmedialibrary.metrics;
+
+import com.github.pulsebeat02.minecraftmedialibrary.nms.MapTile;
+import com.github.pulsebeat02.minecraftmedialibrary.nms.PacketHandler;
+import org.bukkit.entity.Entity;
+import org.bukkit.entity.Player;
+import org.jetbrains.annotations.NotNull;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A packet handler which measures the time it takes to build and send packets, and how many
+ * packets and bytes every viewer receives, before delegating to the version specific handler.
+ */
+public final class MeteredPacketHandler implements PacketHandler {
+
+  private final PacketHandler handler;
+  private final Set<UUID> players;
+
+  /**
+   * Instantiates a new MeteredPacketHandler.
+   *
+   * @param handler the version specific handler
+   */
+  public MeteredPacketHandler(@NotNull final PacketHandler handler) {
+    this.handler = handler;
+    players = ConcurrentHashMap.newKeySet();
+  }
+
+  @Override
+  public void displayDebugMarker(
+      final UUID[] viewers,
+      final int x,
+      final int y,
+      final int z,
+      final int color,
+      final int time) {
+    handler.displayDebugMarker(viewers, x, y, z, color, time);
+  }
+
+  @Override
+  public void displayMaps(
+      final UUID[] viewers,
+      final int map,
+      final int mapWidth,
+      final int mapHeight,
+      final ByteBuffer rgb,
+      final int videoWidth,
+      final int xOffset,
+      final int yOffset) {
+    final long start = System.nanoTime();
+    handler.displayMaps(viewers, map, mapWidth, mapHeight, rgb, videoWidth, xOffset, yOffset);
+    PerformanceMetrics.recordSince(PerformanceMetrics.PACKET_MAPS, start);
+    recordMaps(viewers, mapWidth, mapHeight, rgb, videoWidth, xOffset, yOffset);
+  }
+
+  @Override
+  public void displayMaps(
+      final UUID[] viewers,
+      final int map,
+      final int mapWidth,
+      final int mapHeight,
+      final ByteBuffer rgb,
+      final int videoWidth) {
+    final int videoHeight = rgb.capacity() / videoWidth;
+    displayMaps(
+        viewers,
+        map,
+        mapWidth,
+        mapHeight,
+        rgb,
+        videoWidth,
+        ((mapWidth << 7) - videoWidth) >> 1,
+        ((mapHeight << 7) - videoHeight) >> 1);
+  }
+
+  @Override
+  public void displayMaps(final UUID[] viewers, @NotNull final List<MapTile> tiles) {
+    final long start = System.nanoTime();
+    handler.displayMaps(viewers, tiles);
+    PerformanceMetrics.recordSince(PerformanceMetrics.PACKET_MAPS, start);
+    for (final MapTile tile : tiles) {
+      recordMaps(
+          viewers,
+          tile.getMapWidth(),
+          tile.getMapHeight(),
+          tile.getRgb(),
+          tile.getVideoWidth(),
+          tile.getXOffset(),
+          tile.getYOffset());
+    }
+  }
+
+  /**
+   * Records the map packets and their payload for every viewer.
+   *
+   * @param viewers the viewers
+   * @param mapWidth the width in maps
+   * @param mapHeight the height in maps
+   * @param rgb the map colors
+   * @param videoWidth the video width
+   * @param xOffset the x offset
+   * @param yOffset the y offset
+   */
+  private void recordMaps(
+      final UUID[] viewers,
+      final int mapWidth,
+      final int mapHeight,
+      @NotNull final ByteBuffer rgb,
+      final int videoWidth,
+      final int xOffset,
+      final int yOffset) {
+    if (!PerformanceMetrics.isEnabled()) {
+      return;
+    }
+    final int videoHeight = rgb.capacity() / videoWidth;
+    final int minX = Math.max(0, xOffset);
+    final int minY = Math.max(0, yOffset);
+    final int maxX = Math.min(mapWidth << 7, xOffset + videoWidth);
+    final int maxY = Math.min(mapHeight << 7, yOffset + videoHeight);
+    if (maxX <= minX || maxY <= minY) {
+      return;
+    }
+    final int packets = ((maxX - 1 >> 7) - (minX >> 7) + 1) * ((maxY - 1 >> 7) - (minY >> 7) + 1);
+    record(viewers, packets, (long) (maxX - minX) * (maxY - minY));
+  }
+
+  /**
+   * Records packets for every viewer, or every registered player if there are no viewers.
+   *
+   * @param viewers the viewers
+   * @param packets the amount of packets
+   * @param bytes the payload of the packets
+   */
+  private void record(final UUID[] viewers, final int packets, final long bytes) {
+    if (viewers == null) {
+      for (final UUID uuid : players) {
+        PerformanceMetrics.recordPackets(uuid, packets, bytes);
+      }
+    } else {
+      for (final UUID uuid : viewers) {
+        PerformanceMetrics.recordPackets(uuid, packets, bytes);
+      }
+    }
+  }
+
+  @Override
+  public void displayEntities(
+      final UUID[] viewers, final Entity[] entities, final int[] data, final int width) {
+    final long start = System.nanoTime();
+    handler.displayEntities(viewers, entities, data, width);
+    PerformanceMetrics.recordSince(PerformanceMetrics.PACKET_ENTITIES, start);
+    if (PerformanceMetrics.isEnabled()) {
+      record(viewers, entities.length, (long) data.length << 2);
+    }
+  }
+
+  @Override
+  public void registerPlayer(final Player player) {
+    players.add(player.getUniqueId());
+    handler.registerPlayer(player);
+  }
+
+  @Override
+  public void unregisterPlayer(final Player player) {
+    players.remove(player.getUniqueId());
+    PerformanceMetrics.removeViewer(player.getUniqueId());
+    handler.unregisterPlayer(player);
+  }
+
+  @Override
+  public boolean isMapRegistered(final int id) {
+    return handler.isMapRegistered(id);
+  }
+
+  @Override
+  public void unregisterMap(final int id) {
+    handler.unregisterMap(id);
+  }
+
+  @Override
+  public void registerMap(final int id) {
+    handler.registerMap(id);
+  }
+
+  @Override
+  public Object onPacketInterceptOut(final Player viewer, final Object packet) {
+    return handler.onPacketInterceptOut(viewer, packet);
+  }
+
+  @Override
+  public Object onPacketInterceptIn(final Player viewer, final Object packet) {
+    return handler.onPacketInterceptIn(viewer, packet);
+  }
+
+  /**
+   * Gets the version specific handler.
+   *
+   * @return the handler
+   */
+  public PacketHandler getHandler() {
+    return handler;
+  }
+}
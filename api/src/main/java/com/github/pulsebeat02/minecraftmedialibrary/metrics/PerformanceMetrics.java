@@ -0,0 +1,441 @@
+/*............................................................................................
+. Copyright © 2021 Brandon Li                                                               .
+.                                                                                           .
+. Permission is hereby granted, free of charge, to any person obtaining a copy of this      .
+. software and associated documentation files (the “Software”), to deal in the Software     .
+. without restriction, including without limitation the rights to use, copy, modify, merge, .
+. publish, distribute, sublicense, and/or sell copies of the Software, and to permit        .
+. persons to whom the Software is furnished to do so, subject to the following conditions:  .
+.                                                                                           .
+. The above copyright notice and this permission notice shall be included in all copies     .
+. or substantial portions of the Software.                                                  .
+.                                                                                           .
+. THE SOFTWARE IS PROVIDED “AS IS”, WITHOUT WARRANTY OF ANY KIND,                           .
+.  EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF                       .
+.   MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND                                   .
+.   NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS                     .
+.   BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN                      .
+.   ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN                       .
+.   CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE                        .
+.   SOFTWARE.                                                                               .
+............................................................................................*/
+
+package com.github.pulsebeat02.minecraftmedialibrary.metrics;
+
+import com.github.pulsebeat02.minecraftmedialibrary.frame.dither.DitherSetting;
+import com.github.pulsebeat02.minecraftmedialibrary.logger.Logger;
+import org.jetbrains.annotations.NotNull;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * The performance metrics of the library. Every stage of the video pipeline records into this
+ * registry, so it is possible to tell whether a screen is slow because of decoding, dithering,
+ * packet building or the network.
+ *
+ * <p>Latencies are recorded into {@link LatencyHistogram}s, events (such as dropped frames) into
+ * counters, and values which are sampled on demand (such as queue depths) into gauges. The metrics
+ * can be read through {@link #getSummary()}, through JMX, and are periodically written into the
+ * log file.
+ */
+public final class PerformanceMetrics {
+
+  /** Time to decode, scale and convert a frame before it reaches the callback. */
+  public static final String DECODE = "decode";
+
+  /**
+   * Time between two frames arriving from VLC, which doesn't expose its decoding time. Spikes mean
+   * that VLC stalled.
+   */
+  public static final String DECODE_INTERVAL = "decode.interval";
+
+  /** Time the frame callback takes, including dithering and sending for synchronous callbacks. */
+  public static final String CALLBACK = "callback";
+
+  /** Time to dither a frame, suffixed by the dithering algorithm. */
+  public static final String DITHER = "dither";
+
+  /** Time to build and send map packets. */
+  public static final String PACKET_MAPS = "packet.maps";
+
+  /** Time to build and send entity packets. */
+  public static final String PACKET_ENTITIES = "packet.entities";
+
+  /** Frames which were skipped because they arrived before their slot. */
+  public static final String DROPPED_PACER = "dropped.pacer";
+
+  /** Frames which were dropped because the dither queue was full. */
+  public static final String DROPPED_QUEUE = "dropped.queue";
+
+  /** Frames which were dropped because they weren't dithered in time. */
+  public static final String DROPPED_LATE = "dropped.late";
+
+  /** Frames which were dropped by the decoder because they were decoded too late. */
+  public static final String DROPPED_DECODER = "dropped.decoder";
+
+  /**
+   * Time from starting a video player until its first frame reaches the callback, including the
+   * time spent buffering a video which is still being downloaded.
+   */
+  public static final String FIRST_FRAME = "first.frame";
+
+  /** Time playback waited for the download after it caught up with it. */
+  public static final String REBUFFER = "rebuffer";
+
+  /** Times playback caught up with the download of a video and had to rebuffer. */
+  public static final String STALLS = "stalls";
+
+  private static final ObjectName OBJECT_NAME;
+  private static final ScheduledExecutorService SCHEDULER;
+  private static final ConcurrentMap<String, LatencyHistogram> HISTOGRAMS;
+  private static final ConcurrentMap<String, LongAdder> COUNTERS;
+  private static final ConcurrentMap<String, LongSupplier> GAUGES;
+  private static final ConcurrentMap<UUID, ViewerStatistics> VIEWERS;
+  private static ScheduledFuture<?> task;
+  private static volatile boolean enabled;
+
+  static {
+    try {
+      OBJECT_NAME =
+          new ObjectName("com.github.pulsebeat02.minecraftmedialibrary:type=PerformanceMetrics");
+    } catch (final JMException e) {
+      throw new AssertionError(e);
+    }
+    SCHEDULER =
+        Executors.newSingleThreadScheduledExecutor(
+            r -> {
+              final Thread thread = new Thread(r, "MML Metrics");
+              thread.setDaemon(true);
+              return thread;
+            });
+    HISTOGRAMS = new ConcurrentSkipListMap<>();
+    COUNTERS = new ConcurrentSkipListMap<>();
+    GAUGES = new ConcurrentSkipListMap<>();
+    VIEWERS = new ConcurrentHashMap<>();
+    enabled = true;
+  }
+
+  private PerformanceMetrics() {}
+
+  /**
+   * Registers the JMX bean and periodically writes the metrics into the log file.
+   *
+   * @param period the time between each dump
+   * @param unit the unit of the period
+   */
+  public static synchronized void start(final long period, @NotNull final TimeUnit unit) {
+    stop();
+    final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+    try {
+      if (!server.isRegistered(OBJECT_NAME)) {
+        server.registerMBean(new MetricsBean(), OBJECT_NAME);
+      }
+    } catch (final JMException e) {
+      Logger.error("Could not register the Performance Metrics JMX Bean!");
+      e.printStackTrace();
+    }
+    task = SCHEDULER.scheduleAtFixedRate(PerformanceMetrics::dump, period, period, unit);
+  }
+
+  /** Stops writing the metrics into the log file and unregisters the JMX bean. */
+  public static synchronized void stop() {
+    if (task != null) {
+      task.cancel(false);
+      task = null;
+    }
+    final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+    try {
+      if (server.isRegistered(OBJECT_NAME)) {
+        server.unregisterMBean(OBJECT_NAME);
+      }
+    } catch (final JMException e) {
+      e.printStackTrace();
+    }
+  }
+
+  /** Writes the metrics into the log file. */
+  public static void dump() {
+    if (HISTOGRAMS.isEmpty() && COUNTERS.isEmpty()) {
+      return;
+    }
+    for (final String line : getSummary()) {
+      Logger.info(String.format("[Metrics] %s", line));
+    }
+  }
+
+  /**
+   * Gets the histogram with the specified name, creating it if necessary.
+   *
+   * @param name the name
+   * @return the histogram
+   */
+  @NotNull
+  public static LatencyHistogram getHistogram(@NotNull final String name) {
+    return HISTOGRAMS.computeIfAbsent(name, LatencyHistogram::new);
+  }
+
+  /**
+   * Gets the dither histogram of the specified algorithm.
+   *
+   * @param setting the algorithm
+   * @return the histogram
+   */
+  @NotNull
+  public static LatencyHistogram getDitherHistogram(@NotNull final DitherSetting setting) {
+    return getHistogram(String.format("%s.%s", DITHER, setting.name().toLowerCase()));
+  }
+
+  /**
+   * Records the time elapsed since the specified instant into a histogram.
+   *
+   * @param histogram the histogram name
+   * @param start the instant in {@link System#nanoTime()} units
+   */
+  public static void recordSince(@NotNull final String histogram, final long start) {
+    if (enabled) {
+      getHistogram(histogram).recordSince(start);
+    }
+  }
+
+  /**
+   * Records the time elapsed since the specified instant into the dither histogram.
+   *
+   * @param setting the algorithm
+   * @param start the instant in {@link System#nanoTime()} units
+   */
+  public static void recordDither(@NotNull final DitherSetting setting, final long start) {
+    if (enabled) {
+      getDitherHistogram(setting).recordSince(start);
+    }
+  }
+
+  /**
+   * Increments a counter.
+   *
+   * @param counter the counter name
+   */
+  public static void increment(@NotNull final String counter) {
+    add(counter, 1L);
+  }
+
+  /**
+   * Adds to a counter.
+   *
+   * @param counter the counter name
+   * @param value the value to add
+   */
+  public static void add(@NotNull final String counter, final long value) {
+    if (enabled) {
+      COUNTERS.computeIfAbsent(counter, name -> new LongAdder()).add(value);
+    }
+  }
+
+  /**
+   * Gets the value of a counter.
+   *
+   * @param counter the counter name
+   * @return the value
+   */
+  public static long getCounter(@NotNull final String counter) {
+    final LongAdder adder = COUNTERS.get(counter);
+    return adder == null ? 0L : adder.sum();
+  }
+
+  /**
+   * Registers a gauge, which is sampled whenever the metrics are read.
+   *
+   * @param name the gauge name
+   * @param gauge the gauge
+   */
+  public static void registerGauge(@NotNull final String name, @NotNull final LongSupplier gauge) {
+    GAUGES.put(name, gauge);
+  }
+
+  /**
+   * Unregisters a gauge.
+   *
+   * @param name the gauge name
+   */
+  public static void unregisterGauge(@NotNull final String name) {
+    GAUGES.remove(name);
+  }
+
+  /**
+   * Records packets which were sent to a viewer.
+   *
+   * @param viewer the viewer
+   * @param packets the amount of packets
+   * @param bytes the amount of bytes
+   */
+  public static void recordPackets(
+      @NotNull final UUID viewer, final int packets, final long bytes) {
+    if (enabled) {
+      getViewer(viewer).record(packets, bytes);
+    }
+  }
+
+  /**
+   * Gets the statistics of a viewer, creating them if necessary.
+   *
+   * @param viewer the viewer
+   * @return the statistics
+   */
+  @NotNull
+  public static ViewerStatistics getViewer(@NotNull final UUID viewer) {
+    return VIEWERS.computeIfAbsent(viewer, uuid -> new ViewerStatistics());
+  }
+
+  /**
+   * Removes the statistics of a viewer, for example when they leave.
+   *
+   * @param viewer the viewer
+   */
+  public static void removeViewer(@NotNull final UUID viewer) {
+    VIEWERS.remove(viewer);
+  }
+
+  /**
+   * Gets the statistics of every viewer.
+   *
+   * @return the statistics by viewer
+   */
+  @NotNull
+  public static Map<UUID, ViewerStatistics> getViewers() {
+    return Collections.unmodifiableMap(VIEWERS);
+  }
+
+  /**
+   * Gets every histogram.
+   *
+   * @return the histograms by name
+   */
+  @NotNull
+  public static Map<String, LatencyHistogram> getHistograms() {
+    return Collections.unmodifiableMap(HISTOGRAMS);
+  }
+
+  /**
+   * Gets the current value of every counter.
+   *
+   * @return the counters by name
+   */
+  @NotNull
+  public static Map<String, Long> getCounters() {
+    final Map<String, Long> counters = new TreeMap<>();
+    COUNTERS.forEach((name, adder) -> counters.put(name, adder.sum()));
+    return counters;
+  }
+
+  /**
+   * Samples every gauge.
+   *
+   * @return the gauges by name
+   */
+  @NotNull
+  public static Map<String, Long> getGauges() {
+    final Map<String, Long> gauges = new TreeMap<>();
+    GAUGES.forEach((name, gauge) -> gauges.put(name, gauge.getAsLong()));
+    return gauges;
+  }
+
+  /**
+   * Gets a human readable summary of every metric, one line per metric.
+   *
+   * @return the summary lines
+   */
+  @NotNull
+  public static List<String> getSummary() {
+    final List<String> lines = new ArrayList<>();
+    for (final LatencyHistogram histogram : HISTOGRAMS.values()) {
+      lines.add(histogram.toString());
+    }
+    getCounters().forEach((name, value) -> lines.add(String.format("%s: %d", name, value)));
+    getGauges().forEach((name, value) -> lines.add(String.format("%s: %d", name, value)));
+    long packets = 0L;
+    long bytes = 0L;
+    for (final ViewerStatistics statistics : VIEWERS.values()) {
+      packets += statistics.getPackets();
+      bytes += statistics.getBytes();
+    }
+    if (!VIEWERS.isEmpty()) {
+      lines.add(
+          String.format(
+              "viewers: %d, packets per viewer: %d, bytes per viewer: %d",
+              VIEWERS.size(), packets / VIEWERS.size(), bytes / VIEWERS.size()));
+    }
+    return lines;
+  }
+
+  /** Resets every metric. */
+  public static void reset() {
+    HISTOGRAMS.values().forEach(LatencyHistogram::reset);
+    COUNTERS.values().forEach(LongAdder::reset);
+    VIEWERS.values().forEach(ViewerStatistics::reset);
+  }
+
+  /**
+   * Gets whether metrics are recorded.
+   *
+   * @return whether the metrics are enabled
+   */
+  public static boolean isEnabled() {
+    return enabled;
+  }
+
+  /**
+   * Sets whether metrics are recorded.
+   *
+   * @param enabled whether the metrics are enabled
+   */
+  public static void setEnabled(final boolean enabled) {
+    PerformanceMetrics.enabled = enabled;
+  }
+
+  /** The bean which exposes the metrics through JMX. */
+  private static final class MetricsBean implements PerformanceMetricsMXBean {
+
+    @Override
+    public Map<String, Long> getCounters() {
+      return PerformanceMetrics.getCounters();
+    }
+
+    @Override
+    public Map<String, Long> getGauges() {
+      return PerformanceMetrics.getGauges();
+    }
+
+    @Override
+    public double getPercentile(final String histogram, final double percentile) {
+      final LatencyHistogram value = HISTOGRAMS.get(histogram);
+      return value == null ? 0.0 : value.getPercentile(percentile) / 1_000_000.0;
+    }
+
+    @Override
+    public List<String> getSummary() {
+      return PerformanceMetrics.getSummary();
+    }
+
+    @Override
+    public void reset() {
+      PerformanceMetrics.reset();
+    }
+  }
+}
@@ -0,0 +1,63 @@
+/*............................................................................................
+. Copyright © 2021 Brandon Li                                                               .
+.                                                                                           .
+. Permission is hereby granted, free of charge, to any person obtaining a copy of this      .
+. software and associated documentation files (the “Software”), to deal in the Software     .
+. without restriction, including without limitation the rights to use, copy, modify, merge, .
+. publish, distribute, sublicense, and/or sell copies of the Software, and to permit        .
+. persons to whom the Software is furnished to do so, subject to the following conditions:  .
+.                                                                                           .
+. The above copyright notice and this permission notice shall be included in all copies     .
+. or substantial portions of the Software.                                                  .
+.                                                                                           .
+. THE SOFTWARE IS PROVIDED “AS IS”, WITHOUT WARRANTY OF ANY KIND,                           .
+.  EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF                       .
+.   MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND                                   .
+.   NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS                     .
+.   BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN                      .
+.   ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN                       .
+.   CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE                        .
+.   SOFTWARE.                                                                               .
+............................................................................................*/
+
+package com.github.pulsebeat02.minecraftmedialibrary.metrics;
+
+import java.util.List;
+import java.util.Map;
+
+/** The JMX interface of the {@link PerformanceMetrics}. */
+public interface PerformanceMetricsMXBean {
+
+  /**
+   * Gets all counters.
+   *
+   * @return the counters by name
+   */
+  Map<String, Long> getCounters();
+
+  /**
+   * Gets all gauges, such as queue depths.
+   *
+   * @return the gauges by name
+   */
+  Map<String, Long> getGauges();
+
+  /**
+   * Gets a percentile of a latency histogram.
+   *
+   * @param histogram the histogram name
+   * @param percentile the percentile, between 0 and 100
+   * @return the value in milliseconds
+   */
+  double getPercentile(final String histogram, final double percentile);
+
+  /**
+   * Gets a summary of every metric.
+   *
+   * @return the summary lines
+   */
+  List<String> getSummary();
+
+  /** Resets every metric. */
+  void reset();
+}
@@ -0,0 +1,73 @@
+/*............................................................................................
+. Copyright © 2021 Brandon Li                                                               .
+.                                                                                           .
+. Permission is hereby granted, free of charge, to any person obtaining a copy of this      .
+. software and associated documentation files (the “Software”), to deal in the Software     .
+. without restriction, including without limitation the rights to use, copy, modify, merge, .
+. publish, distribute, sublicense, and/or sell copies of the Software, and to permit        .
+. persons to whom the Software is furnished to do so, subject to the following conditions:  .
+.                                                                                           .
+. The above copyright notice and this permission notice shall be included in all copies     .
+. or substantial portions of the Software.                                                  .
+.                                                                                           .
+. THE SOFTWARE IS PROVIDED “AS IS”, WITHOUT WARRANTY OF ANY KIND,                           .
+.  EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF                       .
+.   MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND                                   .
+.   NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS                     .
+.   BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN                      .
+.   ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN                       .
+.   CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE                        .
+.   SOFTWARE.                                                                               .
+............................................................................................*/
+
+package com.github.pulsebeat02.minecraftmedialibrary.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/** Tracks the amount of packets and bytes which were sent to a single viewer. */
+public final class ViewerStatistics {
+
+  private final LongAdder packets;
+  private final LongAdder bytes;
+
+  /** Instantiates a new ViewerStatistics. */
+  public ViewerStatistics() {
+    packets = new LongAdder();
+    bytes = new LongAdder();
+  }
+
+  /**
+   * Records packets which were sent.
+   *
+   * @param packets the amount of packets
+   * @param bytes the amount of bytes
+   */
+  public void record(final int packets, final long bytes) {
+    this.packets.add(packets);
+    this.bytes.add(bytes);
+  }
+
+  /**
+   * Gets the amount of packets sent.
+   *
+   * @return the packets
+   */
+  public long getPackets() {
+    return packets.sum();
+  }
+
+  /**
+   * Gets the amount of bytes sent.
+   *
+   * @return the bytes
+   */
+  public long getBytes() {
+    return bytes.sum();
+  }
+
+  /** Resets the statistics. */
+  public void reset() {
+    packets.reset();
+    bytes.reset();
+  }
+}
@@ -0,0 +1,159 @@
+/*............................................................................................
+. Copyright © 2021 Brandon Li                                                               .
+.                                                                                           .
+. Permission is hereby granted, free of charge, to any person obtaining a copy of this      .
+. software and associated documentation files (the “Software”), to deal in the Software     .
+. without restriction, including without limitation the rights to use, copy, modify, merge, .
+. publish, distribute, sublicense, and/or sell copies of the Software, and to permit        .
+. persons to whom the Software is furnished to do so, subject to the following conditions:  .
+.                                                                                           .
+. The above copyright notice and this permission notice shall be included in all copies     .
+. or substantial portions of the Software.                                                  .
+.                                                                                           .
+. THE SOFTWARE IS PROVIDED “AS IS”, WITHOUT WARRANTY OF ANY KIND,                           .
+.  EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF                       .
+.   MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND                                   .
+.   NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS                     .
+.   BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN                      .
+.   ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN                       .
+.   CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE                        .
+.   SOFTWARE.                                                                               .
+............................................................................................*/
+
+package com.github.pulsebeat02.minecraftmedialibrary.nms;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.nio.ByteBuffer;
+
+/**
+ * A region of map colors drawn onto a set of maps. Several tiles can be handed to {@link
+ * PacketHandler#displayMaps(java.util.UUID[], java.util.List)} at once, which sends all of their
+ * packets to a viewer as a single batch.
+ */
+public final class MapTile {
+
+  private final int map;
+  private final int mapWidth;
+  private final int mapHeight;
+  private final ByteBuffer rgb;
+  private final int videoWidth;
+  private final int xOffset;
+  private final int yOffset;
+
+  /**
+   * Instantiates a new MapTile.
+   *
+   * @param map the starting map id
+   * @param mapWidth the map width
+   * @param mapHeight the map height
+   * @param rgb the map colors of the region
+   * @param videoWidth the width of the region
+   * @param xOffset the x offset of the region on the maps
+   * @param yOffset the y offset of the region on the maps
+   */
+  public MapTile(
+      final int map,
+      final int mapWidth,
+      final int mapHeight,
+      @NotNull final ByteBuffer rgb,
+      final int videoWidth,
+      final int xOffset,
+      final int yOffset) {
+    this.map = map;
+    this.mapWidth = mapWidth;
+    this.mapHeight = mapHeight;
+    this.rgb = rgb;
+    this.videoWidth = videoWidth;
+    this.xOffset = xOffset;
+    this.yOffset = yOffset;
+  }
+
+  /**
+   * Instantiates a new MapTile which is centered on the maps.
+   *
+   * @param map the starting map id
+   * @param mapWidth the map width
+   * @param mapHeight the map height
+   * @param rgb the map colors of the region
+   * @param videoWidth the width of the region
+   */
+  public MapTile(
+      final int map,
+      final int mapWidth,
+      final int mapHeight,
+      @NotNull final ByteBuffer rgb,
+      final int videoWidth) {
+    this(
+        map,
+        mapWidth,
+        mapHeight,
+        rgb,
+        videoWidth,
+        ((mapWidth << 7) - videoWidth) >> 1,
+        ((mapHeight << 7) - rgb.capacity() / videoWidth) >> 1);
+  }
+
+  /**
+   * Gets the starting map id.
+   *
+   * @return the map
+   */
+  public int getMap() {
+    return map;
+  }
+
+  /**
+   * Gets the map width.
+   *
+   * @return the map width
+   */
+  public int getMapWidth() {
+    return mapWidth;
+  }
+
+  /**
+   * Gets the map height.
+   *
+   * @return the map height
+   */
+  public int getMapHeight() {
+    return mapHeight;
+  }
+
+  /**
+   * Gets the map colors of the region.
+   *
+   * @return the rgb
+   */
+  public ByteBuffer getRgb() {
+    return rgb;
+  }
+
+  /**
+   * Gets the width of the region.
+   *
+   * @return the video width
+   */
+  public int getVideoWidth() {
+    return videoWidth;
+  }
+
+  /**
+   * Gets the x offset of the region on the maps.
+   *
+   * @return the x offset
+   */
+  public int getXOffset() {
+    return xOffset;
+  }
+
+  /**
+   * Gets the y offset of the region on the maps.
+   *
+   * @return the y offset
+   */
+  public int getYOffset() {
+    return yOffset;
+  }
+}
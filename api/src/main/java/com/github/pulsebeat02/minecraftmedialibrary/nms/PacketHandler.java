@@ -26,6 +26,7 @@ import org.bukkit.entity.Entity;
 import org.bukkit.entity.Player;
 
 import java.nio.ByteBuffer;
+import java.util.List;
 import java.util.UUID;
 
 /**
@@ -82,6 +83,16 @@ public interface PacketHandler {
   void displayMaps(
       UUID[] viewers, int map, int mapWidth, int mapHeight, ByteBuffer rgb, int videoWidth);
 
+  /**
+   * Displays several tiles to UUIDs. The packets of every tile are sent to a viewer in a single
+   * batch, so that the per-player packet threshold doesn't drop the tiles after the first one, as
+   * it would when calling the other methods once per tile.
+   *
+   * @param viewers the viewers
+   * @param tiles the tiles
+   */
+  void displayMaps(UUID[] viewers, List<MapTile> tiles);
+
   /**
    * Display entities to UUIDs.
    *
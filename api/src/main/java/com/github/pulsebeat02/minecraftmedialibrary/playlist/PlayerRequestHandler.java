@@ -34,6 +34,7 @@ import java.io.InputStreamReader;
 import java.net.Socket;
 import java.nio.file.Path;
 import java.util.Set;
+import java.util.function.Supplier;
 
 /**
  * A class used to handle incoming requests. It checks the request and then appropriately changes
@@ -82,8 +83,9 @@ public class PlayerRequestHandler implements Runnable, RequestHandler {
         new BufferedReader(new InputStreamReader(client.getInputStream(), "8859_1"))) {
       final String request = br.readLine();
       verbose(
-          String.format(
-              "Received request '%s' from %s", request, client.getInetAddress().toString()));
+          () ->
+              String.format(
+                  "Received request '%s' from %s", request, client.getInetAddress().toString()));
       if (!VALID_CONTROLS.contains(request)) {
         client.close();
         return;
@@ -105,11 +107,11 @@ public class PlayerRequestHandler implements Runnable, RequestHandler {
       client.close();
     } catch (final IOException e) {
       daemon.onRequestFailed(client);
-      verbose(String.format("I/O error %s", e));
+      verbose(() -> String.format("I/O error %s", e));
     }
   }
 
-  private void verbose(final String info) {
+  private void verbose(@NotNull final Supplier<String> info) {
     if (daemon.isVerbose()) {
       Logger.info(info);
     }
@@ -0,0 +1,141 @@
+/*............................................................................................
+. Copyright © 2021 Brandon Li                                                               .
+.                                                                                           .
+. Permission is hereby granted, free of charge, to any person obtaining a copy of this      .
+. software and associated documentation files (the “Software”), to deal in the Software     .
+. without restriction, including without limitation the rights to use, copy, modify, merge, .
+. publish, distribute, sublicense, and/or sell copies of the Software, and to permit        .
+. persons to whom the Software is furnished to do so, subject to the following conditions:  .
+.                                                                                           .
+. The above copyright notice and this permission notice shall be included in all copies     .
+. or substantial portions of the Software.                                                  .
+.                                                                                           .
+. THE SOFTWARE IS PROVIDED “AS IS”, WITHOUT WARRANTY OF ANY KIND,                           .
+.  EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF                       .
+.   MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND                                   .
+.   NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS                     .
+.   BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN                      .
+.   ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN                       .
+.   CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE                        .
+.   SOFTWARE.                                                                               .
+............................................................................................*/
+
+package com.github.pulsebeat02.minecraftmedialibrary.resourcepack;
+
+import com.github.pulsebeat02.minecraftmedialibrary.http.HttpFileCache;
+import com.github.pulsebeat02.minecraftmedialibrary.logger.Logger;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.DigestOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Writes resourcepacks. The build is skipped if the {@link PackManifest} of the pack shows that
+ * neither its inputs nor its generated entries changed. Otherwise the entries are streamed from
+ * disk into a temporary file, with the already compressed sounds and icons stored rather than
+ * deflated, and the SHA-1 hash of the pack is computed while it is being written. The temporary
+ * file then replaces the pack, so players never download a partially written pack, and the hash
+ * is handed to the {@link HttpFileCache} so the daemons serve the new pack without hashing it.
+ */
+final class PackBuilder {
+
+  private PackBuilder() {}
+
+  /**
+   * Builds a pack.
+   *
+   * @param zip the pack
+   * @param generated the generated entries, such as pack.mcmeta, mapped to their contents
+   * @param files the entries copied from files, mapped to the files
+   * @return the SHA-1 hash of the pack
+   * @throws IOException if the pack couldn't be written
+   */
+  static byte @NotNull [] build(
+      @NotNull final Path zip,
+      @NotNull final Map<String, String> generated,
+      @NotNull final Map<String, Path> files)
+      throws IOException {
+
+    final List<String> contents = new ArrayList<>();
+    generated.forEach(
+        (name, content) -> {
+          contents.add(name);
+          contents.add(content);
+        });
+    contents.addAll(files.keySet());
+    final String settings = PackManifest.hashSettings(contents.toArray(new String[0]));
+
+    final PackManifest previous = PackManifest.read(zip);
+    final List<PackManifest.Input> inputs = new ArrayList<>();
+    for (final Path file : files.values()) {
+      inputs.add(PackManifest.describe(file, previous));
+    }
+    if (previous != null && previous.isUpToDate(zip, settings, inputs)) {
+      Logger.info(String.format("Resourcepack %s is up to date, skipping the build!", zip));
+      HttpFileCache.seed(zip, previous.getHash());
+      return previous.getHash();
+    }
+
+    final Path temp = zip.resolveSibling(String.format("%s.tmp", zip.getFileName()));
+    final DigestOutputStream digest =
+        new DigestOutputStream(
+            new BufferedOutputStream(Files.newOutputStream(temp)), PackManifest.createDigest());
+    try (final ZipOutputStream out = new ZipOutputStream(digest)) {
+      for (final Map.Entry<String, String> entry : generated.entrySet()) {
+        out.putNextEntry(new ZipEntry(entry.getKey()));
+        out.write(entry.getValue().getBytes(StandardCharsets.UTF_8));
+        out.closeEntry();
+      }
+      int index = 0;
+      for (final Map.Entry<String, Path> entry : files.entrySet()) {
+        storeEntry(out, entry.getKey(), entry.getValue(), inputs.get(index++));
+      }
+    }
+    Files.move(temp, zip, StandardCopyOption.REPLACE_EXISTING);
+
+    final byte[] hash = digest.getMessageDigest().digest();
+    HttpFileCache.seed(zip, hash);
+    final BasicFileAttributes attributes = Files.readAttributes(zip, BasicFileAttributes.class);
+    new PackManifest(
+            settings, inputs, hash, attributes.size(), attributes.lastModifiedTime().toMillis())
+        .write(zip);
+    return hash;
+  }
+
+  /**
+   * Streams a file into an entry without compressing it, as sounds and icons are already
+   * compressed. The size and checksum a stored entry needs up front are taken from the manifest.
+   *
+   * @param out the zip stream
+   * @param name the name of the entry
+   * @param file the file
+   * @param input the manifest input of the file
+   * @throws IOException if the entry couldn't be written
+   */
+  private static void storeEntry(
+      @NotNull final ZipOutputStream out,
+      @NotNull final String name,
+      @NotNull final Path file,
+      @NotNull final PackManifest.Input input)
+      throws IOException {
+    final ZipEntry entry = new ZipEntry(name);
+    entry.setMethod(ZipEntry.STORED);
+    entry.setSize(input.getSize());
+    entry.setCompressedSize(input.getSize());
+    entry.setCrc(input.getCrc());
+    out.putNextEntry(entry);
+    Files.copy(file, out);
+    out.closeEntry();
+  }
+}
@@ -0,0 +1,321 @@
+/*............................................................................................
+. Copyright © 2021 Brandon Li                                                               .
+.                                                                                           .
+. Permission is hereby granted, free of charge, to any person obtaining a copy of this      .
+. software and associated documentation files (the “Software”), to deal in the Software     .
+. without restriction, including without limitation the rights to use, copy, modify, merge, .
+. publish, distribute, sublicense, and/or sell copies of the Software, and to permit        .
+. persons to whom the Software is furnished to do so, subject to the following conditions:  .
+.                                                                                           .
+. The above copyright notice and this permission notice shall be included in all copies     .
+. or substantial portions of the Software.                                                  .
+.                                                                                           .
+. THE SOFTWARE IS PROVIDED “AS IS”, WITHOUT WARRANTY OF ANY KIND,                           .
+.  EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF                       .
+.   MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND                                   .
+.   NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS                     .
+.   BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN                      .
+.   ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN                       .
+.   CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE                        .
+.   SOFTWARE.                                                                               .
+............................................................................................*/
+
+package com.github.pulsebeat02.minecraftmedialibrary.resourcepack;
+
+import com.github.pulsebeat02.minecraftmedialibrary.json.GsonHandler;
+import com.google.common.io.BaseEncoding;
+import com.google.gson.JsonParseException;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.zip.CRC32;
+
+/**
+ * The manifest of a built resourcepack. It records the path, size, modification time, SHA-1 hash
+ * and CRC-32 checksum of every input file, a hash of the generated pack settings, and the size,
+ * modification time and SHA-1 hash of the pack itself. It is stored next to the pack, so that a
+ * pack whose inputs did not change does not have to be built again, and inputs which did not
+ * change do not have to be hashed again.
+ */
+public final class PackManifest {
+
+  private static final int VERSION = 1;
+
+  private final int version;
+  private final String settings;
+  private final List<Input> inputs;
+  private final String hash;
+  private final long size;
+  private final long modified;
+
+  /**
+   * Instantiates a new PackManifest.
+   *
+   * @param settings the hash of the generated pack settings
+   * @param inputs the input files
+   * @param hash the SHA-1 hash of the pack
+   * @param size the size of the pack
+   * @param modified the modification time of the pack
+   */
+  public PackManifest(
+      @NotNull final String settings,
+      @NotNull final List<Input> inputs,
+      final byte @NotNull [] hash,
+      final long size,
+      final long modified) {
+    version = VERSION;
+    this.settings = settings;
+    this.inputs = new ArrayList<>(inputs);
+    this.hash = BaseEncoding.base16().lowerCase().encode(hash);
+    this.size = size;
+    this.modified = modified;
+  }
+
+  /**
+   * Gets the file the manifest of a pack is stored in.
+   *
+   * @param pack the pack
+   * @return the manifest file
+   */
+  @NotNull
+  public static Path getManifestFile(@NotNull final Path pack) {
+    return pack.resolveSibling(String.format("%s.manifest", pack.getFileName()));
+  }
+
+  /**
+   * Reads the manifest of a pack.
+   *
+   * @param pack the pack
+   * @return the manifest, or null if there is none or it couldn't be read
+   */
+  @Nullable
+  public static PackManifest read(@NotNull final Path pack) {
+    final Path file = getManifestFile(pack);
+    if (!Files.exists(file)) {
+      return null;
+    }
+    try (final Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+      final PackManifest manifest = GsonHandler.getGson().fromJson(reader, PackManifest.class);
+      return manifest != null && manifest.version == VERSION ? manifest : null;
+    } catch (final IOException | JsonParseException e) {
+      return null;
+    }
+  }
+
+  /**
+   * Writes the manifest next to a pack.
+   *
+   * @param pack the pack
+   * @throws IOException if the manifest couldn't be written
+   */
+  public void write(@NotNull final Path pack) throws IOException {
+    try (final Writer writer =
+        Files.newBufferedWriter(getManifestFile(pack), StandardCharsets.UTF_8)) {
+      GsonHandler.getGson().toJson(this, writer);
+    }
+  }
+
+  /**
+   * Removes the manifest of a pack, so that it is built again the next time.
+   *
+   * @param pack the pack
+   * @throws IOException if the manifest couldn't be removed
+   */
+  public static void delete(@NotNull final Path pack) throws IOException {
+    Files.deleteIfExists(getManifestFile(pack));
+  }
+
+  /**
+   * Describes an input file. The hashes of a previous manifest are reused if the path, size and
+   * modification time of the file did not change, otherwise the file is read once to compute them.
+   *
+   * @param file the file
+   * @param previous the previous manifest
+   * @return the input
+   * @throws IOException if the file couldn't be read
+   */
+  @NotNull
+  public static Input describe(@NotNull final Path file, @Nullable final PackManifest previous)
+      throws IOException {
+    final String path = file.toAbsolutePath().normalize().toString();
+    final BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+    final long size = attributes.size();
+    final long modified = attributes.lastModifiedTime().toMillis();
+    if (previous != null) {
+      for (final Input input : previous.inputs) {
+        if (input.path.equals(path) && input.size == size && input.modified == modified) {
+          return input;
+        }
+      }
+    }
+    final MessageDigest digest = createDigest();
+    final CRC32 crc = new CRC32();
+    try (final InputStream stream = Files.newInputStream(file)) {
+      final byte[] buffer = new byte[64 * 1024];
+      for (int read; (read = stream.read(buffer)) > -1; ) {
+        digest.update(buffer, 0, read);
+        crc.update(buffer, 0, read);
+      }
+    }
+    return new Input(
+        path,
+        size,
+        modified,
+        BaseEncoding.base16().lowerCase().encode(digest.digest()),
+        crc.getValue());
+  }
+
+  /**
+   * Hashes the generated contents of a pack, such as its pack.mcmeta.
+   *
+   * @param contents the generated contents
+   * @return the hash
+   * @throws IOException if SHA-1 is not available
+   */
+  @NotNull
+  public static String hashSettings(@NotNull final String... contents) throws IOException {
+    final MessageDigest digest = createDigest();
+    for (final String content : contents) {
+      digest.update(content.getBytes(StandardCharsets.UTF_8));
+      digest.update((byte) 0);
+    }
+    return BaseEncoding.base16().lowerCase().encode(digest.digest());
+  }
+
+  /**
+   * Creates a SHA-1 digest.
+   *
+   * @return the digest
+   * @throws IOException if SHA-1 is not available
+   */
+  @NotNull
+  public static MessageDigest createDigest() throws IOException {
+    try {
+      return MessageDigest.getInstance("SHA-1");
+    } catch (final NoSuchAlgorithmException e) {
+      throw new IOException(e);
+    }
+  }
+
+  /**
+   * Checks whether the pack described by this manifest is still up to date.
+   *
+   * @param pack the pack
+   * @param settings the hash of the current pack settings
+   * @param current the current input files
+   * @return whether the pack does not have to be built again
+   */
+  public boolean isUpToDate(
+      @NotNull final Path pack,
+      @NotNull final String settings,
+      @NotNull final List<Input> current) {
+    if (!this.settings.equals(settings) || !inputs.equals(current)) {
+      return false;
+    }
+    try {
+      final BasicFileAttributes attributes = Files.readAttributes(pack, BasicFileAttributes.class);
+      return attributes.size() == size && attributes.lastModifiedTime().toMillis() == modified;
+    } catch (final IOException e) {
+      return false;
+    }
+  }
+
+  /**
+   * Gets the SHA-1 hash of the pack.
+   *
+   * @return the hash
+   */
+  public byte @NotNull [] getHash() {
+    return BaseEncoding.base16().lowerCase().decode(hash);
+  }
+
+  /**
+   * Gets the input files.
+   *
+   * @return the inputs
+   */
+  public List<Input> getInputs() {
+    return inputs;
+  }
+
+  /** An input file of a pack. */
+  public static final class Input {
+
+    private final String path;
+    private final long size;
+    private final long modified;
+    private final String sha1;
+    private final long crc;
+
+    private Input(
+        @NotNull final String path,
+        final long size,
+        final long modified,
+        @NotNull final String sha1,
+        final long crc) {
+      this.path = path;
+      this.size = size;
+      this.modified = modified;
+      this.sha1 = sha1;
+      this.crc = crc;
+    }
+
+    /**
+     * Gets the size of the file.
+     *
+     * @return the size in bytes
+     */
+    public long getSize() {
+      return size;
+    }
+
+    /**
+     * Gets the CRC-32 checksum of the file, which is needed to store it uncompressed in a zip.
+     *
+     * @return the checksum
+     */
+    public long getCrc() {
+      return crc;
+    }
+
+    /**
+     * Gets the SHA-1 hash of the file.
+     *
+     * @return the hash
+     */
+    public String getHash() {
+      return sha1;
+    }
+
+    @Override
+    public boolean equals(final Object obj) {
+      if (!(obj instanceof Input)) {
+        return false;
+      }
+      final Input input = (Input) obj;
+      return path.equals(input.path)
+          && size == input.size
+          && modified == input.modified
+          && sha1.equals(input.sha1)
+          && crc == input.crc;
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(path, size, modified, sha1, crc);
+    }
+  }
+}
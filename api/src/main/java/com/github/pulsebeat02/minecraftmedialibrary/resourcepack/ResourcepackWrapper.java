@@ -30,21 +30,18 @@ import com.github.pulsebeat02.minecraftmedialibrary.json.GsonHandler;
 import com.github.pulsebeat02.minecraftmedialibrary.logger.Logger;
 import com.github.pulsebeat02.minecraftmedialibrary.utility.ResourcepackUtilities;
 import com.google.common.collect.ImmutableMap;
-import com.google.gson.JsonArray;
 import com.google.gson.JsonObject;
 import org.bukkit.configuration.serialization.ConfigurationSerializable;
 import org.bukkit.util.NumberConversions;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
-import java.io.FileOutputStream;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.LinkedHashMap;
 import java.util.Map;
-import java.util.zip.ZipEntry;
-import java.util.zip.ZipOutputStream;
 
 /**
  * The resourcepack wrapper which can be used to wrap sound files and be hosted as a file. It has
@@ -59,6 +56,7 @@ public class ResourcepackWrapper implements PackHolder, ConfigurationSerializabl
   private final Path icon;
   private final String description;
   private final int packFormat;
+  private volatile byte[] hash;
 
   /**
    * Instantiates a new Resourcepack wrapper.
@@ -199,42 +197,24 @@ public class ResourcepackWrapper implements PackHolder, ConfigurationSerializabl
         "pack-format", packFormat);
   }
 
-  /** Builds the resourcepack based on values. */
+  /**
+   * Builds the resourcepack based on values. The sound and icon are streamed into the pack, and
+   * the build is skipped if neither they nor the values changed since the last build.
+   */
   @Override
   public void buildResourcePack() {
     onResourcepackBuild();
     Logger.info("Wrapping Resourcepack...");
     try {
-
-      final Path zipFile = Paths.get(path);
-      if (!Files.exists(zipFile)) {
-        Files.createFile(zipFile);
-      }
-
-      final ZipOutputStream out = new ZipOutputStream(new FileOutputStream(zipFile.toFile()));
-      final ZipEntry config = new ZipEntry("pack.mcmeta");
-      out.putNextEntry(config);
-      out.write(getPackJson().getBytes());
-      out.closeEntry();
-
-      final ZipEntry sound = new ZipEntry("assets/minecraft/sounds.json");
-      out.putNextEntry(sound);
-      out.write(getSoundJson().getBytes());
-      out.closeEntry();
-
-      final ZipEntry soundFile = new ZipEntry("assets/minecraft/sounds/audio.ogg");
-      out.putNextEntry(soundFile);
-      out.write(Files.readAllBytes(Paths.get(audio.toAbsolutePath().toString())));
-      out.closeEntry();
-
+      final Map<String, String> generated = new LinkedHashMap<>();
+      generated.put("pack.mcmeta", getPackJson());
+      generated.put("assets/minecraft/sounds.json", getSoundJson());
+      final Map<String, Path> files = new LinkedHashMap<>();
+      files.put("assets/minecraft/sounds/audio.ogg", audio);
       if (icon != null && Files.exists(icon)) {
-        final ZipEntry iconFile = new ZipEntry("pack.png");
-        out.putNextEntry(iconFile);
-        out.write(Files.readAllBytes(Paths.get(icon.toAbsolutePath().toString())));
-        out.closeEntry();
+        files.put("pack.png", icon);
       }
-
-      out.close();
+      hash = PackBuilder.build(Paths.get(path), generated, files);
       Logger.info("Finished Wrapping Resourcepack!");
     } catch (final IOException e) {
       Logger.error("There was an error while wrapping the resourcepack...");
@@ -262,18 +242,15 @@ public class ResourcepackWrapper implements PackHolder, ConfigurationSerializabl
   }
 
   /**
-   * Gets pack sound JSON.
+   * Gets pack sound JSON. The audio is streamed, so the client doesn't decode it whole before
+   * playing it.
    *
    * @return sound json
    */
   @NotNull
   private String getSoundJson() {
-    final JsonObject category = new JsonObject();
     final JsonObject type = new JsonObject();
-    final JsonArray sounds = new JsonArray();
-    sounds.add("audio");
-    category.add("sounds", sounds);
-    type.add(soundName, category);
+    type.add(soundName, ResourcepackUtilities.createStreamedSound("audio"));
     return GsonHandler.getGson().toJson(type);
   }
 
@@ -315,6 +292,16 @@ public class ResourcepackWrapper implements PackHolder, ConfigurationSerializabl
     return soundName;
   }
 
+  /**
+   * Gets the SHA-1 hash of the pack, which players use to check whether they already downloaded
+   * it.
+   *
+   * @return the hash, or null if the pack wasn't built yet
+   */
+  public byte @Nullable [] getHash() {
+    return hash;
+  }
+
   /**
    * Gets path.
    *
@@ -0,0 +1,509 @@
+/*............................................................................................
+. Copyright © 2021 Brandon Li                                                               .
+.                                                                                           .
+. Permission is hereby granted, free of charge, to any person obtaining a copy of this      .
+. software and associated documentation files (the “Software”), to deal in the Software     .
+. without restriction, including without limitation the rights to use, copy, modify, merge, .
+. publish, distribute, sublicense, and/or sell copies of the Software, and to permit        .
+. persons to whom the Software is furnished to do so, subject to the following conditions:  .
+.                                                                                           .
+. The above copyright notice and this permission notice shall be included in all copies     .
+. or substantial portions of the Software.                                                  .
+.                                                                                           .
+. THE SOFTWARE IS PROVIDED “AS IS”, WITHOUT WARRANTY OF ANY KIND,                           .
+.  EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF                       .
+.   MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND                                   .
+.   NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS                     .
+.   BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN                      .
+.   ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN                       .
+.   CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE                        .
+.   SOFTWARE.                                                                               .
+............................................................................................*/
+
+package com.github.pulsebeat02.minecraftmedialibrary.resourcepack;
+
+import com.github.pulsebeat02.minecraftmedialibrary.MediaLibrary;
+import com.github.pulsebeat02.minecraftmedialibrary.json.GsonHandler;
+import com.github.pulsebeat02.minecraftmedialibrary.logger.Logger;
+import com.github.pulsebeat02.minecraftmedialibrary.utility.ResourcepackUtilities;
+import com.google.common.base.Preconditions;
+import com.google.gson.JsonObject;
+import org.bukkit.entity.Player;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+/**
+ * Manages a resourcepack holding many audio tracks, each under its own sound event, instead of a
+ * pack holding a single sound which has to be replaced for every video. Tracks can be added ahead
+ * of time, for example for a playlist, and the least recently used tracks are evicted once the
+ * tracks exceed the capacity of the pack. Players are only sent the pack if they don't have its
+ * current version yet, so switching between tracks which are already in the pack does not make
+ * clients download and reload their resources again.
+ */
+public class TrackPackManager {
+
+  /** The default capacity of the tracks in bytes. */
+  public static final long DEFAULT_CAPACITY = 100L * 1024 * 1024;
+
+  private static final Pattern INVALID_CHARACTERS = Pattern.compile("[^a-z0-9_-]");
+
+  private final String namespace;
+  private final String path;
+  private final String description;
+  private final int packFormat;
+  private final long capacity;
+  private final Map<String, Track> tracks;
+  private final Map<UUID, Session> sessions;
+  private volatile byte[] hash;
+  private boolean dirty;
+
+  /**
+   * Instantiates a new TrackPackManager.
+   *
+   * @param library the library
+   * @param path the path of the pack
+   * @param description the description of the pack
+   * @param packFormat the pack format
+   * @param capacity the capacity of the tracks in bytes
+   */
+  public TrackPackManager(
+      @NotNull final MediaLibrary library,
+      @NotNull final String path,
+      @NotNull final String description,
+      final int packFormat,
+      final long capacity) {
+    Preconditions.checkArgument(
+        ResourcepackUtilities.validatePackFormat(packFormat),
+        String.format("Invalid Pack Format Exception (%d)", packFormat));
+    Preconditions.checkArgument(capacity > 0, "Capacity must be greater than 0!");
+    namespace = sanitize(library.getPlugin().getName().toLowerCase());
+    this.path = path;
+    this.description = description;
+    this.packFormat = packFormat;
+    this.capacity = capacity;
+    tracks = new LinkedHashMap<>(16, 0.75F, true);
+    sessions = new ConcurrentHashMap<>();
+    dirty = true;
+  }
+
+  /**
+   * Instantiates a new TrackPackManager with the default capacity, stored in the HTTP folder of
+   * the plugin.
+   *
+   * @param library the library
+   */
+  public TrackPackManager(@NotNull final MediaLibrary library) {
+    this(
+        library,
+        String.format(
+            "%s/mml/http/resourcepack.zip",
+            library.getPlugin().getDataFolder().getAbsolutePath()),
+        "MinecraftMediaLibrary Tracks",
+        6,
+        DEFAULT_CAPACITY);
+  }
+
+  /**
+   * Replaces every character which may not be used in a sound event.
+   *
+   * @param name the name
+   * @return the sanitized name
+   */
+  @NotNull
+  private static String sanitize(@NotNull final String name) {
+    return INVALID_CHARACTERS.matcher(name).replaceAll("_");
+  }
+
+  /**
+   * Adds a track to the pack, or marks it as recently used if it is already part of it. The pack
+   * has to be built with {@link #build()} before players can hear a new track.
+   *
+   * @param key the unique key of the track, such as the id of a video
+   * @param audio the audio file, which must be in the OGG format
+   * @return the track
+   * @throws IOException if the audio file couldn't be read
+   */
+  @NotNull
+  public synchronized Track addTrack(@NotNull final String key, @NotNull final Path audio)
+      throws IOException {
+    return addTrack(key, Collections.singletonList(audio), 0L);
+  }
+
+  /**
+   * Adds a track which was split into segments of a fixed length, such as by the extractor, to the
+   * pack. Every segment gets its own sound event, which a {@link TrackPlayer} chains on a schedule,
+   * so starting or seeking a long track only has the client load the segment being played.
+   *
+   * @param key the unique key of the track, such as the id of a video
+   * @param segments the segments of the audio in order, which must be in the OGG format
+   * @param segmentLength the length of every segment but the last in milliseconds, or 0 if the
+   *     track consists of a single file
+   * @return the track
+   * @throws IOException if the audio files couldn't be read
+   */
+  @NotNull
+  public synchronized Track addTrack(
+      @NotNull final String key, @NotNull final List<Path> segments, final long segmentLength)
+      throws IOException {
+    Preconditions.checkArgument(!segments.isEmpty(), "A track needs at least one audio file!");
+    Preconditions.checkArgument(
+        segments.size() == 1 || segmentLength > 0, "Segments must have a length!");
+    final List<Path> files = new ArrayList<>(segments.size());
+    long size = 0L;
+    for (final Path segment : segments) {
+      final Path file = segment.toAbsolutePath().normalize();
+      size += Files.size(file);
+      files.add(file);
+    }
+    final Track existing = tracks.get(key);
+    if (existing != null && existing.segments.equals(files)) {
+      return existing;
+    }
+    String name = sanitize(key.toLowerCase());
+    if (!name.equals(key)) {
+      name = String.format("%s_%08x", name, key.hashCode());
+    }
+    final Track track =
+        new Track(
+            key,
+            String.format("%s.track.%s", namespace, name),
+            files,
+            files.size() == 1 ? 0L : segmentLength,
+            size);
+    tracks.put(key, track);
+    dirty = true;
+    return track;
+  }
+
+  /**
+   * Adds every track of a playlist to the pack and builds it, so that the whole playlist can be
+   * played after players downloaded the pack once.
+   *
+   * @param playlist the keys of the tracks mapped to their audio files
+   * @return the SHA-1 hash of the pack
+   * @throws IOException if the pack couldn't be built
+   */
+  public synchronized byte @NotNull [] prebuild(@NotNull final Map<String, Path> playlist)
+      throws IOException {
+    for (final Map.Entry<String, Path> entry : playlist.entrySet()) {
+      addTrack(entry.getKey(), entry.getValue());
+    }
+    return build();
+  }
+
+  /**
+   * Gets a track and marks it as recently used.
+   *
+   * @param key the key of the track
+   * @return the track, or null if it isn't part of the pack
+   */
+  @Nullable
+  public synchronized Track getTrack(@NotNull final String key) {
+    return tracks.get(key);
+  }
+
+  /**
+   * Removes a track from the pack. The pack has to be built again afterwards.
+   *
+   * @param key the key of the track
+   * @return whether the track was part of the pack
+   */
+  public synchronized boolean removeTrack(@NotNull final String key) {
+    final boolean removed = tracks.remove(key) != null;
+    dirty |= removed;
+    return removed;
+  }
+
+  /**
+   * Gets the tracks of the pack, from the least to the most recently used.
+   *
+   * @return the tracks
+   */
+  @NotNull
+  public synchronized List<Track> getTracks() {
+    return new ArrayList<>(tracks.values());
+  }
+
+  /**
+   * Builds the pack if tracks were added or removed since the last build. The least recently used
+   * tracks are evicted first if the tracks exceed the capacity, but the most recently used track is
+   * always kept.
+   *
+   * @return the SHA-1 hash of the pack
+   * @throws IOException if the pack couldn't be built
+   */
+  public synchronized byte @NotNull [] build() throws IOException {
+    if (!dirty && hash != null) {
+      return hash;
+    }
+    long size = 0L;
+    for (final Track track : tracks.values()) {
+      size += track.size;
+    }
+    final Iterator<Track> iterator = tracks.values().iterator();
+    while (size > capacity && tracks.size() > 1 && iterator.hasNext()) {
+      final Track eldest = iterator.next();
+      size -= eldest.size;
+      iterator.remove();
+      Logger.info(String.format("Evicted track %s from the resourcepack", eldest.key));
+    }
+
+    final Map<String, String> generated = new LinkedHashMap<>();
+    generated.put("pack.mcmeta", getPackJson());
+    generated.put("assets/minecraft/sounds.json", getSoundJson());
+    final Map<String, Path> files = new LinkedHashMap<>();
+    for (final Track track : tracks.values()) {
+      for (int i = 0; i < track.sounds.size(); i++) {
+        files.put(
+            String.format("assets/minecraft/sounds/%s.ogg", track.getFile(i)),
+            track.segments.get(i));
+      }
+    }
+    hash = PackBuilder.build(Paths.get(path), generated, files);
+    dirty = false;
+    Logger.info(
+        String.format("Built resourcepack with %d tracks (%d bytes)", tracks.size(), size));
+    return hash;
+  }
+
+  /**
+   * Sends the pack to every player who doesn't have its current version yet. Players keep the
+   * pack until they leave, so it is sent once per session unless tracks were added.
+   *
+   * @param players the players
+   * @param url the url of the pack
+   * @return the number of players the pack was sent to
+   */
+  public int send(@NotNull final Collection<? extends Player> players, @NotNull final String url) {
+    final byte[] current = hash;
+    Preconditions.checkState(current != null, "The resourcepack wasn't built yet!");
+    int sent = 0;
+    for (final Player player : players) {
+      if (hasPack(player)) {
+        continue;
+      }
+      player.setResourcePack(url, current);
+      sessions.put(player.getUniqueId(), new Session(player.getEntityId(), current));
+      sent++;
+    }
+    return sent;
+  }
+
+  /**
+   * Checks whether a player was sent the current version of the pack during their session.
+   *
+   * @param player the player
+   * @return whether the player has the pack
+   */
+  public boolean hasPack(@NotNull final Player player) {
+    final Session session = sessions.get(player.getUniqueId());
+    return session != null
+        && session.entityId == player.getEntityId()
+        && Arrays.equals(session.hash, hash);
+  }
+
+  /**
+   * Gets the pack JSON.
+   *
+   * @return pack json
+   */
+  @NotNull
+  private String getPackJson() {
+    final JsonObject mcmeta = new JsonObject();
+    final JsonObject pack = new JsonObject();
+    pack.addProperty("pack_format", packFormat);
+    pack.addProperty("description", description);
+    mcmeta.add("pack", pack);
+    return GsonHandler.getGson().toJson(mcmeta);
+  }
+
+  /**
+   * Gets the sound JSON with an event for every track, or for every segment of segmented tracks.
+   * The sounds are streamed, so the client doesn't decode a whole track into memory before playing
+   * it.
+   *
+   * @return sound json
+   */
+  @NotNull
+  private String getSoundJson() {
+    final JsonObject type = new JsonObject();
+    for (final Track track : tracks.values()) {
+      for (int i = 0; i < track.sounds.size(); i++) {
+        type.add(track.sounds.get(i), ResourcepackUtilities.createStreamedSound(track.getFile(i)));
+      }
+    }
+    return GsonHandler.getGson().toJson(type);
+  }
+
+  /**
+   * Gets the SHA-1 hash of the pack.
+   *
+   * @return the hash, or null if the pack wasn't built yet
+   */
+  public byte @Nullable [] getHash() {
+    return hash;
+  }
+
+  /**
+   * Gets the path of the pack.
+   *
+   * @return the path
+   */
+  public String getPath() {
+    return path;
+  }
+
+  /**
+   * Gets the capacity of the tracks.
+   *
+   * @return the capacity in bytes
+   */
+  public long getCapacity() {
+    return capacity;
+  }
+
+  /** A track of the pack. */
+  public static final class Track {
+
+    private final String key;
+    private final String sound;
+    private final List<Path> segments;
+    private final List<String> sounds;
+    private final long segmentLength;
+    private final long size;
+
+    private Track(
+        @NotNull final String key,
+        @NotNull final String sound,
+        @NotNull final List<Path> segments,
+        final long segmentLength,
+        final long size) {
+      this.key = key;
+      this.sound = sound;
+      this.segments = Collections.unmodifiableList(segments);
+      this.segmentLength = segmentLength;
+      this.size = size;
+      if (segments.size() == 1) {
+        sounds = Collections.singletonList(sound);
+      } else {
+        final List<String> names = new ArrayList<>(segments.size());
+        for (int i = 0; i < segments.size(); i++) {
+          names.add(String.format("%s.%d", sound, i));
+        }
+        sounds = Collections.unmodifiableList(names);
+      }
+    }
+
+    /**
+     * Gets the path of the sound file of a segment within the sounds folder of the pack, without
+     * extension.
+     *
+     * @param segment the segment
+     * @return the file
+     */
+    @NotNull
+    private String getFile(final int segment) {
+      return sounds.get(segment).replace('.', '/');
+    }
+
+    /**
+     * Gets the key of the track.
+     *
+     * @return the key
+     */
+    public String getKey() {
+      return key;
+    }
+
+    /**
+     * Gets the sound event which plays the track, or the first segment of a segmented track.
+     *
+     * @return the sound
+     */
+    public String getSound() {
+      return sounds.get(0);
+    }
+
+    /**
+     * Gets the sound events of the segments of the track in order.
+     *
+     * @return the sounds
+     */
+    public List<String> getSounds() {
+      return sounds;
+    }
+
+    /**
+     * Gets the audio file of the track, or of the first segment of a segmented track.
+     *
+     * @return the audio file
+     */
+    public Path getAudio() {
+      return segments.get(0);
+    }
+
+    /**
+     * Gets the audio files of the segments of the track in order.
+     *
+     * @return the audio files
+     */
+    public List<Path> getSegments() {
+      return segments;
+    }
+
+    /**
+     * Gets the length of every segment but the last.
+     *
+     * @return the length in milliseconds, or 0 if the track isn't segmented
+     */
+    public long getSegmentLength() {
+      return segmentLength;
+    }
+
+    /**
+     * Checks whether the track was split into segments.
+     *
+     * @return whether the track is segmented
+     */
+    public boolean isSegmented() {
+      return sounds.size() > 1;
+    }
+
+    /**
+     * Gets the size of the audio files of the track.
+     *
+     * @return the size in bytes
+     */
+    public long getSize() {
+      return size;
+    }
+  }
+
+  /** The version of the pack a player was sent during a session. */
+  private static final class Session {
+
+    private final int entityId;
+    private final byte[] hash;
+
+    private Session(final int entityId, final byte @NotNull [] hash) {
+      this.entityId = entityId;
+      this.hash = hash;
+    }
+  }
+}
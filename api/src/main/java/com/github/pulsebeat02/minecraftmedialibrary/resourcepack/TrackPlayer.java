@@ -0,0 +1,201 @@
+/*............................................................................................
+. Copyright © 2021 Brandon Li                                                               .
+.                                                                                           .
+. Permission is hereby granted, free of charge, to any person obtaining a copy of this      .
+. software and associated documentation files (the “Software”), to deal in the Software     .
+. without restriction, including without limitation the rights to use, copy, modify, merge, .
+. publish, distribute, sublicense, and/or sell copies of the Software, and to permit        .
+. persons to whom the Software is furnished to do so, subject to the following conditions:  .
+.                                                                                           .
+. The above copyright notice and this permission notice shall be included in all copies     .
+. or substantial portions of the Software.                                                  .
+.                                                                                           .
+. THE SOFTWARE IS PROVIDED “AS IS”, WITHOUT WARRANTY OF ANY KIND,                           .
+.  EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF                       .
+.   MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND                                   .
+.   NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS                     .
+.   BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN                      .
+.   ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN                       .
+.   CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE                        .
+.   SOFTWARE.                                                                               .
+............................................................................................*/
+
+package com.github.pulsebeat02.minecraftmedialibrary.resourcepack;
+
+import org.bukkit.Bukkit;
+import org.bukkit.entity.Player;
+import org.bukkit.plugin.Plugin;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Plays a segmented {@link TrackPackManager.Track} by playing the sound event of each segment when
+ * the previous one ends. The segments are scheduled from the instant the track started rather than
+ * from each other, so delays of the scheduler don't add up over a long track. The deadlines are
+ * kept by a scheduler thread, but the sounds are played and stopped on the server thread, as
+ * players may not be accessed from other threads.
+ *
+ * <p>Sounds can't be started part way through, so the player can only start at the beginning of a
+ * segment. Starting at a position plays the segment which contains it from its beginning.
+ */
+public final class TrackPlayer {
+
+  private static final ScheduledExecutorService SCHEDULER;
+
+  static {
+    SCHEDULER =
+        Executors.newSingleThreadScheduledExecutor(
+            r -> {
+              final Thread thread = new Thread(r, "MML Track Scheduler");
+              thread.setDaemon(true);
+              return thread;
+            });
+  }
+
+  private final Plugin plugin;
+  private final TrackPackManager.Track track;
+  private final List<String> sounds;
+  private final long length;
+  private List<Player> players;
+  private ScheduledFuture<?> task;
+  private volatile long start;
+  private int segment;
+  private int session;
+
+  /**
+   * Instantiates a new TrackPlayer.
+   *
+   * @param plugin the plugin scheduling the sounds on the server thread
+   * @param track the track
+   */
+  public TrackPlayer(@NotNull final Plugin plugin, @NotNull final TrackPackManager.Track track) {
+    this.plugin = plugin;
+    this.track = track;
+    sounds = track.getSounds();
+    length = track.getSegmentLength();
+  }
+
+  /**
+   * Starts playing the track from the beginning.
+   *
+   * @param players the players to play the track for
+   */
+  public void start(@NotNull final Collection<? extends Player> players) {
+    start(players, 0L);
+  }
+
+  /**
+   * Starts playing the track at the segment which contains the position.
+   *
+   * @param players the players to play the track for
+   * @param position the position in milliseconds
+   * @return the position the track actually started at in milliseconds
+   */
+  public synchronized long start(
+      @NotNull final Collection<? extends Player> players, final long position) {
+    stop();
+    final int index =
+        length > 0 ? (int) Math.min(Math.max(position, 0L) / length, sounds.size() - 1) : 0;
+    final long offset = index * length;
+    this.players = new ArrayList<>(players);
+    start = System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(offset);
+    play(index, session);
+    return offset;
+  }
+
+  /**
+   * Plays a segment for the players and schedules the next one. A segment which was already
+   * scheduled when the track was stopped or started again belongs to an earlier session and is
+   * ignored, as cancelling it doesn't stop a task which is waiting for the monitor.
+   *
+   * @param index the index of the segment
+   * @param session the session the segment was scheduled in
+   */
+  private synchronized void play(final int index, final int session) {
+    if (players == null || session != this.session) {
+      return;
+    }
+    final List<Player> targets = players;
+    final String sound = sounds.get(index);
+    runOnServerThread(
+        () -> {
+          synchronized (this) {
+            if (players != targets) {
+              return;
+            }
+          }
+          for (final Player p : targets) {
+            if (p.isOnline()) {
+              p.playSound(p.getLocation(), sound, 1.0F, 1.0F);
+            }
+          }
+        });
+    segment = index;
+    if (index + 1 < sounds.size()) {
+      final long next = start + TimeUnit.MILLISECONDS.toNanos((index + 1) * length);
+      task =
+          SCHEDULER.schedule(
+              () -> play(index + 1, session), next - System.nanoTime(), TimeUnit.NANOSECONDS);
+    } else {
+      task = null;
+    }
+  }
+
+  /** Stops the track for the players it was started for. */
+  public synchronized void stop() {
+    session++;
+    if (task != null) {
+      task.cancel(false);
+      task = null;
+    }
+    if (players != null) {
+      final List<Player> targets = players;
+      final String sound = sounds.get(segment);
+      runOnServerThread(
+          () -> {
+            for (final Player p : targets) {
+              p.stopSound(sound);
+            }
+          });
+      players = null;
+    }
+  }
+
+  /**
+   * Runs a task on the server thread, right away if it is called from there.
+   *
+   * @param task the task
+   */
+  private void runOnServerThread(@NotNull final Runnable task) {
+    if (Bukkit.isPrimaryThread()) {
+      task.run();
+    } else if (plugin.isEnabled()) {
+      Bukkit.getScheduler().runTask(plugin, task);
+    }
+  }
+
+  /**
+   * Gets the position of the track.
+   *
+   * @return the position in milliseconds, or -1 if the track isn't playing
+   */
+  public synchronized long getPosition() {
+    return players == null ? -1L : TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+  }
+
+  /**
+   * Gets the track being played.
+   *
+   * @return the track
+   */
+  public TrackPackManager.Track getTrack() {
+    return track;
+  }
+}
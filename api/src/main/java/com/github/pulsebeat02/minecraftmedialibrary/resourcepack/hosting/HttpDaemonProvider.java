@@ -23,7 +23,10 @@
 package com.github.pulsebeat02.minecraftmedialibrary.resourcepack.hosting;
 
 import com.github.pulsebeat02.minecraftmedialibrary.exception.NetworkHttpException;
+import com.github.pulsebeat02.minecraftmedialibrary.http.AbstractHttpDaemonServer;
 import com.github.pulsebeat02.minecraftmedialibrary.http.HttpFileDaemonServer;
+import com.github.pulsebeat02.minecraftmedialibrary.http.HttpServerMode;
+import com.github.pulsebeat02.minecraftmedialibrary.http.NioHttpDaemonServer;
 import org.jetbrains.annotations.NotNull;
 
 import java.io.BufferedReader;
@@ -40,7 +43,7 @@ import java.nio.file.Paths;
 public class HttpDaemonProvider implements HostingProvider {
 
   private final int port;
-  private HttpFileDaemonServer daemon;
+  private AbstractHttpDaemonServer daemon;
   private String serverIP;
 
   /**
@@ -50,10 +53,22 @@ public class HttpDaemonProvider implements HostingProvider {
    * @param port the port
    */
   public HttpDaemonProvider(@NotNull final String path, final int port) {
+    this(path, port, HttpServerMode.BLOCKING);
+  }
+
+  /**
+   * Instantiates a new Http daemon provider with a specific server mode.
+   *
+   * @param path the path
+   * @param port the port
+   * @param mode the server mode
+   */
+  public HttpDaemonProvider(
+      @NotNull final String path, final int port, @NotNull final HttpServerMode mode) {
     this.port = port;
     try {
       serverIP = getPublicIP();
-      daemon = new HttpFileDaemonServer(port, path);
+      daemon = createDaemon(path, port, mode);
     } catch (final IOException e) {
       e.printStackTrace();
     }
@@ -67,15 +82,40 @@ public class HttpDaemonProvider implements HostingProvider {
    * @param ip the ip address
    */
   public HttpDaemonProvider(@NotNull final String path, final int port, @NotNull final String ip) {
+    this(path, port, ip, HttpServerMode.BLOCKING);
+  }
+
+  /**
+   * Instantiates a new Http daemon provider with a specific server mode.
+   *
+   * @param path the path
+   * @param port the port
+   * @param ip the ip address
+   * @param mode the server mode
+   */
+  public HttpDaemonProvider(
+      @NotNull final String path,
+      final int port,
+      @NotNull final String ip,
+      @NotNull final HttpServerMode mode) {
     this.port = port;
     serverIP = ip;
     try {
-      daemon = new HttpFileDaemonServer(port, path);
+      daemon = createDaemon(path, port, mode);
     } catch (final IOException e) {
       e.printStackTrace();
     }
   }
 
+  @NotNull
+  private static AbstractHttpDaemonServer createDaemon(
+      @NotNull final String path, final int port, @NotNull final HttpServerMode mode)
+      throws IOException {
+    return mode == HttpServerMode.NIO
+        ? new NioHttpDaemonServer(port, path)
+        : new HttpFileDaemonServer(port, path);
+  }
+
   /** Start server. */
   public void startServer() {
     daemon.start();
@@ -149,7 +189,7 @@ public class HttpDaemonProvider implements HostingProvider {
    *
    * @return the daemon
    */
-  public HttpFileDaemonServer getDaemon() {
+  public AbstractHttpDaemonServer getDaemon() {
     return daemon;
   }
 
@@ -350,7 +350,7 @@ public final class DependencyUtilities {
   public static File downloadFile(@NotNull final Path p, @NotNull final String url)
       throws IOException {
     Preconditions.checkArgument(!Strings.isNullOrEmpty(url), "URL cannot be empty or null!");
-    Logger.info(String.format("Downloading Dependency at %s into folder %s", url, p));
+    Logger.info(() -> String.format("Downloading Dependency at %s into folder %s", url, p));
     final File file = p.toFile();
     try (final InputStream inputStream = new URL(url).openStream();
         final ReadableByteChannel readableByteChannel = Channels.newChannel(inputStream);
@@ -374,7 +374,7 @@ public final class DependencyUtilities {
       @NotNull final Path p, @NotNull final String url, @NotNull final LongConsumer progress)
       throws IOException {
     Preconditions.checkArgument(!Strings.isNullOrEmpty(url), "URL cannot be empty or null!");
-    Logger.info(String.format("Downloading Dependency at %s into folder %s", url, p));
+    Logger.info(() -> String.format("Downloading Dependency at %s into folder %s", url, p));
     try (final BufferedInputStream in = new BufferedInputStream(new URL(url).openStream());
         final FileOutputStream fileOutputStream = new FileOutputStream(String.valueOf(p))) {
       final byte[] dataBuffer = new byte[8192];
@@ -416,13 +416,13 @@ public final class DependencyUtilities {
   public static void loadDependency(@NotNull final File file) throws IOException {
     Preconditions.checkArgument(
         file.exists(), String.format("Dependency File %s doesn't exist!", file.getAbsolutePath()));
-    Logger.info(String.format("Loading JAR Dependency at: %s", file.getAbsolutePath()));
+    Logger.info(() -> String.format("Loading JAR Dependency at: %s", file.getAbsolutePath()));
     try {
       ADD_URL_METHOD.invoke(CLASSLOADER, file.toURI().toURL());
     } catch (final IllegalAccessException | InvocationTargetException e) {
       e.printStackTrace();
     }
-    Logger.info(String.format("Finished Loading Dependency %s", file.getName()));
+    Logger.info(() -> String.format("Finished Loading Dependency %s", file.getName()));
   }
 
   /**
@@ -22,6 +22,7 @@
 
 package com.github.pulsebeat02.minecraftmedialibrary.utility;
 
+import com.github.pulsebeat02.minecraftmedialibrary.cache.MediaCache;
 import com.github.pulsebeat02.minecraftmedialibrary.logger.Logger;
 import com.google.common.base.Preconditions;
 import com.google.common.base.Strings;
@@ -34,7 +35,10 @@ import java.net.URL;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
 import java.util.UUID;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 /**
  * Special file utilities used throughout the library and also open to users. Used for easier file
@@ -42,6 +46,13 @@ import java.util.UUID;
  */
 public final class FileUtilities {
 
+  private static final Pattern IMAGE_EXTENSION;
+
+  static {
+    IMAGE_EXTENSION =
+        Pattern.compile("\\.(png|jpe?g|gif|bmp|webp)(?:[?#].*)?$", Pattern.CASE_INSENSITIVE);
+  }
+
   private FileUtilities() {}
 
   /**
@@ -63,6 +74,48 @@ public final class FileUtilities {
     return new File(filePath);
   }
 
+  /**
+   * Download image file from URL through a media cache, so every image is only downloaded once. The
+   * image is copied out of the cache into the folder, as images are kept for as long as they are
+   * shown on a map while the cache may evict them. The file keeps the extension of the URL, or png
+   * if it has none.
+   *
+   * @param url the url
+   * @param cache the media cache
+   * @param folder the folder the image is copied into
+   * @return the file
+   */
+  @NotNull
+  public static File downloadImageFile(
+      @NotNull final String url, @NotNull final MediaCache cache, @NotNull final Path folder) {
+    Preconditions.checkArgument(!Strings.isNullOrEmpty(url), "URL cannot be null or empty!");
+    final String key = MediaCache.getKey(url);
+    final Matcher matcher = IMAGE_EXTENSION.matcher(url);
+    final String extension = matcher.find() ? matcher.group(1).toLowerCase() : "png";
+    final Path file = folder.resolve(String.format("%s.%s", key, extension));
+    if (Files.exists(file)) {
+      return file.toFile();
+    }
+    try (final MediaCache.Lease lease =
+        cache.get(
+            key,
+            String.format("image.%s", extension),
+            url,
+            target -> {
+              try (final InputStream in = new URL(url).openStream()) {
+                Files.copy(in, target);
+              }
+            })) {
+      Files.createDirectories(folder);
+      final Path part = file.resolveSibling(String.format("%s.part", file.getFileName()));
+      Files.copy(lease.getPath(), part, StandardCopyOption.REPLACE_EXISTING);
+      Files.move(part, file, StandardCopyOption.REPLACE_EXISTING);
+    } catch (final IOException e) {
+      e.printStackTrace();
+    }
+    return file.toFile();
+  }
+
   /**
    * Creates new file with specified message when successful.
    *
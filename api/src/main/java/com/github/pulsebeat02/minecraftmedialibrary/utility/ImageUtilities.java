@@ -22,27 +22,23 @@
 
 package com.github.pulsebeat02.minecraftmedialibrary.utility;
 
+import com.github.pulsebeat02.minecraftmedialibrary.extractor.SegmentedTranscoder;
+import com.github.pulsebeat02.minecraftmedialibrary.frame.gif.GifDecoder;
 import com.sun.imageio.plugins.gif.GIFImageReader;
 import com.sun.imageio.plugins.gif.GIFImageReaderSpi;
 import org.apache.commons.io.FilenameUtils;
 import org.jetbrains.annotations.NotNull;
-import ws.schild.jave.Encoder;
-import ws.schild.jave.EncoderException;
-import ws.schild.jave.MultimediaObject;
-import ws.schild.jave.encode.AudioAttributes;
-import ws.schild.jave.encode.EncodingAttributes;
-import ws.schild.jave.encode.VideoAttributes;
-import ws.schild.jave.filters.ScaleFilter;
-import ws.schild.jave.filters.helpers.ForceOriginalAspectRatio;
 import ws.schild.jave.info.VideoSize;
+import ws.schild.jave.process.ProcessLocator;
+import ws.schild.jave.process.ffmpeg.DefaultFFMPEGLocator;
 
 import javax.imageio.ImageIO;
 import javax.imageio.ImageReader;
 import java.awt.image.BufferedImage;
 import java.io.IOException;
-import java.io.RandomAccessFile;
 import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 /**
@@ -58,7 +54,9 @@ public final class ImageUtilities {
    *
    * @param gif the gif file
    * @return a List of BufferedImage's containing the frames
+   * @deprecated loads every frame into memory and ignores disposal, use {@link GifDecoder}
    */
+  @Deprecated
   public static List<BufferedImage> getFrames(@NotNull final Path gif) {
     final List<BufferedImage> frames = new ArrayList<>();
     final ImageReader ir = new GIFImageReader(new GIFImageReaderSpi());
@@ -74,42 +72,61 @@ public final class ImageUtilities {
   }
 
   /**
-   * Gets the delay between each frame in the gif.
+   * Gets the delay of the first frame in the gif. Frames may have different delays, so use a {@link
+   * GifDecoder} to get the delay of every frame.
    *
    * @param file the gif file
-   * @return the delay between each frame
+   * @return the delay of the first frame in seconds
    */
   public static float getGifFrameDelay(@NotNull final Path file) {
-    try {
-      final RandomAccessFile raf = new RandomAccessFile(file.toFile(), "r");
-      raf.seek(324);
-      return raf.read() / 100f;
+    try (final GifDecoder decoder = new GifDecoder(file, 1, 1)) {
+      if (decoder.next()) {
+        return decoder.getDelay() / 1000f;
+      }
     } catch (final IOException e) {
       e.printStackTrace();
     }
     return -1f;
   }
 
+  /**
+   * Converts a gif into an mp4 video with the FFmpeg bundled with JAVE.
+   *
+   * @param gif the gif file
+   * @param output the video file
+   * @throws IOException if the file isn't a gif or couldn't be converted
+   */
   public static void convertGifToMpeg(@NotNull final Path gif, @NotNull final Path output)
       throws IOException {
-    if (!FilenameUtils.getExtension(gif.getFileName().toString()).equalsIgnoreCase("gfi")) {
+    convertGifToMpeg(gif, output, new DefaultFFMPEGLocator());
+  }
+
+  /**
+   * Converts a gif into an mp4 video. Long gifs are split into segments which are converted at the
+   * same time by a {@link SegmentedTranscoder}.
+   *
+   * @param gif the gif file
+   * @param output the video file
+   * @param locator the locator of the FFmpeg executable
+   * @throws IOException if the file isn't a gif or couldn't be converted
+   */
+  public static void convertGifToMpeg(
+      @NotNull final Path gif, @NotNull final Path output, @NotNull final ProcessLocator locator)
+      throws IOException {
+    if (!FilenameUtils.getExtension(gif.getFileName().toString()).equalsIgnoreCase("gif")) {
       throw new IOException(
           String.format("Invalid Image Format (Must be Gif) %s", gif.toAbsolutePath()));
     }
-    final AudioAttributes audio = new AudioAttributes();
-    audio.setVolume(0);
-    final VideoAttributes vAttrs = new VideoAttributes();
-    vAttrs.setPixelFormat("yuv420p");
-    vAttrs.addFilter(new ScaleFilter(VideoSize.vga, ForceOriginalAspectRatio.DISABLE));
-    final EncodingAttributes attrs = new EncodingAttributes();
-    attrs.setAudioAttributes(audio);
-    attrs.setVideoAttributes(vAttrs);
-    attrs.setOutputFormat("mp4");
-    try {
-      final Encoder encoder = new Encoder();
-      encoder.encode(new MultimediaObject(gif.toFile()), output.toFile(), attrs);
-    } catch (final EncoderException e) {
-      e.printStackTrace();
-    }
+    new SegmentedTranscoder(locator)
+        .transcode(
+            gif,
+            output,
+            "mp4",
+            Arrays.asList(
+                "-an",
+                "-vf",
+                String.format("scale=%d:%d", VideoSize.vga.getWidth(), VideoSize.vga.getHeight()),
+                "-pix_fmt",
+                "yuv420p"));
   }
 }
@@ -24,6 +24,8 @@ package com.github.pulsebeat02.minecraftmedialibrary.utility;
 
 import com.github.pulsebeat02.minecraftmedialibrary.logger.Logger;
 import com.github.pulsebeat02.minecraftmedialibrary.resourcepack.PackFormatVersioning;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
 import org.jetbrains.annotations.NotNull;
 
 import java.nio.file.Path;
@@ -70,4 +72,24 @@ public final class ResourcepackUtilities {
     }
     return name.endsWith(".png");
   }
+
+  /**
+   * Creates a sound event which streams a sound file. Streamed sounds are decoded while being
+   * played instead of loaded whole beforehand, which keeps the client from stalling and using a lot
+   * of memory on long audio.
+   *
+   * @param file the sound file within the sounds folder of the pack, without extension
+   * @return the sound event
+   */
+  @NotNull
+  public static JsonObject createStreamedSound(@NotNull final String file) {
+    final JsonObject sound = new JsonObject();
+    sound.addProperty("name", file);
+    sound.addProperty("stream", true);
+    final JsonArray sounds = new JsonArray();
+    sounds.add(sound);
+    final JsonObject category = new JsonObject();
+    category.add("sounds", sounds);
+    return category;
+  }
 }
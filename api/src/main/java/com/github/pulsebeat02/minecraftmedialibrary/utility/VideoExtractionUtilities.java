@@ -60,7 +60,7 @@ public final class VideoExtractionUtilities {
     final Matcher matcher = YOUTUBE_ID_PATTERN.matcher(url);
     if (matcher.find()) {
       final String id = matcher.group();
-      Logger.info(String.format("Found Video ID for %s(%s)", url, id));
+      Logger.info(() -> String.format("Found Video ID for %s(%s)", url, id));
       return Optional.of(id);
     }
     return Optional.empty();
@@ -27,11 +27,16 @@ import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
 import javax.imageio.ImageReader;
 import javax.imageio.stream.FileImageInputStream;
 import javax.imageio.stream.ImageInputStream;
 import java.awt.*;
 import java.awt.image.BufferedImage;
+import java.awt.image.DataBuffer;
+import java.awt.image.DataBufferByte;
+import java.awt.image.DataBufferInt;
+import java.awt.image.WritableRaster;
 import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.IOException;
@@ -63,13 +68,157 @@ public final class VideoUtilities {
   }
 
   /**
-   * Gets buffer from a BufferedImage.
+   * Gets buffer from a BufferedImage. Common raster layouts are read directly instead of converting
+   * every pixel through the ColorModel.
    *
    * @param image the image
    * @return the buffer
    */
   public static int @NotNull [] getBuffer(@NotNull final BufferedImage image) {
-    return image.getRGB(0, 0, image.getWidth(), image.getHeight(), null, 0, image.getWidth());
+    final int width = image.getWidth();
+    final int height = image.getHeight();
+    final WritableRaster raster = image.getRaster();
+    if (raster.getParent() != null) {
+      return image.getRGB(0, 0, width, height, null, 0, width);
+    }
+    final int length = width * height;
+    final int[] rgb = new int[length];
+    final DataBuffer buffer = raster.getDataBuffer();
+    switch (image.getType()) {
+      case BufferedImage.TYPE_INT_ARGB:
+        System.arraycopy(((DataBufferInt) buffer).getData(), 0, rgb, 0, length);
+        return rgb;
+      case BufferedImage.TYPE_INT_RGB:
+        {
+          final int[] data = ((DataBufferInt) buffer).getData();
+          for (int i = 0; i < length; i++) {
+            rgb[i] = 0xFF000000 | data[i];
+          }
+          return rgb;
+        }
+      case BufferedImage.TYPE_3BYTE_BGR:
+        {
+          final byte[] data = ((DataBufferByte) buffer).getData();
+          for (int i = 0, j = 0; i < length; i++, j += 3) {
+            rgb[i] =
+                0xFF000000
+                    | (data[j + 2] & 0xFF) << 16
+                    | (data[j + 1] & 0xFF) << 8
+                    | (data[j] & 0xFF);
+          }
+          return rgb;
+        }
+      case BufferedImage.TYPE_4BYTE_ABGR:
+        {
+          final byte[] data = ((DataBufferByte) buffer).getData();
+          for (int i = 0, j = 0; i < length; i++, j += 4) {
+            rgb[i] =
+                (data[j] & 0xFF) << 24
+                    | (data[j + 3] & 0xFF) << 16
+                    | (data[j + 2] & 0xFF) << 8
+                    | (data[j + 1] & 0xFF);
+          }
+          return rgb;
+        }
+      case BufferedImage.TYPE_BYTE_GRAY:
+        {
+          final byte[] data = ((DataBufferByte) buffer).getData();
+          for (int i = 0; i < length; i++) {
+            final int gray = data[i] & 0xFF;
+            rgb[i] = 0xFF000000 | gray << 16 | gray << 8 | gray;
+          }
+          return rgb;
+        }
+      default:
+        return image.getRGB(0, 0, width, height, null, 0, width);
+    }
+  }
+
+  /**
+   * Reads an image scaled down to the given size. The image is subsampled while decoding so large
+   * images are never decoded at full resolution, and then area averaged to the exact size.
+   *
+   * @param file the image file
+   * @param width the width of the buffer
+   * @param height the height of the buffer
+   * @return the buffer of the scaled image
+   * @throws IOException if the image couldn't be read
+   */
+  public static int @NotNull [] getBuffer(
+      @NotNull final File file, final int width, final int height) throws IOException {
+    try (final ImageInputStream stream = ImageIO.createImageInputStream(file)) {
+      final Iterator<ImageReader> iter = ImageIO.getImageReaders(stream);
+      if (!iter.hasNext()) {
+        throw new IOException("Not a known image file: " + file.getAbsolutePath());
+      }
+      final ImageReader reader = iter.next();
+      try {
+        reader.setInput(stream, true, true);
+        final int sourceWidth = reader.getWidth(0);
+        final int sourceHeight = reader.getHeight(0);
+        final int factor =
+            Math.max(1, Math.min(sourceWidth / (width << 1), sourceHeight / (height << 1)));
+        final ImageReadParam param = reader.getDefaultReadParam();
+        param.setSourceSubsampling(factor, factor, 0, 0);
+        final BufferedImage image = reader.read(0, param);
+        return scaleBuffer(getBuffer(image), image.getWidth(), image.getHeight(), width, height);
+      } finally {
+        reader.dispose();
+      }
+    }
+  }
+
+  /**
+   * Scales a buffer to another size. Downscaling averages every source pixel covered by a target
+   * pixel, and upscaling uses the nearest source pixel.
+   *
+   * @param rgb the buffer
+   * @param width the width of the buffer
+   * @param height the height of the buffer
+   * @param targetWidth the width of the scaled buffer
+   * @param targetHeight the height of the scaled buffer
+   * @return the scaled buffer
+   */
+  public static int @NotNull [] scaleBuffer(
+      final int @NotNull [] rgb,
+      final int width,
+      final int height,
+      final int targetWidth,
+      final int targetHeight) {
+    if (width == targetWidth && height == targetHeight) {
+      return rgb;
+    }
+    final int[] scaled = new int[targetWidth * targetHeight];
+    final int[] columns = new int[targetWidth + 1];
+    for (int x = 0; x <= targetWidth; x++) {
+      columns[x] = (int) ((long) x * width / targetWidth);
+    }
+    int index = 0;
+    for (int y = 0; y < targetHeight; y++) {
+      final int top = (int) ((long) y * height / targetHeight);
+      final int bottom = Math.max(top + 1, (int) ((long) (y + 1) * height / targetHeight));
+      for (int x = 0; x < targetWidth; x++) {
+        final int left = columns[x];
+        final int right = Math.max(left + 1, columns[x + 1]);
+        int a = 0;
+        int r = 0;
+        int g = 0;
+        int b = 0;
+        for (int sy = top; sy < bottom; sy++) {
+          final int row = sy * width;
+          for (int sx = left; sx < right; sx++) {
+            final int color = rgb[row + sx];
+            a += color >>> 24;
+            r += (color >> 16) & 0xFF;
+            g += (color >> 8) & 0xFF;
+            b += color & 0xFF;
+          }
+        }
+        final int count = (bottom - top) * (right - left);
+        scaled[index++] = (a / count) << 24 | (r / count) << 16 | (g / count) << 8 | (b / count);
+      }
+    }
+    return scaled;
   }
 
   /**
@@ -0,0 +1,131 @@
+/*............................................................................................
+. Copyright © 2021 Brandon Li                                                               .
+.                                                                                           .
+. Permission is hereby granted, free of charge, to any person obtaining a copy of this      .
+. software and associated documentation files (the “Software”), to deal in the Software     .
+. without restriction, including without limitation the rights to use, copy, modify, merge, .
+. publish, distribute, sublicense, and/or sell copies of the Software, and to permit        .
+. persons to whom the Software is furnished to do so, subject to the following conditions:  .
+.                                                                                           .
+. The above copyright notice and this permission notice shall be included in all copies     .
+. or substantial portions of the Software.                                                  .
+.                                                                                           .
+. THE SOFTWARE IS PROVIDED “AS IS”, WITHOUT WARRANTY OF ANY KIND,                           .
+.  EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF                       .
+.   MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND                                   .
+.   NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS                     .
+.   BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN                      .
+.   ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN                       .
+.   CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE                        .
+.   SOFTWARE.                                                                               .
+............................................................................................*/
+
+package com.github.pulsebeat02.minecraftmedialibrary.test.request;
+
+import com.github.pulsebeat02.minecraftmedialibrary.http.NioHttpDaemonServer;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class HttpDaemonLoadTest {
+
+  public static void main(final String[] args) throws Exception {
+    final int port = args.length > 0 ? Integer.parseInt(args[0]) : 18080;
+    final int clients = args.length > 1 ? Integer.parseInt(args[1]) : 150;
+    final int requests = args.length > 2 ? Integer.parseInt(args[2]) : 3;
+    final int size = (args.length > 3 ? Integer.parseInt(args[3]) : 4) << 20;
+
+    final Path directory = Files.createTempDirectory("mml-http");
+    final byte[] pack = new byte[size];
+    new Random(0).nextBytes(pack);
+    Files.write(directory.resolve("resourcepack.zip"), pack);
+
+    final NioHttpDaemonServer daemon = new NioHttpDaemonServer(port, directory);
+    daemon.setVerbose(false);
+    daemon.start();
+
+    final AtomicLong bytes = new AtomicLong();
+    final AtomicInteger failures = new AtomicInteger();
+    final CountDownLatch latch = new CountDownLatch(clients);
+    final long start = System.nanoTime();
+    for (int i = 0; i < clients; i++) {
+      new Thread(
+              () -> {
+                try (final Socket socket = new Socket("localhost", port)) {
+                  final OutputStream out = socket.getOutputStream();
+                  final InputStream in = new BufferedInputStream(socket.getInputStream());
+                  for (int r = 0; r < requests; r++) {
+                    out.write(
+                        "GET /resourcepack.zip HTTP/1.1\r\nHost: localhost\r\n\r\n"
+                            .getBytes(StandardCharsets.ISO_8859_1));
+                    out.flush();
+                    final long length = readHeader(in);
+                    if (length != size || !readBody(in, pack)) {
+                      failures.incrementAndGet();
+                      return;
+                    }
+                    bytes.addAndGet(length);
+                  }
+                } catch (final IOException e) {
+                  failures.incrementAndGet();
+                } finally {
+                  latch.countDown();
+                }
+              })
+          .start();
+    }
+    latch.await();
+    final double seconds = (System.nanoTime() - start) / 1e9;
+    System.out.printf(
+        "%d clients x %d keep-alive requests: %d failures, %.1f MB in %.2f s (%.1f MB/s)%n",
+        clients, requests, failures.get(), bytes.get() / 1e6, seconds, bytes.get() / 1e6 / seconds);
+    daemon.terminate();
+  }
+
+  private static long readHeader(final InputStream in) throws IOException {
+    final StringBuilder header = new StringBuilder();
+    while (!header.toString().endsWith("\r\n\r\n")) {
+      final int b = in.read();
+      if (b < 0) {
+        throw new IOException("Connection closed while reading the header");
+      }
+      header.append((char) b);
+    }
+    if (!header.toString().startsWith("HTTP/1.1 200")) {
+      return -1;
+    }
+    for (final String line : header.toString().split("\r\n")) {
+      if (line.startsWith("Content-Length:")) {
+        return Long.parseLong(line.substring(15).trim());
+      }
+    }
+    return -1;
+  }
+
+  private static boolean readBody(final InputStream in, final byte[] expected) throws IOException {
+    final byte[] buffer = new byte[64 * 1024];
+    int offset = 0;
+    boolean equal = true;
+    while (offset < expected.length) {
+      final int read = in.read(buffer, 0, Math.min(buffer.length, expected.length - offset));
+      if (read < 0) {
+        return false;
+      }
+      for (int i = 0; i < read; i++) {
+        equal &= buffer[i] == expected[offset + i];
+      }
+      offset += read;
+    }
+    return equal;
+  }
+}
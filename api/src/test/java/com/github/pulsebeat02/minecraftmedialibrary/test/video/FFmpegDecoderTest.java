@@ -0,0 +1,80 @@
+/*............................................................................................
+. Copyright © 2021 Brandon Li                                                               .
+.                                                                                           .
+. Permission is hereby granted, free of charge, to any person obtaining a copy of this      .
+. software and associated documentation files (the “Software”), to deal in the Software     .
+. without restriction, including without limitation the rights to use, copy, modify, merge, .
+. publish, distribute, sublicense, and/or sell copies of the Software, and to permit        .
+. persons to whom the Software is furnished to do so, subject to the following conditions:  .
+.                                                                                           .
+. The above copyright notice and this permission notice shall be included in all copies     .
+. or substantial portions of the Software.                                                  .
+.                                                                                           .
+. THE SOFTWARE IS PROVIDED “AS IS”, WITHOUT WARRANTY OF ANY KIND,                           .
+.  EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF                       .
+.   MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND                                   .
+.   NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS                     .
+.   BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN                      .
+.   ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN                       .
+.   CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE                        .
+.   SOFTWARE.                                                                               .
+............................................................................................*/
+
+package com.github.pulsebeat02.minecraftmedialibrary.test.video;
+
+import com.github.pulsebeat02.minecraftmedialibrary.frame.decoder.FFmpegFrameDecoder;
+import com.github.pulsebeat02.minecraftmedialibrary.frame.decoder.FrameDecoderListener;
+import com.github.pulsebeat02.minecraftmedialibrary.frame.dither.DitherHolder;
+import com.github.pulsebeat02.minecraftmedialibrary.frame.dither.FilterLiteDither;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class FFmpegDecoderTest {
+
+  public static void main(final String[] args) throws Exception {
+    final DitherHolder holder = new FilterLiteDither();
+    final int width = 640;
+    final int height = 360;
+    final AtomicLong frames = new AtomicLong();
+    final AtomicLong dither = new AtomicLong();
+    final CountDownLatch latch = new CountDownLatch(1);
+    final FFmpegFrameDecoder decoder =
+        new FFmpegFrameDecoder(
+            args[0],
+            width,
+            height,
+            20,
+            data -> {
+              final long start = System.nanoTime();
+              holder.ditherIntoMinecraft(data, width);
+              dither.addAndGet(System.nanoTime() - start);
+              frames.incrementAndGet();
+            });
+    decoder.addListener(
+        new FrameDecoderListener() {
+          @Override
+          public void finished() {
+            latch.countDown();
+          }
+
+          @Override
+          public void error() {
+            latch.countDown();
+          }
+        });
+    final long start = System.nanoTime();
+    decoder.setRate(Float.parseFloat(args.length > 1 ? args[1] : "1.0"));
+    decoder.start();
+    latch.await();
+    final long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+    System.out.printf(
+        "Decoded %d frames in %d ms (%.2f fps), average dither %.2f ms%n",
+        frames.get(),
+        elapsed,
+        frames.get() * 1000.0 / elapsed,
+        frames.get() == 0 ? 0.0 : dither.get() / 1_000_000.0 / frames.get());
+    decoder.release();
+  }
+}
@@ -32,13 +32,21 @@ import com.github.pulsebeat02.deluxemediaplugin.update.PluginUpdateChecker;
 import com.github.pulsebeat02.deluxemediaplugin.utility.CommandUtilities;
 import com.github.pulsebeat02.minecraftmedialibrary.MediaLibrary;
 import com.github.pulsebeat02.minecraftmedialibrary.MinecraftMediaLibrary;
+import com.github.pulsebeat02.minecraftmedialibrary.extractor.AudioSegmenter;
+import com.github.pulsebeat02.minecraftmedialibrary.extractor.ExtractionService;
+import com.github.pulsebeat02.minecraftmedialibrary.extractor.VideoTranscoder;
+import com.github.pulsebeat02.minecraftmedialibrary.resourcepack.TrackPackManager;
 import net.kyori.adventure.platform.bukkit.BukkitAudiences;
 import org.bstats.bukkit.Metrics;
 import org.bukkit.Bukkit;
 import org.bukkit.plugin.Plugin;
 import org.bukkit.plugin.java.JavaPlugin;
+import org.jetbrains.annotations.NotNull;
 
+import java.io.IOException;
 import java.lang.reflect.Constructor;
+import java.nio.file.Path;
+import java.util.List;
 import java.util.Optional;
 import java.util.logging.Logger;
 import java.util.logging.Level;
@@ -47,6 +55,9 @@ public final class DeluxeMediaPlugin extends JavaPlugin {
 
   public static boolean OUTDATED = false;
 
+  private static final long SEGMENT_THRESHOLD = 600_000L;
+  private static final int SEGMENT_LENGTH = 300;
+
   private MediaLibrary library;
   private BukkitAudiences audiences;
   private CommandHandler handler;
@@ -55,6 +66,9 @@ public final class DeluxeMediaPlugin extends JavaPlugin {
   private PictureConfiguration pictureConfiguration;
   private VideoConfiguration videoConfiguration;
   private EncoderConfiguration encoderConfiguration;
+  private TrackPackManager packManager;
+  private ExtractionService extractionService;
+  private VideoTranscoder transcoder;
 
   @Override
   public void onEnable() {
@@ -77,11 +91,18 @@ public final class DeluxeMediaPlugin extends JavaPlugin {
       }
 
       this.library = mediaLibrary.get();
+      this.packManager = new TrackPackManager(library);
 
       com.github.pulsebeat02.minecraftmedialibrary.logger.Logger.setVerbose(true);
 
       registerCommands();
       registerConfigurations();
+      extractionService =
+          new ExtractionService(
+              String.format("%s/mml/", getDataFolder().getAbsolutePath()),
+              encoderConfiguration.getSettings(),
+              library.getCache());
+      transcoder = new VideoTranscoder(library.getCache());
       new Metrics(this, 10229);
       new PluginUpdateChecker(this).checkForUpdates();
       audiences = BukkitAudiences.create(this);
@@ -96,6 +117,9 @@ public final class DeluxeMediaPlugin extends JavaPlugin {
   public void onDisable() {
     logger.info("DeluxeMediaPlugin is Shutting Down");
     logger.info("Shutting Down MinecraftMediaLibrary Instance...");
+    if (extractionService != null) {
+      extractionService.shutdown();
+    }
     if (library != null) {
       library.shutdown();
     } else {
@@ -158,6 +182,32 @@ public final class DeluxeMediaPlugin extends JavaPlugin {
     return encoderConfiguration;
   }
 
+  public TrackPackManager getPackManager() {
+    return packManager;
+  }
+
+  public ExtractionService getExtractionService() {
+    return extractionService;
+  }
+
+  public VideoTranscoder getTranscoder() {
+    return transcoder;
+  }
+
+  public TrackPackManager.Track addTrack(@NotNull final String key, @NotNull final Path audio)
+      throws IOException {
+
+    // Split long audio into segments, so players only load the segment being played
+    final long duration = AudioSegmenter.getDuration(audio);
+    if (duration > SEGMENT_THRESHOLD) {
+      final Path directory =
+          audio.resolveSibling(String.format("%s-segments", audio.getFileName()));
+      final List<Path> segments = AudioSegmenter.split(audio, directory, SEGMENT_LENGTH);
+      return packManager.addTrack(key, segments, SEGMENT_LENGTH * 1000L);
+    }
+    return packManager.addTrack(key, audio);
+  }
+
   public BukkitAudiences getAudiences() {
     return audiences;
   }
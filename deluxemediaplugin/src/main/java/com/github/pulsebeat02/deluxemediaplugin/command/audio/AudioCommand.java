@@ -25,10 +25,11 @@ package com.github.pulsebeat02.deluxemediaplugin.command.audio;
 import com.github.pulsebeat02.deluxemediaplugin.DeluxeMediaPlugin;
 import com.github.pulsebeat02.deluxemediaplugin.command.BaseCommand;
 import com.github.pulsebeat02.deluxemediaplugin.utility.ChatUtilities;
-import com.github.pulsebeat02.minecraftmedialibrary.MediaLibrary;
 import com.github.pulsebeat02.minecraftmedialibrary.MinecraftMediaLibrary;
+import com.github.pulsebeat02.minecraftmedialibrary.concurrent.LibraryExecutors;
 import com.github.pulsebeat02.minecraftmedialibrary.extractor.YoutubeExtraction;
-import com.github.pulsebeat02.minecraftmedialibrary.resourcepack.ResourcepackWrapper;
+import com.github.pulsebeat02.minecraftmedialibrary.resourcepack.TrackPackManager;
+import com.github.pulsebeat02.minecraftmedialibrary.resourcepack.TrackPlayer;
 import com.github.pulsebeat02.minecraftmedialibrary.resourcepack.hosting.HttpDaemonProvider;
 import com.google.common.collect.ImmutableMap;
 import com.mojang.brigadier.arguments.StringArgumentType;
@@ -41,19 +42,23 @@ import net.kyori.adventure.text.format.NamedTextColor;
 import org.bukkit.Bukkit;
 import org.bukkit.command.CommandSender;
 import org.bukkit.command.TabExecutor;
-import org.bukkit.entity.Player;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 public class AudioCommand extends BaseCommand {
 
   private final LiteralCommandNode<CommandSender> literalNode;
   private final AtomicBoolean atomicBoolean;
-  private File audio;
+  private volatile File audio;
+  private volatile TrackPlayer track;
 
   public AudioCommand(
       @NotNull final DeluxeMediaPlugin plugin, @NotNull final TabExecutor executor) {
@@ -83,33 +88,34 @@ public class AudioCommand extends BaseCommand {
               Component.text("The audio is still being loaded!", NamedTextColor.RED)));
       return 1;
     }
+    if (track == null) {
+      audience.sendMessage(
+          ChatUtilities.formatMessage(
+              Component.text("The audio couldn't be loaded!", NamedTextColor.RED)));
+      return 1;
+    }
     audience.sendMessage(
         ChatUtilities.formatMessage(Component.text("Started playing audio!", NamedTextColor.GOLD)));
 
-    // Play the sound to all users on the server
-    for (final Player p : Bukkit.getOnlinePlayers()) {
-      p.playSound(p.getLocation(), getPlugin().getName().toLowerCase(), 1.0F, 1.0F);
-    }
+    // Play the sound to all users on the server, segment by segment if it was split
+    track.start(Bukkit.getOnlinePlayers());
     return 1;
   }
 
   private int loadAudio(@NotNull final CommandContext<CommandSender> context) {
     final Audience audience = getPlugin().getAudiences().sender(context.getSource());
-    final MediaLibrary library = getPlugin().getLibrary();
     final String mrl = context.getArgument("mrl", String.class);
+    final CompletableFuture<YoutubeExtraction> extraction;
+    final CompletableFuture<File> source;
     if (mrl.startsWith("https://")) {
 
-      // Create a new Youtube Extractor from the url
-      final YoutubeExtraction extraction =
-          new YoutubeExtraction(
-              mrl,
-              library.getAudioFolder().toString(),
-              getPlugin().getEncoderConfiguration().getSettings());
-
-      // Extract the audio
-      audio = extraction.extractAudio().toFile();
+      // Extract the audio of the url asynchronously, sharing the extraction with other commands
+      // loading the same video
+      extraction = getPlugin().getExtractionService().extract(mrl, progress -> {});
+      source = extraction.thenApply(extractor -> extractor.getAudio().toFile());
 
     } else {
+      extraction = null;
 
       // Create a new file
       final File file = new File(mrl);
@@ -118,7 +124,7 @@ public class AudioCommand extends BaseCommand {
       if (file.exists()) {
 
         // Assign it then
-        audio = file;
+        source = CompletableFuture.completedFuture(file);
 
       } else {
         audience.sendMessage(
@@ -131,35 +137,68 @@ public class AudioCommand extends BaseCommand {
     }
 
     // Make the resourcepack wrapping process async
-    CompletableFuture.runAsync(
-            () -> {
-
-              // Create a resourcepack from the audio and library instance
-              final ResourcepackWrapper wrapper = ResourcepackWrapper.of(library, audio.toPath());
-
-              // Build the resourcepack
-              wrapper.buildResourcePack();
-
-              // Send the resourcepack to players
-              sendResourcepack(getPlugin().getHttpConfiguration().getDaemon(), audience, wrapper);
-            })
-        .whenCompleteAsync((t, throwable) -> atomicBoolean.set(true));
+    atomicBoolean.set(false);
+    if (track != null) {
+      track.stop();
+    }
+    track = null;
+    source
+        .thenAcceptAsync(
+            file -> {
+              audio = file;
+
+              // Add the audio as a track of the resourcepack
+              final TrackPackManager packs = getPlugin().getPackManager();
+              try {
+                final Path path = file.toPath();
+                track =
+                    new TrackPlayer(
+                        getPlugin(), getPlugin().addTrack(path.toAbsolutePath().toString(), path));
+
+                // Build the resourcepack, which is skipped if the track was already part of it
+                packs.build();
+              } catch (final IOException e) {
+                throw new CompletionException(e);
+              }
+
+              // Send the resourcepack to players who don't have it yet
+              sendResourcepack(getPlugin().getHttpConfiguration().getDaemon(), audience, packs);
+            },
+            LibraryExecutors.io())
+        .whenComplete(
+            (t, throwable) -> {
+              if (throwable != null) {
+
+                // Tell the sender whether the audio failed or there are too many loading
+                final String message =
+                    throwable.getCause() instanceof RejectedExecutionException
+                        ? "Too many videos are loading, please load %s again later!"
+                        : "Couldn't load audio %s";
+                audience.sendMessage(
+                    ChatUtilities.formatMessage(
+                        Component.text(String.format(message, mrl), NamedTextColor.RED)));
+              }
+
+              // Release the extracted files once they were packed into the resourcepack
+              if (extraction != null) {
+                extraction.thenAccept(YoutubeExtraction::release);
+              }
+              atomicBoolean.set(true);
+            });
     return 1;
   }
 
   private void sendResourcepack(
       @Nullable final HttpDaemonProvider provider,
       @NotNull final Audience audience,
-      @NotNull final ResourcepackWrapper wrapper) {
+      @NotNull final TrackPackManager packs) {
     if (provider != null) {
 
       // Get a resourcepack url for the file
-      final String url = provider.generateUrl(wrapper.getPath());
+      final String url = provider.generateUrl(packs.getPath());
 
-      // Send the resourcepack to all players on the server
-      for (final Player p : Bukkit.getOnlinePlayers()) {
-        p.setResourcePack(url);
-      }
+      // Send the resourcepack to the players on the server who don't have it yet
+      packs.send(Bukkit.getOnlinePlayers(), url);
     } else {
       audience.sendMessage(
           ChatUtilities.formatMessage(
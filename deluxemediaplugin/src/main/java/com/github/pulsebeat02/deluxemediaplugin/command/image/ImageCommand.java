@@ -28,6 +28,7 @@ import com.github.pulsebeat02.deluxemediaplugin.utility.ChatUtilities;
 import com.github.pulsebeat02.minecraftmedialibrary.MediaLibrary;
 import com.github.pulsebeat02.minecraftmedialibrary.MinecraftMediaLibrary;
 import com.github.pulsebeat02.minecraftmedialibrary.image.basic.MinecraftStaticImage;
+import com.github.pulsebeat02.minecraftmedialibrary.image.gif.DynamicImageCache;
 import com.github.pulsebeat02.minecraftmedialibrary.image.gif.MinecraftDynamicImage;
 import com.github.pulsebeat02.minecraftmedialibrary.utility.FileUtilities;
 import com.google.common.collect.ImmutableMap;
@@ -129,7 +130,8 @@ public class ImageCommand extends BaseCommand implements Listener {
     final File f =
         FileUtilities.downloadImageFile(
             "https://images.news18.com/ibnlive/uploads/2020/12/1607660925_untitled-design-2020-12-11t095722.206.png",
-            library.getParentFolder());
+            library.getCache(),
+            library.getImageFolder());
     new MinecraftStaticImage(library, 69, f, width, height).drawImage();
     audience.sendMessage(
         ChatUtilities.formatMessage(Component.text("Gottem", NamedTextColor.GOLD)));
@@ -184,7 +186,8 @@ public class ImageCommand extends BaseCommand implements Listener {
     if (isUrl(mrl)) {
 
       // Declare a new file for the image, download it
-      final File img = FileUtilities.downloadImageFile(mrl, plugin.getLibrary().getParentFolder());
+      final File img =
+          FileUtilities.downloadImageFile(mrl, library.getCache(), library.getImageFolder());
 
       final String name = img.getName().toLowerCase();
 
@@ -216,14 +219,14 @@ public class ImageCommand extends BaseCommand implements Listener {
         if (name.endsWith(".gif")) {
 
           // Create a new instance and draw it
-          new MinecraftStaticImage(library, id, img, width, height).drawImage();
+          new MinecraftDynamicImage(library, id, img, width, height).drawImage();
         }
 
         // Check if it's a valid image file
         else if (extensions.stream().anyMatch(name::endsWith)) {
 
           // Create a new instance and draw it
-          new MinecraftDynamicImage(library, id, img, width, height).drawImage();
+          new MinecraftStaticImage(library, id, img, width, height).drawImage();
         }
         audience.sendMessage(successful);
       } else {
@@ -256,8 +259,8 @@ public class ImageCommand extends BaseCommand implements Listener {
       }
     }
 
-    // Reset the map data on there
-    MinecraftStaticImage.resetMap(getPlugin().getLibrary(), id);
+    // Reset the map data on there, stopping any animation shared with other maps
+    MinecraftDynamicImage.resetMap(getPlugin().getLibrary(), id);
     audience.sendMessage(
         ChatUtilities.formatMessage(
             Component.text(
@@ -292,6 +295,9 @@ public class ImageCommand extends BaseCommand implements Listener {
         // Clear images Set
         images.clear();
 
+        // Stop all animations
+        DynamicImageCache.clear();
+
         audience.sendMessage(
             ChatUtilities.formatMessage(
                 Component.text("Successfully purged all image maps", NamedTextColor.GOLD)));
@@ -22,10 +22,14 @@
 
 package com.github.pulsebeat02.deluxemediaplugin.command.video;
 
+import com.github.pulsebeat02.minecraftmedialibrary.extractor.VideoTranscoder;
 import com.github.pulsebeat02.minecraftmedialibrary.extractor.YoutubeExtraction;
 import com.github.pulsebeat02.minecraftmedialibrary.frame.VideoPlayer;
 import com.github.pulsebeat02.minecraftmedialibrary.frame.dither.DitherHolder;
 import com.github.pulsebeat02.minecraftmedialibrary.frame.dither.DitherSetting;
+import com.github.pulsebeat02.minecraftmedialibrary.frame.prerender.PrerenderedVideoPlayer;
+import com.github.pulsebeat02.minecraftmedialibrary.frame.quality.AdaptiveQualityController;
+import com.github.pulsebeat02.minecraftmedialibrary.resourcepack.TrackPackManager;
 import org.jetbrains.annotations.NotNull;
 
 import java.io.File;
@@ -38,14 +42,22 @@ public class MinecraftVideoAttributes {
   private YoutubeExtraction extractor;
   private VideoPlayer player;
   private File file;
+  private String url;
+  private VideoTranscoder.TranscodedVideo transcoded;
   private boolean youtube;
+  private boolean progressive;
   private VideoType mode;
+  private TrackPackManager.Track track;
+  private AdaptiveQualityController quality;
+  private PrerenderedVideoPlayer prerendered;
 
   private int frameWidth;
   private int frameHeight;
   private int screenWidth;
   private int screenHeight;
   private int startingMap;
+  private int transcodedWidth;
+  private int transcodedHeight;
 
   public MinecraftVideoAttributes() {
     dither = DitherSetting.SIERRA_FILTER_LITE_DITHER.getHolder();
@@ -70,6 +82,11 @@ public class MinecraftVideoAttributes {
   }
 
   public void setExtractor(final YoutubeExtraction extractor) {
+
+    // Release the files of the previous video, so they can be evicted from the cache again
+    if (this.extractor != null && this.extractor != extractor) {
+      this.extractor.release();
+    }
     this.extractor = extractor;
   }
 
@@ -81,12 +98,49 @@ public class MinecraftVideoAttributes {
     this.player = player;
   }
 
-  public File getFile() {
+  public synchronized File getFile() {
     return file;
   }
 
-  public void setFile(final File file) {
+  public synchronized void setFile(final File file) {
     this.file = file;
+    setTranscoded(null, 0, 0);
+  }
+
+  public String getUrl() {
+    return url;
+  }
+
+  public void setUrl(final String url) {
+    this.url = url;
+  }
+
+  public synchronized VideoTranscoder.TranscodedVideo getTranscoded() {
+    return transcoded;
+  }
+
+  public synchronized void setTranscoded(
+      final VideoTranscoder.TranscodedVideo transcoded, final int width, final int height) {
+
+    // Ignore a transcoded video of a file which isn't loaded anymore
+    if (transcoded != null && (file == null || !transcoded.getSource().equals(file.toPath()))) {
+      transcoded.close();
+      return;
+    }
+    if (this.transcoded != null && this.transcoded != transcoded) {
+      this.transcoded.close();
+    }
+    this.transcoded = transcoded;
+    transcodedWidth = width;
+    transcodedHeight = height;
+  }
+
+  public synchronized File getPlaybackFile() {
+
+    // Play the transcoded video unless the screen was resized since it was transcoded
+    return transcoded != null && transcodedWidth == screenWidth && transcodedHeight == screenHeight
+        ? transcoded.getPath().toFile()
+        : file;
   }
 
   public boolean isYoutube() {
@@ -97,6 +151,14 @@ public class MinecraftVideoAttributes {
     this.youtube = youtube;
   }
 
+  public boolean isProgressive() {
+    return progressive;
+  }
+
+  public void setProgressive(final boolean progressive) {
+    this.progressive = progressive;
+  }
+
   public int getFrameWidth() {
     return frameWidth;
   }
@@ -148,4 +210,28 @@ public class MinecraftVideoAttributes {
   public void setVideoType(@NotNull final VideoType type) {
     mode = type;
   }
+
+  public TrackPackManager.Track getTrack() {
+    return track;
+  }
+
+  public void setTrack(final TrackPackManager.Track track) {
+    this.track = track;
+  }
+
+  public AdaptiveQualityController getQualityController() {
+    return quality;
+  }
+
+  public void setQualityController(final AdaptiveQualityController quality) {
+    this.quality = quality;
+  }
+
+  public PrerenderedVideoPlayer getPrerendered() {
+    return prerendered;
+  }
+
+  public void setPrerendered(final PrerenderedVideoPlayer prerendered) {
+    this.prerendered = prerendered;
+  }
 }
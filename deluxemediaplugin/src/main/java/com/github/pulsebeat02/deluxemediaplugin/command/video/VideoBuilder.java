@@ -25,6 +25,7 @@ package com.github.pulsebeat02.deluxemediaplugin.command.video;
 import com.github.pulsebeat02.minecraftmedialibrary.MinecraftMediaLibrary;
 import com.github.pulsebeat02.minecraftmedialibrary.frame.chat.ChatCallback;
 import com.github.pulsebeat02.minecraftmedialibrary.frame.chat.ChatIntegratedPlayer;
+import com.github.pulsebeat02.minecraftmedialibrary.frame.decoder.FrameDecoderFactory;
 import com.github.pulsebeat02.minecraftmedialibrary.frame.entity.EntityCallback;
 import com.github.pulsebeat02.minecraftmedialibrary.frame.entity.EntityIntegratedPlayer;
 import com.github.pulsebeat02.minecraftmedialibrary.frame.entity.ScreenEntityType;
@@ -36,6 +37,7 @@ import com.github.pulsebeat02.minecraftmedialibrary.frame.scoreboard.ScoreboardC
 import com.github.pulsebeat02.minecraftmedialibrary.frame.scoreboard.ScoreboardIntegratedPlayer;
 import org.bukkit.entity.Player;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 public class VideoBuilder {
 
@@ -49,9 +51,10 @@ public class VideoBuilder {
     this.attributes = attributes;
   }
 
-  public MapIntegratedPlayer createMapPlayer() {
+  public MapIntegratedPlayer createMapPlayer(@Nullable final FrameDecoderFactory factory) {
     return MapIntegratedPlayer.builder()
-        .setUrl(attributes.getFile().getAbsolutePath())
+        .setUrl(attributes.getPlaybackFile().getAbsolutePath())
+        .setDecoderFactory(factory)
         .setWidth(attributes.getScreenWidth())
         .setHeight(attributes.getScreenHeight())
         .setCallback(
@@ -67,9 +70,11 @@ public class VideoBuilder {
         .build(library);
   }
 
-  public EntityIntegratedPlayer createEntityCloudPlayer(@NotNull final Player sender) {
+  public EntityIntegratedPlayer createEntityCloudPlayer(
+      @NotNull final Player sender, @Nullable final FrameDecoderFactory factory) {
     return EntityIntegratedPlayer.builder()
-        .setUrl(attributes.getFile().getAbsolutePath())
+        .setUrl(attributes.getPlaybackFile().getAbsolutePath())
+        .setDecoderFactory(factory)
         .setWidth(attributes.getScreenWidth())
         .setHeight(attributes.getScreenHeight())
         .setCallback(
@@ -84,9 +89,10 @@ public class VideoBuilder {
         .build(library);
   }
 
-  public ChatIntegratedPlayer createChatBoxPlayer() {
+  public ChatIntegratedPlayer createChatBoxPlayer(@Nullable final FrameDecoderFactory factory) {
     return ChatIntegratedPlayer.builder()
-        .setUrl(attributes.getFile().getAbsolutePath())
+        .setUrl(attributes.getPlaybackFile().getAbsolutePath())
+        .setDecoderFactory(factory)
         .setWidth(attributes.getScreenWidth())
         .setHeight(attributes.getScreenHeight())
         .setCallback(
@@ -99,9 +105,11 @@ public class VideoBuilder {
         .build(library);
   }
 
-  public ScoreboardIntegratedPlayer createScoreboardPlayer() {
+  public ScoreboardIntegratedPlayer createScoreboardPlayer(
+      @Nullable final FrameDecoderFactory factory) {
     return ScoreboardIntegratedPlayer.builder()
-        .setUrl(attributes.getFile().getAbsolutePath())
+        .setUrl(attributes.getPlaybackFile().getAbsolutePath())
+        .setDecoderFactory(factory)
         .setWidth(attributes.getScreenWidth())
         .setHeight(attributes.getScreenHeight())
         .setCallback(
@@ -114,9 +122,11 @@ public class VideoBuilder {
         .build(library);
   }
 
-  public BlockHighlightPlayer createBlockHighlightPlayer(@NotNull final Player sender) {
+  public BlockHighlightPlayer createBlockHighlightPlayer(
+      @NotNull final Player sender, @Nullable final FrameDecoderFactory factory) {
     return BlockHighlightPlayer.builder()
-        .setUrl(attributes.getFile().getAbsolutePath())
+        .setUrl(attributes.getPlaybackFile().getAbsolutePath())
+        .setDecoderFactory(factory)
         .setWidth(attributes.getScreenWidth())
         .setHeight(attributes.getScreenHeight())
         .setCallback(
@@ -25,15 +25,25 @@ package com.github.pulsebeat02.deluxemediaplugin.command.video;
 import com.github.pulsebeat02.deluxemediaplugin.DeluxeMediaPlugin;
 import com.github.pulsebeat02.deluxemediaplugin.command.BaseCommand;
 import com.github.pulsebeat02.deluxemediaplugin.utility.ChatUtilities;
-import com.github.pulsebeat02.minecraftmedialibrary.MediaLibrary;
 import com.github.pulsebeat02.minecraftmedialibrary.MinecraftMediaLibrary;
+import com.github.pulsebeat02.minecraftmedialibrary.concurrent.LibraryExecutors;
+import com.github.pulsebeat02.minecraftmedialibrary.extractor.VideoTranscoder;
 import com.github.pulsebeat02.minecraftmedialibrary.extractor.YoutubeExtraction;
 import com.github.pulsebeat02.minecraftmedialibrary.frame.VideoPlayer;
+import com.github.pulsebeat02.minecraftmedialibrary.frame.decoder.FrameDecoderFactory;
+import com.github.pulsebeat02.minecraftmedialibrary.frame.decoder.FrameDecoders;
+import com.github.pulsebeat02.minecraftmedialibrary.frame.decoder.ProgressiveSource;
 import com.github.pulsebeat02.minecraftmedialibrary.frame.dither.DitherSetting;
-import com.github.pulsebeat02.minecraftmedialibrary.resourcepack.ResourcepackWrapper;
+import com.github.pulsebeat02.minecraftmedialibrary.frame.map.MapDataCallback;
+import com.github.pulsebeat02.minecraftmedialibrary.frame.prerender.PrerenderedVideoPlayer;
+import com.github.pulsebeat02.minecraftmedialibrary.frame.prerender.VideoPrerenderer;
+import com.github.pulsebeat02.minecraftmedialibrary.frame.quality.AdaptiveQualityController;
+import com.github.pulsebeat02.minecraftmedialibrary.metrics.PerformanceMetrics;
+import com.github.pulsebeat02.minecraftmedialibrary.resourcepack.TrackPackManager;
 import com.github.pulsebeat02.minecraftmedialibrary.resourcepack.hosting.HttpDaemonProvider;
 import com.github.pulsebeat02.minecraftmedialibrary.utility.VideoExtractionUtilities;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.io.Files;
 import com.mojang.brigadier.arguments.StringArgumentType;
 import com.mojang.brigadier.builder.LiteralArgumentBuilder;
 import com.mojang.brigadier.context.CommandContext;
@@ -52,11 +62,18 @@ import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 import java.util.Optional;
 import java.util.OptionalLong;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class VideoCommand extends BaseCommand {
 
@@ -73,9 +90,23 @@ public class VideoCommand extends BaseCommand {
         .requires(super::testPermission)
         .then(literal("play").executes(this::playVideo))
         .then(literal("stop").executes(this::stopVideo))
+        .then(
+            literal("stats")
+                .then(literal("reset").executes(this::resetStatistics))
+                .executes(this::displayStatistics))
         .then(
             literal("load")
                 .then(argument("mrl", StringArgumentType.greedyString()).executes(this::loadVideo)))
+        .then(
+            literal("prerender")
+                .then(literal("create").executes(this::prerenderVideo))
+                .then(
+                    literal("load")
+                        .then(
+                            argument("file", StringArgumentType.greedyString())
+                                .executes(this::loadPrerenderedVideo)))
+                .then(literal("play").executes(this::playPrerenderedVideo))
+                .then(literal("stop").executes(this::stopPrerenderedVideo)))
         .then(
             literal("set")
                 .then(
@@ -117,8 +148,16 @@ public class VideoCommand extends BaseCommand {
             .put("/video", "Lists the command usage for the video command")
             .put("/video play", "Plays the video")
             .put("/video stop", "Stops the video")
+            .put("/video stats", "Shows the performance statistics of the video pipeline")
+            .put("/video stats reset", "Resets the performance statistics")
             .put("/video load [url]", "Loads a Youtube link")
             .put("/video load [file]", "Loads a specific video file")
+            .put(
+                "/video prerender create",
+                "Pre-renders the loaded video for the screen along with its audio")
+            .put("/video prerender load [file]", "Loads a pre-rendered video and its audio")
+            .put("/video prerender play", "Plays the pre-rendered video")
+            .put("/video prerender stop", "Stops the pre-rendered video")
             .put("/video set screen-dimension [width:height]", "Sets the resolution of the screen")
             .put(
                 "/video set itemframe-dimension [width:height]",
@@ -299,6 +338,39 @@ public class VideoCommand extends BaseCommand {
 
     // Stop the media player
     attributes.getPlayer().stop(Bukkit.getOnlinePlayers());
+    stopQualityController();
+    return 1;
+  }
+
+  private int displayStatistics(@NotNull final CommandContext<CommandSender> context) {
+    final Audience audience = getPlugin().getAudiences().sender(context.getSource());
+    final List<String> summary = PerformanceMetrics.getSummary();
+    if (summary.isEmpty()) {
+      audience.sendMessage(
+          ChatUtilities.formatMessage(
+              Component.text("No statistics have been recorded yet!", NamedTextColor.RED)));
+      return 1;
+    }
+    final VideoPlayer player = attributes.getPlayer();
+    if (player != null && player.isPlaying()) {
+      summary.add(
+          String.format(
+              "a/v offset: %d ms, rate: %.2f",
+              player.getSynchronizer().getAudioVideoOffset(),
+              player.getSynchronizer().getRate()));
+    }
+    for (final String line : summary) {
+      audience.sendMessage(ChatUtilities.formatMessage(Component.text(line, NamedTextColor.GOLD)));
+    }
+    return 1;
+  }
+
+  private int resetStatistics(@NotNull final CommandContext<CommandSender> context) {
+    final Audience audience = getPlugin().getAudiences().sender(context.getSource());
+    PerformanceMetrics.reset();
+    audience.sendMessage(
+        ChatUtilities.formatMessage(
+            Component.text("Reset the performance statistics!", NamedTextColor.GOLD)));
     return 1;
   }
 
@@ -314,101 +386,168 @@ public class VideoCommand extends BaseCommand {
       return 1;
     }
     final AtomicBoolean atomicBoolean = attributes.getCompletion();
-    if (!atomicBoolean.get()) {
+    final ProgressiveSource download = atomicBoolean.get() ? null : getDownload();
+    if (!atomicBoolean.get() && download == null) {
       audience.sendMessage(
           ChatUtilities.formatMessage(
               Component.text("The video is still being downloaded!", NamedTextColor.RED)));
       return 1;
     }
 
-    final YoutubeExtraction extractor = attributes.getExtractor();
     audience.sendMessage(
         ChatUtilities.formatMessage(
             youtube
                 ? Component.text(
-                    String.format("Starting Video on URL: %s", extractor.getUrl()),
+                    String.format("Starting Video on URL: %s", attributes.getUrl()),
                     NamedTextColor.GOLD)
                 : Component.text(
                     String.format("Starting Video on File: %s", file.getName()),
                     NamedTextColor.GOLD)));
-    final MediaLibrary library = getPlugin().getLibrary();
 
     final VideoPlayer player = attributes.getPlayer();
     if (player != null && player.isPlaying()) {
       player.stop(Bukkit.getOnlinePlayers());
     }
+    stopQualityController();
 
-    // Check if the library is using vlcj
-    if (library.isVlcj()) {
-
-      // Get the video type
-      final VideoType type = attributes.getVideoType();
-      switch (type) {
-        case ITEMFRAME:
-
-          // If the mode is set to itemframes/maps
-          // Set the player to be a new map integrated player
-          attributes.setPlayer(videoBuilder.createMapPlayer());
-          break;
-
-        case AREA_EFFECT_CLOUD:
-
-          // If the mode is set to an area effect cloud
-          // Check if the sender is an instanceof a Player
-          if (sender instanceof Player) {
-
-            // Set the player to be a new cloud integrated player
-            attributes.setPlayer(videoBuilder.createEntityCloudPlayer((Player) sender));
-          } else {
-            audience.sendMessage(
-                Component.text(
-                    "You must be an in-game player to execute this command!", NamedTextColor.RED));
-          }
-          break;
-
-        case CHATBOX:
-          // If the mode is set to a chatbox
-          // Set the player to be a chat player
-          attributes.setPlayer(videoBuilder.createChatBoxPlayer());
-          break;
-
-        case SCOREBOARD:
-          // If the mode is set to a scoreboard
-          // Set the player to be a scoreboard player
-          attributes.setPlayer(videoBuilder.createScoreboardPlayer());
-          break;
-
-        case DEBUG_HIGHLIGHTS:
-          // If the mode is set to debug highlights
-          // Check if the sender is an instanceof a Player
-          if (sender instanceof Player) {
-
-            // Set the player to be a debug highlights player
-            attributes.setPlayer(videoBuilder.createBlockHighlightPlayer((Player) sender));
-          } else {
-            audience.sendMessage(
-                Component.text(
-                    "You must be an in-game player to execute this command!", NamedTextColor.RED));
-          }
-          break;
-      }
+    // Stop the pre-rendered video, which plays on the same maps
+    final PrerenderedVideoPlayer prerendered = attributes.getPrerendered();
+    if (prerendered != null && prerendered.isPlaying()) {
+      prerendered.stop(Bukkit.getOnlinePlayers());
+    }
+
+    // Play the part of the video which was already downloaded
+    final FrameDecoderFactory factory;
+    if (download != null) {
+      attributes.setFile(download.getFile().toFile());
+      factory =
+          FrameDecoders.progressive(
+              download, 0, getPlugin().getEncoderConfiguration().getProgressiveBuffer());
     } else {
-      audience.sendMessage(
-          Component.text("VLC isn't enabled! Cannot play videos!", NamedTextColor.RED));
+      factory = null;
+    }
+
+    // Get the video type
+    final VideoType type = attributes.getVideoType();
+    switch (type) {
+      case ITEMFRAME:
+
+        // If the mode is set to itemframes/maps
+        // Set the player to be a new map integrated player
+        attributes.setPlayer(videoBuilder.createMapPlayer(factory));
+        break;
+
+      case AREA_EFFECT_CLOUD:
+
+        // If the mode is set to an area effect cloud
+        // Check if the sender is an instanceof a Player
+        if (sender instanceof Player) {
+
+          // Set the player to be a new cloud integrated player
+          attributes.setPlayer(videoBuilder.createEntityCloudPlayer((Player) sender, factory));
+        } else {
+          audience.sendMessage(
+              Component.text(
+                  "You must be an in-game player to execute this command!", NamedTextColor.RED));
+        }
+        break;
+
+      case CHATBOX:
+        // If the mode is set to a chatbox
+        // Set the player to be a chat player
+        attributes.setPlayer(videoBuilder.createChatBoxPlayer(factory));
+        break;
+
+      case SCOREBOARD:
+        // If the mode is set to a scoreboard
+        // Set the player to be a scoreboard player
+        attributes.setPlayer(videoBuilder.createScoreboardPlayer(factory));
+        break;
+
+      case DEBUG_HIGHLIGHTS:
+        // If the mode is set to debug highlights
+        // Check if the sender is an instanceof a Player
+        if (sender instanceof Player) {
+
+          // Set the player to be a debug highlights player
+          attributes.setPlayer(videoBuilder.createBlockHighlightPlayer((Player) sender, factory));
+        } else {
+          audience.sendMessage(
+              Component.text(
+                  "You must be an in-game player to execute this command!", NamedTextColor.RED));
+        }
+        break;
+    }
+
+    if (download != null) {
+
+      // Start the player while the video is downloading, without audio until the pack is built
+      attributes.setProgressive(true);
+      attributes.getPlayer().start(Collections.emptyList());
+      startQualityController(type);
+      startProgressiveTrack();
       return 1;
     }
+    attributes.setProgressive(false);
+
+    // Play the track of the video from the resourcepack
+    if (attributes.isYoutube() && attributes.getTrack() != null) {
+      attributes.getPlayer().setTrack(attributes.getTrack());
+    }
 
     // Start the player and play the sound to all online players
     attributes.getPlayer().start(Bukkit.getOnlinePlayers());
+    startQualityController(type);
     return 1;
   }
 
+  private void startProgressiveTrack() {
+
+    // Start the audio of a video which started playing while it was downloading once its track
+    // is part of the resourcepack, at the position the video is at
+    final VideoPlayer player = attributes.getPlayer();
+    final TrackPackManager.Track track = attributes.getTrack();
+    if (!attributes.isProgressive() || track == null || player == null || !player.isPlaying()) {
+      return;
+    }
+    attributes.setProgressive(false);
+    player.startTrack(track, Bukkit.getOnlinePlayers());
+  }
+
+  private void startQualityController(@NotNull final VideoType type) {
+
+    // Lower the quality of map screens while the server is lagging if enabled
+    final VideoPlayer player = attributes.getPlayer();
+    if (type != VideoType.ITEMFRAME
+        || !getPlugin().getEncoderConfiguration().isAdaptiveQuality()
+        || !(player.getCallback() instanceof MapDataCallback)) {
+      return;
+    }
+    final AdaptiveQualityController quality =
+        AdaptiveQualityController.builder()
+            .setCallback((MapDataCallback) player.getCallback())
+            .build(getPlugin().getLibrary());
+    attributes.setQualityController(quality);
+    quality.start();
+  }
+
+  private void stopQualityController() {
+    final AdaptiveQualityController quality = attributes.getQualityController();
+    if (quality != null) {
+      quality.stop();
+      attributes.setQualityController(null);
+    }
+  }
+
   private int loadVideo(@NotNull final CommandContext<CommandSender> context) {
     final DeluxeMediaPlugin plugin = getPlugin();
     final Audience audience = getPlugin().getAudiences().sender(context.getSource());
     final String mrl = context.getArgument("mrl", String.class);
     final String folderPath = String.format("%s/mml/", plugin.getDataFolder().getAbsolutePath());
     final AtomicBoolean atomicBoolean = attributes.getCompletion();
+
+    // Forget the transcoded video of the previous video, which must not be played for this one
+    attributes.setTranscoded(null, 0, 0);
     if (!VideoExtractionUtilities.getYoutubeID(mrl).isPresent()) {
 
       // This means we have a file
@@ -422,6 +561,7 @@ public class VideoCommand extends BaseCommand {
         // Set youtube to false, extractor to null, etc because we are using an actual video file.
         attributes.setYoutube(false);
         attributes.setExtractor(null);
+        attributes.setTrack(null);
         attributes.setFile(f);
         component =
             Component.text(
@@ -437,7 +577,14 @@ public class VideoCommand extends BaseCommand {
                 String.format("File %s cannot be found!", f.getName()), NamedTextColor.RED);
       }
       audience.sendMessage(ChatUtilities.formatMessage(component));
+
+      // The source video can be played right away, until the transcoded video replaces it
       atomicBoolean.set(true);
+      if (f.exists() && plugin.getEncoderConfiguration().isTranscoding()) {
+
+        // Transcode the video to the resolution of the screen asynchronously
+        CompletableFuture.runAsync(() -> transcode(f), LibraryExecutors.io());
+      }
     } else {
 
       // This means we have a Youtube link
@@ -445,66 +592,337 @@ public class VideoCommand extends BaseCommand {
 
       // Set the attributes of a Youtube Video to be true
       attributes.setYoutube(true);
-
-      // Create an extractor out of the Youtube link
-      final YoutubeExtraction extractor =
-          new YoutubeExtraction(mrl, folderPath, plugin.getEncoderConfiguration().getSettings());
-
-      // Extract the audio of the URL
-      extractor.extractAudio();
-
-      // Set the file to be the video file of the extraction
-      attributes.setFile(extractor.getVideo().toFile());
-
-      // Set the extractor
-      attributes.setExtractor(extractor);
-
-      // Download the video asyncronously
-      CompletableFuture.runAsync(extractor::downloadVideo)
-          .thenRunAsync(
-              () ->
-                  // Send the resourcepack to all players on the server
-                  sendResourcepack(
-                      plugin.getHttpConfiguration().getDaemon(),
-                      audience,
-                      buildResourcepack(extractor, plugin)))
-          .thenRunAsync(
+      attributes.setUrl(mrl);
+      attributes.setTrack(null);
+
+      // Download the video and extract its audio at the same time asyncronously, sharing the
+      // extraction with other commands loading the same video
+      final AtomicInteger reported = new AtomicInteger();
+      plugin
+          .getExtractionService()
+          .extract(mrl, progress -> reportProgress(audience, reported, progress))
+          .thenAcceptAsync(
+              extractor -> {
+
+                // Set the extractor and the file to be the video file of the extraction
+                attributes.setExtractor(extractor);
+                attributes.setFile(extractor.getVideo().toFile());
+
+                // Send the resourcepack to all players on the server
+                sendResourcepack(
+                    plugin.getHttpConfiguration().getDaemon(),
+                    audience,
+                    buildResourcepack(extractor, plugin));
+
+                // Play the audio along with the video if it started playing while downloading
+                Bukkit.getScheduler().runTask(plugin, this::startProgressiveTrack);
+
+                // The downloaded video can be played right away, until the transcoded video
+                // replaces it
+                atomicBoolean.set(true);
+
+                // Transcode the video to the resolution of the screen asynchronously if enabled
+                if (plugin.getEncoderConfiguration().isTranscoding()) {
+                  final File file = extractor.getVideo().toFile();
+                  CompletableFuture.runAsync(() -> transcode(file), LibraryExecutors.io());
+                }
+              },
+              LibraryExecutors.io())
+          .thenRun(
               () ->
                   audience.sendMessage(
                       ChatUtilities.formatMessage(
                           Component.text(
                               String.format("Successfully loaded video %s", mrl),
                               NamedTextColor.GOLD))))
-          .whenCompleteAsync((t, throwable) -> atomicBoolean.set(true));
+          .whenComplete(
+              (t, throwable) -> {
+                if (throwable != null) {
+
+                  // Tell the sender whether the video failed or there are too many loading
+                  final String message =
+                      throwable.getCause() instanceof RejectedExecutionException
+                          ? "Too many videos are loading, please load %s again later!"
+                          : "Couldn't load video %s";
+                  audience.sendMessage(
+                      ChatUtilities.formatMessage(
+                          Component.text(String.format(message, mrl), NamedTextColor.RED)));
+                }
+                atomicBoolean.set(true);
+              });
     }
     return 1;
   }
 
-  private ResourcepackWrapper buildResourcepack(
+  private int prerenderVideo(@NotNull final CommandContext<CommandSender> context) {
+    final DeluxeMediaPlugin plugin = getPlugin();
+    final Audience audience = plugin.getAudiences().sender(context.getSource());
+    final File file = attributes.getFile();
+    if (file == null || !attributes.getCompletion().get()) {
+      audience.sendMessage(
+          ChatUtilities.formatMessage(
+              Component.text("There isn't a loaded video to pre-render!", NamedTextColor.RED)));
+      return 1;
+    }
+
+    // Name the pre-rendered video after the Youtube video or the file
+    final YoutubeExtraction extractor = attributes.isYoutube() ? attributes.getExtractor() : null;
+    final String name =
+        extractor != null ? extractor.getVideoId() : Files.getNameWithoutExtension(file.getName());
+    final File folder = getPrerenderFolder();
+    final File output = new File(folder, String.format("%s.mmlv", name));
+    final File audio = new File(folder, String.format("%s.ogg", name));
+    final VideoPrerenderer prerenderer =
+        VideoPrerenderer.builder()
+            .setUrl(attributes.getPlaybackFile().getAbsolutePath())
+            .setOutput(output.toPath())
+            .setAudio(extractor != null ? audio.toPath() : null)
+            .setDitherHolder(attributes.getDither())
+            .setWidth(attributes.getScreenWidth())
+            .setHeight(attributes.getScreenHeight())
+            .build(plugin.getLibrary());
+    audience.sendMessage(
+        ChatUtilities.formatMessage(
+            Component.text(
+                String.format("Pre-rendering video %s, this may take a while...", name),
+                NamedTextColor.GOLD)));
+
+    // Copy the audio out of the cache first, as the video might be replaced while it renders
+    CompletableFuture.runAsync(
+            () -> {
+              try {
+                Files.createParentDirs(output);
+                if (extractor != null) {
+                  Files.copy(extractor.getAudio().toFile(), audio);
+                }
+              } catch (final IOException e) {
+                throw new CompletionException(e);
+              }
+            },
+            LibraryExecutors.io())
+        .thenCompose(
+            ignored -> {
+              try {
+                return prerenderer.render();
+              } catch (final IOException e) {
+                throw new CompletionException(e);
+              }
+            })
+        .whenComplete(
+            (path, throwable) ->
+                audience.sendMessage(
+                    ChatUtilities.formatMessage(
+                        throwable == null
+                            ? Component.text(
+                                String.format("Successfully pre-rendered video %s", name),
+                                NamedTextColor.GOLD)
+                            : Component.text(
+                                String.format("Couldn't pre-render video %s", name),
+                                NamedTextColor.RED))));
+    return 1;
+  }
+
+  private int loadPrerenderedVideo(@NotNull final CommandContext<CommandSender> context) {
+    final DeluxeMediaPlugin plugin = getPlugin();
+    final Audience audience = plugin.getAudiences().sender(context.getSource());
+    final String name = context.getArgument("file", String.class);
+    final String fileName = name.endsWith(".mmlv") ? name : String.format("%s.mmlv", name);
+    final File file = new File(getPrerenderFolder(), fileName);
+    if (!file.exists()) {
+      audience.sendMessage(
+          ChatUtilities.formatMessage(
+              Component.text(
+                  String.format("Pre-rendered video %s cannot be found!", file.getName()),
+                  NamedTextColor.RED)));
+      return 1;
+    }
+
+    // Release the previous pre-rendered video
+    final PrerenderedVideoPlayer previous = attributes.getPrerendered();
+    if (previous != null) {
+      previous.stop(Bukkit.getOnlinePlayers());
+      previous.release();
+      attributes.setPrerendered(null);
+    }
+
+    // Open the video and add its packaged audio to the resourcepack asynchronously
+    CompletableFuture.supplyAsync(() -> openPrerenderedVideo(file, audience), LibraryExecutors.io())
+        .whenComplete(
+            (player, throwable) -> {
+              if (throwable != null) {
+                audience.sendMessage(
+                    ChatUtilities.formatMessage(
+                        Component.text(
+                            String.format("Couldn't load pre-rendered video %s", file.getName()),
+                            NamedTextColor.RED)));
+                return;
+              }
+              Bukkit.getScheduler().runTask(plugin, () -> attributes.setPrerendered(player));
+              audience.sendMessage(
+                  ChatUtilities.formatMessage(
+                      Component.text(
+                          String.format(
+                              "Successfully loaded pre-rendered video %s", file.getName()),
+                          NamedTextColor.GOLD)));
+            });
+    return 1;
+  }
+
+  private PrerenderedVideoPlayer openPrerenderedVideo(
+      @NotNull final File file, @NotNull final Audience audience) {
+    final DeluxeMediaPlugin plugin = getPlugin();
+    try {
+      final PrerenderedVideoPlayer player =
+          PrerenderedVideoPlayer.builder()
+              .setFile(file.toPath())
+              .setViewers(null)
+              .setMap(attributes.getStartingMap())
+              .setItemframeWidth(attributes.getFrameWidth())
+              .setItemframeHeight(attributes.getFrameHeight())
+              .build(plugin.getLibrary());
+      if (player.getReader().hasAudio()) {
+
+        // Copy the audio out of the video, unless it was already copied since it was rendered
+        final Path audio =
+            file.toPath()
+                .resolveSibling(
+                    String.format("%s.ogg", Files.getNameWithoutExtension(file.getName())));
+        if (audio.toFile().lastModified() < file.lastModified()) {
+          player.getReader().extractAudio(audio);
+        }
+
+        // Play the audio as a track of the resourcepack, which is sent to all players
+        final TrackPackManager packs = plugin.getPackManager();
+        player.setTrack(plugin.addTrack(file.getName(), audio));
+        packs.build();
+        sendResourcepack(plugin.getHttpConfiguration().getDaemon(), audience, packs);
+      }
+      return player;
+    } catch (final IOException e) {
+      throw new CompletionException(e);
+    }
+  }
+
+  private int playPrerenderedVideo(@NotNull final CommandContext<CommandSender> context) {
+    final Audience audience = getPlugin().getAudiences().sender(context.getSource());
+    final PrerenderedVideoPlayer prerendered = attributes.getPrerendered();
+    if (prerendered == null) {
+      audience.sendMessage(
+          ChatUtilities.formatMessage(
+              Component.text("There isn't a loaded pre-rendered video!", NamedTextColor.RED)));
+      return 1;
+    }
+
+    // Stop the video and the pre-rendered video if they are playing, as they share the maps
+    final VideoPlayer player = attributes.getPlayer();
+    if (player != null && player.isPlaying()) {
+      player.stop(Bukkit.getOnlinePlayers());
+      stopQualityController();
+    }
+    if (prerendered.isPlaying()) {
+      prerendered.stop(Bukkit.getOnlinePlayers());
+    }
+    prerendered.start(Bukkit.getOnlinePlayers());
+    audience.sendMessage(
+        ChatUtilities.formatMessage(
+            Component.text(
+                String.format(
+                    "Starting Pre-rendered Video: %s", prerendered.getFile().getFileName()),
+                NamedTextColor.GOLD)));
+    return 1;
+  }
+
+  private int stopPrerenderedVideo(@NotNull final CommandContext<CommandSender> context) {
+    final Audience audience = getPlugin().getAudiences().sender(context.getSource());
+    final PrerenderedVideoPlayer prerendered = attributes.getPrerendered();
+    if (prerendered != null) {
+      prerendered.stop(Bukkit.getOnlinePlayers());
+    }
+    audience.sendMessage(Component.text("Stopped the Pre-rendered Video!", NamedTextColor.GOLD));
+    return 1;
+  }
+
+  private File getPrerenderFolder() {
+    return new File(getPlugin().getDataFolder(), "mml/prerendered");
+  }
+
+  @Nullable
+  private ProgressiveSource getDownload() {
+    final String url = attributes.getUrl();
+    if (!attributes.isYoutube()
+        || url == null
+        || getPlugin().getEncoderConfiguration().getProgressiveBuffer() <= 0) {
+      return null;
+    }
+    return getPlugin().getExtractionService().getDownload(url);
+  }
+
+  private void transcode(@NotNull final File file) {
+    final int width = attributes.getScreenWidth();
+    final int height = attributes.getScreenHeight();
+    try {
+      final VideoTranscoder.TranscodedVideo video =
+          getPlugin()
+              .getTranscoder()
+              .transcode(
+                  file.toPath(),
+                  width,
+                  height,
+                  getPlugin().getEncoderConfiguration().getTranscodeFps());
+
+      // Play the transcoded video, unless another video was loaded while it was transcoding
+      attributes.setTranscoded(video, width, height);
+    } catch (final IOException e) {
+
+      // Play the source video instead, which is scaled while playing
+      if (file.equals(attributes.getFile())) {
+        attributes.setTranscoded(null, 0, 0);
+      }
+    }
+  }
+
+  private void reportProgress(
+      @NotNull final Audience audience,
+      @NotNull final AtomicInteger reported,
+      final double progress) {
+
+    // Only tell the sender about every quarter of the download
+    final int percent = (int) (progress * 4) * 25;
+    if (percent > reported.getAndAccumulate(percent, Math::max)) {
+      audience.sendMessage(
+          ChatUtilities.formatMessage(
+              Component.text(
+                  String.format("Downloading video... (%d%%)", percent), NamedTextColor.GOLD)));
+    }
+  }
+
+  private TrackPackManager buildResourcepack(
       @NotNull final YoutubeExtraction extractor, @NotNull final DeluxeMediaPlugin plugin) {
 
-    // Get the resourcepack wrapper from the extractor
-    final ResourcepackWrapper wrapper = ResourcepackWrapper.of(plugin.getLibrary(), extractor);
+    // Add the audio of the video as a track of the resourcepack
+    final TrackPackManager packs = plugin.getPackManager();
+    try {
+      attributes.setTrack(plugin.addTrack(extractor.getVideoId(), extractor.getAudio()));
 
-    // Build the resourcepack
-    wrapper.buildResourcePack();
-    return wrapper;
+      // Build the resourcepack, which is skipped if the track was already part of it
+      packs.build();
+    } catch (final IOException e) {
+      throw new CompletionException(e);
+    }
+    return packs;
   }
 
   private void sendResourcepack(
       @Nullable final HttpDaemonProvider provider,
       @NotNull final Audience audience,
-      @NotNull final ResourcepackWrapper wrapper) {
+      @NotNull final TrackPackManager packs) {
     if (provider != null) {
 
       // Generates a url given by the HTTP server for a file
-      final String url = provider.generateUrl(wrapper.getPath());
+      final String url = provider.generateUrl(packs.getPath());
 
-      // Send the resourcepack url to all players on the server
-      final byte[] hash = VideoExtractionUtilities.createHashSHA(new File(wrapper.getPath()));
-      for (final Player p : Bukkit.getOnlinePlayers()) {
-        p.setResourcePack(url, hash);
-      }
+      // Send the resourcepack url to the players on the server who don't have it yet
+      packs.send(Bukkit.getOnlinePlayers(), url);
     } else {
       audience.sendMessage(
           ChatUtilities.formatMessage(
@@ -24,12 +24,20 @@ package com.github.pulsebeat02.deluxemediaplugin.config;
 
 import com.github.pulsebeat02.deluxemediaplugin.DeluxeMediaPlugin;
 import com.github.pulsebeat02.minecraftmedialibrary.extractor.ExtractionSetting;
+import com.github.pulsebeat02.minecraftmedialibrary.extractor.VideoTranscoder;
+import com.github.pulsebeat02.minecraftmedialibrary.frame.decoder.ProgressiveSource;
 import org.bukkit.configuration.file.FileConfiguration;
 import org.jetbrains.annotations.NotNull;
 
 public class EncoderConfiguration extends AbstractConfiguration {
 
+  private static final long MEGABYTE = 1024L * 1024L;
+
   private ExtractionSetting settings;
+  private boolean transcoding;
+  private int transcodeFps;
+  private long progressiveBuffer;
+  private boolean adaptiveQuality;
 
   public EncoderConfiguration(@NotNull final DeluxeMediaPlugin plugin) {
     super(plugin, "encoder.yml");
@@ -44,6 +52,11 @@ public class EncoderConfiguration extends AbstractConfiguration {
     configuration.set("channels", settings.getChannels());
     configuration.set("sampling-rate", settings.getSamplingRate());
     configuration.set("volume", settings.getVolume());
+    configuration.set("cache-size", getPlugin().getLibrary().getCache().getQuota() / MEGABYTE);
+    configuration.set("transcode-video", transcoding);
+    configuration.set("transcode-fps", transcodeFps);
+    configuration.set("progressive-buffer", progressiveBuffer);
+    configuration.set("adaptive-quality", adaptiveQuality);
     saveConfig();
   }
 
@@ -87,9 +100,47 @@ public class EncoderConfiguration extends AbstractConfiguration {
 
     // Create a new audio extraction configuration to be used
     settings = new ExtractionSetting(bitrate, channels, samplingRate, volume);
+
+    // Get the disk space (in megabytes) downloaded and converted media may take up
+    final long cacheSize = configuration.getLong("cache-size");
+    if (cacheSize > 0) {
+      getPlugin().getLibrary().getCache().setQuota(cacheSize * MEGABYTE);
+    }
+
+    // Get whether loaded videos should be transcoded to the resolution of the screen first
+    transcoding = configuration.getBoolean("transcode-video", true);
+
+    // Get the frame rate videos should be transcoded to (Ex: 20 for one frame every tick)
+    transcodeFps = configuration.getInt("transcode-fps", VideoTranscoder.DEFAULT_FPS);
+    if (transcodeFps <= 0) {
+      transcodeFps = VideoTranscoder.DEFAULT_FPS;
+    }
+
+    // Get the video (in milliseconds) which must be downloaded before a loading video can be played
+    progressiveBuffer =
+        configuration.getLong("progressive-buffer", ProgressiveSource.DEFAULT_BUFFER);
+
+    // Get whether map screens should lower their quality while the server is lagging
+    adaptiveQuality = configuration.getBoolean("adaptive-quality", true);
   }
 
   public ExtractionSetting getSettings() {
     return settings;
   }
+
+  public boolean isTranscoding() {
+    return transcoding;
+  }
+
+  public int getTranscodeFps() {
+    return transcodeFps;
+  }
+
+  public long getProgressiveBuffer() {
+    return progressiveBuffer;
+  }
+
+  public boolean isAdaptiveQuality() {
+    return adaptiveQuality;
+  }
 }
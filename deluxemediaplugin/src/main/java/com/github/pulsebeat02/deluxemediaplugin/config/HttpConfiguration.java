@@ -23,7 +23,11 @@
 package com.github.pulsebeat02.deluxemediaplugin.config;
 
 import com.github.pulsebeat02.deluxemediaplugin.DeluxeMediaPlugin;
+import com.github.pulsebeat02.minecraftmedialibrary.http.AbstractHttpDaemonServer;
 import com.github.pulsebeat02.minecraftmedialibrary.http.HttpFileDaemonServer;
+import com.github.pulsebeat02.minecraftmedialibrary.http.HttpServerMode;
+import com.github.pulsebeat02.minecraftmedialibrary.http.NioHttpDaemonServer;
+import com.github.pulsebeat02.minecraftmedialibrary.http.TransferLimiter;
 import com.github.pulsebeat02.minecraftmedialibrary.logger.Logger;
 import com.github.pulsebeat02.minecraftmedialibrary.resourcepack.hosting.HttpDaemonProvider;
 import org.bukkit.configuration.file.FileConfiguration;
@@ -45,7 +49,7 @@ public class HttpConfiguration extends AbstractConfiguration {
     final FileConfiguration configuration = getFileConfiguration();
     configuration.set("enabled", enabled);
     configuration.set("port", daemon.getPort());
-    final HttpFileDaemonServer http = daemon.getDaemon();
+    final AbstractHttpDaemonServer http = daemon.getDaemon();
     configuration.set(
         "directory",
         getPlugin()
@@ -56,6 +60,12 @@ public class HttpConfiguration extends AbstractConfiguration {
     configuration.set(
         "header", http.getHeader() == HttpFileDaemonServer.ZipHeader.ZIP ? "ZIP" : "OCTET_STREAM");
     configuration.set("verbose", http.isVerbose());
+    configuration.set("mode", http instanceof NioHttpDaemonServer ? "NIO" : "BLOCKING");
+    final TransferLimiter limiter = http.getLimiter();
+    configuration.set("limits.global-rate", limiter.getGlobalRate() / 1024L);
+    configuration.set("limits.client-rate", limiter.getClientRate() / 1024L);
+    configuration.set("limits.max-downloads", limiter.getMaxDownloads());
+    configuration.set("limits.max-connections-per-ip", limiter.getMaxConnectionsPerAddress());
     saveConfig();
   }
 
@@ -83,11 +93,23 @@ public class HttpConfiguration extends AbstractConfiguration {
     // Get whether the HTTP server should debug information (requests)
     final boolean verbose = configuration.getBoolean("verbose");
 
+    // Get whether the HTTP server should serve every connection from a single thread
+    final HttpServerMode mode =
+        "BLOCKING".equalsIgnoreCase(configuration.getString("mode"))
+            ? HttpServerMode.BLOCKING
+            : HttpServerMode.NIO;
+
+    // Get the limits of the bandwidth (in kilobytes per second) and connections of the HTTP server
+    final long globalRate = configuration.getLong("limits.global-rate");
+    final long clientRate = configuration.getLong("limits.client-rate");
+    final int maxDownloads = configuration.getInt("limits.max-downloads");
+    final int maxConnections = configuration.getInt("limits.max-connections-per-ip");
+
     if (enabled) {
 
       // Create a new daemon with the specified directory and port
-      daemon = new HttpDaemonProvider(directory, port);
-      final HttpFileDaemonServer http = daemon.getDaemon();
+      daemon = new HttpDaemonProvider(directory, port, mode);
+      final AbstractHttpDaemonServer http = daemon.getDaemon();
 
       // Resort to ZIP if the header isn't valid
       if (header == null) {
@@ -104,6 +126,13 @@ public class HttpConfiguration extends AbstractConfiguration {
       // Set the verbosity
       http.setVerbose(verbose);
 
+      // Set the limits of the bandwidth and connections
+      final TransferLimiter limiter = http.getLimiter();
+      limiter.setGlobalRate(globalRate * 1024L);
+      limiter.setClientRate(clientRate * 1024L);
+      limiter.setMaxDownloads(maxDownloads);
+      limiter.setMaxConnectionsPerAddress(maxConnections);
+
       // Start the server
       daemon.startServer();
     }
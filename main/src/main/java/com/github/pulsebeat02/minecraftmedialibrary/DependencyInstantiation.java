@@ -22,6 +22,7 @@
 
 package com.github.pulsebeat02.minecraftmedialibrary;
 
+import com.github.pulsebeat02.minecraftmedialibrary.concurrent.LibraryExecutors;
 import com.github.pulsebeat02.minecraftmedialibrary.dependency.DependencyManagement;
 import com.github.pulsebeat02.minecraftmedialibrary.dependency.FFmpegDependencyInstallation;
 import com.github.pulsebeat02.minecraftmedialibrary.logger.Logger;
@@ -56,8 +57,9 @@ public final class DependencyInstantiation {
     assignClassLoader();
     try {
       CompletableFuture.allOf(
-              CompletableFuture.runAsync(this::loadDependencies).thenRunAsync(this::loadVLC),
-              CompletableFuture.runAsync(this::loadFfmpeg))
+              CompletableFuture.runAsync(this::loadDependencies, LibraryExecutors.network())
+                  .thenRunAsync(this::loadVLC, LibraryExecutors.io()),
+              CompletableFuture.runAsync(this::loadFfmpeg, LibraryExecutors.network()))
           .get();
     } catch (final InterruptedException | ExecutionException e) {
       e.printStackTrace();
@@ -86,20 +88,25 @@ public final class DependencyInstantiation {
     deleteDependencies(dependencyManagement);
   }
 
-  /** Downloads/Loads VLC dependency. */
+  /**
+   * Downloads/Loads VLC dependency. If VLC is disabled or can't be loaded, videos are decoded with
+   * FFmpeg instead, so the library doesn't need to be shut down.
+   */
   private void loadVLC() {
+    if (!instance.isVlcj()) {
+      Logger.info("VLC is disabled, videos will be decoded with FFmpeg instead.");
+      return;
+    }
     if (!VLCUtilities.checkVLCExistence(instance.getVlcFolder().toFile())) {
       new VLCNativeDependencyFetcher(instance).downloadLibraries();
     }
-    if (instance.isVlcj()) {
-      try {
-        new MediaPlayerFactory();
-      } catch (final Exception e) {
-        Logger.error("The user does not have VLCJ installed! This is a very fatal error.");
-        instance.setVlcj(false);
-        instance.shutdown();
-        e.printStackTrace();
-      }
+    try {
+      new MediaPlayerFactory();
+    } catch (final Exception e) {
+      Logger.error(
+          "The user does not have VLCJ installed! Videos will be decoded with FFmpeg instead.");
+      instance.setVlcj(false);
+      e.printStackTrace();
     }
   }
 
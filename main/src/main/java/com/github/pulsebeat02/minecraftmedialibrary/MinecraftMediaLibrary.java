@@ -22,8 +22,15 @@
 
 package com.github.pulsebeat02.minecraftmedialibrary;
 
+import com.github.pulsebeat02.minecraftmedialibrary.cache.MediaCache;
+import com.github.pulsebeat02.minecraftmedialibrary.concurrent.LibraryExecutors;
+import com.github.pulsebeat02.minecraftmedialibrary.http.HttpFileCache;
+import com.github.pulsebeat02.minecraftmedialibrary.image.MapImageStore;
+import com.github.pulsebeat02.minecraftmedialibrary.image.gif.DynamicImageCache;
 import com.github.pulsebeat02.minecraftmedialibrary.listener.PlayerJoinLeaveRegistration;
 import com.github.pulsebeat02.minecraftmedialibrary.logger.Logger;
+import com.github.pulsebeat02.minecraftmedialibrary.metrics.MeteredPacketHandler;
+import com.github.pulsebeat02.minecraftmedialibrary.metrics.PerformanceMetrics;
 import com.github.pulsebeat02.minecraftmedialibrary.nms.PacketHandler;
 import com.github.pulsebeat02.minecraftmedialibrary.reflection.NMSReflectionManager;
 import com.github.pulsebeat02.minecraftmedialibrary.reflection.TinyProtocol;
@@ -43,7 +50,9 @@ import org.bukkit.plugin.Plugin;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
+import java.io.IOException;
 import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
 
 /**
  * This is the starting class of MinecraftMediaLibrary which describes the starting class for all
@@ -60,6 +69,8 @@ public final class MinecraftMediaLibrary implements MediaLibrary {
   private final TinyProtocol protocol;
   private final LibraryPathHandle handle;
   private final PlayerJoinLeaveRegistration registrationHandler;
+  private final MapImageStore imageStore;
+  private final MediaCache cache;
   private boolean vlcj;
   private boolean disabled;
 
@@ -109,13 +120,17 @@ public final class MinecraftMediaLibrary implements MediaLibrary {
         };
     handle = new LibraryPathHandle(plugin, http, libraryPath, vlcPath, imagePath, audioPath);
     vlcj = isUsingVLCJ;
-    handler = NMSReflectionManager.getNewPacketHandlerInstance();
+    final PacketHandler nms = NMSReflectionManager.getNewPacketHandlerInstance();
+    handler = nms == null ? null : new MeteredPacketHandler(nms);
     registrationHandler = new PlayerJoinLeaveRegistration(this);
+    imageStore = new MapImageStore(this, handle.getImageFolder().resolve("maps"));
+    cache = new MediaCache(handle.getParentFolder().resolve("cache"));
     Logger.info(DebuggerUtilities.getPluginDebugInfo(this));
     Logger.info(DebuggerUtilities.getSystemDebugInfo(this));
     Bukkit.getPluginManager().registerEvents(registrationHandler, plugin);
     dependencyTasks();
     JavaVersionUtilities.sendWarningMessage();
+    PerformanceMetrics.start(5, TimeUnit.MINUTES);
   }
 
   /** Runs dependency tasks required. */
@@ -131,7 +146,19 @@ public final class MinecraftMediaLibrary implements MediaLibrary {
     Logger.info("Shutting Down!");
     disabled = true;
     HandlerList.unregisterAll(registrationHandler);
+    DynamicImageCache.clear();
+    HttpFileCache.clear();
+    try {
+      cache.save();
+    } catch (final IOException e) {
+      Logger.error("Couldn't Save the Media Cache Index!");
+      e.printStackTrace();
+    }
+    LibraryExecutors.shutdown();
+    PerformanceMetrics.dump();
+    PerformanceMetrics.stop();
     Logger.info("Good Bye");
+    Logger.close();
   }
 
   /**
@@ -184,6 +211,26 @@ public final class MinecraftMediaLibrary implements MediaLibrary {
     return registrationHandler;
   }
 
+  /**
+   * Gets the store of dithered map images.
+   *
+   * @return the image store
+   */
+  @Override
+  public MapImageStore getImageStore() {
+    return imageStore;
+  }
+
+  /**
+   * Gets the disk cache of downloaded and converted media.
+   *
+   * @return the media cache
+   */
+  @Override
+  public MediaCache getCache() {
+    return cache;
+  }
+
   /**
    * Gets the path of the parent library folder.
    *
@@ -0,0 +1,137 @@
+/*............................................................................................
+. Copyright © 2021 Brandon Li                                                               .
+.                                                                                           .
+. Permission is hereby granted, free of charge, to any person obtaining a copy of this      .
+. software and associated documentation files (the “Software”), to deal in the Software     .
+. without restriction, including without limitation the rights to use, copy, modify, merge, .
+. publish, distribute, sublicense, and/or sell copies of the Software, and to permit        .
+. persons to whom the Software is furnished to do so, subject to the following conditions:  .
+.                                                                                           .
+. The above copyright notice and this permission notice shall be included in all copies     .
+. or substantial portions of the Software.                                                  .
+.                                                                                           .
+. THE SOFTWARE IS PROVIDED “AS IS”, WITHOUT WARRANTY OF ANY KIND,                           .
+.  EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF                       .
+.   MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND                                   .
+.   NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS                     .
+.   BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN                      .
+.   ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN                       .
+.   CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE                        .
+.   SOFTWARE.                                                                               .
+............................................................................................*/
+
+package com.github.pulsebeat02.minecraftmedialibrary.extractor;
+
+import com.github.pulsebeat02.minecraftmedialibrary.dependency.FFmpegDependencyInstallation;
+import com.github.pulsebeat02.minecraftmedialibrary.logger.Logger;
+import com.google.common.base.Preconditions;
+import org.jetbrains.annotations.NotNull;
+import ws.schild.jave.EncoderException;
+import ws.schild.jave.MultimediaObject;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Splits long audio into segments of a fixed length, so a resourcepack can hold a sound event for
+ * every segment. The segments are cut by FFmpeg without encoding the audio again, which makes
+ * splitting take about as long as copying the file.
+ */
+public final class AudioSegmenter {
+
+  private AudioSegmenter() {}
+
+  /**
+   * Gets the duration of an audio file.
+   *
+   * @param audio the audio file
+   * @return the duration in milliseconds, or -1 if it couldn't be read
+   */
+  public static long getDuration(@NotNull final Path audio) {
+    try {
+      return new MultimediaObject(audio.toFile(), new FFmpegLocation()).getInfo().getDuration();
+    } catch (final EncoderException e) {
+      Logger.error(String.format("Couldn't Read the Duration of Audio! (%s)", audio));
+      e.printStackTrace();
+    }
+    return -1L;
+  }
+
+  /**
+   * Splits an audio file into segments of the specified length. The segments are named after their
+   * index, and any segments left in the directory from an earlier split are deleted first.
+   *
+   * @param audio the audio file, which must be in the OGG format
+   * @param directory the directory to put the segments in
+   * @param seconds the length of every segment but the last
+   * @return the segments in order
+   * @throws IOException if FFmpeg couldn't split the audio
+   */
+  @NotNull
+  public static List<Path> split(
+      @NotNull final Path audio, @NotNull final Path directory, final int seconds)
+      throws IOException {
+    Preconditions.checkArgument(seconds > 0, "The segment length must be positive!");
+    Files.createDirectories(directory);
+    for (final Path segment : getSegments(directory)) {
+      Files.delete(segment);
+    }
+    Logger.info(
+        String.format("Splitting Audio into Segments of %d Seconds (%s)", seconds, audio));
+    final ProcessBuilder pb =
+        new ProcessBuilder(
+            FFmpegDependencyInstallation.getFFmpegPath(),
+            "-y",
+            "-i",
+            audio.toAbsolutePath().toString(),
+            "-f",
+            "segment",
+            "-segment_time",
+            String.valueOf(seconds),
+            "-reset_timestamps",
+            "1",
+            "-c",
+            "copy",
+            directory.resolve("segment_%04d.ogg").toAbsolutePath().toString());
+    final ProcessBuilder.Redirect redirect =
+        ProcessBuilder.Redirect.appendTo(Logger.getLogFile());
+    pb.redirectOutput(redirect);
+    pb.redirectError(redirect);
+    final int code;
+    try {
+      code = pb.start().waitFor();
+    } catch (final InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException("Interrupted while splitting audio!", e);
+    }
+    final List<Path> segments = getSegments(directory);
+    if (code != 0 || segments.isEmpty()) {
+      throw new IOException(
+          String.format("FFmpeg couldn't split the audio! (Exit Code: %d)", code));
+    }
+    Logger.info(String.format("Split Audio into %d Segments (%s)", segments.size(), directory));
+    return segments;
+  }
+
+  /**
+   * Gets the segments in a directory in order.
+   *
+   * @param directory the directory
+   * @return the segments
+   * @throws IOException if the directory couldn't be listed
+   */
+  @NotNull
+  private static List<Path> getSegments(@NotNull final Path directory) throws IOException {
+    try (final Stream<Path> files = Files.list(directory)) {
+      return files
+          .filter(file -> file.getFileName().toString().matches("segment_\\d+\\.ogg"))
+          .sorted()
+          .collect(Collectors.toCollection(ArrayList::new));
+    }
+  }
+}
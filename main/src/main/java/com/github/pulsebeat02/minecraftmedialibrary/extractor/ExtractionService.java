@@ -0,0 +1,275 @@
+/*............................................................................................
+. Copyright © 2021 Brandon Li                                                               .
+.                                                                                           .
+. Permission is hereby granted, free of charge, to any person obtaining a copy of this      .
+. software and associated documentation files (the “Software”), to deal in the Software     .
+. without restriction, including without limitation the rights to use, copy, modify, merge, .
+. publish, distribute, sublicense, and/or sell copies of the Software, and to permit        .
+. persons to whom the Software is furnished to do so, subject to the following conditions:  .
+.                                                                                           .
+. The above copyright notice and this permission notice shall be included in all copies     .
+. or substantial portions of the Software.                                                  .
+.                                                                                           .
+. THE SOFTWARE IS PROVIDED “AS IS”, WITHOUT WARRANTY OF ANY KIND,                           .
+.  EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF                       .
+.   MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND                                   .
+.   NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS                     .
+.   BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN                      .
+.   ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN                       .
+.   CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE                        .
+.   SOFTWARE.                                                                               .
+............................................................................................*/
+
+package com.github.pulsebeat02.minecraftmedialibrary.extractor;
+
+import com.github.pulsebeat02.minecraftmedialibrary.cache.MediaCache;
+import com.github.pulsebeat02.minecraftmedialibrary.concurrent.PriorityExecutor;
+import com.github.pulsebeat02.minecraftmedialibrary.frame.decoder.ProgressiveSource;
+import com.github.pulsebeat02.minecraftmedialibrary.logger.Logger;
+import com.github.pulsebeat02.minecraftmedialibrary.metrics.PerformanceMetrics;
+import com.github.pulsebeat02.minecraftmedialibrary.utility.VideoExtractionUtilities;
+import com.google.common.base.Preconditions;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.DoubleConsumer;
+
+/**
+ * Runs YouTube extractions on a pool of its own. Requests for a video which is already being
+ * extracted attach to the running extraction instead of starting another download and FFmpeg
+ * process writing to the same files. At most a fixed number of extractions run at once and the
+ * rest wait in a bounded queue, so a burst of requests can't start dozens of downloads and
+ * transcodes. Requests are refused once the queue is full.
+ *
+ * <p>The number of running and queued extractions is registered as gauges in {@link
+ * PerformanceMetrics}.
+ */
+public final class ExtractionService {
+
+  /** The default maximum number of extractions running at once. */
+  public static final int DEFAULT_CONCURRENCY = 2;
+
+  /** The default maximum number of extractions waiting in the queue. */
+  public static final int DEFAULT_CAPACITY = 16;
+
+  private final String directory;
+  private final ExtractionSetting settings;
+  private final MediaCache cache;
+  private final PriorityExecutor executor;
+  private final Map<String, Job> jobs;
+
+  /**
+   * Instantiates a new ExtractionService with the default limits.
+   *
+   * @param directory the directory videos are downloaded into
+   * @param settings the settings of the extracted audio
+   * @param cache the media cache, or null to keep the files in the directory
+   */
+  public ExtractionService(
+      @NotNull final String directory,
+      @NotNull final ExtractionSetting settings,
+      @Nullable final MediaCache cache) {
+    this(directory, settings, cache, DEFAULT_CONCURRENCY, DEFAULT_CAPACITY);
+  }
+
+  /**
+   * Instantiates a new ExtractionService.
+   *
+   * @param directory the directory videos are downloaded into
+   * @param settings the settings of the extracted audio
+   * @param cache the media cache, or null to keep the files in the directory
+   * @param concurrency the maximum number of extractions running at once
+   * @param capacity the maximum number of extractions waiting in the queue
+   */
+  public ExtractionService(
+      @NotNull final String directory,
+      @NotNull final ExtractionSetting settings,
+      @Nullable final MediaCache cache,
+      final int concurrency,
+      final int capacity) {
+    Preconditions.checkArgument(
+        concurrency > 0, String.format("Invalid Concurrency! (%d)", concurrency));
+    Preconditions.checkArgument(capacity > 0, String.format("Invalid Capacity! (%d)", capacity));
+    this.directory = directory;
+    this.settings = settings;
+    this.cache = cache;
+    executor = new PriorityExecutor("Extraction", concurrency, capacity);
+    jobs = new HashMap<>();
+    PerformanceMetrics.registerGauge("queue.extraction", () -> executor.getQueue().size());
+    PerformanceMetrics.registerGauge("active.extraction", executor::getActiveCount);
+  }
+
+  /**
+   * Extracts a video and its audio, or attaches to the extraction of the same video if it is
+   * already running or queued. Links to the same video are treated as the same request. Every
+   * caller should {@link YoutubeExtraction#release()} the extraction once it is done with its
+   * files.
+   *
+   * @param url the url of the video
+   * @param progress the consumer of the download progress, from 0 to 1
+   * @return the future of the extraction, which fails with a {@link RejectedExecutionException}
+   *     if the queue is full
+   */
+  @NotNull
+  public synchronized CompletableFuture<YoutubeExtraction> extract(
+      @NotNull final String url, @NotNull final DoubleConsumer progress) {
+    final String key = VideoExtractionUtilities.getYoutubeID(url).orElse(url);
+    final Job running = jobs.get(key);
+    if (running != null) {
+      PerformanceMetrics.increment("extraction.coalesced");
+      running.extraction.retain();
+      running.listen(progress);
+      return running.future.thenApply(extraction -> extraction);
+    }
+    if (executor.isShutdown() || executor.getQueue().size() >= executor.getCapacity()) {
+      PerformanceMetrics.increment("extraction.refused");
+      final CompletableFuture<YoutubeExtraction> refused = new CompletableFuture<>();
+      refused.completeExceptionally(
+          new RejectedExecutionException(
+              String.format("The extraction queue is full! (%s)", url)));
+      return refused;
+    }
+    final Job job = new Job(new YoutubeExtraction(url, directory, settings, cache));
+    job.listen(progress);
+    jobs.put(key, job);
+    job.future.whenComplete((extraction, throwable) -> finish(key, job));
+    executor.execute(job::run);
+    Logger.info(
+        String.format(
+            "Queued Extraction of %s (%d Running, %d Queued)", url, getActive(), getQueued()));
+    return job.future.thenApply(extraction -> extraction);
+  }
+
+  /**
+   * Gets the video which is being downloaded for an extraction, so it can be played before the
+   * extraction finished.
+   *
+   * @param url the url of the video
+   * @return the download, or null if the video isn't being downloaded
+   */
+  @Nullable
+  public synchronized ProgressiveSource getDownload(@NotNull final String url) {
+    final Job job = jobs.get(VideoExtractionUtilities.getYoutubeID(url).orElse(url));
+    return job != null ? job.extraction.getDownload() : null;
+  }
+
+  /**
+   * Removes a finished job, so the next request for the video is served by the cache.
+   *
+   * @param key the key of the job
+   * @param job the job
+   */
+  private synchronized void finish(@NotNull final String key, @NotNull final Job job) {
+    jobs.remove(key, job);
+  }
+
+  /**
+   * Gets the number of extractions which are running.
+   *
+   * @return the number of running extractions
+   */
+  public int getActive() {
+    return executor.getActiveCount();
+  }
+
+  /**
+   * Gets the number of extractions waiting in the queue.
+   *
+   * @return the number of queued extractions
+   */
+  public int getQueued() {
+    return executor.getQueue().size();
+  }
+
+  /**
+   * Gets the number of distinct videos being extracted or waiting to be.
+   *
+   * @return the number of pending videos
+   */
+  public synchronized int getPending() {
+    return jobs.size();
+  }
+
+  /**
+   * Gets the maximum number of extractions running at once.
+   *
+   * @return the concurrency
+   */
+  public int getConcurrency() {
+    return executor.getMaximumPoolSize();
+  }
+
+  /**
+   * Gets the maximum number of extractions waiting in the queue.
+   *
+   * @return the capacity
+   */
+  public int getCapacity() {
+    return executor.getCapacity();
+  }
+
+  /** Shuts down the service, cancelling queued extractions. */
+  public synchronized void shutdown() {
+    PerformanceMetrics.unregisterGauge("queue.extraction");
+    PerformanceMetrics.unregisterGauge("active.extraction");
+    executor.shutdownNow();
+    final List<Job> pending = new ArrayList<>(jobs.values());
+    jobs.clear();
+    for (final Job job : pending) {
+      job.future.cancel(false);
+    }
+  }
+
+  /** An extraction and the callers waiting for it. */
+  private static final class Job {
+
+    private final YoutubeExtraction extraction;
+    private final CompletableFuture<YoutubeExtraction> future;
+    private final List<DoubleConsumer> listeners;
+    private volatile double progress;
+
+    private Job(@NotNull final YoutubeExtraction extraction) {
+      this.extraction = extraction;
+      future = new CompletableFuture<>();
+      listeners = new CopyOnWriteArrayList<>();
+    }
+
+    /**
+     * Adds a consumer of the progress, which is told the current progress right away.
+     *
+     * @param listener the consumer
+     */
+    private void listen(@NotNull final DoubleConsumer listener) {
+      listeners.add(listener);
+      if (progress > 0) {
+        listener.accept(progress);
+      }
+    }
+
+    /** Runs the extraction. */
+    private void run() {
+      try {
+        extraction.extract(
+            value -> {
+              progress = value;
+              for (final DoubleConsumer listener : listeners) {
+                listener.accept(value);
+              }
+            });
+        future.complete(extraction);
+      } catch (final IOException | RuntimeException e) {
+        Logger.error(String.format("Couldn't Extract Video! (%s)", extraction.getUrl()));
+        extraction.discard();
+        future.completeExceptionally(e);
+      }
+    }
+  }
+}
@@ -0,0 +1,271 @@
+/*............................................................................................
+. Copyright © 2021 Brandon Li                                                               .
+.                                                                                           .
+. Permission is hereby granted, free of charge, to any person obtaining a copy of this      .
+. software and associated documentation files (the “Software”), to deal in the Software     .
+. without restriction, including without limitation the rights to use, copy, modify, merge, .
+. publish, distribute, sublicense, and/or sell copies of the Software, and to permit        .
+. persons to whom the Software is furnished to do so, subject to the following conditions:  .
+.                                                                                           .
+. The above copyright notice and this permission notice shall be included in all copies     .
+. or substantial portions of the Software.                                                  .
+.                                                                                           .
+. THE SOFTWARE IS PROVIDED “AS IS”, WITHOUT WARRANTY OF ANY KIND,                           .
+.  EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF                       .
+.   MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND                                   .
+.   NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS                     .
+.   BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN                      .
+.   ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN                       .
+.   CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE                        .
+.   SOFTWARE.                                                                               .
+............................................................................................*/
+
+package com.github.pulsebeat02.minecraftmedialibrary.extractor;
+
+import com.github.pulsebeat02.minecraftmedialibrary.cache.MediaCache;
+import com.github.pulsebeat02.minecraftmedialibrary.dependency.FFmpegDependencyInstallation;
+import com.github.pulsebeat02.minecraftmedialibrary.logger.Logger;
+import com.google.common.base.Preconditions;
+import org.apache.commons.io.FilenameUtils;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Transcodes videos to the exact resolution and frame rate of a screen before they are played. The
+ * decoder otherwise decodes the full resolution source, which is often 1080p at 60 frames per
+ * second, and scales every frame down to a few hundred pixels while playing. The transcoded video
+ * is encoded as MJPEG, which only has intra frames and is very cheap to decode, and has no audio as
+ * the audio is played through the resourcepack.
+ *
+ * <p>Transcoded videos are kept in the {@link MediaCache} per source, resolution and frame rate,
+ * so every video is only transcoded once for every screen size. Without a cache, they are written
+ * next to the source and reused as long as they are newer than the source.
+ */
+public final class VideoTranscoder {
+
+  /** The default frame rate, which is the number of ticks of the server per second. */
+  public static final int DEFAULT_FPS = 20;
+
+  private static final Map<String, String> KEYS;
+
+  static {
+    KEYS = new ConcurrentHashMap<>();
+  }
+
+  private final MediaCache cache;
+
+  /**
+   * Instantiates a new VideoTranscoder.
+   *
+   * @param cache the media cache, or null to keep the transcoded videos next to their sources
+   */
+  public VideoTranscoder(@Nullable final MediaCache cache) {
+    this.cache = cache;
+  }
+
+  /**
+   * Gets the name of the variant a video is transcoded into.
+   *
+   * @param width the width in pixels
+   * @param height the height in pixels
+   * @param fps the frame rate
+   * @return the variant, such as "video-640x360-20.mkv"
+   */
+  @NotNull
+  public static String getVariant(final int width, final int height, final int fps) {
+    return String.format("video-%dx%d-%d.mkv", width, height, fps);
+  }
+
+  /**
+   * Transcodes a video to the specified resolution and frame rate, or gets the video transcoded
+   * earlier with the same settings. Callers transcoding the same video at the same time wait for
+   * one transcode instead of running their own. The transcoded video isn't evicted from the media
+   * cache until it is closed, so it should be closed once it isn't played anymore.
+   *
+   * @param source the source video
+   * @param width the width of the screen in pixels
+   * @param height the height of the screen in pixels
+   * @param fps the frame rate
+   * @return the transcoded video
+   * @throws IOException if the video couldn't be transcoded
+   */
+  @NotNull
+  public TranscodedVideo transcode(
+      @NotNull final Path source, final int width, final int height, final int fps)
+      throws IOException {
+    Preconditions.checkArgument(
+        width > 0 && height > 0, String.format("Invalid Resolution! (%dx%d)", width, height));
+    Preconditions.checkArgument(fps > 0, String.format("FPS is not valid! (%d)", fps));
+    final String variant = getVariant(width, height, fps);
+    if (cache != null) {
+      final String key = getKey(source);
+      final MediaCache.Lease lease =
+          cache.get(
+              key,
+              variant,
+              source.toAbsolutePath().toString(),
+              target -> encode(source, target, width, height, fps));
+      return new TranscodedVideo(source, lease.getPath(), lease);
+    }
+    final Path target =
+        source.resolveSibling(
+            String.format(
+                "%s-%s", FilenameUtils.getBaseName(source.getFileName().toString()), variant));
+    if (Files.exists(target)
+        && Files.getLastModifiedTime(target).compareTo(Files.getLastModifiedTime(source)) >= 0) {
+      return new TranscodedVideo(source, target, null);
+    }
+    final Path part = target.resolveSibling(String.format("%s.part", target.getFileName()));
+    try {
+      encode(source, part, width, height, fps);
+      Files.move(part, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    } finally {
+      Files.deleteIfExists(part);
+    }
+    return new TranscodedVideo(source, target, null);
+  }
+
+  /**
+   * Gets the key of a source video in the media cache, which is the hash of its contents. The key
+   * is remembered for as long as the file isn't modified, so the video is only hashed once.
+   *
+   * @param source the source video
+   * @return the key
+   * @throws IOException if the video couldn't be read
+   */
+  @NotNull
+  private static String getKey(@NotNull final Path source) throws IOException {
+    final String file =
+        String.format(
+            "%s:%d:%d",
+            source.toAbsolutePath(),
+            Files.size(source),
+            Files.getLastModifiedTime(source).toMillis());
+    final String key = KEYS.get(file);
+    if (key != null) {
+      return key;
+    }
+    final String hash = MediaCache.getKey(source);
+    KEYS.put(file, hash);
+    return hash;
+  }
+
+  /**
+   * Runs FFmpeg to transcode a video.
+   *
+   * @param source the source video
+   * @param target the file to write the transcoded video to
+   * @param width the width in pixels
+   * @param height the height in pixels
+   * @param fps the frame rate
+   * @throws IOException if FFmpeg failed
+   */
+  private static void encode(
+      @NotNull final Path source,
+      @NotNull final Path target,
+      final int width,
+      final int height,
+      final int fps)
+      throws IOException {
+    Logger.info(
+        String.format(
+            "Transcoding Video to %dx%d at %d FPS (%s)", width, height, fps, source.getFileName()));
+    final long start = System.nanoTime();
+    final ProcessBuilder pb =
+        new ProcessBuilder(
+            FFmpegDependencyInstallation.getFFmpegPath(),
+            "-y",
+            "-i",
+            source.toAbsolutePath().toString(),
+            "-an",
+            "-sn",
+            "-vf",
+            String.format("scale=%d:%d:flags=area,fps=%d", width, height, fps),
+            "-c:v",
+            "mjpeg",
+            "-q:v",
+            "3",
+            "-pix_fmt",
+            "yuvj444p",
+            "-f",
+            "matroska",
+            target.toAbsolutePath().toString());
+    final ProcessBuilder.Redirect redirect =
+        ProcessBuilder.Redirect.appendTo(Logger.getLogFile());
+    pb.redirectOutput(redirect);
+    pb.redirectError(redirect);
+    final int code;
+    try {
+      code = pb.start().waitFor();
+    } catch (final InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException("Interrupted while transcoding video!", e);
+    }
+    if (code != 0 || !Files.exists(target)) {
+      Logger.error(String.format("Couldn't Transcode Video! (%s)", source));
+      throw new IOException(
+          String.format("FFmpeg couldn't transcode the video! (Exit Code: %d)", code));
+    }
+    Logger.info(
+        String.format(
+            "Transcoded Video to %dx%d at %d FPS in %d ms (%s)",
+            width,
+            height,
+            fps,
+            TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start),
+            source.getFileName()));
+  }
+
+  /** A transcoded video, which is leased from the media cache until it is closed. */
+  public static final class TranscodedVideo implements AutoCloseable {
+
+    private final Path source;
+    private final Path path;
+    private final MediaCache.Lease lease;
+
+    private TranscodedVideo(
+        @NotNull final Path source,
+        @NotNull final Path path,
+        @Nullable final MediaCache.Lease lease) {
+      this.source = source;
+      this.path = path;
+      this.lease = lease;
+    }
+
+    /**
+     * Gets the source video.
+     *
+     * @return the source
+     */
+    @NotNull
+    public Path getSource() {
+      return source;
+    }
+
+    /**
+     * Gets the file of the transcoded video.
+     *
+     * @return the file
+     */
+    @NotNull
+    public Path getPath() {
+      return path;
+    }
+
+    /** Releases the transcoded video, so it can be evicted from the media cache again. */
+    @Override
+    public void close() {
+      if (lease != null) {
+        lease.close();
+      }
+    }
+  }
+}
@@ -26,40 +26,75 @@ import com.github.kiulian.downloader.YoutubeDownloader;
 import com.github.kiulian.downloader.YoutubeException;
 import com.github.kiulian.downloader.model.VideoDetails;
 import com.github.kiulian.downloader.model.YoutubeVideo;
+import com.github.kiulian.downloader.model.formats.Format;
+import com.github.pulsebeat02.minecraftmedialibrary.cache.MediaCache;
+import com.github.pulsebeat02.minecraftmedialibrary.frame.decoder.ProgressiveSource;
 import com.github.pulsebeat02.minecraftmedialibrary.json.GsonHandler;
 import com.github.pulsebeat02.minecraftmedialibrary.logger.Logger;
 import com.github.pulsebeat02.minecraftmedialibrary.utility.VideoExtractionUtilities;
 import com.google.common.base.Preconditions;
 import com.google.common.base.Strings;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 import ws.schild.jave.Encoder;
-import ws.schild.jave.EncoderException;
-import ws.schild.jave.MultimediaObject;
 import ws.schild.jave.encode.AudioAttributes;
 import ws.schild.jave.encode.EncodingAttributes;
 import ws.schild.jave.process.ProcessLocator;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.file.DirectoryNotEmptyException;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.DoubleConsumer;
 
 /**
  * Youtube extraction class used to extract audio from video files. Very useful for extraction media
  * from a specific link.
+ *
+ * <p>{@link #extract(DoubleConsumer)} downloads the video once and feeds the bytes to FFmpeg while
+ * they arrive, so the audio is ready about when the download finishes. The files of every video
+ * are kept in a folder named after its id, or in a {@link MediaCache} if one is given, and finished
+ * extractions are remembered, so extracting the same video again returns right away.
+ *
+ * <p>Files in the media cache are leased for as long as the extraction is used, so they aren't
+ * evicted while they are played or packed. Every user of the extraction should {@link #release()}
+ * it once it is done with the files.
  */
 public class YoutubeExtraction implements VideoExtractor {
 
+  private static final Map<String, CachedExtraction> CACHE;
+
+  static {
+    CACHE = new ConcurrentHashMap<>();
+  }
+
+  private final ExtractionSetting settings;
   private final Encoder encoder;
   private final EncodingAttributes attrs;
   private final ProcessLocator ffmpegLocator;
+  private final SegmentedTranscoder transcoder;
 
   private final String url;
   private final String directory;
+  private final MediaCache cache;
+  private final transient List<MediaCache.Lease> leases;
+  private transient int users;
   private VideoDetails details;
   private Path video;
   private Path audio;
+  private volatile ProgressiveSource download;
 
   /**
    * Instantiates a new YoutubeExtraction.
@@ -72,13 +107,35 @@ public class YoutubeExtraction implements VideoExtractor {
       @NotNull final String url,
       @NotNull final String directory,
       @NotNull final ExtractionSetting settings) {
+    this(url, directory, settings, null);
+  }
+
+  /**
+   * Instantiates a new YoutubeExtraction which keeps the video and its audio in a media cache. The
+   * directory is only used while the video is being downloaded.
+   *
+   * @param url the url
+   * @param directory the directory
+   * @param settings the settings
+   * @param cache the media cache
+   */
+  public YoutubeExtraction(
+      @NotNull final String url,
+      @NotNull final String directory,
+      @NotNull final ExtractionSetting settings,
+      @Nullable final MediaCache cache) {
     Preconditions.checkArgument(!Strings.isNullOrEmpty(url), "Youtube URL cannot be empty null!");
     Preconditions.checkArgument(
         !Strings.isNullOrEmpty(directory), "Directory cannot be empty null!");
     this.url = url;
     this.directory = directory;
+    this.settings = settings;
+    this.cache = cache;
+    leases = new ArrayList<>();
+    users = 1;
     ffmpegLocator = new FFmpegLocation();
     encoder = new Encoder(ffmpegLocator);
+    transcoder = new SegmentedTranscoder(ffmpegLocator);
     final AudioAttributes attributes = new AudioAttributes();
     attributes.setCodec(settings.getCodec());
     attributes.setBitRate(settings.getBitrate());
@@ -99,6 +156,9 @@ public class YoutubeExtraction implements VideoExtractor {
   @Override
   @NotNull
   public Path downloadVideo() {
+    if ((video != null && Files.exists(video)) || loadCached()) {
+      return video;
+    }
     onVideoDownload();
     final Optional<String> videoID = VideoExtractionUtilities.getYoutubeID(url);
     Logger.info(String.format("Downloading Video at URL (%s)", url));
@@ -109,8 +169,12 @@ public class YoutubeExtraction implements VideoExtractor {
         video =
             ytVideo
                 .download(
-                    ytVideo.videoWithAudioFormats().get(0), new File(directory), "video", true)
+                    ytVideo.videoWithAudioFormats().get(0),
+                    getCacheFolder(videoID.get()).toFile(),
+                    "video",
+                    true)
                 .toPath();
+        video = store(videoID.get(), video);
         Logger.info(String.format("Successfully Downloaded Video at URL: (%s)", url));
       } catch (final IOException | YoutubeException e) {
         Logger.info(String.format("Could not Download Video at URL!: (%s)", url));
@@ -121,27 +185,372 @@ public class YoutubeExtraction implements VideoExtractor {
   }
 
   /**
-   * Extracts the audio from the video file provided.
+   * Downloads the video and extracts its audio in a single pass. The video is written to disk and
+   * piped into FFmpeg at the same time, so the audio is transcoded while the video downloads. If
+   * FFmpeg can't read the video from a pipe, such as when its index is at the end of the file, the
+   * audio is extracted from the downloaded file afterwards instead. Nothing is downloaded if the
+   * video was already extracted. The video can be played while it is downloading through the
+   * source returned by {@link #getDownload()}.
+   *
+   * @param progress the consumer of the download progress, from 0 to 1
+   * @throws IOException if the video couldn't be downloaded
+   */
+  public void extract(@NotNull final DoubleConsumer progress) throws IOException {
+    if (loadCached()) {
+      progress.accept(1.0);
+      return;
+    }
+    final String id =
+        VideoExtractionUtilities.getYoutubeID(url)
+            .orElseThrow(() -> new IOException(String.format("Invalid Youtube URL! (%s)", url)));
+    final YoutubeVideo ytVideo;
+    try {
+      ytVideo = new YoutubeDownloader().getVideo(id);
+    } catch (final YoutubeException e) {
+      throw new IOException(String.format("Couldn't Get Video Information! (%s)", url), e);
+    }
+    details = ytVideo.details();
+    final Format format = ytVideo.videoWithAudioFormats().get(0);
+    final Path folder = getCacheFolder(id);
+    video = folder.resolve(String.format("video.%s", format.extension().value()));
+    audio = folder.resolve("audio.ogg");
+    onVideoDownload();
+    onAudioExtraction();
+    Logger.info(String.format("Downloading and Extracting Video at URL (%s)", url));
+    final Process process = createTranscoder(audio).start();
+    boolean piped = true;
+    final URLConnection connection = new URL(format.url()).openConnection();
+    final long length =
+        format.contentLength() != null ? format.contentLength() : connection.getContentLengthLong();
+    final OutputStream pipe = process.getOutputStream();
+    final ProgressiveSource download = new ProgressiveSource(video, length);
+    this.download = download;
+    try (final InputStream in = connection.getInputStream();
+        final OutputStream out = Files.newOutputStream(video)) {
+      final byte[] buffer = new byte[65536];
+      long downloaded = 0L;
+      int step = -1;
+      int read;
+      while ((read = in.read(buffer)) != -1) {
+        out.write(buffer, 0, read);
+        if (piped) {
+          try {
+            pipe.write(buffer, 0, read);
+          } catch (final IOException e) {
+            // FFmpeg stopped reading, so the audio is extracted from the file afterwards
+            piped = false;
+          }
+        }
+        downloaded += read;
+        download.update(downloaded);
+        if (length > 0 && (int) (downloaded * 100 / length) != step) {
+          step = (int) (downloaded * 100 / length);
+          progress.accept(Math.min(1.0, (double) downloaded / length));
+        }
+      }
+    } catch (final IOException | RuntimeException e) {
+      download.fail();
+      closePipe(pipe);
+      process.destroy();
+      Logger.info(String.format("Could not Download Video at URL!: (%s)", url));
+      throw e;
+    }
+    progress.accept(1.0);
+    download.complete(video);
+    Logger.info(String.format("Successfully Downloaded Video at URL: (%s)", url));
+    if (!closePipe(pipe) || !waitFor(process) || !piped) {
+      Logger.info("Couldn't Extract Audio while Downloading, Extracting from the File Instead");
+      Files.deleteIfExists(audio);
+      extractAudio();
+    } else {
+      Logger.info(
+          String.format(
+              "Successfully Extracted Audio from Video File! (Target: %s)",
+              audio.toAbsolutePath()));
+    }
+    if (Files.exists(audio)) {
+      video = store(id, video);
+      audio = store(id, audio);
+      download.setFile(video);
+      CACHE.put(id, new CachedExtraction(details, video, audio));
+    }
+    if (cache != null) {
+      try {
+        Files.deleteIfExists(folder);
+      } catch (final DirectoryNotEmptyException ignored) {
+      }
+    }
+  }
+
+  /**
+   * Creates the FFmpeg process which transcodes the video it is given on its input into audio, with
+   * the same settings as the encoder.
+   *
+   * @param target the audio file
+   * @return the process builder
+   */
+  @NotNull
+  private ProcessBuilder createTranscoder(@NotNull final Path target) {
+    final List<String> command = new ArrayList<>();
+    command.add(ffmpegLocator.getExecutablePath());
+    command.add("-y");
+    command.add("-i");
+    command.add("pipe:0");
+    command.addAll(getAudioOptions());
+    command.add("-f");
+    command.add(settings.getOutputFormat());
+    command.add(target.toAbsolutePath().toString());
+    final ProcessBuilder pb = new ProcessBuilder(command);
+    final ProcessBuilder.Redirect redirect =
+        ProcessBuilder.Redirect.appendTo(Logger.getLogFile());
+    pb.redirectOutput(redirect);
+    pb.redirectError(redirect);
+    return pb;
+  }
+
+  /**
+   * Gets the FFmpeg options which transcode a video into audio with the extraction settings.
+   *
+   * @return the options
+   */
+  @NotNull
+  private List<String> getAudioOptions() {
+    return Arrays.asList(
+        "-vn",
+        "-acodec",
+        settings.getCodec(),
+        "-ab",
+        String.valueOf(settings.getBitrate()),
+        "-ac",
+        String.valueOf(settings.getChannels()),
+        "-ar",
+        String.valueOf(settings.getSamplingRate()),
+        "-af",
+        String.format("volume=%s", settings.getVolume() / 256.0F));
+  }
+
+  /**
+   * Closes the input of the transcoder, which tells it the video has ended.
+   *
+   * @param pipe the input of the transcoder
+   * @return whether the input was closed without FFmpeg having stopped reading early
+   */
+  private boolean closePipe(@NotNull final OutputStream pipe) {
+    try {
+      pipe.close();
+      return true;
+    } catch (final IOException e) {
+      return false;
+    }
+  }
+
+  /**
+   * Waits for the transcoder to finish.
+   *
+   * @param process the process
+   * @return whether the audio was transcoded successfully
+   */
+  private boolean waitFor(@NotNull final Process process) {
+    try {
+      return process.waitFor() == 0 && Files.size(audio) > 0;
+    } catch (final InterruptedException e) {
+      Thread.currentThread().interrupt();
+      process.destroy();
+    } catch (final IOException ignored) {
+    }
+    return false;
+  }
+
+  /**
+   * Loads the files of an earlier extraction of the same video, if they still exist.
+   *
+   * @return whether the extraction was cached
+   */
+  private boolean loadCached() {
+    final Optional<String> id = VideoExtractionUtilities.getYoutubeID(url);
+    if (!id.isPresent()) {
+      return false;
+    }
+    final CachedExtraction cached = CACHE.get(id.get());
+    if (cache != null) {
+      return loadFromCache(id.get(), cached);
+    }
+    if (cached == null || !Files.exists(cached.video) || !Files.exists(cached.audio)) {
+      return false;
+    }
+    details = cached.details;
+    video = cached.video;
+    audio = cached.audio;
+    Logger.info(String.format("Using Cached Extraction of Video (%s)", url));
+    return true;
+  }
+
+  /**
+   * Loads the files of an earlier extraction of the same video from the media cache. The details of
+   * the video are requested again if they weren't remembered, such as after a restart.
+   *
+   * @param id the id of the video
+   * @param cached the remembered extraction
+   * @return whether the video and its audio were cached
+   */
+  private boolean loadFromCache(@NotNull final String id, @Nullable final CachedExtraction cached) {
+    final String key = getCacheKey(id);
+    MediaCache.Lease cachedVideo = null;
+    for (final String variant : cache.getVariants(key)) {
+      if (cachedVideo == null && variant.startsWith("video.")) {
+        cachedVideo = cache.get(key, variant);
+      }
+    }
+    final MediaCache.Lease cachedAudio = cache.get(key, "audio.ogg");
+    if (cachedVideo == null || cachedAudio == null) {
+      close(cachedVideo);
+      close(cachedAudio);
+      return false;
+    }
+    if (cached != null) {
+      details = cached.details;
+    } else {
+      try {
+        details = new YoutubeDownloader().getVideo(id).details();
+      } catch (final YoutubeException e) {
+        close(cachedVideo);
+        close(cachedAudio);
+        return false;
+      }
+    }
+    video = hold(cachedVideo);
+    audio = hold(cachedAudio);
+    CACHE.put(id, new CachedExtraction(details, video, audio));
+    Logger.info(String.format("Using Cached Extraction of Video (%s)", url));
+    return true;
+  }
+
+  /**
+   * Moves a downloaded or extracted file into the media cache, if there is one. The file is leased
+   * until the extraction is released.
+   *
+   * @param id the id of the video
+   * @param file the file
+   * @return the file in the cache, or the file itself if there is no cache
+   * @throws IOException if the file couldn't be moved
+   */
+  @NotNull
+  private Path store(@NotNull final String id, @NotNull final Path file) throws IOException {
+    if (cache == null) {
+      return file;
+    }
+    final String variant = file.getFileName().toString();
+    return hold(cache.put(getCacheKey(id), variant, url, file));
+  }
+
+  /**
+   * Keeps a lease of a file in the media cache until the extraction is released, or closes it
+   * right away if the extraction was already released.
+   *
+   * @param lease the lease
+   * @return the file
+   */
+  @NotNull
+  private synchronized Path hold(@NotNull final MediaCache.Lease lease) {
+    if (users > 0) {
+      leases.add(lease);
+    } else {
+      lease.close();
+    }
+    return lease.getPath();
+  }
+
+  /**
+   * Closes a lease if there is one.
+   *
+   * @param lease the lease
+   */
+  private static void close(@Nullable final MediaCache.Lease lease) {
+    if (lease != null) {
+      lease.close();
+    }
+  }
+
+  /** Adds a user of the extraction, which has to {@link #release()} it once it is done. */
+  synchronized void retain() {
+    users++;
+  }
+
+  /**
+   * Releases the extraction for one of its users. The files are closed in the media cache once
+   * every user released it, so they can be evicted again.
+   */
+  public synchronized void release() {
+    if (users > 0 && --users == 0) {
+      discard();
+    }
+  }
+
+  /** Closes the files in the media cache, such as when the extraction failed. */
+  synchronized void discard() {
+    users = 0;
+    for (final MediaCache.Lease lease : leases) {
+      lease.close();
+    }
+    leases.clear();
+  }
+
+  /**
+   * Gets the key of a video in the media cache, which is the same for every link to the video.
+   *
+   * @param id the id of the video
+   * @return the key
+   */
+  @NotNull
+  private static String getCacheKey(@NotNull final String id) {
+    return MediaCache.getKey(String.format("https://www.youtube.com/watch?v=%s", id));
+  }
+
+  /**
+   * Gets the folder the files of a video are kept in.
+   *
+   * @param id the id of the video
+   * @return the folder
+   * @throws IOException if the folder couldn't be created
+   */
+  @NotNull
+  private Path getCacheFolder(@NotNull final String id) throws IOException {
+    return Files.createDirectories(Paths.get(directory, id));
+  }
+
+  /**
+   * Extracts the audio from the video file provided. Long videos are split into segments which are
+   * transcoded at the same time by a {@link SegmentedTranscoder}.
    *
    * @return audio file
    */
   @Override
   @NotNull
   public Path extractAudio() {
+    if ((audio != null && Files.exists(audio)) || loadCached()) {
+      return audio;
+    }
     if (video == null) {
       downloadVideo();
     }
     onAudioExtraction();
     final String videoPath = video.toAbsolutePath().toString();
     Logger.info(String.format("Extracting Audio from Video File (%s)", videoPath));
-    audio = Paths.get(String.format("%s/audio.ogg", directory));
+    final Optional<String> id = VideoExtractionUtilities.getYoutubeID(url);
     try {
-      encoder.encode(new MultimediaObject(video.toFile(), ffmpegLocator), audio.toFile(), attrs);
+      audio =
+          cache != null && id.isPresent()
+              ? getCacheFolder(id.get()).resolve("audio.ogg")
+              : video.resolveSibling("audio.ogg");
+      transcoder.transcode(video, audio, settings.getOutputFormat(), getAudioOptions());
+      if (id.isPresent()) {
+        audio = store(id.get(), audio);
+      }
       Logger.info(
           String.format(
               "Successfully Extracted Audio from Video File! (Target: %s)",
               audio.toAbsolutePath()));
-    } catch (final EncoderException e) {
+    } catch (final IOException e) {
       Logger.error(String.format("Couldn't Extract Audio from Video File! (Video: %s)", videoPath));
       e.printStackTrace();
     }
@@ -204,6 +613,17 @@ public class YoutubeExtraction implements VideoExtractor {
     return details;
   }
 
+  /**
+   * Gets the video being downloaded by {@link #extract(DoubleConsumer)}, which can be played
+   * before the download finished.
+   *
+   * @return the download, or null if the download didn't start or the video was cached
+   */
+  @Nullable
+  public ProgressiveSource getDownload() {
+    return download;
+  }
+
   /**
    * Gets video.
    *
@@ -329,4 +749,19 @@ public class YoutubeExtraction implements VideoExtractor {
   public ProcessLocator getFfmpegLocator() {
     return ffmpegLocator;
   }
+
+  /** The files and details of a finished extraction. */
+  private static final class CachedExtraction {
+
+    private final VideoDetails details;
+    private final Path video;
+    private final Path audio;
+
+    private CachedExtraction(
+        @NotNull final VideoDetails details, @NotNull final Path video, @NotNull final Path audio) {
+      this.details = details;
+      this.video = video;
+      this.audio = audio;
+    }
+  }
 }
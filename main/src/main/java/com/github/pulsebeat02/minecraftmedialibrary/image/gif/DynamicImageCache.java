@@ -0,0 +1,187 @@
+/*............................................................................................
+. Copyright © 2021 Brandon Li                                                               .
+.                                                                                           .
+. Permission is hereby granted, free of charge, to any person obtaining a copy of this      .
+. software and associated documentation files (the “Software”), to deal in the Software     .
+. without restriction, including without limitation the rights to use, copy, modify, merge, .
+. publish, distribute, sublicense, and/or sell copies of the Software, and to permit        .
+. persons to whom the Software is furnished to do so, subject to the following conditions:  .
+.                                                                                           .
+. The above copyright notice and this permission notice shall be included in all copies     .
+. or substantial portions of the Software.                                                  .
+.                                                                                           .
+. THE SOFTWARE IS PROVIDED “AS IS”, WITHOUT WARRANTY OF ANY KIND,                           .
+.  EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF                       .
+.   MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND                                   .
+.   NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS                     .
+.   BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN                      .
+.   ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN                       .
+.   CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE                        .
+.   SOFTWARE.                                                                               .
+............................................................................................*/
+
+package com.github.pulsebeat02.minecraftmedialibrary.image.gif;
+
+import com.github.pulsebeat02.minecraftmedialibrary.MediaLibrary;
+import com.github.pulsebeat02.minecraftmedialibrary.frame.dither.DitherSetting;
+import com.github.pulsebeat02.minecraftmedialibrary.logger.Logger;
+import com.google.common.hash.Hashing;
+import com.google.common.io.Files;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+
+/**
+ * A cache of pre-dithered animations shared between dynamic images. Images showing the same file
+ * contents at the same size and dither setting share one set of dithered frames and one playback
+ * clock. An animation is reference counted by the maps showing it, and evicted once the last map
+ * is released.
+ */
+public final class DynamicImageCache {
+
+  private static final Map<AnimationKey, SharedAnimation> ANIMATIONS;
+  private static final Map<Integer, SharedAnimation> MAPS;
+  private static final ScheduledExecutorService SCHEDULER;
+
+  static {
+    ANIMATIONS = new HashMap<>();
+    MAPS = new HashMap<>();
+    SCHEDULER =
+        Executors.newSingleThreadScheduledExecutor(
+            r -> {
+              final Thread thread = new Thread(r, "MML Dynamic Images");
+              thread.setDaemon(true);
+              return thread;
+            });
+  }
+
+  private DynamicImageCache() {}
+
+  /**
+   * Shows an animation on a map, sharing the frames with every other map showing the same file,
+   * size and dither setting. If the map already shows an animation, it is released first.
+   *
+   * @param library the library
+   * @param file the gif file
+   * @param width the width of the frames
+   * @param height the height of the frames
+   * @param setting the dither setting
+   * @param map the map id
+   * @param itemframeWidth the itemframe width
+   * @param itemframeHeight the itemframe height
+   * @throws IOException if the file couldn't be hashed
+   */
+  public static synchronized void acquire(
+      @NotNull final MediaLibrary library,
+      @NotNull final File file,
+      final int width,
+      final int height,
+      @NotNull final DitherSetting setting,
+      final int map,
+      final int itemframeWidth,
+      final int itemframeHeight)
+      throws IOException {
+    release(map);
+    final String hash = Files.asByteSource(file).hash(Hashing.sha256()).toString();
+    final AnimationKey key = new AnimationKey(hash, width, height, setting);
+    final SharedAnimation animation =
+        ANIMATIONS.computeIfAbsent(
+            key, k -> new SharedAnimation(library, SCHEDULER, file, width, height, setting));
+    animation.addScreen(map, itemframeWidth, itemframeHeight);
+    MAPS.put(map, animation);
+    Logger.info(
+        String.format(
+            "Map ID %d Shares Animation %s (%d Maps)",
+            map, hash.substring(0, 12), animation.getScreens()));
+  }
+
+  /**
+   * Stops showing an animation on a map. The animation is evicted once no map shows it anymore.
+   *
+   * @param map the map id
+   * @return whether the map was showing an animation
+   */
+  public static synchronized boolean release(final int map) {
+    final SharedAnimation animation = MAPS.remove(map);
+    if (animation == null) {
+      return false;
+    }
+    if (animation.removeScreen(map) == 0) {
+      ANIMATIONS.values().remove(animation);
+      animation.close();
+      Logger.info(String.format("Evicted Animation of Map ID %d", map));
+    }
+    return true;
+  }
+
+  /** Releases every animation. */
+  public static synchronized void clear() {
+    ANIMATIONS.values().forEach(SharedAnimation::close);
+    ANIMATIONS.clear();
+    MAPS.clear();
+  }
+
+  /**
+   * Gets the number of cached animations.
+   *
+   * @return the number of animations
+   */
+  public static synchronized int size() {
+    return ANIMATIONS.size();
+  }
+
+  /**
+   * Gets the number of maps showing an animation.
+   *
+   * @return the number of maps
+   */
+  public static synchronized int getMaps() {
+    return MAPS.size();
+  }
+
+  /** Identifies an animation by its content hash, size and dither setting. */
+  private static final class AnimationKey {
+
+    private final String hash;
+    private final int width;
+    private final int height;
+    private final DitherSetting setting;
+
+    private AnimationKey(
+        @NotNull final String hash,
+        final int width,
+        final int height,
+        @NotNull final DitherSetting setting) {
+      this.hash = hash;
+      this.width = width;
+      this.height = height;
+      this.setting = setting;
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (!(o instanceof AnimationKey)) {
+        return false;
+      }
+      final AnimationKey key = (AnimationKey) o;
+      return width == key.width
+          && height == key.height
+          && hash.equals(key.hash)
+          && setting == key.setting;
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(hash, width, height, setting);
+    }
+  }
+}
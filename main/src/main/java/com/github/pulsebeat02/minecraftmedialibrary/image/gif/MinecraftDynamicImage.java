@@ -25,8 +25,6 @@ package com.github.pulsebeat02.minecraftmedialibrary.image.gif;
 import com.github.pulsebeat02.minecraftmedialibrary.MediaLibrary;
 import com.github.pulsebeat02.minecraftmedialibrary.extractor.FFmpegLocation;
 import com.github.pulsebeat02.minecraftmedialibrary.frame.dither.DitherSetting;
-import com.github.pulsebeat02.minecraftmedialibrary.frame.map.MapDataCallback;
-import com.github.pulsebeat02.minecraftmedialibrary.frame.map.MapIntegratedPlayer;
 import com.github.pulsebeat02.minecraftmedialibrary.image.MapImageHolder;
 import com.github.pulsebeat02.minecraftmedialibrary.image.basic.MinecraftStaticImage;
 import com.github.pulsebeat02.minecraftmedialibrary.logger.Logger;
@@ -35,7 +33,6 @@ import com.github.pulsebeat02.minecraftmedialibrary.utility.VideoUtilities;
 import com.google.common.base.Preconditions;
 import com.google.common.collect.ImmutableMap;
 import org.apache.commons.io.FilenameUtils;
-import org.bukkit.Bukkit;
 import org.bukkit.configuration.serialization.ConfigurationSerializable;
 import org.bukkit.util.NumberConversions;
 import org.jetbrains.annotations.NotNull;
@@ -57,7 +54,7 @@ public class MinecraftDynamicImage implements MapImageHolder, ConfigurationSeria
   private final int map;
   private final int height;
   private final int width;
-  private MapIntegratedPlayer player;
+  private final DitherSetting setting;
 
   /**
    * Instantiates a new MinecraftDynamicImage.
@@ -74,12 +71,33 @@ public class MinecraftDynamicImage implements MapImageHolder, ConfigurationSeria
       @NotNull final File image,
       final int width,
       final int height) {
+    this(library, map, image, width, height, DitherSetting.FLOYD_STEINBERG_DITHER);
+  }
+
+  /**
+   * Instantiates a new MinecraftDynamicImage with a specific dither setting.
+   *
+   * @param library the library
+   * @param map the map
+   * @param image the image
+   * @param width the width
+   * @param height the height
+   * @param setting the dither setting
+   */
+  public MinecraftDynamicImage(
+      @NotNull final MediaLibrary library,
+      final int map,
+      @NotNull final File image,
+      final int width,
+      final int height,
+      @NotNull final DitherSetting setting) {
     Preconditions.checkArgument(image.exists(), "Image does not exist!");
     this.library = library;
     this.map = map;
     this.image = image;
     this.width = width;
     this.height = height;
+    this.setting = setting;
     Logger.info(
         String.format("Initialized Image at Map ID %d (Source: %s)", map, image.getAbsolutePath()));
   }
@@ -101,9 +119,10 @@ public class MinecraftDynamicImage implements MapImageHolder, ConfigurationSeria
       final int height) {
     this.library = library;
     this.map = map;
-    image = FileUtilities.downloadImageFile(url, library.getImageFolder());
+    image = FileUtilities.downloadImageFile(url, library.getCache(), library.getImageFolder());
     this.width = width;
     this.height = height;
+    setting = DitherSetting.FLOYD_STEINBERG_DITHER;
     Logger.info(
         String.format("Initialized Image at Map ID %d (Source: %s)", map, image.getAbsolutePath()));
   }
@@ -137,40 +156,35 @@ public class MinecraftDynamicImage implements MapImageHolder, ConfigurationSeria
   }
 
   /**
-   * Resets a specific map id.
+   * Resets a specific map id, releasing the animation shown on it.
    *
    * @param library the library
    * @param id the id
    */
   public static void resetMap(@NotNull final MediaLibrary library, final int id) {
-    library.getHandler().unregisterMap(id);
+    DynamicImageCache.release(id);
+    MinecraftStaticImage.resetMap(library, id);
   }
 
-  /** Draws the specific image on the map id. */
+  /**
+   * Draws the specific image on the map id. Every image showing the same file at the same size and
+   * dither setting shares one set of dithered frames through the {@link DynamicImageCache}.
+   */
   @Override
   public void drawImage() {
     onDrawImage();
     try {
       final Dimension dims = VideoUtilities.getDimensions(image);
-      final int w = (int) dims.getWidth();
-      player =
-          MapIntegratedPlayer.builder()
-              .setUrl(image.getAbsolutePath())
-              .setWidth(w)
-              .setHeight((int) dims.getHeight())
-              .setCallback(
-                  MapDataCallback.builder()
-                      .setViewers(null)
-                      .setMap(map)
-                      .setItemframeWidth(width)
-                      .setItemframeHeight(height)
-                      .setVideoWidth(w)
-                      .setDelay(0)
-                      .setDitherHolder(DitherSetting.FLOYD_STEINBERG_DITHER.getHolder())
-                      .build(library))
-              .build(library);
-      player.setRepeat(true);
-      player.start(Bukkit.getOnlinePlayers());
+      library.getImageStore().remove(map);
+      DynamicImageCache.acquire(
+          library,
+          image,
+          (int) dims.getWidth(),
+          (int) dims.getHeight(),
+          setting,
+          map,
+          width,
+          height);
       Logger.info(
           String.format(
               "Drew Dynamic Image at Map ID %d (Source: %s)", map, image.getAbsolutePath()));
@@ -179,6 +193,11 @@ public class MinecraftDynamicImage implements MapImageHolder, ConfigurationSeria
     }
   }
 
+  /** Stops the animation on the map and resets it. */
+  public void reset() {
+    resetMap(library, map);
+  }
+
   /** Converts a Gif into an MPEG file. */
   private void convertGifIntoMpeg() {
     final FFmpegLocation ffmpegLocator = new FFmpegLocation();
@@ -264,6 +283,15 @@ public class MinecraftDynamicImage implements MapImageHolder, ConfigurationSeria
     return width;
   }
 
+  /**
+   * Gets the dither setting.
+   *
+   * @return the dither setting
+   */
+  public DitherSetting getSetting() {
+    return setting;
+  }
+
   /** The type Builder. */
   public static class Builder {
 
@@ -271,6 +299,7 @@ public class MinecraftDynamicImage implements MapImageHolder, ConfigurationSeria
     private File image;
     private int height;
     private int width;
+    private DitherSetting setting = DitherSetting.FLOYD_STEINBERG_DITHER;
 
     private Builder() {}
 
@@ -318,6 +347,17 @@ public class MinecraftDynamicImage implements MapImageHolder, ConfigurationSeria
       return this;
     }
 
+    /**
+     * Sets the dither setting.
+     *
+     * @param setting the dither setting
+     * @return the builder
+     */
+    public Builder setDitherSetting(@NotNull final DitherSetting setting) {
+      this.setting = setting;
+      return this;
+    }
+
     /**
      * Create image map map image.
      *
@@ -325,7 +365,7 @@ public class MinecraftDynamicImage implements MapImageHolder, ConfigurationSeria
      * @return the map image
      */
     public MinecraftDynamicImage build(final MediaLibrary library) {
-      return new MinecraftDynamicImage(library, map, image, width, height);
+      return new MinecraftDynamicImage(library, map, image, width, height, setting);
     }
   }
 }
@@ -0,0 +1,300 @@
+/*............................................................................................
+. Copyright © 2021 Brandon Li                                                               .
+.                                                                                           .
+. Permission is hereby granted, free of charge, to any person obtaining a copy of this      .
+. software and associated documentation files (the “Software”), to deal in the Software     .
+. without restriction, including without limitation the rights to use, copy, modify, merge, .
+. publish, distribute, sublicense, and/or sell copies of the Software, and to permit        .
+. persons to whom the Software is furnished to do so, subject to the following conditions:  .
+.                                                                                           .
+. The above copyright notice and this permission notice shall be included in all copies     .
+. or substantial portions of the Software.                                                  .
+.                                                                                           .
+. THE SOFTWARE IS PROVIDED “AS IS”, WITHOUT WARRANTY OF ANY KIND,                           .
+.  EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF                       .
+.   MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND                                   .
+.   NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS                     .
+.   BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN                      .
+.   ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN                       .
+.   CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE                        .
+.   SOFTWARE.                                                                               .
+............................................................................................*/
+
+package com.github.pulsebeat02.minecraftmedialibrary.image.gif;
+
+import com.github.pulsebeat02.minecraftmedialibrary.MediaLibrary;
+import com.github.pulsebeat02.minecraftmedialibrary.concurrent.LibraryExecutors;
+import com.github.pulsebeat02.minecraftmedialibrary.concurrent.PriorityExecutor;
+import com.github.pulsebeat02.minecraftmedialibrary.frame.dither.DitherHolder;
+import com.github.pulsebeat02.minecraftmedialibrary.frame.dither.DitherSetting;
+import com.github.pulsebeat02.minecraftmedialibrary.frame.gif.GifDecoder;
+import com.github.pulsebeat02.minecraftmedialibrary.frame.gif.GifFrameDecoder;
+import com.github.pulsebeat02.minecraftmedialibrary.logger.Logger;
+import com.github.pulsebeat02.minecraftmedialibrary.metrics.PerformanceMetrics;
+import com.github.pulsebeat02.minecraftmedialibrary.nms.MapTile;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * An animation dithered once and played on every map that shows it. The frames are decoded and
+ * dithered on the render pool, so loading a large GIF never holds up the clock playing the other
+ * animations, and a single clock sends every finished frame to all maps.
+ *
+ * <p>Animations whose dithered frames would exceed {@link GifFrameDecoder#MAX_CACHE_SIZE} are
+ * streamed instead. Every frame is then decoded and dithered on the render pool while the previous
+ * one is shown, and handed to the clock once it is ready.
+ */
+final class SharedAnimation {
+
+  private final MediaLibrary library;
+  private final ScheduledExecutorService scheduler;
+  private final PriorityExecutor render;
+  private final File file;
+  private final int width;
+  private final int height;
+  private final DitherSetting setting;
+  private final DitherHolder holder;
+  private final Map<Integer, int[]> screens;
+  private final List<ByteBuffer> frames;
+  private final List<Integer> delays;
+
+  private volatile boolean closed;
+  private GifDecoder stream;
+  private int index;
+  private long deadline;
+
+  /**
+   * Instantiates a new SharedAnimation and starts loading its frames.
+   *
+   * @param library the library
+   * @param scheduler the scheduler playing the animation
+   * @param file the gif file
+   * @param width the width of the frames
+   * @param height the height of the frames
+   * @param setting the dither setting
+   */
+  SharedAnimation(
+      @NotNull final MediaLibrary library,
+      @NotNull final ScheduledExecutorService scheduler,
+      @NotNull final File file,
+      final int width,
+      final int height,
+      @NotNull final DitherSetting setting) {
+    this.library = library;
+    this.scheduler = scheduler;
+    this.file = file;
+    this.width = width;
+    this.height = height;
+    this.setting = setting;
+    holder = setting.getHolder();
+    screens = new ConcurrentHashMap<>();
+    frames = new ArrayList<>();
+    delays = new ArrayList<>();
+    render = LibraryExecutors.render();
+    render.execute(this::load);
+  }
+
+  /**
+   * Decodes and dithers every frame on the render pool, then hands them to the playback clock. If
+   * the dithered frames grow beyond {@link GifFrameDecoder#MAX_CACHE_SIZE}, they are discarded and
+   * the animation is streamed instead.
+   */
+  private void load() {
+    final List<ByteBuffer> dithered = new ArrayList<>();
+    final List<Integer> durations = new ArrayList<>();
+    long size = 0L;
+    try (final GifDecoder decoder = new GifDecoder(file.toPath(), width, height)) {
+      while (!closed && decoder.next()) {
+        final ByteBuffer frame = dither(decoder.getFrame());
+        size += frame.capacity();
+        if (size > GifFrameDecoder.MAX_CACHE_SIZE) {
+          Logger.warn(
+              String.format(
+                  "Animation is too large to cache, streaming it instead! (%s)",
+                  file.getAbsolutePath()));
+          dithered.clear();
+          break;
+        }
+        dithered.add(frame);
+        durations.add(decoder.getDelay());
+      }
+    } catch (final IOException e) {
+      Logger.error(String.format("Could not load the Animation! (%s)", file.getAbsolutePath()));
+      e.printStackTrace();
+      return;
+    }
+    if (closed) {
+      return;
+    }
+    if (size > GifFrameDecoder.MAX_CACHE_SIZE) {
+      deadline = System.nanoTime();
+      stream();
+      return;
+    }
+    if (dithered.isEmpty()) {
+      return;
+    }
+    Logger.info(
+        String.format(
+            "Loaded Animation with %d Frames (Source: %s)",
+            dithered.size(), file.getAbsolutePath()));
+    scheduler.execute(
+        () -> {
+          frames.addAll(dithered);
+          delays.addAll(durations);
+          deadline = System.nanoTime();
+          tick();
+        });
+  }
+
+  /**
+   * Dithers a frame into map colors.
+   *
+   * @param frame the frame
+   * @return the dithered frame
+   */
+  @NotNull
+  private ByteBuffer dither(final int @NotNull [] frame) {
+    final long start = System.nanoTime();
+    final ByteBuffer dithered = holder.ditherIntoMinecraft(frame, width);
+    PerformanceMetrics.recordDither(setting, start);
+    return dithered;
+  }
+
+  /** Sends the current cached frame to every map and schedules the next one. */
+  private void tick() {
+    if (!show(frames.get(index), delays.get(index))) {
+      return;
+    }
+    index = (index + 1) % frames.size();
+    scheduler.schedule(this::tick, deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+  }
+
+  /**
+   * Decodes and dithers the next frame of a streamed animation on the render pool, and schedules it
+   * to be shown at its deadline. The frame after it is only prepared once it was shown, so every
+   * frame has the delay of the previous one to be prepared.
+   */
+  private void stream() {
+    if (closed) {
+      closeStream();
+      return;
+    }
+    final ByteBuffer frame;
+    final int delay;
+    try {
+      if (stream == null) {
+        stream = new GifDecoder(file.toPath(), width, height);
+      }
+      if (!stream.next()) {
+        stream.reset();
+        if (!stream.next()) {
+          closeStream();
+          return;
+        }
+      }
+      frame = dither(stream.getFrame());
+      delay = stream.getDelay();
+    } catch (final IOException e) {
+      Logger.error(String.format("Could not stream the Animation! (%s)", file.getAbsolutePath()));
+      e.printStackTrace();
+      closeStream();
+      return;
+    }
+    scheduler.schedule(
+        () -> {
+          show(frame, delay);
+          render.execute(this::stream);
+        },
+        deadline - System.nanoTime(),
+        TimeUnit.NANOSECONDS);
+  }
+
+  /** Closes the decoder of a streamed animation. */
+  private void closeStream() {
+    if (stream == null) {
+      return;
+    }
+    try {
+      stream.close();
+    } catch (final IOException e) {
+      e.printStackTrace();
+    }
+    stream = null;
+  }
+
+  /**
+   * Sends a frame to every map and moves the deadline of the next frame by its delay. The maps are
+   * sent in a single batch, as the packet handler drops repeated sends to a player within its
+   * threshold.
+   *
+   * @param frame the dithered frame
+   * @param delay the delay of the frame in milliseconds
+   * @return whether the animation is still playing
+   */
+  private boolean show(@NotNull final ByteBuffer frame, final int delay) {
+    if (closed) {
+      return false;
+    }
+    final List<MapTile> tiles = new ArrayList<>(screens.size());
+    for (final Map.Entry<Integer, int[]> entry : screens.entrySet()) {
+      final int[] dims = entry.getValue();
+      tiles.add(new MapTile(entry.getKey(), dims[0], dims[1], frame, width));
+    }
+    if (!tiles.isEmpty()) {
+      library.getHandler().displayMaps(null, tiles);
+    }
+    deadline += TimeUnit.MILLISECONDS.toNanos(delay);
+    return true;
+  }
+
+  /**
+   * Shows the animation on a map.
+   *
+   * @param map the map id
+   * @param itemframeWidth the itemframe width
+   * @param itemframeHeight the itemframe height
+   */
+  void addScreen(final int map, final int itemframeWidth, final int itemframeHeight) {
+    screens.put(map, new int[] {itemframeWidth, itemframeHeight});
+  }
+
+  /**
+   * Stops showing the animation on a map.
+   *
+   * @param map the map id
+   * @return the number of maps still showing the animation
+   */
+  int removeScreen(final int map) {
+    screens.remove(map);
+    return screens.size();
+  }
+
+  /**
+   * Gets the number of maps showing the animation.
+   *
+   * @return the number of maps
+   */
+  int getScreens() {
+    return screens.size();
+  }
+
+  /** Stops the animation and frees its frames. */
+  void close() {
+    closed = true;
+    scheduler.execute(
+        () -> {
+          frames.clear();
+          delays.clear();
+        });
+  }
+}
@@ -22,6 +22,7 @@
 
 package com.github.pulsebeat02.minecraftmedialibrary.nms.impl.v1_13_R1;
 
+import com.github.pulsebeat02.minecraftmedialibrary.nms.MapTile;
 import com.github.pulsebeat02.minecraftmedialibrary.nms.PacketHandler;
 import io.netty.buffer.ByteBuf;
 import io.netty.buffer.Unpooled;
@@ -39,6 +40,9 @@ import org.bukkit.entity.Player;
 
 import java.lang.reflect.Field;
 import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.TreeSet;
@@ -125,6 +129,35 @@ public class NMSMapPacketIntercepter implements PacketHandler {
       final int videoWidth,
       final int xOff,
       final int yOff) {
+    sendMaps(viewers, createMaps(map, width, height, rgb, videoWidth, xOff, yOff));
+  }
+
+  @Override
+  public void displayMaps(final UUID[] viewers, final List<MapTile> tiles) {
+    final List<PacketPlayOutMap> packets = new ArrayList<>();
+    for (final MapTile tile : tiles) {
+      Collections.addAll(
+          packets,
+          createMaps(
+              tile.getMap(),
+              tile.getMapWidth(),
+              tile.getMapHeight(),
+              tile.getRgb(),
+              tile.getVideoWidth(),
+              tile.getXOffset(),
+              tile.getYOffset()));
+    }
+    sendMaps(viewers, packets.toArray(new PacketPlayOutMap[0]));
+  }
+
+  private PacketPlayOutMap[] createMaps(
+      final int map,
+      final int width,
+      final int height,
+      final ByteBuffer rgb,
+      final int videoWidth,
+      final int xOff,
+      final int yOff) {
     final int vidHeight = rgb.capacity() / videoWidth;
     final int negXOff = xOff + videoWidth;
     final int negYOff = yOff + vidHeight;
@@ -173,6 +206,10 @@ public class NMSMapPacketIntercepter implements PacketHandler {
         packetArray[arrIndex++] = packet;
       }
     }
+    return packetArray;
+  }
+
+  private void sendMaps(final UUID[] viewers, final PacketPlayOutMap[] packetArray) {
     if (viewers == null) {
       for (final UUID uuid : playerConnections.keySet()) {
         final long val = lastUpdated.getOrDefault(uuid, 0L);